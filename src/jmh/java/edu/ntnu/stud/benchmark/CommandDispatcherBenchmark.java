@@ -0,0 +1,95 @@
+package edu.ntnu.stud.benchmark;
+
+import edu.ntnu.stud.view.CommandDispatcher;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * This class benchmarks parsing the commands a dispatcher replays most, adding train
+ * departures and delays. Matching them with {@link CommandDispatcher} is compared with
+ * splitting them and parsing the parts, as the user interface used to.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandDispatcherBenchmark {
+  private static final String ADD_COMMAND = "train add 1234 L12 Destination 12:34";
+  private static final String DELAY_COMMAND = "train edit addDelay 1234 15";
+
+  private CommandDispatcher dispatcher;
+  private Blackhole blackhole;
+
+  /**
+   * Registers the commands, with handlers that consume their arguments.
+   *
+   * @param blackhole the blackhole to consume arguments with
+   */
+  @Setup
+  public void setUp(Blackhole blackhole) {
+    this.blackhole = blackhole;
+    dispatcher = new CommandDispatcher();
+    dispatcher.register("train add <int> <word> <word> <time>", arguments -> {
+      this.blackhole.consume(arguments.getInt(0));
+      this.blackhole.consume(arguments.getWord(1));
+      this.blackhole.consume(arguments.getWord(2));
+      this.blackhole.consume(arguments.getTime(3));
+    });
+    dispatcher.register("train edit addDelay <int> <int>", arguments -> {
+      this.blackhole.consume(arguments.getInt(0));
+      this.blackhole.consume(arguments.getInt(1));
+    });
+    dispatcher.register("train edit setTrack <int> <int>", arguments -> { });
+    dispatcher.register("train list", arguments -> { });
+    dispatcher.register("time <time>", arguments -> { });
+  }
+
+  /**
+   * Matches the commands with the dispatcher.
+   *
+   * @return whether the last command matched
+   */
+  @Benchmark
+  public boolean dispatch() {
+    dispatcher.dispatch(ADD_COMMAND);
+    return dispatcher.dispatch(DELAY_COMMAND);
+  }
+
+  /**
+   * Splits the commands and parses the parts.
+   *
+   * @param blackhole the blackhole to consume the parts with
+   */
+  @Benchmark
+  public void split(Blackhole blackhole) {
+    String[] add = ADD_COMMAND.split(" ");
+    if (add[0].equals("train") && add[1].equals("add")) {
+      blackhole.consume(Integer.parseInt(add[2]));
+      blackhole.consume(add[3]);
+      blackhole.consume(add[4]);
+      blackhole.consume(LocalTime.parse(add[5]));
+    }
+    String[] delay = DELAY_COMMAND.split(" ");
+    if (delay[0].equals("train") && delay[1].equals("edit") && delay[2].equals("addDelay")) {
+      blackhole.consume(Integer.parseInt(delay[3]));
+      blackhole.consume(Integer.parseInt(delay[4]));
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package edu.ntnu.stud.benchmark;
+
+import edu.ntnu.stud.models.ConcurrentTrainDepartureRegistry;
+import edu.ntnu.stud.models.DepartureRegistry;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks the throughput of {@link ConcurrentTrainDepartureRegistry} when
+ * several threads update different trains at the same time. Each thread updates a random
+ * train departure, so the threads rarely share a bin of the map, and the remaining contention
+ * is on publishing the tree. Compare the throughput over thread counts with
+ * {@code -t 1}, {@code -t 4} and so on.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(Threads.MAX)
+@Fork(1)
+public class ConcurrentWriteBenchmark {
+
+  @Param({"10000", "1000000"})
+  private int size;
+
+  private DepartureRegistry registry;
+
+  /**
+   * Fills the registry.
+   */
+  @Setup
+  public void setUp() {
+    registry = RegistryBackend.CONCURRENT.create(size);
+  }
+
+  /**
+   * Sets the track of a random train departure, which republishes it in the tree.
+   */
+  @Benchmark
+  public void setTrack() {
+    int trainNumber = 1 + ThreadLocalRandom.current().nextInt(size);
+    registry.setTrack(trainNumber, 1 + (trainNumber & 15));
+  }
+
+  /**
+   * Adds one minute of delay to a random train departure, which moves it in the tree.
+   */
+  @Benchmark
+  public void addDelay() {
+    registry.addDelay(1 + ThreadLocalRandom.current().nextInt(size), 1);
+  }
+}
@@ -0,0 +1,84 @@
+package edu.ntnu.stud.benchmark;
+
+import edu.ntnu.stud.models.DepartureRegistry;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks the registry operations that change the size of the registry. The
+ * registry is refilled before every iteration, and an iteration is a short batch of calls,
+ * so every call runs against a registry of about the parameter size.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+public class GrowingRegistryBenchmark {
+  private static final int INSERT_BATCH = 1000;
+  private static final LocalTime[] TIMES = {
+      LocalTime.of(0, 30), LocalTime.of(6, 15), LocalTime.of(12, 0), LocalTime.of(18, 45)
+  };
+  private static final LocalTime EVICT_BEFORE = LocalTime.of(1, 0);
+
+  @Param({"100", "10000", "1000000"})
+  private int size;
+
+  @Param({"TREE", "COLUMNAR", "CONCURRENT"})
+  private RegistryBackend backend;
+
+  private DepartureRegistry registry;
+  private int nextTrainNumber;
+
+  /**
+   * Refills the registry before each iteration.
+   */
+  @Setup(Level.Iteration)
+  public void setUp() {
+    registry = backend.create(size);
+    nextTrainNumber = size + 1;
+  }
+
+  /**
+   * Adds a new train departure. Each iteration adds {@value #INSERT_BATCH} of them, and the
+   * reported time is for the whole batch.
+   */
+  @Benchmark
+  @Warmup(iterations = 5, batchSize = INSERT_BATCH)
+  @Measurement(iterations = 20, batchSize = INSERT_BATCH)
+  public void newTrainDeparture() {
+    int trainNumber = nextTrainNumber++;
+    registry.newTrainDeparture(trainNumber, "L1",
+        RegistryBackend.destination(trainNumber % RegistryBackend.DESTINATIONS),
+        TIMES[trainNumber & 3]);
+  }
+
+  /**
+   * Deletes the train departures leaving in the first hour of the day, about one in 24 of
+   * the registry.
+   *
+   * @return the number of train departures left
+   */
+  @Benchmark
+  @Warmup(iterations = 5)
+  @Measurement(iterations = 20)
+  public int removeTrainDeparturesBeforeTime() {
+    registry.removeTrainDeparturesBeforeTime(EVICT_BEFORE);
+    return registry.size();
+  }
+}
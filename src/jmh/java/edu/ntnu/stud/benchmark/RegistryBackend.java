@@ -0,0 +1,83 @@
+package edu.ntnu.stud.benchmark;
+
+import edu.ntnu.stud.models.ColumnarTrainDepartureRegistry;
+import edu.ntnu.stud.models.ConcurrentTrainDepartureRegistry;
+import edu.ntnu.stud.models.DepartureRegistry;
+import edu.ntnu.stud.models.TrainDeparture;
+import edu.ntnu.stud.models.TrainDepartureRegistry;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * This enum represents the registry backends the benchmarks compare, and creates registries
+ * filled with a reproducible timetable.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+public enum RegistryBackend {
+  TREE(TrainDepartureRegistry::new),
+  COLUMNAR(ColumnarTrainDepartureRegistry::new),
+  CONCURRENT(ConcurrentTrainDepartureRegistry::new);
+
+  /**
+   * The number of distinct destinations in the generated timetables.
+   */
+  public static final int DESTINATIONS = 100;
+  private static final long SEED = 42;
+
+  private final Supplier<DepartureRegistry> factory;
+
+  /**
+   * Constructor for registry backend.
+   *
+   * @param factory creates an empty registry of this backend
+   */
+  RegistryBackend(Supplier<DepartureRegistry> factory) {
+    this.factory = factory;
+  }
+
+  /**
+   * Creates a registry with train numbers 1 to size, departing at random minutes of the day
+   * to one of {@link #DESTINATIONS} destinations. The same size gives the same timetable.
+   *
+   * @param size the number of train departures
+   * @return the filled registry
+   */
+  public DepartureRegistry create(int size) {
+    DepartureRegistry registry = factory.get();
+    registry.addTrainDepartures(timetable(size));
+    return registry;
+  }
+
+  /**
+   * Creates a reproducible timetable with train numbers 1 to size.
+   *
+   * @param size the number of train departures
+   * @return the train departures
+   */
+  public static List<TrainDeparture> timetable(int size) {
+    var random = new Random(SEED);
+    List<TrainDeparture> trainDepartures = new ArrayList<>(size);
+    for (int trainNumber = 1; trainNumber <= size; trainNumber++) {
+      trainDepartures.add(new TrainDeparture(trainNumber, "L" + random.nextInt(50),
+          destination(random.nextInt(DESTINATIONS)),
+          LocalTime.of(random.nextInt(24), random.nextInt(60))));
+    }
+    return trainDepartures;
+  }
+
+  /**
+   * Gets the name of a generated destination.
+   *
+   * @param index the index of the destination
+   * @return the destination name
+   */
+  public static String destination(int index) {
+    return "Destination" + index;
+  }
+}
@@ -0,0 +1,123 @@
+package edu.ntnu.stud.benchmark;
+
+import edu.ntnu.stud.models.DepartureRegistry;
+import edu.ntnu.stud.models.TrainDepartureSnapshot;
+import edu.ntnu.stud.models.TrainDepartureView;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks the registry operations that keep the size of the registry, on every
+ * backend and over registry sizes. Each call picks the next train departure in a fixed
+ * pseudo random order, so the lookups do not hit the same cache lines every time.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegistryBenchmark {
+  private static final int ORDER_MASK = (1 << 16) - 1;
+  private static final int BOARD_PAGE_SIZE = 15;
+
+  @Param({"100", "10000", "1000000"})
+  private int size;
+
+  @Param({"TREE", "COLUMNAR", "CONCURRENT"})
+  private RegistryBackend backend;
+
+  private DepartureRegistry registry;
+  private int[] order;
+  private int next;
+
+  /**
+   * Fills the registry and picks the order the train departures are visited in.
+   */
+  @Setup
+  public void setUp() {
+    registry = backend.create(size);
+    order = new int[ORDER_MASK + 1];
+    var random = new Random(7);
+    for (int i = 0; i < order.length; i++) {
+      order[i] = 1 + random.nextInt(size);
+    }
+  }
+
+  /**
+   * Gets the next train number to visit.
+   *
+   * @return the train number
+   */
+  private int nextTrainNumber() {
+    return order[next++ & ORDER_MASK];
+  }
+
+  /**
+   * Adds one minute of delay, which moves the train departure in the delay index.
+   */
+  @Benchmark
+  public void addDelay() {
+    registry.addDelay(nextTrainNumber(), 1);
+  }
+
+  /**
+   * Sets the track of a train departure.
+   */
+  @Benchmark
+  public void setTrack() {
+    int trainNumber = nextTrainNumber();
+    registry.setTrack(trainNumber, 1 + (trainNumber & 15));
+  }
+
+  /**
+   * Lists every train number sorted by scheduled departure time.
+   *
+   * @return the sorted train numbers
+   */
+  @Benchmark
+  public ArrayList<Integer> sortedByDepartureTime() {
+    return registry.sortedByDepartureTime();
+  }
+
+  /**
+   * Finds the train departures to one destination, about one in
+   * {@link RegistryBackend#DESTINATIONS} of the registry.
+   *
+   * @return the train numbers to the destination
+   */
+  @Benchmark
+  public ArrayList<Integer> trainDeparturesByDestination() {
+    TrainDepartureView view = registry.trainDeparturesByDestination(
+        RegistryBackend.destination(next++ % RegistryBackend.DESTINATIONS));
+    return view.trainNumbers();
+  }
+
+  /**
+   * Gets one board page of the departures after a time of day that moves with each call.
+   *
+   * @return the page
+   */
+  @Benchmark
+  public TrainDepartureSnapshot upcomingTrainDepartures() {
+    LocalTime time = LocalTime.ofSecondOfDay((next++ & 1023) * 60L);
+    return registry.upcomingTrainDepartures(time, 0, BOARD_PAGE_SIZE);
+  }
+}
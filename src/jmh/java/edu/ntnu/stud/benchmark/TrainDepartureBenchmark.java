@@ -0,0 +1,129 @@
+package edu.ntnu.stud.benchmark;
+
+import edu.ntnu.stud.models.TrainDeparture;
+import edu.ntnu.stud.models.TrainDepartureSnapshot;
+import edu.ntnu.stud.view.InformationBoardRenderer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * This class benchmarks {@link TrainDeparture#trainInfo()}, which the information board calls
+ * once per row. It is measured for one train departure, and for every row of a board with the
+ * parameter size. Formatting the board with printf, as the user interface used to, is
+ * compared with rendering it with {@link InformationBoardRenderer}, which does not call it.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrainDepartureBenchmark {
+
+  @Param({"100", "10000", "1000000"})
+  private int size;
+
+  private TrainDeparture trainDeparture;
+  private TrainDepartureSnapshot board;
+  private InformationBoardRenderer renderer;
+  private PrintStream printStream;
+
+  /**
+   * Creates the train departure and the board.
+   */
+  @Setup
+  public void setUp() {
+    trainDeparture = new TrainDeparture(1, "L1", "Destination", LocalTime.of(12, 0), 5, 3);
+    board = RegistryBackend.TREE.create(size).snapshot();
+    printStream = new PrintStream(OutputStream.nullOutputStream());
+    renderer = new InformationBoardRenderer(new WritableByteChannel() {
+      @Override
+      public int write(ByteBuffer source) {
+        int written = source.remaining();
+        source.position(source.limit());
+        return written;
+      }
+
+      @Override
+      public boolean isOpen() {
+        return true;
+      }
+
+      @Override
+      public void close() {
+      }
+    });
+  }
+
+  /**
+   * Gets the information of one train departure.
+   *
+   * @return the information
+   */
+  @Benchmark
+  public HashMap<String, String> trainInfo() {
+    return trainDeparture.trainInfo();
+  }
+
+  /**
+   * Gets the information of every train departure on the board.
+   *
+   * @param blackhole consumes the information so it is not optimized away
+   */
+  @Benchmark
+  public void trainInfoForBoard(Blackhole blackhole) {
+    for (TrainDeparture row : board.getTrainDepartures()) {
+      blackhole.consume(row.trainInfo());
+    }
+  }
+
+  /**
+   * Formats every row of the board with printf, the way the user interface used to.
+   */
+  @Benchmark
+  public void formatBoard() {
+    for (TrainDeparture row : board.getTrainDepartures()) {
+      HashMap<String, String> info = row.trainInfo();
+      printStream.printf("%-12s%-11s%-18s%-16s%-12s%-11s\n",
+          info.get("trainNumber"),
+          info.get("line"),
+          info.get("destination"),
+          info.get("departureTime"),
+          info.get("track"),
+          info.get("delay"));
+    }
+  }
+
+  /**
+   * Renders every row of the board into the renderer's buffer, and hands it to a channel that
+   * discards it.
+   *
+   * @throws IOException never, the output is discarded
+   */
+  @Benchmark
+  public void renderBoard() throws IOException {
+    renderer.render(LocalTime.NOON, board);
+  }
+}
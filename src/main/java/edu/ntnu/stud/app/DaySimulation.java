@@ -0,0 +1,276 @@
+package edu.ntnu.stud.app;
+
+import edu.ntnu.stud.models.DepartureRegistry;
+import edu.ntnu.stud.models.TrainDeparture;
+import edu.ntnu.stud.utils.Validation;
+import edu.ntnu.stud.view.UserInterface;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class replays a day of dispatching against a registry faster than real time, to find
+ * out how much load the registry can take before a station is rolled out.
+ *
+ * <p>The commands run through a headless {@link UserInterface}, the same way an operator's
+ * commands do. The clock of the user interface is advanced one {@code time} command at a
+ * time, and each of these ticks is timed, as it is where the departed trains are removed.
+ * The workload between ticks comes either from a seeded random model, with
+ * {@link #runRandom(long, int)}, or from a recorded trace of commands, with
+ * {@link #replay(BufferedReader)}.
+ *
+ * <p>The simulation is paced so simulated time runs at most the given number of times faster
+ * than real time. A speed of zero runs as fast as possible. A simulation can only be run once,
+ * as the clock cannot be turned back.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+public class DaySimulation {
+  private static final String TIME_COMMAND = "time ";
+  private static final int MINUTES_PER_DAY = 24 * 60;
+  // the random model delays and moves the trains due to leave within the window
+  private static final int WINDOW_MINUTES = 60;
+  private static final double DELAY_SHARE = 0.8;
+  private static final double MEAN_DELAY_MINUTES = 6;
+  private static final int MAX_DELAY_MINUTES = 120;
+  private static final int MAX_TRACK = 20;
+
+  private final DepartureRegistry registry;
+  private final int speed;
+  private final UserInterface userInterface;
+  private boolean started = false;
+
+  // counters of the run
+  private int operations;
+  private int failed;
+  private int evicted;
+  private long[] evictionNanos = new long[MINUTES_PER_DAY];
+  private int ticks;
+  private long startNanos;
+
+  /**
+   * Constructor for day simulation, starting at midnight.
+   *
+   * @param registry the registry to simulate, with the timetable of the day loaded
+   * @param speed    how many times faster than real time to run at most, or 0 for no limit
+   * @throws IllegalArgumentException if registry is null
+   * @throws IllegalArgumentException if speed is negative
+   */
+  public DaySimulation(DepartureRegistry registry, int speed) {
+    Validation.validateNotNull(registry, "Registry");
+    Validation.validateZeroOrPositiveNumber(speed, "Speed");
+    this.registry = registry;
+    this.speed = speed;
+    this.userInterface = new UserInterface(registry,
+        new PrintStream(OutputStream.nullOutputStream()));
+  }
+
+  /**
+   * Simulates the day with a seeded random workload. Every minute, the given number of
+   * operations pick a train due to leave within the hour, and either delay it or change its
+   * track. Delays are mostly short, with a long tail. The same seed and timetable give the
+   * same workload.
+   *
+   * @param seed            the seed of the random model
+   * @param eventsPerMinute the number of operations every simulated minute
+   * @return the report of the simulation
+   * @throws IllegalArgumentException if events per minute is negative
+   * @throws IllegalStateException if the simulation has already been run
+   */
+  public SimulationReport runRandom(long seed, int eventsPerMinute) {
+    Validation.validateZeroOrPositiveNumber(eventsPerMinute, "Events per minute");
+    begin();
+    List<TrainDeparture> timetable = registry.snapshot().getTrainDepartures().stream()
+        .sorted(Comparator.comparing(TrainDeparture::getDepartureTime))
+        .toList();
+    int[] trainNumbers = new int[timetable.size()];
+    int[] departureMinutes = new int[timetable.size()];
+    for (int i = 0; i < timetable.size(); i++) {
+      TrainDeparture trainDeparture = timetable.get(i);
+      LocalTime departureTime = trainDeparture.getDepartureTime();
+      trainNumbers[i] = trainDeparture.getTrainNumber();
+      departureMinutes[i] = departureTime.getHour() * 60 + departureTime.getMinute();
+    }
+    var random = new Random(seed);
+    for (int minute = 0; minute < MINUTES_PER_DAY - 1; minute++) {
+      int from = firstAtOrAfter(departureMinutes, minute);
+      int to = firstAtOrAfter(departureMinutes, minute + WINDOW_MINUTES);
+      for (int event = 0; event < eventsPerMinute && from < to; event++) {
+        int trainNumber = trainNumbers[from + random.nextInt(to - from)];
+        if (random.nextDouble() < DELAY_SHARE) {
+          int delay = 1 + (int) Math.min(MAX_DELAY_MINUTES - 1,
+              -Math.log(1 - random.nextDouble()) * MEAN_DELAY_MINUTES);
+          operation("train edit addDelay " + trainNumber + " " + delay);
+        } else {
+          operation("train edit setTrack " + trainNumber + " " + (1 + random.nextInt(MAX_TRACK)));
+        }
+      }
+      tick(TIME_COMMAND + LocalTime.of((minute + 1) / 60, (minute + 1) % 60));
+      pace((minute + 1) * 60L);
+    }
+    return finish((MINUTES_PER_DAY - 1) * 60L);
+  }
+
+  /**
+   * Simulates the day by replaying a recorded trace, in the format of a batch script. Each
+   * {@code time} command is a tick of the clock, and the time between two ticks is how far
+   * simulated time advances. Blank lines and lines starting with '#' are skipped, and an exit
+   * command ends the trace.
+   *
+   * @param trace the trace to replay
+   * @return the report of the simulation
+   * @throws IOException if the trace cannot be read
+   * @throws IllegalArgumentException if trace is null
+   * @throws IllegalStateException if the simulation has already been run
+   */
+  public SimulationReport replay(BufferedReader trace) throws IOException {
+    Validation.validateNotNull(trace, "Trace");
+    begin();
+    LocalTime first = userInterface.getCurrentTime();
+    long simulatedSeconds = 0;
+    String command;
+    while (!userInterface.hasExited() && (command = trace.readLine()) != null) {
+      command = command.strip();
+      if (command.isEmpty() || command.startsWith("#")) {
+        continue;
+      }
+      if (!command.startsWith(TIME_COMMAND)) {
+        operation(command);
+        continue;
+      }
+      tick(command);
+      try {
+        LocalTime time = LocalTime.parse(command.substring(TIME_COMMAND.length()).strip());
+        simulatedSeconds = Math.max(simulatedSeconds,
+            time.toSecondOfDay() - first.toSecondOfDay());
+      } catch (DateTimeParseException e) {
+        // the tick failed and was counted, simulated time stays where it was
+      }
+      pace(simulatedSeconds);
+    }
+    return finish(simulatedSeconds);
+  }
+
+  /**
+   * Starts the run, resetting the counters and the peak of the heap.
+   *
+   * @throws IllegalStateException if the simulation has already been run
+   */
+  private void begin() {
+    if (started) {
+      throw new IllegalStateException("Simulation has already been run");
+    }
+    started = true;
+    heapPools().forEach(MemoryPoolMXBean::resetPeakUsage);
+    startNanos = System.nanoTime();
+  }
+
+  /**
+   * Ends the run and reports it.
+   *
+   * @param simulatedSeconds the simulated time covered in seconds
+   * @return the report of the simulation
+   */
+  private SimulationReport finish(long simulatedSeconds) {
+    long elapsedNanos = System.nanoTime() - startNanos;
+    long peakHeapBytes = heapPools().stream()
+        .mapToLong(pool -> pool.getPeakUsage().getUsed())
+        .sum();
+    return new SimulationReport(operations, failed, evicted, Arrays.copyOf(evictionNanos, ticks),
+        simulatedSeconds, elapsedNanos, peakHeapBytes);
+  }
+
+  /**
+   * Gets the memory pools of the heap.
+   *
+   * @return the heap memory pools
+   */
+  private static List<MemoryPoolMXBean> heapPools() {
+    return ManagementFactory.getMemoryPoolMXBeans().stream()
+        .filter(pool -> pool.getType() == MemoryType.HEAP && pool.isValid())
+        .toList();
+  }
+
+  /**
+   * Runs a workload command.
+   *
+   * @param command the command
+   */
+  private void operation(String command) {
+    operations++;
+    if (userInterface.runHeadless(command) != null) {
+      failed++;
+    }
+  }
+
+  /**
+   * Runs a time command, timing it and counting the departed trains it removed.
+   *
+   * @param command the time command
+   */
+  private void tick(String command) {
+    int sizeBefore = registry.size();
+    long start = System.nanoTime();
+    String failure = userInterface.runHeadless(command);
+    long elapsed = System.nanoTime() - start;
+    if (failure != null) {
+      failed++;
+      return;
+    }
+    if (ticks == evictionNanos.length) {
+      evictionNanos = Arrays.copyOf(evictionNanos, ticks * 2);
+    }
+    evictionNanos[ticks++] = elapsed;
+    evicted += sizeBefore - registry.size();
+  }
+
+  /**
+   * Waits until real time has caught up with simulated time at the speed of the simulation.
+   *
+   * @param simulatedSeconds the simulated time covered so far in seconds
+   */
+  private void pace(long simulatedSeconds) {
+    if (speed == 0) {
+      return;
+    }
+    long due = startNanos + simulatedSeconds * 1_000_000_000L / speed;
+    long wait;
+    while ((wait = due - System.nanoTime()) > 0) {
+      LockSupport.parkNanos(wait);
+    }
+  }
+
+  /**
+   * Finds the first index with a value at or after the key in a sorted array.
+   *
+   * @param values the sorted values
+   * @param key    the key
+   * @return the index of the first value at or after the key, or the length of the array
+   */
+  private static int firstAtOrAfter(int[] values, int key) {
+    int low = 0;
+    int high = values.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (values[middle] < key) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+}
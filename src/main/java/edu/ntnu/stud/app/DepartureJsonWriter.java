@@ -0,0 +1,252 @@
+package edu.ntnu.stud.app;
+
+import edu.ntnu.stud.models.TrainDeparture;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * This class writes train departures as JSON. The fields are written straight from the
+ * getters of each train departure into a buffer, which is written to the stream whenever it
+ * fills, so a large response is streamed without building strings or maps for the rows.
+ *
+ * <p>A train departure is written as
+ * {@code {"trainNumber":1,"line":"A1","destination":"Oslo","departureTime":"06:00",
+ * "delay":5,"departureTimeWithDelay":"06:05","track":3}}, where a track of -1 means no track
+ * is set.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+class DepartureJsonWriter {
+  private static final int BUFFER_SIZE = 8 * 1024;
+  private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+  private final OutputStream out;
+  private final byte[] buffer = new byte[BUFFER_SIZE];
+  private int position;
+
+  /**
+   * Constructor for departure JSON writer.
+   *
+   * @param out the stream to write to
+   */
+  DepartureJsonWriter(OutputStream out) {
+    this.out = out;
+  }
+
+  /**
+   * Writes a list of train departures, as {@code {"version":1,"departures":[...]}}.
+   *
+   * @param version         the registry version the train departures were read at
+   * @param trainDepartures the train departures
+   * @throws IOException if the stream cannot be written
+   */
+  void writeDepartures(long version, List<TrainDeparture> trainDepartures) throws IOException {
+    putAscii("{\"version\":");
+    putLong(version);
+    putAscii(",\"departures\":[");
+    boolean first = true;
+    for (TrainDeparture trainDeparture : trainDepartures) {
+      if (!first) {
+        put((byte) ',');
+      }
+      putDeparture(trainDeparture);
+      first = false;
+    }
+    putAscii("]}");
+    flush();
+  }
+
+  /**
+   * Writes one train departure, as {@code {"version":1,"departure":{...}}}.
+   *
+   * @param version        the registry version the train departure was read at
+   * @param trainDeparture the train departure
+   * @throws IOException if the stream cannot be written
+   */
+  void writeDeparture(long version, TrainDeparture trainDeparture) throws IOException {
+    putAscii("{\"version\":");
+    putLong(version);
+    putAscii(",\"departure\":");
+    putDeparture(trainDeparture);
+    put((byte) '}');
+    flush();
+  }
+
+  /**
+   * Writes the registry version after a change, as {@code {"version":1}}.
+   *
+   * @param version the registry version
+   * @throws IOException if the stream cannot be written
+   */
+  void writeVersion(long version) throws IOException {
+    putAscii("{\"version\":");
+    putLong(version);
+    put((byte) '}');
+    flush();
+  }
+
+  /**
+   * Writes an error, as {@code {"error":"message"}}.
+   *
+   * @param message the error message
+   * @throws IOException if the stream cannot be written
+   */
+  void writeError(String message) throws IOException {
+    putAscii("{\"error\":");
+    putString(message);
+    put((byte) '}');
+    flush();
+  }
+
+  /**
+   * Writes the fields of a train departure as a JSON object.
+   *
+   * @param trainDeparture the train departure
+   * @throws IOException if the stream cannot be written
+   */
+  private void putDeparture(TrainDeparture trainDeparture) throws IOException {
+    int secondOfDay = trainDeparture.getDepartureTime().toSecondOfDay();
+    putAscii("{\"trainNumber\":");
+    putLong(trainDeparture.getTrainNumber());
+    putAscii(",\"line\":");
+    putString(trainDeparture.getLine());
+    putAscii(",\"destination\":");
+    putString(trainDeparture.getDestination());
+    putAscii(",\"departureTime\":");
+    putTime(secondOfDay);
+    putAscii(",\"delay\":");
+    putLong(trainDeparture.getDelay());
+    putAscii(",\"departureTimeWithDelay\":");
+    putTime(trainDeparture.departureSecondOfDayWithDelay());
+    putAscii(",\"track\":");
+    putLong(trainDeparture.getTrack());
+    put((byte) '}');
+  }
+
+  /**
+   * Writes a time as a JSON string in the format of {@link LocalTime#toString()}.
+   *
+   * @param secondOfDay the second of day of the time
+   * @throws IOException if the stream cannot be written
+   */
+  private void putTime(int secondOfDay) throws IOException {
+    put((byte) '"');
+    putTwoDigits(secondOfDay / 3600);
+    put((byte) ':');
+    putTwoDigits(secondOfDay / 60 % 60);
+    if (secondOfDay % 60 != 0) {
+      put((byte) ':');
+      putTwoDigits(secondOfDay % 60);
+    }
+    put((byte) '"');
+  }
+
+  /**
+   * Writes a number from 0 to 99 as two digits.
+   *
+   * @param value the number
+   * @throws IOException if the stream cannot be written
+   */
+  private void putTwoDigits(int value) throws IOException {
+    put((byte) ('0' + value / 10));
+    put((byte) ('0' + value % 10));
+  }
+
+  /**
+   * Writes a whole number.
+   *
+   * @param value the number
+   * @throws IOException if the stream cannot be written
+   */
+  private void putLong(long value) throws IOException {
+    if (value < 0) {
+      put((byte) '-');
+      value = -value;
+    }
+    if (value >= 10) {
+      putLong(value / 10);
+    }
+    put((byte) ('0' + value % 10));
+  }
+
+  /**
+   * Writes a string as a JSON string, escaping quotes, backslashes and control characters
+   * and encoding the rest as UTF-8.
+   *
+   * @param string the string
+   * @throws IOException if the stream cannot be written
+   */
+  private void putString(String string) throws IOException {
+    put((byte) '"');
+    for (int i = 0; i < string.length(); i++) {
+      char c = string.charAt(i);
+      if (c == '"' || c == '\\') {
+        put((byte) '\\');
+        put((byte) c);
+      } else if (c < 0x20) {
+        putAscii("\\u00");
+        put(HEX[c >> 4]);
+        put(HEX[c & 0xF]);
+      } else if (c < 0x80) {
+        put((byte) c);
+      } else if (c < 0x800) {
+        put((byte) (0xC0 | c >> 6));
+        put((byte) (0x80 | c & 0x3F));
+      } else if (Character.isHighSurrogate(c) && i + 1 < string.length()
+          && Character.isLowSurrogate(string.charAt(i + 1))) {
+        int codePoint = Character.toCodePoint(c, string.charAt(++i));
+        put((byte) (0xF0 | codePoint >> 18));
+        put((byte) (0x80 | codePoint >> 12 & 0x3F));
+        put((byte) (0x80 | codePoint >> 6 & 0x3F));
+        put((byte) (0x80 | codePoint & 0x3F));
+      } else if (Character.isSurrogate(c)) {
+        put((byte) '?');
+      } else {
+        put((byte) (0xE0 | c >> 12));
+        put((byte) (0x80 | c >> 6 & 0x3F));
+        put((byte) (0x80 | c & 0x3F));
+      }
+    }
+    put((byte) '"');
+  }
+
+  /**
+   * Writes a string of ASCII characters as it is.
+   *
+   * @param ascii the string
+   * @throws IOException if the stream cannot be written
+   */
+  private void putAscii(String ascii) throws IOException {
+    for (int i = 0; i < ascii.length(); i++) {
+      put((byte) ascii.charAt(i));
+    }
+  }
+
+  /**
+   * Writes one byte, writing the buffer to the stream first if it is full.
+   *
+   * @param b the byte
+   * @throws IOException if the stream cannot be written
+   */
+  private void put(byte b) throws IOException {
+    if (position == buffer.length) {
+      flush();
+    }
+    buffer[position++] = b;
+  }
+
+  /**
+   * Writes the buffer to the stream.
+   *
+   * @throws IOException if the stream cannot be written
+   */
+  private void flush() throws IOException {
+    out.write(buffer, 0, position);
+    position = 0;
+  }
+}
@@ -0,0 +1,365 @@
+package edu.ntnu.stud.app;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import edu.ntnu.stud.models.DepartureRegistry;
+import edu.ntnu.stud.models.TrainDeparture;
+import edu.ntnu.stud.models.TrainDepartureSnapshot;
+import edu.ntnu.stud.utils.Threads;
+import edu.ntnu.stud.utils.Validation;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class serves queries and changes to a registry as JSON over HTTP.
+ *
+ * <p>Requests:
+ * <ul>
+ *   <li>{@code GET /departures} lists every train departure, sorted by departure time with
+ *   delay. With {@code destination}, only those to the destination are listed. With
+ *   {@code from=HH:mm}, only those at or after the time are listed, and {@code skip} and
+ *   {@code count} select a page of them.</li>
+ *   <li>{@code GET /departures/<trainNumber>} shows one train departure.</li>
+ *   <li>{@code POST /departures/<trainNumber>/delay?minutes=<minutes>} adds delay.</li>
+ *   <li>{@code POST /departures/<trainNumber>/track?track=<track>} sets the track.</li>
+ * </ul>
+ * Train departures are written as described in {@link DepartureJsonWriter}, and errors as
+ * {@code {"error":"message"}} with status 400, 404 or 405.
+ *
+ * <p>Every answer to a query carries the registry version as its ETag, after the time the
+ * server was started, so an ETag from an earlier server on the same port, whose registry
+ * counted its versions from zero again, is never taken as current. A client that sends it
+ * back in {@code If-None-Match} gets 304 Not Modified until the registry changes, without
+ * the registry being read. Lists are answered from one snapshot, and one train departure is
+ * looked up by its train number. The version is read first, so an answer is never older than
+ * its ETag.
+ *
+ * <p>Each request runs on its own thread, which is virtual when the runtime has virtual
+ * threads, so the registry must be thread safe.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+public class DispatchHttpServer implements Closeable {
+  private static final String PATH = "/departures";
+  private static final String JSON_TYPE = "application/json; charset=utf-8";
+
+  private final DepartureRegistry registry;
+  private final HttpServer server;
+  // tells the versions of this server apart from those of earlier servers
+  private final long epoch = System.nanoTime();
+
+  /**
+   * Constructor for dispatch HTTP server. Binds the port, but does not answer requests until
+   * started.
+   *
+   * @param registry the thread safe registry to serve
+   * @param port     the port to listen on, or 0 for any free port
+   * @throws IOException if the port cannot be bound
+   * @throws IllegalArgumentException if registry is null
+   * @throws IllegalArgumentException if port is negative
+   */
+  public DispatchHttpServer(DepartureRegistry registry, int port) throws IOException {
+    Validation.validateNotNull(registry, "Registry");
+    Validation.validateZeroOrPositiveNumber(port, "Port");
+    this.registry = registry;
+    this.server = HttpServer.create(new InetSocketAddress(port), 0);
+    server.createContext(PATH, this::handle);
+    server.setExecutor(Threads.perTaskExecutor("dispatch-http-"));
+  }
+
+  /**
+   * Starts answering requests.
+   */
+  public void start() {
+    server.start();
+  }
+
+  /**
+   * Gets the port the server listens on.
+   *
+   * @return the port
+   */
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * Stops the server, without waiting for requests being answered.
+   */
+  @Override
+  public void close() {
+    server.stop(0);
+  }
+
+  /**
+   * Answers one request.
+   *
+   * @param exchange the request and its response
+   * @throws IOException if the response cannot be written
+   */
+  private void handle(HttpExchange exchange) throws IOException {
+    try {
+      String resource = exchange.getRequestURI().getPath().substring(PATH.length());
+      String[] path = resource.split("/");
+      Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+      if (resource.isEmpty() || resource.equals("/")) {
+        if (requireMethod(exchange, "GET")) {
+          listDepartures(exchange, query);
+        }
+      } else if (path.length < 2 || path.length > 3 || !path[0].isEmpty()
+          || !isNumber(path[1])) {
+        sendError(exchange, 404, "No such resource");
+      } else if (path.length == 2) {
+        if (requireMethod(exchange, "GET")) {
+          showDeparture(exchange, Integer.parseInt(path[1]));
+        }
+      } else if (path[2].equals("delay") || path[2].equals("track")) {
+        if (requireMethod(exchange, "POST")) {
+          changeDeparture(exchange, Integer.parseInt(path[1]), path[2], query);
+        }
+      } else {
+        sendError(exchange, 404, "No such resource");
+      }
+    } catch (IllegalArgumentException | DateTimeParseException e) {
+      sendError(exchange, 400, e.getMessage());
+    } finally {
+      exchange.close();
+    }
+  }
+
+  /**
+   * Answers a query for a list of train departures.
+   *
+   * @param exchange the request and its response
+   * @param query    the query parameters
+   * @throws IOException if the response cannot be written
+   */
+  private void listDepartures(HttpExchange exchange, Map<String, String> query)
+      throws IOException {
+    if (notModified(exchange)) {
+      return;
+    }
+    String destination = query.get("destination");
+    TrainDepartureSnapshot snapshot = destination == null
+        ? null : registry.trainDeparturesTo(destination);
+    List<TrainDeparture> trainDepartures;
+    if (query.containsKey("from")) {
+      LocalTime from = LocalTime.parse(query.get("from"));
+      int skip = Integer.parseInt(query.getOrDefault("skip", "0"));
+      int count = Integer.parseInt(query.getOrDefault("count", "" + Integer.MAX_VALUE));
+      if (snapshot == null) {
+        snapshot = registry.upcomingTrainDepartures(from, skip, count);
+        trainDepartures = snapshot.getTrainDepartures();
+      } else {
+        trainDepartures = page(snapshot.getTrainDepartures(), from, skip, count);
+      }
+    } else {
+      if (snapshot == null) {
+        snapshot = registry.snapshot();
+      }
+      trainDepartures = snapshot.getTrainDepartures();
+    }
+    DepartureJsonWriter writer = beginResponse(exchange, 200, snapshot.getVersion());
+    writer.writeDepartures(snapshot.getVersion(), trainDepartures);
+  }
+
+  /**
+   * Answers a query for one train departure.
+   *
+   * @param exchange    the request and its response
+   * @param trainNumber the train number
+   * @throws IOException if the response cannot be written
+   */
+  private void showDeparture(HttpExchange exchange, int trainNumber) throws IOException {
+    if (notModified(exchange)) {
+      return;
+    }
+    long version = registry.version();
+    TrainDeparture trainDeparture = registry.findTrainDeparture(trainNumber);
+    if (trainDeparture == null) {
+      sendError(exchange, 404, "Train number " + trainNumber + " is not in registry");
+      return;
+    }
+    beginResponse(exchange, 200, version).writeDeparture(version, trainDeparture);
+  }
+
+  /**
+   * Cuts a page from train departures sorted by departure time with delay, the same way as
+   * {@link DepartureRegistry#upcomingTrainDepartures(LocalTime, int, int)}.
+   *
+   * @param trainDepartures the train departures sorted by departure time with delay
+   * @param from            the time to list departures from
+   * @param skip            the number of departures to leave out
+   * @param count           the largest number of departures to return
+   * @return the page of train departures
+   * @throws IllegalArgumentException if skip is negative
+   * @throws IllegalArgumentException if count is zero or less
+   */
+  private static List<TrainDeparture> page(List<TrainDeparture> trainDepartures,
+                                           LocalTime from, int skip, int count) {
+    Validation.validateZeroOrPositiveNumber(skip, "Skip");
+    Validation.validatePositiveNumber(count, "Count");
+    int low = 0;
+    int high = trainDepartures.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (trainDepartures.get(middle).departureTimeWithDelay().isBefore(from)) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    int first = (int) Math.min((long) low + skip, trainDepartures.size());
+    int last = (int) Math.min((long) first + count, trainDepartures.size());
+    return trainDepartures.subList(first, last);
+  }
+
+  /**
+   * Adds delay to, or sets the track of, a train departure.
+   *
+   * @param exchange    the request and its response
+   * @param trainNumber the train number
+   * @param change      delay or track
+   * @param query       the query parameters
+   * @throws IOException if the response cannot be written
+   * @throws IllegalArgumentException if the value is missing or not accepted by the registry
+   */
+  private void changeDeparture(HttpExchange exchange, int trainNumber, String change,
+                               Map<String, String> query) throws IOException {
+    String parameter = change.equals("delay") ? "minutes" : "track";
+    String value = query.get(parameter);
+    Validation.validateNotNull(value, "Parameter " + parameter);
+    if (!registry.containsTrainNumber(trainNumber)) {
+      sendError(exchange, 404, "Train number " + trainNumber + " is not in registry");
+      return;
+    }
+    if (change.equals("delay")) {
+      registry.addDelay(trainNumber, Integer.parseInt(value));
+    } else {
+      registry.setTrack(trainNumber, Integer.parseInt(value));
+    }
+    beginResponse(exchange, 200, -1).writeVersion(registry.version());
+  }
+
+  /**
+   * Answers 304 Not Modified if the client has the current version.
+   *
+   * @param exchange the request and its response
+   * @return true if 304 was sent
+   * @throws IOException if the response cannot be written
+   */
+  private boolean notModified(HttpExchange exchange) throws IOException {
+    String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+    long version = registry.version();
+    if (ifNoneMatch == null || !ifNoneMatch.equals(etag(version))) {
+      return false;
+    }
+    exchange.getResponseHeaders().set("ETag", etag(version));
+    exchange.sendResponseHeaders(304, -1);
+    return true;
+  }
+
+  /**
+   * Checks that the request uses a method, and answers 405 if it does not.
+   *
+   * @param exchange the request and its response
+   * @param method   the method the resource accepts
+   * @return true if the request uses the method
+   * @throws IOException if the response cannot be written
+   */
+  private boolean requireMethod(HttpExchange exchange, String method)
+      throws IOException {
+    if (exchange.getRequestMethod().equals(method)) {
+      return true;
+    }
+    exchange.getResponseHeaders().set("Allow", method);
+    sendError(exchange, 405, "Method must be " + method);
+    return false;
+  }
+
+  /**
+   * Sends the headers of a JSON response, streamed with chunked encoding.
+   *
+   * @param exchange the request and its response
+   * @param status   the status code
+   * @param version  the registry version for the ETag, or -1 for no ETag
+   * @return a writer for the body
+   * @throws IOException if the response cannot be written
+   */
+  private DepartureJsonWriter beginResponse(HttpExchange exchange, int status, long version)
+      throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", JSON_TYPE);
+    if (version >= 0) {
+      exchange.getResponseHeaders().set("ETag", etag(version));
+      exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+    }
+    exchange.sendResponseHeaders(status, 0);
+    OutputStream body = exchange.getResponseBody();
+    return new DepartureJsonWriter(body);
+  }
+
+  /**
+   * Sends an error as JSON.
+   *
+   * @param exchange the request and its response
+   * @param status   the status code
+   * @param message  the error message
+   * @throws IOException if the response cannot be written
+   */
+  private void sendError(HttpExchange exchange, int status, String message)
+      throws IOException {
+    beginResponse(exchange, status, -1).writeError(message == null ? "Bad request" : message);
+  }
+
+  /**
+   * Creates the ETag of a registry version, from the epoch of the server and the version.
+   *
+   * @param version the registry version
+   * @return the ETag
+   */
+  private String etag(long version) {
+    return "\"" + epoch + "-" + version + "\"";
+  }
+
+  /**
+   * Checks if a path segment is a train number.
+   *
+   * @param segment the path segment
+   * @return true if the segment is a whole number that fits an int
+   */
+  private static boolean isNumber(String segment) {
+    return segment.matches("\\d{1,9}");
+  }
+
+  /**
+   * Parses the parameters of a query string.
+   *
+   * @param rawQuery the query string, or null if there is none
+   * @return the parameters, the first value kept for repeated names
+   */
+  private static Map<String, String> parseQuery(String rawQuery) {
+    Map<String, String> parameters = new HashMap<>();
+    if (rawQuery == null) {
+      return parameters;
+    }
+    for (String pair : rawQuery.split("&")) {
+      int equals = pair.indexOf('=');
+      String name = equals < 0 ? pair : pair.substring(0, equals);
+      String value = equals < 0 ? "" : pair.substring(equals + 1);
+      parameters.putIfAbsent(URLDecoder.decode(name, StandardCharsets.UTF_8),
+          URLDecoder.decode(value, StandardCharsets.UTF_8));
+    }
+    return parameters;
+  }
+}
@@ -0,0 +1,200 @@
+package edu.ntnu.stud.app;
+
+import edu.ntnu.stud.models.DepartureRegistry;
+import edu.ntnu.stud.utils.DispatchMetrics;
+import edu.ntnu.stud.utils.FastInputReader;
+import edu.ntnu.stud.utils.Threads;
+import edu.ntnu.stud.utils.Validation;
+import edu.ntnu.stud.view.UserInterface;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class serves the command language of the user interface over TCP, so many operators
+ * and boards can work on one registry at the same time.
+ *
+ * <p>A client sends one command per line, as in a script. The output of the command is sent
+ * back, followed by a line with {@code OK}, or with {@code ERROR} and the reason if the
+ * command failed. Commands that prompt the user fail, and the exit command closes the
+ * connection. The current time belongs to the server, as setting it removes the departed
+ * trains from the shared registry: a time set on one connection holds for all of them, and
+ * can only move forward.
+ *
+ * <p>Each connection is served by its own thread, which is virtual when the runtime has
+ * virtual threads, see {@link Threads}. An idle connection keeps only a small read buffer,
+ * so thousands of them fit in a small heap. The registry is shared by every connection, so it
+ * must be thread safe, such as a
+ * {@link edu.ntnu.stud.models.ConcurrentTrainDepartureRegistry}.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+public class DispatchServer implements Closeable {
+  private static final int CONNECTION_BUFFER_SIZE = 1024;
+  private static final int BACKLOG = 1024;
+
+  private final DepartureRegistry registry;
+  private final ServerSocket serverSocket;
+  private final ThreadFactory connectionThreads = Threads.perTaskFactory("dispatch-connection-");
+  private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+  private final Thread acceptor;
+  // the current time of every connection, only ever moved forward
+  private final AtomicReference<LocalTime> currentTime = new AtomicReference<>(LocalTime.of(0, 0));
+  // set by instrument, null while commands are not timed
+  private volatile DispatchMetrics metrics;
+
+  /**
+   * Constructor for dispatch server. Binds the port, but does not accept connections until
+   * started.
+   *
+   * @param registry the thread safe registry the connections work on
+   * @param port     the port to listen on, or 0 for any free port
+   * @throws IOException if the port cannot be bound
+   * @throws IllegalArgumentException if registry is null
+   * @throws IllegalArgumentException if port is negative
+   */
+  public DispatchServer(DepartureRegistry registry, int port) throws IOException {
+    Validation.validateNotNull(registry, "Registry");
+    Validation.validateZeroOrPositiveNumber(port, "Port");
+    this.registry = registry;
+    this.serverSocket = new ServerSocket();
+    serverSocket.bind(new InetSocketAddress(port), BACKLOG);
+    this.acceptor = new Thread(this::acceptConnections, "dispatch-server");
+  }
+
+  /**
+   * Times the commands of every connection from now on, see
+   * {@link UserInterface#instrument(DispatchMetrics)}.
+   *
+   * @param metrics the metrics to record to
+   * @throws IllegalArgumentException if metrics is null
+   */
+  public void instrument(DispatchMetrics metrics) {
+    Validation.validateNotNull(metrics, "Metrics");
+    this.metrics = metrics;
+  }
+
+  /**
+   * Starts accepting connections.
+   */
+  public void start() {
+    acceptor.start();
+  }
+
+  /**
+   * Gets the port the server listens on.
+   *
+   * @return the port
+   */
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  /**
+   * Gets the number of open connections.
+   *
+   * @return the number of connections
+   */
+  public int connectionCount() {
+    return connections.size();
+  }
+
+  /**
+   * Waits until the server is closed.
+   *
+   * @throws InterruptedException if the waiting thread is interrupted
+   */
+  public void awaitClose() throws InterruptedException {
+    acceptor.join();
+  }
+
+  /**
+   * Stops accepting connections and closes the open ones.
+   *
+   * @throws IOException if the server socket cannot be closed
+   */
+  @Override
+  public void close() throws IOException {
+    serverSocket.close();
+    for (Socket connection : connections) {
+      try {
+        connection.close();
+      } catch (IOException e) {
+        // the connection is being dropped anyway
+      }
+    }
+  }
+
+  /**
+   * Accepts connections until the server socket is closed, and starts a thread for each.
+   */
+  private void acceptConnections() {
+    while (!serverSocket.isClosed()) {
+      try {
+        Socket connection = serverSocket.accept();
+        connections.add(connection);
+        connectionThreads.newThread(() -> serve(connection)).start();
+      } catch (IOException e) {
+        // the server socket was closed, or the connection was lost before it was accepted
+      }
+    }
+  }
+
+  /**
+   * Runs the commands of one connection until the client disconnects or sends exit.
+   *
+   * <p>The connection keeps one user interface, which continues at the time of the server
+   * before every command. Commands sent back to back are answered in one flush, when no more
+   * whole lines are waiting.
+   *
+   * @param connection the connection
+   */
+  private void serve(Socket connection) {
+    try (connection) {
+      var in = new FastInputReader(connection.getInputStream(), CONNECTION_BUFFER_SIZE);
+      OutputStream socketOut = connection.getOutputStream();
+      var out = new PrintStream(new BufferedOutputStream(socketOut, CONNECTION_BUFFER_SIZE),
+          false, StandardCharsets.UTF_8);
+      var userInterface = new UserInterface(registry, out, currentTime.get());
+      DispatchMetrics instrumented = null;
+      String command;
+      while (!userInterface.hasExited() && (command = in.readLine()) != null) {
+        DispatchMetrics commandMetrics = metrics;
+        if (commandMetrics != null && commandMetrics != instrumented) {
+          userInterface.instrument(commandMetrics);
+          instrumented = commandMetrics;
+        }
+        do {
+          command = command.strip();
+          if (!command.isEmpty()) {
+            userInterface.resumeAt(currentTime.get());
+            String failure = userInterface.runHeadless(command);
+            currentTime.accumulateAndGet(userInterface.getCurrentTime(),
+                (current, set) -> set.isAfter(current) ? set : current);
+            out.println(failure == null ? "OK" : "ERROR " + failure);
+          }
+        } while (!userInterface.hasExited() && in.hasBufferedLine()
+            && (command = in.readLine()) != null);
+        out.flush();
+      }
+    } catch (IOException | UncheckedIOException e) {
+      // the client disconnected
+    } finally {
+      connections.remove(connection);
+    }
+  }
+}
@@ -0,0 +1,163 @@
+package edu.ntnu.stud.app;
+
+import java.util.Arrays;
+
+/**
+ * This class represents the result of a simulated day. It contains the number of workload
+ * operations and clock ticks, how long each tick took to remove the departed trains, and how
+ * much heap the run needed.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+public class SimulationReport {
+  private final int operations;
+  private final int failed;
+  private final int evicted;
+  private final long[] evictionNanos;
+  private final long simulatedSeconds;
+  private final long elapsedNanos;
+  private final long peakHeapBytes;
+
+  /**
+   * Constructor for simulation report.
+   *
+   * @param operations       the number of workload operations run
+   * @param failed           the number of workload operations that failed
+   * @param evicted          the number of departed trains removed
+   * @param evictionNanos    the time each clock tick took in nanoseconds, in any order
+   * @param simulatedSeconds the simulated time covered in seconds
+   * @param elapsedNanos     the real time the simulation took in nanoseconds
+   * @param peakHeapBytes    the peak heap used during the simulation in bytes
+   */
+  public SimulationReport(int operations, int failed, int evicted, long[] evictionNanos,
+                          long simulatedSeconds, long elapsedNanos, long peakHeapBytes) {
+    this.operations = operations;
+    this.failed = failed;
+    this.evicted = evicted;
+    this.evictionNanos = evictionNanos.clone();
+    Arrays.sort(this.evictionNanos);
+    this.simulatedSeconds = simulatedSeconds;
+    this.elapsedNanos = elapsedNanos;
+    this.peakHeapBytes = peakHeapBytes;
+  }
+
+  /**
+   * Gets the number of workload operations run, not counting clock ticks.
+   *
+   * @return the number of operations
+   */
+  public int getOperations() {
+    return operations;
+  }
+
+  /**
+   * Gets the number of workload operations that failed.
+   *
+   * @return the number of failed operations
+   */
+  public int getFailed() {
+    return failed;
+  }
+
+  /**
+   * Gets the number of departed trains removed by the clock ticks.
+   *
+   * @return the number of removed trains
+   */
+  public int getEvicted() {
+    return evicted;
+  }
+
+  /**
+   * Gets the number of clock ticks.
+   *
+   * @return the number of ticks
+   */
+  public int getTicks() {
+    return evictionNanos.length;
+  }
+
+  /**
+   * Gets the simulated time covered in seconds.
+   *
+   * @return the simulated seconds
+   */
+  public long getSimulatedSeconds() {
+    return simulatedSeconds;
+  }
+
+  /**
+   * Gets the real time the simulation took in nanoseconds.
+   *
+   * @return the elapsed time in nanoseconds
+   */
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  /**
+   * Gets the peak heap used during the simulation, the sum of the peaks of the heap memory
+   * pools. The pools need not peak at the same moment, so this is an upper bound.
+   *
+   * @return the peak heap in bytes
+   */
+  public long getPeakHeapBytes() {
+    return peakHeapBytes;
+  }
+
+  /**
+   * Gets the number of operations and clock ticks run per second of real time.
+   *
+   * @return the throughput in operations per second
+   */
+  public long operationsPerSecond() {
+    return elapsedNanos == 0 ? 0
+        : (long) ((operations + evictionNanos.length) * 1_000_000_000.0 / elapsedNanos);
+  }
+
+  /**
+   * Gets how many times faster than real time the day was simulated.
+   *
+   * @return the speed-up
+   */
+  public long speedUp() {
+    return elapsedNanos == 0 ? 0 : (long) (simulatedSeconds * 1_000_000_000.0 / elapsedNanos);
+  }
+
+  /**
+   * Gets a percentile of the time the clock ticks took.
+   *
+   * @param percentile the percentile, from 0 to 100
+   * @return the tick time in nanoseconds at the percentile, or 0 if there were no ticks
+   * @throws IllegalArgumentException if percentile is not from 0 to 100
+   */
+  public long evictionNanosAt(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("Percentile must be from 0 to 100");
+    }
+    if (evictionNanos.length == 0) {
+      return 0;
+    }
+    int index = (int) Math.ceil(percentile / 100 * evictionNanos.length) - 1;
+    return evictionNanos[Math.max(0, index)];
+  }
+
+  /**
+   * Returns a summary of the simulation.
+   *
+   * @return a summary of the simulation
+   */
+  @Override
+  public String toString() {
+    return "Simulated " + simulatedSeconds / 60 + " min in " + elapsedNanos / 1_000_000
+        + " ms (" + speedUp() + "x)\n"
+        + "Ran " + operations + " operations, " + failed + " failed, and "
+        + evictionNanos.length + " ticks (" + operationsPerSecond() + " operations/s)\n"
+        + "Removed " + evicted + " departed trains, tick time p50 "
+        + evictionNanosAt(50) / 1000 + " us, p99 " + evictionNanosAt(99) / 1000
+        + " us, max " + evictionNanosAt(100) / 1000 + " us\n"
+        + "Peak heap " + peakHeapBytes / (1024 * 1024) + " MiB";
+  }
+}
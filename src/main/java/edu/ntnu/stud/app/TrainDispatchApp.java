@@ -1,14 +1,391 @@
 package edu.ntnu.stud.app;
 
+import edu.ntnu.stud.io.DurableDepartureRegistry;
+import edu.ntnu.stud.io.TimetableGenerator;
+import edu.ntnu.stud.io.TimetableImportResult;
+import edu.ntnu.stud.io.TimetableLoader;
+import edu.ntnu.stud.models.ConcurrentTrainDepartureRegistry;
+import edu.ntnu.stud.models.DepartureClock;
+import edu.ntnu.stud.models.DepartureRegistry;
+import edu.ntnu.stud.models.FlightRecordedDepartureRegistry;
+import edu.ntnu.stud.models.InstrumentedDepartureRegistry;
+import edu.ntnu.stud.models.TimingWheelDepartureRegistry;
+import edu.ntnu.stud.models.TrainDepartureRegistry;
+import edu.ntnu.stud.utils.DispatchMetrics;
+import edu.ntnu.stud.utils.Threads;
+import edu.ntnu.stud.view.BatchResult;
 import edu.ntnu.stud.view.UserInterface;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
 
 /**
  * This is the main class for the train dispatch application.
+ *
+ * <p>Options:
+ * <ul>
+ *   <li>{@code --timetable <file>} loads a CSV timetable before starting</li>
+ *   <li>{@code --data-dir <dir>} keeps the registry in a write-ahead log and snapshots in the
+ *   directory, and restores it from there on startup</li>
+ *   <li>{@code --batch <file>} runs the commands in the file, one per line, without menus,
+ *   prints a summary and exits; {@code -} reads the commands from standard input</li>
+ *   <li>{@code --server <port>} serves the commands over TCP on the port instead of showing
+ *   the menus, see {@link DispatchServer}</li>
+ *   <li>{@code --http <port>} also answers queries and changes as JSON over HTTP on the port,
+ *   see {@link DispatchHttpServer}</li>
+ *   <li>{@code --real-time} makes the menus follow the system clock, and removes departed
+ *   trains as the clock passes them instead of when the time is set</li>
+ *   <li>{@code --simulate <speed>} replays a day of dispatching at up to the given number of
+ *   times real time, 0 for as fast as possible, prints a report and exits, see
+ *   {@link DaySimulation}. The workload is a random model seeded by {@code --seed <n>} with
+ *   {@code --events <n>} operations a minute, or the commands of {@code --trace <file>}</li>
+ *   <li>{@code --generate <count>} adds a synthetic timetable of that many train departures,
+ *   seeded by {@code --seed <n>}, see {@link TimetableGenerator}</li>
+ *   <li>{@code --generate-files <dir>} writes the synthetic timetable to timetable.csv and a
+ *   day of delay updates to delays.txt in the directory, and exits</li>
+ * </ul>
+ * The latency of every registry operation and command is published over JMX as
+ * {@value DispatchMetrics#OBJECT_NAME}, see {@link DispatchMetrics}. Registry mutations,
+ * evictions, board renders and commands are also recorded as JDK Flight Recorder events, which
+ * are disabled until a recording enables them, see {@link FlightRecordedDepartureRegistry}.
  */
 public class TrainDispatchApp {
+  private static final int MAX_PRINTED_ERRORS = 20;
+  private static final int BATCH_INPUT_BUFFER_SIZE = 1 << 16;
+  private static final int BATCH_OUTPUT_BUFFER_SIZE = 1 << 16;
+  private static final int CLOCK_TICK_MILLIS = 1000;
+  private static final int DEFAULT_SIMULATION_EVENTS = 20;
+  private static final int DEFAULT_GENERATED_COUNT = 100_000;
+
+  /**
+   * Starts the application.
+   *
+   * @param args the command line options
+   */
   public static void main(String[] args) {
-    var userInterface = new UserInterface();
+    Path timetable = null;
+    Path dataDirectory = null;
+    String batch = null;
+    int serverPort = -1;
+    int httpPort = -1;
+    boolean realTime = false;
+    int simulationSpeed = -1;
+    long seed = 1;
+    int events = DEFAULT_SIMULATION_EVENTS;
+    Path trace = null;
+    int generatedCount = -1;
+    Path generatedDirectory = null;
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("--timetable") && i + 1 < args.length) {
+        timetable = Path.of(args[++i]);
+      } else if (args[i].equals("--data-dir") && i + 1 < args.length) {
+        dataDirectory = Path.of(args[++i]);
+      } else if (args[i].equals("--batch") && i + 1 < args.length) {
+        batch = args[++i];
+      } else if (args[i].equals("--server") && i + 1 < args.length
+          && args[i + 1].matches("\\d{1,5}")) {
+        serverPort = Integer.parseInt(args[++i]);
+      } else if (args[i].equals("--http") && i + 1 < args.length
+          && args[i + 1].matches("\\d{1,5}")) {
+        httpPort = Integer.parseInt(args[++i]);
+      } else if (args[i].equals("--real-time")) {
+        realTime = true;
+      } else if (args[i].equals("--simulate") && i + 1 < args.length
+          && args[i + 1].matches("\\d{1,9}")) {
+        simulationSpeed = Integer.parseInt(args[++i]);
+      } else if (args[i].equals("--seed") && i + 1 < args.length
+          && args[i + 1].matches("-?\\d{1,18}")) {
+        seed = Long.parseLong(args[++i]);
+      } else if (args[i].equals("--events") && i + 1 < args.length
+          && args[i + 1].matches("\\d{1,9}")) {
+        events = Integer.parseInt(args[++i]);
+      } else if (args[i].equals("--trace") && i + 1 < args.length) {
+        trace = Path.of(args[++i]);
+      } else if (args[i].equals("--generate") && i + 1 < args.length
+          && args[i + 1].matches("[1-9]\\d{0,8}")) {
+        generatedCount = Integer.parseInt(args[++i]);
+      } else if (args[i].equals("--generate-files") && i + 1 < args.length) {
+        generatedDirectory = Path.of(args[++i]);
+      } else {
+        System.out.println("Unknown option: " + args[i]);
+        System.exit(1);
+      }
+    }
+    if (generatedDirectory != null) {
+      writeGeneratedFiles(generatedDirectory, seed,
+          generatedCount > 0 ? generatedCount : DEFAULT_GENERATED_COUNT);
+    }
+    boolean shared = serverPort >= 0 || httpPort >= 0;
+    DepartureRegistry registry = shared || realTime
+        ? new ConcurrentTrainDepartureRegistry()
+        : new TrainDepartureRegistry();
+    if (dataDirectory != null) {
+      registry = openDurableRegistry(dataDirectory, registry);
+    }
+    if (timetable != null) {
+      loadTimetable(timetable, registry);
+    }
+    if (generatedCount > 0) {
+      generateTimetable(registry, seed, generatedCount);
+    }
+    // the wheel serializes mutations, which would hold back the concurrent operators
+    if (!shared) {
+      registry = new TimingWheelDepartureRegistry(registry);
+    }
+    var metrics = new DispatchMetrics();
+    registry = new InstrumentedDepartureRegistry(registry, metrics);
+    registry = new FlightRecordedDepartureRegistry(registry);
+    publishMetrics(metrics);
+    if (httpPort >= 0) {
+      startHttpServer(httpPort, registry);
+    }
+    if (simulationSpeed >= 0) {
+      runSimulation(registry, simulationSpeed, seed, events, trace);
+    }
+    if (batch != null) {
+      runBatch(batch, registry, metrics);
+    }
+    if (serverPort >= 0) {
+      runServer(serverPort, registry, metrics);
+    }
+    var userInterface = new UserInterface(registry);
+    userInterface.instrument(metrics);
+    if (realTime) {
+      var clock = new DepartureClock(registry, Clock.systemDefaultZone());
+      clock.start(CLOCK_TICK_MILLIS);
+      userInterface.followClock(clock);
+    }
     userInterface.init();
     userInterface.start();
   }
+
+  /**
+   * Opens a durable registry in the data directory, restoring the train departures saved
+   * there. The log is closed when the application exits.
+   *
+   * @param directory the data directory
+   * @param registry  the empty registry to restore into
+   * @return the durable registry
+   */
+  private static DepartureRegistry openDurableRegistry(Path directory,
+                                                       DepartureRegistry registry) {
+    try {
+      var durableRegistry = new DurableDepartureRegistry(directory, registry);
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+        try {
+          durableRegistry.close();
+        } catch (IOException e) {
+          System.out.println("Write-ahead log not closed, reason: " + e.getMessage());
+        }
+      }));
+      return durableRegistry;
+    } catch (IOException e) {
+      System.out.println("Data directory not opened, reason: " + e.getMessage());
+      System.exit(1);
+      return registry;
+    }
+  }
+
+  /**
+   * Runs a script of commands against the registry and exits. Output is buffered and only
+   * written when the buffer fills, and a summary of throughput and failures is printed at
+   * the end. The exit status is 1 if any command failed.
+   *
+   * @param script   the script file, or - for standard input
+   * @param registry the registry to run the commands against
+   * @param metrics  the metrics the commands are timed in
+   */
+  private static void runBatch(String script, DepartureRegistry registry,
+                               DispatchMetrics metrics) {
+    var out = new PrintStream(new BufferedOutputStream(
+        new FileOutputStream(FileDescriptor.out), BATCH_OUTPUT_BUFFER_SIZE), false);
+    BatchResult result;
+    try (BufferedReader commands = script.equals("-")
+        ? new BufferedReader(new InputStreamReader(System.in), BATCH_INPUT_BUFFER_SIZE)
+        : Files.newBufferedReader(Path.of(script))) {
+      var userInterface = new UserInterface(registry, out);
+      userInterface.instrument(metrics);
+      result = userInterface.runBatch(commands);
+    } catch (IOException e) {
+      out.flush();
+      System.out.println("Script not run, reason: " + e.getMessage());
+      System.exit(1);
+      return;
+    }
+    out.println();
+    out.println(result);
+    result.getErrors().stream()
+        .limit(MAX_PRINTED_ERRORS)
+        .forEach(out::println);
+    if (result.getFailed() > MAX_PRINTED_ERRORS) {
+      out.println("... and " + (result.getFailed() - MAX_PRINTED_ERRORS)
+          + " more failed commands");
+    }
+    out.flush();
+    System.exit(result.getFailed() == 0 ? 0 : 1);
+  }
+
+  /**
+   * Publishes the metrics over JMX, so they can be watched from JConsole while the
+   * application runs. The application runs on without them if they cannot be published.
+   *
+   * @param metrics the metrics to publish
+   */
+  private static void publishMetrics(DispatchMetrics metrics) {
+    try {
+      metrics.register();
+    } catch (IllegalStateException e) {
+      System.out.println(e.getMessage());
+    }
+  }
+
+  /**
+   * Adds a synthetic timetable to the registry and prints how long it took.
+   *
+   * @param registry the registry to add to
+   * @param seed     the seed of the timetable
+   * @param count    the number of train departures
+   */
+  private static void generateTimetable(DepartureRegistry registry, long seed, int count) {
+    long start = System.nanoTime();
+    try {
+      new TimetableGenerator(seed).generateInto(registry, count);
+    } catch (IllegalArgumentException e) {
+      System.out.println("Timetable not generated, reason: " + e.getMessage());
+      System.exit(1);
+    }
+    System.out.println("Generated " + count + " train departures in "
+        + (System.nanoTime() - start) / 1_000_000 + " ms");
+  }
+
+  /**
+   * Writes a synthetic timetable and a day of delay updates, one per train departure on
+   * average, to the directory and exits.
+   *
+   * @param directory the directory to write to
+   * @param seed      the seed of the timetable
+   * @param count     the number of train departures
+   */
+  private static void writeGeneratedFiles(Path directory, long seed, int count) {
+    var generator = new TimetableGenerator(seed);
+    try {
+      Files.createDirectories(directory);
+      generator.writeTimetable(directory.resolve("timetable.csv"), count);
+      generator.writeDelayStream(directory.resolve("delays.txt"), count, count);
+    } catch (IOException e) {
+      System.out.println("Files not generated, reason: " + e.getMessage());
+      System.exit(1);
+    }
+    System.out.println("Wrote " + count + " train departures to " + directory);
+    System.exit(0);
+  }
+
+  /**
+   * Simulates a day of dispatching against the registry, prints the report and exits.
+   *
+   * @param registry the registry with the timetable of the day
+   * @param speed    how many times faster than real time to run at most, or 0 for no limit
+   * @param seed     the seed of the random workload
+   * @param events   the number of random operations every simulated minute
+   * @param trace    the trace to replay instead of the random workload, or null
+   */
+  private static void runSimulation(DepartureRegistry registry, int speed, long seed,
+                                    int events, Path trace) {
+    var simulation = new DaySimulation(registry, speed);
+    SimulationReport report;
+    if (trace == null) {
+      report = simulation.runRandom(seed, events);
+    } else {
+      try (BufferedReader commands = Files.newBufferedReader(trace)) {
+        report = simulation.replay(commands);
+      } catch (IOException e) {
+        System.out.println("Trace not replayed, reason: " + e.getMessage());
+        System.exit(1);
+        return;
+      }
+    }
+    System.out.println(report);
+    System.exit(0);
+  }
+
+  /**
+   * Starts answering HTTP requests in the background. The server is stopped when the
+   * application exits.
+   *
+   * @param port     the port to listen on
+   * @param registry the thread safe registry to serve
+   */
+  private static void startHttpServer(int port, DepartureRegistry registry) {
+    try {
+      var httpServer = new DispatchHttpServer(registry, port);
+      Runtime.getRuntime().addShutdownHook(new Thread(httpServer::close));
+      httpServer.start();
+      System.out.println("Serving HTTP on port " + httpServer.getPort());
+    } catch (IOException | IllegalArgumentException e) {
+      System.out.println("HTTP server not started, reason: " + e.getMessage());
+      System.exit(1);
+    }
+  }
+
+  /**
+   * Serves the registry over TCP until the application is stopped.
+   *
+   * @param port     the port to listen on
+   * @param registry the thread safe registry to serve
+   * @param metrics  the metrics the commands are timed in
+   */
+  private static void runServer(int port, DepartureRegistry registry, DispatchMetrics metrics) {
+    try {
+      var server = new DispatchServer(registry, port);
+      server.instrument(metrics);
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+        try {
+          server.close();
+        } catch (IOException e) {
+          System.out.println("Server not closed, reason: " + e.getMessage());
+        }
+      }));
+      server.start();
+      System.out.println("Serving commands on port " + server.getPort()
+          + (Threads.virtualThreadsSupported() ? " with virtual threads" : ""));
+      server.awaitClose();
+      System.exit(0);
+    } catch (IOException | IllegalArgumentException e) {
+      System.out.println("Server not started, reason: " + e.getMessage());
+      System.exit(1);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      System.exit(1);
+    }
+  }
+
+  /**
+   * Loads a CSV timetable into the registry and prints a summary of the import.
+   *
+   * @param file     the timetable file
+   * @param registry the registry to load into
+   */
+  private static void loadTimetable(Path file, DepartureRegistry registry) {
+    try {
+      TimetableImportResult result = new TimetableLoader().load(file, registry);
+      System.out.println(result);
+      result.getErrors().stream()
+          .limit(MAX_PRINTED_ERRORS)
+          .forEach(System.out::println);
+      if (result.getErrors().size() > MAX_PRINTED_ERRORS) {
+        System.out.println("... and " + (result.getErrors().size() - MAX_PRINTED_ERRORS)
+            + " more rejected rows");
+      }
+    } catch (IOException e) {
+      System.out.println("Timetable not loaded, reason: " + e.getMessage());
+      System.exit(1);
+    }
+  }
 }
@@ -0,0 +1,1118 @@
+package edu.ntnu.stud.io;
+
+import edu.ntnu.stud.models.DepartureRegistry;
+import edu.ntnu.stud.models.TrainDeparture;
+import edu.ntnu.stud.models.TrainDepartureSnapshot;
+import edu.ntnu.stud.models.TrainDepartureView;
+import edu.ntnu.stud.utils.Validation;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * This class makes a registry durable by logging every mutation to disk before it returns.
+ *
+ * <p>Mutations are validated against the wrapped registry, appended as compact binary records
+ * to a write-ahead log in the data directory, and applied to the wrapped registry once their
+ * record is on disk, so a failed write leaves the registry as it is on disk. A background
+ * thread writes and fsyncs the log, and every record that arrived while the previous fsync
+ * was running shares the next one, so concurrent writers pay for one fsync per batch instead
+ * of one each. A mutation of a train departure waits while another mutation of the same train
+ * departure is still waiting for its record, so it is validated against the state it applies
+ * to.
+ *
+ * <p>Every {@code snapshotInterval} records, the registry is written to a snapshot file
+ * together with the sequence number of the last record it contains, and the log is continued
+ * in a new segment. Log segments that are fully covered by the snapshot are then deleted.
+ * On startup the latest snapshot is loaded and only the log records after it are replayed.
+ * A record torn by a crash at the end of the log is discarded.
+ *
+ * <p>Mutations are serialized by this class, so it is as thread safe as the wrapped registry
+ * is for reads.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+public class DurableDepartureRegistry implements DepartureRegistry, Closeable {
+  private static final int DEFAULT_SNAPSHOT_INTERVAL = 10_000;
+  private static final int SNAPSHOT_MAGIC = 0x54445331;
+  private static final String SNAPSHOT_FILE = "snapshot.bin";
+  private static final String SNAPSHOT_TEMP_FILE = "snapshot.tmp";
+  private static final String SEGMENT_PREFIX = "wal-";
+  private static final String SEGMENT_SUFFIX = ".log";
+  private static final int MAX_RECORD_LENGTH = 1 << 20;
+
+  private static final byte ADD = 1;
+  private static final byte DELAY = 2;
+  private static final byte TRACK = 3;
+  private static final byte REMOVE = 4;
+  private static final byte REMOVE_BEFORE = 5;
+
+  private final DepartureRegistry delegate;
+  private final Path directory;
+  private final int snapshotInterval;
+  private final ArrayDeque<Path> segments = new ArrayDeque<>();
+  private final Thread flusher;
+  private FileChannel segment;
+
+  private RecordBuffer pending = new RecordBuffer();
+  private RecordBuffer spare = new RecordBuffer();
+  private long sequence;
+  private long durableSequence;
+  private int recordsSinceSnapshot;
+  private SnapshotRequest snapshotRequest;
+  private boolean snapshotInProgress;
+  // the mutations whose record is logged but not yet applied, and the trains they change
+  private int unapplied;
+  private final HashSet<Integer> claimed = new HashSet<>();
+  private boolean claimedAll;
+  private IOException failure;
+  private boolean closed;
+
+  /**
+   * Constructor for durable departure registry, with the default snapshot interval.
+   *
+   * @param directory the data directory holding the snapshot and the log
+   * @param delegate  the empty registry to recover into and to apply mutations to
+   * @throws IOException if the data directory cannot be read or written
+   * @throws IllegalArgumentException if directory or delegate is null
+   * @throws IllegalArgumentException if delegate is not empty
+   */
+  public DurableDepartureRegistry(Path directory, DepartureRegistry delegate)
+      throws IOException {
+    this(directory, delegate, DEFAULT_SNAPSHOT_INTERVAL);
+  }
+
+  /**
+   * Constructor for durable departure registry. Recovers the state in the data directory
+   * into the delegate, and starts the thread writing the log.
+   *
+   * @param directory        the data directory holding the snapshot and the log
+   * @param delegate         the empty registry to recover into and to apply mutations to
+   * @param snapshotInterval the number of log records between snapshots
+   * @throws IOException if the data directory cannot be read or written
+   * @throws IllegalArgumentException if directory or delegate is null
+   * @throws IllegalArgumentException if delegate is not empty
+   * @throws IllegalArgumentException if snapshot interval is zero or less
+   */
+  public DurableDepartureRegistry(Path directory, DepartureRegistry delegate,
+                                  int snapshotInterval) throws IOException {
+    Validation.validateNotNull(directory, "Directory");
+    Validation.validateNotNull(delegate, "Registry");
+    Validation.validatePositiveNumber(snapshotInterval, "Snapshot interval");
+    if (delegate.size() != 0) {
+      throw new IllegalArgumentException("Registry must be empty");
+    }
+    this.directory = directory;
+    this.delegate = delegate;
+    this.snapshotInterval = snapshotInterval;
+    recover();
+    flusher = new Thread(this::flushLoop, "wal-flusher");
+    flusher.setDaemon(true);
+    flusher.start();
+  }
+
+  /**
+   * Loads the latest snapshot, replays the log records after it, and opens the log segment
+   * new records are appended to.
+   *
+   * @throws IOException if the data directory cannot be read or written
+   */
+  private void recover() throws IOException {
+    Files.createDirectories(directory);
+    Files.deleteIfExists(directory.resolve(SNAPSHOT_TEMP_FILE));
+    long snapshotSequence = 0;
+    Path snapshotFile = directory.resolve(SNAPSHOT_FILE);
+    if (Files.exists(snapshotFile)) {
+      snapshotSequence = readSnapshot(snapshotFile);
+    }
+    sequence = snapshotSequence;
+
+    List<Path> found;
+    try (Stream<Path> files = Files.list(directory)) {
+      found = files.filter(file -> segmentStart(file) > 0)
+          .sorted((a, b) -> Long.compare(segmentStart(a), segmentStart(b)))
+          .toList();
+    }
+    for (int i = 0; i < found.size(); i++) {
+      Path file = found.get(i);
+      boolean covered = i + 1 < found.size()
+          && segmentStart(found.get(i + 1)) <= snapshotSequence + 1;
+      if (covered) {
+        Files.delete(file);
+      } else {
+        replaySegment(file, snapshotSequence, i == found.size() - 1);
+        segments.add(file);
+      }
+    }
+    durableSequence = sequence;
+    recordsSinceSnapshot = (int) Math.min(sequence - snapshotSequence, snapshotInterval);
+    Path current = segments.isEmpty() ? segmentFile(sequence + 1) : segments.getLast();
+    if (segments.isEmpty()) {
+      segments.add(current);
+    }
+    segment = FileChannel.open(current, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.APPEND);
+  }
+
+  /**
+   * Reads a snapshot file into the delegate.
+   *
+   * @param file the snapshot file
+   * @return the sequence number of the last log record in the snapshot
+   * @throws IOException if the snapshot cannot be read or is corrupt
+   */
+  private long readSnapshot(Path file) throws IOException {
+    var checksum = new CRC32();
+    try (var in = new DataInputStream(new CheckedInputStream(
+        new BufferedInputStream(Files.newInputStream(file)), checksum))) {
+      if (in.readInt() != SNAPSHOT_MAGIC) {
+        throw new IOException("Not a registry snapshot: " + file);
+      }
+      long lastSequence = in.readLong();
+      int count = in.readInt();
+      List<TrainDeparture> trainDepartures = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        trainDepartures.add(readTrainDeparture(in));
+      }
+      long expected = checksum.getValue();
+      if (in.readLong() != expected) {
+        throw new IOException("Corrupt registry snapshot: " + file);
+      }
+      delegate.addTrainDepartures(trainDepartures);
+      return lastSequence;
+    } catch (IllegalArgumentException e) {
+      throw new IOException("Corrupt registry snapshot: " + file, e);
+    }
+  }
+
+  /**
+   * Replays the records of a log segment that come after the snapshot. A torn or corrupt
+   * record ends the replay. In the last segment it is the unfinished write of a crash, and
+   * the segment is cut off before it.
+   *
+   * @param file             the log segment
+   * @param snapshotSequence the sequence number of the last record in the snapshot
+   * @param last             whether this is the last log segment
+   * @throws IOException if the segment cannot be read, or a segment other than the last one
+   *                     is corrupt
+   */
+  private void replaySegment(Path file, long snapshotSequence, boolean last)
+      throws IOException {
+    long validLength = 0;
+    try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      byte[] record;
+      while ((record = readRecord(in)) != null) {
+        var data = new DataInputStream(new ByteArrayInputStream(record));
+        byte type = data.readByte();
+        long recordSequence = data.readLong();
+        if (recordSequence > snapshotSequence) {
+          if (recordSequence != sequence + 1) {
+            throw new IOException("Missing log records before " + recordSequence + " in "
+                + file);
+          }
+          replay(type, data);
+          sequence = recordSequence;
+        }
+        validLength += Integer.BYTES + record.length + Long.BYTES;
+      }
+    } catch (IllegalArgumentException e) {
+      throw new IOException("Log record cannot be replayed in " + file, e);
+    }
+    if (validLength < Files.size(file)) {
+      if (!last) {
+        throw new IOException("Corrupt log segment: " + file);
+      }
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+        channel.truncate(validLength);
+        channel.force(true);
+      }
+    }
+  }
+
+  /**
+   * Reads the next complete record of a log segment.
+   *
+   * @param in the log segment
+   * @return the record without its length and checksum, or null at the end of the valid log
+   * @throws IOException if the segment cannot be read
+   */
+  private static byte[] readRecord(DataInputStream in) throws IOException {
+    try {
+      int length = in.readInt();
+      if (length <= 0 || length > MAX_RECORD_LENGTH) {
+        return null;
+      }
+      byte[] record = in.readNBytes(length);
+      if (record.length != length) {
+        return null;
+      }
+      long checksum = in.readLong();
+      var crc = new CRC32();
+      crc.update(record);
+      return crc.getValue() == checksum ? record : null;
+    } catch (EOFException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Applies one log record to the delegate.
+   *
+   * @param type the record type
+   * @param data the record payload
+   * @throws IOException if the record is malformed
+   */
+  private void replay(byte type, DataInputStream data) throws IOException {
+    switch (type) {
+      case ADD -> delegate.addTrainDeparture(readTrainDeparture(data));
+      case DELAY -> delegate.addDelay(data.readInt(), data.readInt());
+      case TRACK -> delegate.setTrack(data.readInt(), data.readInt());
+      case REMOVE -> delegate.removeTrainDeparture(data.readInt());
+      case REMOVE_BEFORE ->
+          delegate.removeTrainDeparturesBeforeTime(LocalTime.ofNanoOfDay(data.readLong()));
+      default -> throw new IOException("Unknown log record type " + type);
+    }
+  }
+
+  /**
+   * Reads a train departure written by {@link RecordBuffer#putTrainDeparture(TrainDeparture)}.
+   *
+   * @param in the input to read from
+   * @return the train departure
+   * @throws IOException if the input cannot be read
+   */
+  private static TrainDeparture readTrainDeparture(DataInputStream in) throws IOException {
+    int trainNumber = in.readInt();
+    String line = readString(in);
+    String destination = readString(in);
+    LocalTime departureTime = LocalTime.ofSecondOfDay(in.readInt());
+    int delay = in.readInt();
+    int track = in.readInt();
+    return new TrainDeparture(trainNumber, line, destination, departureTime, delay, track);
+  }
+
+  /**
+   * Reads a length prefixed UTF-8 string.
+   *
+   * @param in the input to read from
+   * @return the string
+   * @throws IOException if the input cannot be read
+   */
+  private static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0 || length > MAX_RECORD_LENGTH) {
+      throw new IOException("Invalid string length " + length);
+    }
+    byte[] bytes = in.readNBytes(length);
+    if (bytes.length != length) {
+      throw new EOFException();
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Gets the log segment file starting at a sequence number.
+   *
+   * @param firstSequence the sequence number of the first record in the segment
+   * @return the segment file
+   */
+  private Path segmentFile(long firstSequence) {
+    return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence,
+        SEGMENT_SUFFIX));
+  }
+
+  /**
+   * Gets the sequence number a log segment file starts at.
+   *
+   * @param file the file
+   * @return the first sequence number, or -1 if the file is not a log segment
+   */
+  private static long segmentStart(Path file) {
+    String name = file.getFileName().toString();
+    if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+          name.length() - SEGMENT_SUFFIX.length()));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Starts a log record in the pending batch.
+   *
+   * @param type the record type
+   * @return the pending batch to write the payload to
+   */
+  private RecordBuffer beginRecord(byte type) {
+    pending.begin(type, ++sequence);
+    return pending;
+  }
+
+  /**
+   * Waits until a mutation may be validated against the delegate: no logged mutation of the
+   * same train departures is waiting to be applied, and no due snapshot is waiting for the
+   * logged mutations to be applied. Must be called while holding the lock of this registry,
+   * and the mutation must be logged with {@link #commitRecord(Collection, Runnable)} without
+   * releasing it.
+   *
+   * @param trainNumbers the train numbers the mutation changes, or null if it may change any
+   * @throws IllegalStateException if the registry is closed
+   * @throws UncheckedIOException if writing the log has failed
+   */
+  private void awaitTurn(Collection<Integer> trainNumbers) {
+    boolean interrupted = false;
+    try {
+      while (true) {
+        checkWritable();
+        requestSnapshotIfDue();
+        boolean blocked = claimedAll || snapshotDue() || (trainNumbers == null
+            ? unapplied > 0
+            : trainNumbers.stream().anyMatch(claimed::contains));
+        if (!blocked) {
+          return;
+        }
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Finishes the current log record, waits until it is on disk, and then applies the mutation
+   * to the delegate. Must be called while holding the lock of this registry.
+   *
+   * @param trainNumbers the train numbers the mutation changes, or null if it may change any
+   * @param mutation     the mutation to apply to the delegate
+   * @throws UncheckedIOException if writing the log fails
+   */
+  private void commitRecord(Collection<Integer> trainNumbers, Runnable mutation) {
+    pending.end();
+    recordsSinceSnapshot++;
+    long recordSequence = sequence;
+    unapplied++;
+    if (trainNumbers == null) {
+      claimedAll = true;
+    } else {
+      claimed.addAll(trainNumbers);
+    }
+    notifyAll();
+    try {
+      awaitDurable(recordSequence);
+      mutation.run();
+    } finally {
+      unapplied--;
+      if (trainNumbers == null) {
+        claimedAll = false;
+      } else {
+        claimed.removeAll(trainNumbers);
+      }
+      requestSnapshotIfDue();
+      notifyAll();
+    }
+  }
+
+  /**
+   * Checks if a snapshot is due and not yet requested.
+   *
+   * @return true if a snapshot is due
+   */
+  private boolean snapshotDue() {
+    return recordsSinceSnapshot >= snapshotInterval && !snapshotInProgress;
+  }
+
+  /**
+   * Requests a snapshot if one is due and every logged mutation is applied, so the delegate
+   * holds exactly the records up to the current sequence number.
+   */
+  private void requestSnapshotIfDue() {
+    if (snapshotDue() && unapplied == 0) {
+      snapshotRequest = new SnapshotRequest(delegate.snapshot(), sequence, pending.size());
+      snapshotInProgress = true;
+      recordsSinceSnapshot = 0;
+    }
+  }
+
+  /**
+   * Gets a train departure from the delegate.
+   *
+   * @param trainNumber the train number
+   * @return the train departure
+   * @throws IllegalArgumentException if train number is not in registry
+   */
+  private TrainDeparture requireTrainDeparture(int trainNumber) {
+    TrainDeparture trainDeparture = delegate.findTrainDeparture(trainNumber);
+    if (trainDeparture == null) {
+      throw new IllegalArgumentException("Train departure is not in the registry");
+    }
+    return trainDeparture;
+  }
+
+  /**
+   * Waits until the log record with the sequence number is on disk. Other writers may add
+   * their records to the next batch in the meantime.
+   *
+   * @param recordSequence the sequence number to wait for
+   * @throws UncheckedIOException if writing the log fails
+   */
+  private void awaitDurable(long recordSequence) {
+    boolean interrupted = false;
+    while (durableSequence < recordSequence && failure == null) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    if (durableSequence < recordSequence) {
+      throw new UncheckedIOException("Write-ahead log failed", failure);
+    }
+  }
+
+  /**
+   * Checks that the registry can take mutations.
+   *
+   * @throws IllegalStateException if the registry is closed
+   * @throws UncheckedIOException if writing the log has failed
+   */
+  private void checkWritable() {
+    if (closed) {
+      throw new IllegalStateException("Registry is closed");
+    }
+    if (failure != null) {
+      throw new UncheckedIOException("Write-ahead log failed", failure);
+    }
+  }
+
+  /**
+   * Writes batches of log records until the registry is closed. Each batch is written and
+   * fsynced once, and then every writer waiting for it is released.
+   */
+  private void flushLoop() {
+    while (true) {
+      RecordBuffer batch;
+      long batchSequence;
+      SnapshotRequest request;
+      synchronized (this) {
+        while (pending.size() == 0 && !closed) {
+          try {
+            wait();
+          } catch (InterruptedException e) {
+            closed = true;
+          }
+        }
+        if (pending.size() == 0) {
+          return;
+        }
+        batch = pending;
+        pending = spare;
+        batchSequence = sequence;
+        request = snapshotRequest;
+        snapshotRequest = null;
+      }
+      try {
+        if (request == null) {
+          write(batch, 0, batch.size());
+        } else {
+          write(batch, 0, request.offset);
+          rollSegment(request.lastSequence + 1);
+          write(batch, request.offset, batch.size());
+        }
+        synchronized (this) {
+          batch.reset();
+          spare = batch;
+          durableSequence = batchSequence;
+          notifyAll();
+        }
+        if (request != null) {
+          writeSnapshot(request);
+          synchronized (this) {
+            snapshotInProgress = false;
+          }
+        }
+      } catch (IOException e) {
+        synchronized (this) {
+          failure = e;
+          notifyAll();
+        }
+        return;
+      }
+    }
+  }
+
+  /**
+   * Writes part of a batch to the current log segment and fsyncs it.
+   *
+   * @param batch the batch
+   * @param from  the first byte to write
+   * @param to    the end of the bytes to write
+   * @throws IOException if the log cannot be written
+   */
+  private void write(RecordBuffer batch, int from, int to) throws IOException {
+    if (from == to) {
+      return;
+    }
+    ByteBuffer bytes = batch.slice(from, to);
+    while (bytes.hasRemaining()) {
+      segment.write(bytes);
+    }
+    segment.force(false);
+  }
+
+  /**
+   * Closes the current log segment and continues the log in a new one.
+   *
+   * @param firstSequence the sequence number of the first record in the new segment
+   * @throws IOException if the new segment cannot be created
+   */
+  private void rollSegment(long firstSequence) throws IOException {
+    segment.close();
+    Path file = segmentFile(firstSequence);
+    segment = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.APPEND);
+    segments.add(file);
+    syncDirectory();
+  }
+
+  /**
+   * Writes a snapshot to a temporary file and atomically replaces the previous snapshot with
+   * it. The log segments before the current one are then covered by the snapshot, and are
+   * deleted.
+   *
+   * @param request the snapshot to write
+   * @throws IOException if the snapshot cannot be written
+   */
+  private void writeSnapshot(SnapshotRequest request) throws IOException {
+    Path temp = directory.resolve(SNAPSHOT_TEMP_FILE);
+    var checksum = new CRC32();
+    try (var file = new FileOutputStream(temp.toFile());
+         var out = new DataOutputStream(new BufferedOutputStream(
+             new CheckedOutputStream(file, checksum)))) {
+      var record = new RecordBuffer();
+      List<TrainDeparture> trainDepartures = request.snapshot.getTrainDepartures();
+      out.writeInt(SNAPSHOT_MAGIC);
+      out.writeLong(request.lastSequence);
+      out.writeInt(trainDepartures.size());
+      for (TrainDeparture trainDeparture : trainDepartures) {
+        record.reset();
+        record.putTrainDeparture(trainDeparture);
+        record.writeTo(out);
+      }
+      out.flush();
+      long expected = checksum.getValue();
+      out.writeLong(expected);
+      out.flush();
+      file.getFD().sync();
+    }
+    Files.move(temp, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.ATOMIC_MOVE,
+        StandardCopyOption.REPLACE_EXISTING);
+    syncDirectory();
+    while (segments.size() > 1) {
+      Files.deleteIfExists(segments.removeFirst());
+    }
+  }
+
+  /**
+   * Fsyncs the data directory, so created, renamed and deleted files are durable. Some file
+   * systems do not allow this, and then it is skipped.
+   */
+  private void syncDirectory() {
+    try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+      channel.force(true);
+    } catch (IOException e) {
+      // Not supported on this platform, the rename is still atomic.
+    }
+  }
+
+  /**
+   * Writes the remaining log records and closes the log. Mutations after this throw
+   * {@link IllegalStateException}.
+   *
+   * @throws IOException if the log cannot be closed
+   */
+  @Override
+  public void close() throws IOException {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      notifyAll();
+    }
+    try {
+      flusher.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    segment.close();
+  }
+
+  /**
+   * Creates and adds a new train departure, and logs it.
+   *
+   * @param trainNumber   the train number
+   * @param line          the line
+   * @param destination   the destination
+   * @param departureTime the departure time
+   * @throws IllegalArgumentException if train number is zero or less
+   * @throws IllegalArgumentException if line is blank
+   * @throws IllegalArgumentException if destination is blank
+   * @throws IllegalArgumentException if departure time is null
+   * @throws IllegalArgumentException if train number already exists
+   * @throws UncheckedIOException if the log cannot be written
+   */
+  @Override
+  public synchronized void newTrainDeparture(int trainNumber, String line, String destination,
+                                             LocalTime departureTime) {
+    addTrainDeparture(new TrainDeparture(trainNumber, line, destination, departureTime));
+  }
+
+  /**
+   * Adds a train departure to registry, and logs it.
+   *
+   * @param trainDeparture the train departure
+   * @throws IllegalArgumentException if train number already exists
+   * @throws UncheckedIOException if the log cannot be written
+   */
+  @Override
+  public synchronized void addTrainDeparture(TrainDeparture trainDeparture) {
+    List<Integer> trainNumbers = List.of(trainDeparture.getTrainNumber());
+    awaitTurn(trainNumbers);
+    if (delegate.containsTrainNumber(trainDeparture.getTrainNumber())) {
+      throw new IllegalArgumentException("Train number already exists");
+    }
+    beginRecord(ADD).putTrainDeparture(trainDeparture);
+    commitRecord(trainNumbers, () -> delegate.addTrainDeparture(trainDeparture));
+  }
+
+  /**
+   * Adds many train departures to registry in one pass, and logs them as one batch.
+   *
+   * @param trainDepartures the train departures
+   * @throws IllegalArgumentException if a train number already exists, or appears twice
+   * @throws UncheckedIOException if the log cannot be written
+   */
+  @Override
+  public synchronized void addTrainDepartures(List<TrainDeparture> trainDepartures) {
+    HashSet<Integer> trainNumbers = new HashSet<>(trainDepartures.size());
+    for (TrainDeparture trainDeparture : trainDepartures) {
+      trainNumbers.add(trainDeparture.getTrainNumber());
+    }
+    awaitTurn(trainNumbers);
+    if (trainNumbers.size() < trainDepartures.size()
+        || trainNumbers.stream().anyMatch(delegate::containsTrainNumber)) {
+      throw new IllegalArgumentException("Train number already exists");
+    }
+    if (trainDepartures.isEmpty()) {
+      return;
+    }
+    for (int i = 0; i < trainDepartures.size(); i++) {
+      if (i > 0) {
+        pending.end();
+        recordsSinceSnapshot++;
+      }
+      beginRecord(ADD).putTrainDeparture(trainDepartures.get(i));
+    }
+    commitRecord(trainNumbers, () -> delegate.addTrainDepartures(trainDepartures));
+  }
+
+  /**
+   * Adds delay to train departure from train number, and logs it.
+   *
+   * @param trainNumber the train number of the train departure
+   * @param delay       the delay
+   * @throws IllegalArgumentException if train number is not in registry
+   * @throws IllegalArgumentException if delay is zero or less
+   * @throws UncheckedIOException if the log cannot be written
+   */
+  @Override
+  public synchronized void addDelay(int trainNumber, int delay) {
+    Validation.validatePositiveNumber(delay, "Delay");
+    List<Integer> trainNumbers = List.of(trainNumber);
+    awaitTurn(trainNumbers);
+    Validation.validateZeroOrPositiveNumber(
+        requireTrainDeparture(trainNumber).getDelay() + delay, "Delay");
+    beginRecord(DELAY).putInt(trainNumber).putInt(delay);
+    commitRecord(trainNumbers, () -> delegate.addDelay(trainNumber, delay));
+  }
+
+  /**
+   * Sets track to train departure from train number, and logs it.
+   *
+   * @param trainNumber the train number of the train departure
+   * @param track       the track
+   * @throws IllegalArgumentException if train number is not in registry
+   * @throws IllegalArgumentException if track is zero or less, unless -1
+   * @throws UncheckedIOException if the log cannot be written
+   */
+  @Override
+  public synchronized void setTrack(int trainNumber, int track) {
+    Validation.validatePositiveUnlessNegativeOne(track, "Track");
+    List<Integer> trainNumbers = List.of(trainNumber);
+    awaitTurn(trainNumbers);
+    requireTrainDeparture(trainNumber);
+    beginRecord(TRACK).putInt(trainNumber).putInt(track);
+    commitRecord(trainNumbers, () -> delegate.setTrack(trainNumber, track));
+  }
+
+  /**
+   * Checks if registry contains train departure with train number.
+   *
+   * @param trainNumber the train number to check
+   * @return true if registry contains train departure with train number
+   */
+  @Override
+  public boolean containsTrainNumber(int trainNumber) {
+    return delegate.containsTrainNumber(trainNumber);
+  }
+
+  /**
+   * Gets the number of train departures in the registry.
+   *
+   * @return the number of train departures
+   */
+  @Override
+  public int size() {
+    return delegate.size();
+  }
+
+  /**
+   * Deletes a train departure from train number, and logs it.
+   *
+   * @param trainNumber the train number
+   * @throws IllegalArgumentException if train number is not in registry
+   * @throws UncheckedIOException if the log cannot be written
+   */
+  @Override
+  public synchronized void removeTrainDeparture(int trainNumber) {
+    List<Integer> trainNumbers = List.of(trainNumber);
+    awaitTurn(trainNumbers);
+    requireTrainDeparture(trainNumber);
+    beginRecord(REMOVE).putInt(trainNumber);
+    commitRecord(trainNumbers, () -> delegate.removeTrainDeparture(trainNumber));
+  }
+
+  /**
+   * Deletes train departures with departure time with delay before time, and passes each
+   * deleted train departure to the callback. The deletion is logged as one record, and only
+   * if a train departure is deleted.
+   *
+   * @param time      the time to delete before
+   * @param onEvicted the callback receiving each deleted train departure
+   * @throws IllegalArgumentException if time is null
+   * @throws IllegalArgumentException if callback is null
+   * @throws UncheckedIOException if the log cannot be written
+   */
+  @Override
+  public synchronized void removeTrainDeparturesBeforeTime(LocalTime time,
+                                                          Consumer<TrainDeparture> onEvicted) {
+    Validation.validateNotNull(time, "Time");
+    Validation.validateNotNull(onEvicted, "Callback");
+    awaitTurn(null);
+    List<TrainDeparture> first =
+        delegate.upcomingTrainDepartures(LocalTime.MIN, 0, 1).getTrainDepartures();
+    if (first.isEmpty() || !first.get(0).departureTimeWithDelay().isBefore(time)) {
+      return;
+    }
+    beginRecord(REMOVE_BEFORE).putLong(time.toNanoOfDay());
+    commitRecord(null, () -> delegate.removeTrainDeparturesBeforeTime(time, onEvicted));
+  }
+
+  /**
+   * Returns a read-only view of the train departures to destination, sorted by departure time.
+   *
+   * @param destination the destination to filter from
+   * @return a read-only view of the train departures to destination
+   * @throws IllegalArgumentException if destination is blank
+   */
+  @Override
+  public TrainDepartureView trainDeparturesByDestination(String destination) {
+    return delegate.trainDeparturesByDestination(destination);
+  }
+
+  /**
+   * Returns a list of train numbers sorted by scheduled departure time.
+   *
+   * @return a list of train numbers sorted by departure time
+   */
+  @Override
+  public ArrayList<Integer> sortedByDepartureTime() {
+    return delegate.sortedByDepartureTime();
+  }
+
+  /**
+   * Returns a list of train numbers sorted by departure time with delay.
+   *
+   * @return a list of train numbers sorted by departure time with delay
+   */
+  @Override
+  public ArrayList<Integer> sortedByDepartureTimeWithDelay() {
+    return delegate.sortedByDepartureTimeWithDelay();
+  }
+
+  /**
+   * Returns a page of the train departures with departure time with delay at or after time,
+   * sorted by departure time with delay.
+   *
+   * @param time  the time to list departures from
+   * @param skip  the number of departures to leave out
+   * @param count the largest number of departures to return
+   * @return a snapshot of the page of train departures
+   * @throws IllegalArgumentException if time is null
+   * @throws IllegalArgumentException if skip is negative
+   * @throws IllegalArgumentException if count is zero or less
+   */
+  @Override
+  public TrainDepartureSnapshot upcomingTrainDepartures(LocalTime time, int skip, int count) {
+    return delegate.upcomingTrainDepartures(time, skip, count);
+  }
+
+  /**
+   * Gets the version of the registry.
+   *
+   * @return the version of the registry
+   */
+  @Override
+  public long version() {
+    return delegate.version();
+  }
+
+  /**
+   * Estimates the heap used by the train departures and the indices of the wrapped registry.
+   *
+   * @return the estimated bytes, or -1 if the registry cannot estimate them
+   */
+  @Override
+  public long estimatedIndexBytes() {
+    return delegate.estimatedIndexBytes();
+  }
+
+  /**
+   * Returns an immutable snapshot of the registry, sorted by departure time with delay.
+   *
+   * @return a snapshot of the registry
+   */
+  @Override
+  public TrainDepartureSnapshot snapshot() {
+    return delegate.snapshot();
+  }
+
+  /**
+   * Returns an immutable snapshot of the train departures to destination, sorted by departure
+   * time with delay.
+   *
+   * @param destination the destination to filter from
+   * @return a snapshot of the train departures to destination
+   * @throws IllegalArgumentException if destination is blank
+   */
+  @Override
+  public TrainDepartureSnapshot trainDeparturesTo(String destination) {
+    return delegate.trainDeparturesTo(destination);
+  }
+
+  /**
+   * Finds the train departure with train number as it is now.
+   *
+   * @param trainNumber the train number
+   * @return the train departure, or null if train number is not in registry
+   */
+  @Override
+  public TrainDeparture findTrainDeparture(int trainNumber) {
+    return delegate.findTrainDeparture(trainNumber);
+  }
+
+  /**
+   * Returns a string representation of the train departure from train number.
+   *
+   * @param trainNumber the train number
+   * @return a string representation of the train departure from train number
+   * @throws IllegalArgumentException if train number is not in registry
+   */
+  @Override
+  public String trainDepartureString(int trainNumber) {
+    return delegate.trainDepartureString(trainNumber);
+  }
+
+  /**
+   * Returns a HashMap of information about the train departure from train number.
+   *
+   * @param trainNumber the train number of the train departure
+   * @return a Hashmap of information about the train departure from train number
+   * @throws IllegalArgumentException if train number is not in registry
+   */
+  @Override
+  public HashMap<String, String> getAllFromTrainNumber(int trainNumber) {
+    return delegate.getAllFromTrainNumber(trainNumber);
+  }
+
+  /**
+   * Returns a string representation of the registry.
+   *
+   * @return a string representation of the registry
+   */
+  @Override
+  public String toString() {
+    return delegate.toString();
+  }
+
+  /**
+   * This class represents a snapshot waiting to be written, the sequence number of the last
+   * log record in it, and where the records after it start in the pending batch.
+   */
+  private static class SnapshotRequest {
+    private final TrainDepartureSnapshot snapshot;
+    private final long lastSequence;
+    private final int offset;
+
+    /**
+     * Constructor for snapshot request.
+     *
+     * @param snapshot     the snapshot of the registry
+     * @param lastSequence the sequence number of the last log record in the snapshot
+     * @param offset       the end of the last record in the snapshot in the pending batch
+     */
+    SnapshotRequest(TrainDepartureSnapshot snapshot, long lastSequence, int offset) {
+      this.snapshot = snapshot;
+      this.lastSequence = lastSequence;
+      this.offset = offset;
+    }
+  }
+
+  /**
+   * This class is a growable byte buffer holding encoded log records. Each record is written
+   * as its length, the type, the sequence number and the payload, followed by a CRC32 of
+   * everything after the length.
+   */
+  private static class RecordBuffer extends ByteArrayOutputStream {
+    private int recordStart;
+
+    /**
+     * Starts a record, leaving room for its length.
+     *
+     * @param type     the record type
+     * @param sequence the sequence number of the record
+     */
+    void begin(byte type, long sequence) {
+      recordStart = count;
+      putInt(0);
+      write(type);
+      putLong(sequence);
+    }
+
+    /**
+     * Finishes the record by filling in its length and appending its checksum.
+     */
+    void end() {
+      int length = count - recordStart - Integer.BYTES;
+      ByteBuffer.wrap(buf, recordStart, Integer.BYTES).putInt(length);
+      var crc = new CRC32();
+      crc.update(buf, recordStart + Integer.BYTES, length);
+      putLong(crc.getValue());
+    }
+
+    /**
+     * Appends an int.
+     *
+     * @param value the value
+     * @return this buffer
+     */
+    RecordBuffer putInt(int value) {
+      write(value >>> 24);
+      write(value >>> 16);
+      write(value >>> 8);
+      write(value);
+      return this;
+    }
+
+    /**
+     * Appends a long.
+     *
+     * @param value the value
+     * @return this buffer
+     */
+    RecordBuffer putLong(long value) {
+      putInt((int) (value >>> 32));
+      return putInt((int) value);
+    }
+
+    /**
+     * Appends a length prefixed UTF-8 string.
+     *
+     * @param value the string
+     * @return this buffer
+     */
+    RecordBuffer putString(String value) {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      putInt(bytes.length);
+      write(bytes, 0, bytes.length);
+      return this;
+    }
+
+    /**
+     * Appends every field of a train departure.
+     *
+     * @param trainDeparture the train departure
+     * @return this buffer
+     */
+    RecordBuffer putTrainDeparture(TrainDeparture trainDeparture) {
+      putInt(trainDeparture.getTrainNumber());
+      putString(trainDeparture.getLine());
+      putString(trainDeparture.getDestination());
+      putInt(trainDeparture.getDepartureTime().toSecondOfDay());
+      putInt(trainDeparture.getDelay());
+      return putInt(trainDeparture.getTrack());
+    }
+
+    /**
+     * Returns a view of part of the buffer, valid until the buffer is changed.
+     *
+     * @param from the first byte
+     * @param to   the end of the bytes
+     * @return a byte buffer over the bytes
+     */
+    ByteBuffer slice(int from, int to) {
+      return ByteBuffer.wrap(buf, from, to - from);
+    }
+  }
+}
@@ -0,0 +1,334 @@
+package edu.ntnu.stud.io;
+
+import edu.ntnu.stud.models.DepartureRegistry;
+import edu.ntnu.stud.models.TrainDeparture;
+import edu.ntnu.stud.utils.Validation;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * This class generates synthetic timetables and delay updates for load testing. The same seed
+ * and settings always give the same data, so a load test can be repeated.
+ *
+ * <p>The train departures are made to look like a busy station:
+ * <ul>
+ *   <li>train numbers run from 1 up to the count</li>
+ *   <li>destinations and lines are drawn from a Zipf distribution, so a few of them are
+ *   served by most trains, and the rest by a long tail</li>
+ *   <li>departure times cluster around the morning and afternoon rush hours, on top of an even
+ *   service from 05:00 to midnight</li>
+ *   <li>most train departures have a track, and none are delayed yet</li>
+ * </ul>
+ * The timetable is written in the format read by {@link TimetableLoader}. The delay updates are
+ * written as a batch script, with a {@code time} command every minute followed by delays for
+ * trains due to leave within the next half hour, so they can be replayed as a trace.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+public class TimetableGenerator {
+  private static final String[] STATIONS = {"Oslo", "Bergen", "Trondheim", "Stavanger",
+      "Drammen", "Lillehammer", "Hamar", "Gjovik", "Kongsberg", "Skien", "Halden", "Moss",
+      "Fredrikstad", "Sarpsborg", "Asker", "Lillestrom", "Ski", "Eidsvoll", "Kristiansand",
+      "Arendal", "Larvik", "Tonsberg", "Sandefjord", "Voss", "Myrdal", "Flam", "Dombas",
+      "Andalsnes", "Roros", "Narvik"};
+  private static final LocalTime[] TIMES = IntStream.range(0, 24 * 60)
+      .mapToObj(minute -> LocalTime.of(minute / 60, minute % 60))
+      .toArray(LocalTime[]::new);
+  private static final int MINUTES_PER_DAY = 24 * 60;
+  private static final int SERVICE_START_MINUTE = 5 * 60;
+  private static final int MORNING_RUSH_MINUTE = 7 * 60 + 30;
+  private static final int MORNING_RUSH_DEVIATION = 45;
+  private static final int AFTERNOON_RUSH_MINUTE = 16 * 60 + 30;
+  private static final int AFTERNOON_RUSH_DEVIATION = 60;
+  private static final double TRACK_SHARE = 0.7;
+  private static final int MAX_TRACK = 20;
+  private static final int DELAY_WINDOW_MINUTES = 30;
+  private static final double MEAN_DELAY_MINUTES = 5;
+  private static final int MAX_DELAY_MINUTES = 120;
+  private static final int REGISTRY_BATCH_SIZE = 1 << 16;
+  private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+  private final long seed;
+  private final String[] destinations;
+  private final double[] destinationWeights;
+  private final String[] lines;
+  private final double[] lineWeights;
+  private final double rushHourShare;
+
+  /**
+   * Constructor for timetable generator, with 200 destinations, 40 lines, a Zipf exponent of
+   * 1 and 60 percent of the trains in the rush hours.
+   *
+   * @param seed the seed of the generated data
+   */
+  public TimetableGenerator(long seed) {
+    this(seed, 200, 40, 1.0, 0.6);
+  }
+
+  /**
+   * Constructor for timetable generator.
+   *
+   * @param seed             the seed of the generated data
+   * @param destinationCount the number of distinct destinations
+   * @param lineCount        the number of distinct lines
+   * @param zipfExponent     the exponent of the Zipf distribution, 0 for an even distribution
+   * @param rushHourShare    the share of trains clustered around the rush hours, from 0 to 1
+   * @throws IllegalArgumentException if destination or line count is zero or less
+   * @throws IllegalArgumentException if Zipf exponent is negative
+   * @throws IllegalArgumentException if rush hour share is not from 0 to 1
+   */
+  public TimetableGenerator(long seed, int destinationCount, int lineCount, double zipfExponent,
+                            double rushHourShare) {
+    Validation.validatePositiveNumber(destinationCount, "Destination count");
+    Validation.validatePositiveNumber(lineCount, "Line count");
+    if (zipfExponent < 0) {
+      throw new IllegalArgumentException("Zipf exponent cannot be negative");
+    }
+    if (rushHourShare < 0 || rushHourShare > 1) {
+      throw new IllegalArgumentException("Rush hour share must be from 0 to 1");
+    }
+    this.seed = seed;
+    this.destinations = IntStream.range(0, destinationCount)
+        .mapToObj(rank -> rank < STATIONS.length ? STATIONS[rank] : "Station" + (rank + 1))
+        .toArray(String[]::new);
+    this.destinationWeights = zipfCumulativeWeights(destinationCount, zipfExponent);
+    this.lines = IntStream.range(0, lineCount)
+        .mapToObj(rank -> "L" + (rank + 1))
+        .toArray(String[]::new);
+    this.lineWeights = zipfCumulativeWeights(lineCount, zipfExponent);
+    this.rushHourShare = rushHourShare;
+  }
+
+  /**
+   * Computes the cumulative weights of a Zipf distribution, where rank k has weight
+   * 1 / k^exponent.
+   *
+   * @param size     the number of ranks
+   * @param exponent the exponent
+   * @return the cumulative weights, ending with 1
+   */
+  private static double[] zipfCumulativeWeights(int size, double exponent) {
+    double[] weights = new double[size];
+    double sum = 0;
+    for (int rank = 0; rank < size; rank++) {
+      sum += 1 / Math.pow(rank + 1, exponent);
+      weights[rank] = sum;
+    }
+    for (int rank = 0; rank < size; rank++) {
+      weights[rank] /= sum;
+    }
+    weights[size - 1] = 1;
+    return weights;
+  }
+
+  /**
+   * Draws a rank from cumulative weights.
+   *
+   * @param random  the random source
+   * @param weights the cumulative weights
+   * @return the rank
+   */
+  private static int draw(SplittableRandom random, double[] weights) {
+    int rank = Arrays.binarySearch(weights, random.nextDouble());
+    return rank >= 0 ? rank : Math.min(weights.length - 1, -rank - 1);
+  }
+
+  /**
+   * Draws a departure minute, either around a rush hour or evenly over the service hours.
+   *
+   * @param random the random source
+   * @return the minute of the day
+   */
+  private int departureMinute(SplittableRandom random) {
+    if (random.nextDouble() >= rushHourShare) {
+      return random.nextInt(SERVICE_START_MINUTE, MINUTES_PER_DAY);
+    }
+    double minute = random.nextBoolean()
+        ? MORNING_RUSH_MINUTE + gaussian(random) * MORNING_RUSH_DEVIATION
+        : AFTERNOON_RUSH_MINUTE + gaussian(random) * AFTERNOON_RUSH_DEVIATION;
+    return (int) Math.max(0, Math.min(MINUTES_PER_DAY - 1, Math.round(minute)));
+  }
+
+  /**
+   * Draws from the standard normal distribution with the Box-Muller transform.
+   *
+   * @param random the random source
+   * @return the drawn value
+   */
+  private static double gaussian(SplittableRandom random) {
+    return Math.sqrt(-2 * Math.log(1 - random.nextDouble()))
+        * Math.cos(2 * Math.PI * random.nextDouble());
+  }
+
+  /**
+   * Generates train departures and passes each of them to the sink, in train number order.
+   *
+   * @param count the number of train departures, up to about 10 million in one registry
+   * @param sink  the consumer receiving each train departure
+   * @throws IllegalArgumentException if count is zero or less
+   * @throws IllegalArgumentException if sink is null
+   */
+  public void generate(int count, Consumer<TrainDeparture> sink) {
+    Validation.validatePositiveNumber(count, "Count");
+    Validation.validateNotNull(sink, "Sink");
+    var random = new SplittableRandom(seed);
+    for (int trainNumber = 1; trainNumber <= count; trainNumber++) {
+      String destination = destinations[draw(random, destinationWeights)];
+      String line = lines[draw(random, lineWeights)];
+      LocalTime departureTime = TIMES[departureMinute(random)];
+      int track = random.nextDouble() < TRACK_SHARE ? 1 + random.nextInt(MAX_TRACK) : -1;
+      sink.accept(new TrainDeparture(trainNumber, line, destination, departureTime, 0, track));
+    }
+  }
+
+  /**
+   * Generates train departures straight into a registry, in batches of
+   * {@link DepartureRegistry#addTrainDepartures(List)}.
+   *
+   * @param registry the registry to add the train departures to
+   * @param count    the number of train departures
+   * @throws IllegalArgumentException if registry is null
+   * @throws IllegalArgumentException if count is zero or less
+   * @throws IllegalArgumentException if a generated train number already exists
+   */
+  public void generateInto(DepartureRegistry registry, int count) {
+    Validation.validateNotNull(registry, "Registry");
+    List<TrainDeparture> batch = new ArrayList<>(Math.min(count, REGISTRY_BATCH_SIZE));
+    generate(count, trainDeparture -> {
+      batch.add(trainDeparture);
+      if (batch.size() == REGISTRY_BATCH_SIZE) {
+        registry.addTrainDepartures(batch);
+        batch.clear();
+      }
+    });
+    if (!batch.isEmpty()) {
+      registry.addTrainDepartures(batch);
+    }
+  }
+
+  /**
+   * Writes a generated timetable to a CSV file that {@link TimetableLoader} can load.
+   *
+   * @param file  the file to write, replacing it if it exists
+   * @param count the number of train departures
+   * @throws IOException if the file cannot be written
+   * @throws IllegalArgumentException if file is null
+   * @throws IllegalArgumentException if count is zero or less
+   */
+  public void writeTimetable(Path file, int count) throws IOException {
+    Validation.validateNotNull(file, "File");
+    Validation.validatePositiveNumber(count, "Count");
+    var row = new StringBuilder();
+    try (BufferedWriter writer = new BufferedWriter(
+        Files.newBufferedWriter(file, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE)) {
+      writer.write("trainNumber,line,destination,departureTime,delay,track\n");
+      IOException[] failure = new IOException[1];
+      generate(count, trainDeparture -> {
+        if (failure[0] != null) {
+          return;
+        }
+        row.setLength(0);
+        row.append(trainDeparture.getTrainNumber()).append(',')
+            .append(trainDeparture.getLine()).append(',')
+            .append(trainDeparture.getDestination()).append(',')
+            .append(trainDeparture.getDepartureTime());
+        if (trainDeparture.getTrack() != -1) {
+          row.append(",0,").append(trainDeparture.getTrack());
+        }
+        row.append('\n');
+        try {
+          writer.append(row);
+        } catch (IOException e) {
+          failure[0] = e;
+        }
+      });
+      if (failure[0] != null) {
+        throw failure[0];
+      }
+    }
+  }
+
+  /**
+   * Writes a stream of delay updates for the generated timetable as a batch script. Every
+   * minute of the day gets a {@code time} command, followed by delays for trains due to leave
+   * within the next half hour. Minutes with more trains due get more delays, and delays are
+   * mostly short with a long tail.
+   *
+   * @param file    the file to write, replacing it if it exists
+   * @param count   the number of train departures in the timetable
+   * @param updates the approximate number of delay updates
+   * @throws IOException if the file cannot be written
+   * @throws IllegalArgumentException if file is null
+   * @throws IllegalArgumentException if count is zero or less
+   * @throws IllegalArgumentException if updates is negative
+   */
+  public void writeDelayStream(Path file, int count, int updates) throws IOException {
+    Validation.validateNotNull(file, "File");
+    Validation.validatePositiveNumber(count, "Count");
+    Validation.validateZeroOrPositiveNumber(updates, "Updates");
+    // train numbers sorted by departure minute, with the start of every minute
+    int[] minuteStarts = new int[MINUTES_PER_DAY + 1];
+    int[] minutes = new int[count];
+    generate(count, trainDeparture -> {
+      LocalTime departureTime = trainDeparture.getDepartureTime();
+      int minute = departureTime.getHour() * 60 + departureTime.getMinute();
+      minutes[trainDeparture.getTrainNumber() - 1] = minute;
+      minuteStarts[minute + 1]++;
+    });
+    for (int minute = 0; minute < MINUTES_PER_DAY; minute++) {
+      minuteStarts[minute + 1] += minuteStarts[minute];
+    }
+    int[] byMinute = new int[count];
+    int[] next = Arrays.copyOf(minuteStarts, MINUTES_PER_DAY);
+    for (int i = 0; i < count; i++) {
+      byMinute[next[minutes[i]]++] = i + 1;
+    }
+    long windowSum = 0;
+    for (int minute = 0; minute < MINUTES_PER_DAY; minute++) {
+      windowSum += windowEnd(minuteStarts, minute) - minuteStarts[minute];
+    }
+    double updatesPerDue = windowSum == 0 ? 0 : (double) updates / windowSum;
+
+    var random = new SplittableRandom(~seed);
+    try (BufferedWriter writer = new BufferedWriter(
+        Files.newBufferedWriter(file, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE)) {
+      writer.write("# " + updates + " delay updates for " + count + " train departures\n");
+      for (int minute = 0; minute < MINUTES_PER_DAY; minute++) {
+        writer.write("time " + TIMES[minute] + "\n");
+        int from = minuteStarts[minute];
+        int to = windowEnd(minuteStarts, minute);
+        double expected = (to - from) * updatesPerDue;
+        int due = (int) expected + (random.nextDouble() < expected % 1 ? 1 : 0);
+        for (int update = 0; update < due; update++) {
+          int trainNumber = byMinute[random.nextInt(from, to)];
+          int delay = 1 + (int) Math.min(MAX_DELAY_MINUTES - 1,
+              -Math.log(1 - random.nextDouble()) * MEAN_DELAY_MINUTES);
+          writer.write("train edit addDelay " + trainNumber + " " + delay + "\n");
+        }
+      }
+    }
+  }
+
+  /**
+   * Gets the end of the window of trains due to leave within the next half hour.
+   *
+   * @param minuteStarts the start of every minute in the sorted train numbers
+   * @param minute       the minute the window starts at
+   * @return the index after the last train in the window
+   */
+  private static int windowEnd(int[] minuteStarts, int minute) {
+    return minuteStarts[Math.min(MINUTES_PER_DAY, minute + DELAY_WINDOW_MINUTES)];
+  }
+}
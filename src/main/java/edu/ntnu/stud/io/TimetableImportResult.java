@@ -0,0 +1,69 @@
+package edu.ntnu.stud.io;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class represents the result of a timetable import. It contains the number of train
+ * departures that were added, and a message for every row that was rejected.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+public class TimetableImportResult {
+  private final int added;
+  private final List<String> errors;
+  private final long elapsedNanos;
+
+  /**
+   * Constructor for timetable import result.
+   *
+   * @param added        the number of train departures added
+   * @param errors       the messages for the rejected rows
+   * @param elapsedNanos the time the import took in nanoseconds
+   */
+  public TimetableImportResult(int added, List<String> errors, long elapsedNanos) {
+    this.added = added;
+    this.errors = Collections.unmodifiableList(errors);
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  /**
+   * Gets the number of train departures added.
+   *
+   * @return the number of train departures added
+   */
+  public int getAdded() {
+    return added;
+  }
+
+  /**
+   * Gets the messages for the rejected rows, in file order.
+   *
+   * @return the error messages
+   */
+  public List<String> getErrors() {
+    return errors;
+  }
+
+  /**
+   * Gets the time the import took in nanoseconds.
+   *
+   * @return the elapsed time in nanoseconds
+   */
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  /**
+   * Returns a one line summary of the import.
+   *
+   * @return a summary of the import
+   */
+  @Override
+  public String toString() {
+    return "Imported " + added + " train departures, rejected " + errors.size()
+        + " rows in " + elapsedNanos / 1_000_000 + " ms";
+  }
+}
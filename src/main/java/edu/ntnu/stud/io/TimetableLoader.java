@@ -0,0 +1,430 @@
+package edu.ntnu.stud.io;
+
+import edu.ntnu.stud.models.DepartureRegistry;
+import edu.ntnu.stud.models.TrainDeparture;
+import edu.ntnu.stud.utils.IntHashMap;
+import edu.ntnu.stud.utils.Validation;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * This class loads a timetable from a CSV file into a registry in bulk.
+ *
+ * <p>Each row has the form {@code trainNumber,line,destination,HH:mm[,delay[,track]]}. A first
+ * row starting with a letter is treated as a header. The file is memory mapped in chunks that
+ * end on line boundaries, and the chunks are parsed and validated in parallel with the same
+ * rules as {@link TrainDeparture}. Rows that fail, including rows repeating a train number,
+ * are reported with their line number, and the import continues with the next row. The valid
+ * departures are then added to the registry in one pass with
+ * {@link DepartureRegistry#addTrainDepartures(List)}. If another writer adds one of their train
+ * numbers meanwhile, the departures are instead added one by one, and the rows that lost the
+ * race are reported after the others.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+public class TimetableLoader {
+  private static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+  private static final int MAX_FIELDS = 6;
+  private static final LocalTime[] TIMES = IntStream.range(0, 24 * 60)
+      .mapToObj(minute -> LocalTime.of(minute / 60, minute % 60))
+      .toArray(LocalTime[]::new);
+
+  private final int chunkSize;
+
+  /**
+   * Constructor for timetable loader, with the default chunk size.
+   */
+  public TimetableLoader() {
+    this(DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * Constructor for timetable loader.
+   *
+   * @param chunkSize the approximate number of bytes each parallel task parses
+   * @throws IllegalArgumentException if chunk size is zero or less
+   */
+  public TimetableLoader(int chunkSize) {
+    Validation.validatePositiveNumber(chunkSize, "Chunk size");
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Loads the timetable file into the registry.
+   *
+   * @param file     the CSV file to load
+   * @param registry the registry to add the train departures to
+   * @return the result of the import
+   * @throws IOException if the file cannot be read
+   * @throws IllegalArgumentException if file or registry is null
+   */
+  public TimetableImportResult load(Path file, DepartureRegistry registry) throws IOException {
+    Validation.validateNotNull(file, "File");
+    Validation.validateNotNull(registry, "Registry");
+    long start = System.nanoTime();
+    List<Chunk> chunks;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long[] boundaries = chunkBoundaries(channel);
+      chunks = new ArrayList<>(boundaries.length - 1);
+      for (int i = 0; i < boundaries.length - 1; i++) {
+        long size = boundaries[i + 1] - boundaries[i];
+        chunks.add(new Chunk(i == 0,
+            channel.map(FileChannel.MapMode.READ_ONLY, boundaries[i], size)));
+      }
+    }
+    IntStream.range(0, chunks.size()).parallel().forEach(i -> chunks.get(i).parse());
+
+    int firstLine = 1;
+    List<String> errors = new ArrayList<>();
+    List<TrainDeparture> accepted = new ArrayList<>();
+    int[] acceptedLines = new int[1024];
+    IntHashMap<TrainDeparture> acceptedByTrainNumber = new IntHashMap<>();
+    for (Chunk chunk : chunks) {
+      int error = 0;
+      for (int i = 0; i < chunk.departures.size(); i++) {
+        int lineNumber = chunk.lines[i];
+        for (; error < chunk.errorLines.size() && chunk.errorLines.get(error) < lineNumber;
+             error++) {
+          errors.add(errorMessage(firstLine + chunk.errorLines.get(error),
+              chunk.errorMessages.get(error)));
+        }
+        TrainDeparture trainDeparture = chunk.departures.get(i);
+        int trainNumber = trainDeparture.getTrainNumber();
+        if (registry.containsTrainNumber(trainNumber)
+            || acceptedByTrainNumber.put(trainNumber, trainDeparture) != null) {
+          errors.add(errorMessage(firstLine + lineNumber, "Train number already exists"));
+        } else {
+          if (accepted.size() == acceptedLines.length) {
+            acceptedLines = Arrays.copyOf(acceptedLines, acceptedLines.length << 1);
+          }
+          acceptedLines[accepted.size()] = firstLine + lineNumber;
+          accepted.add(trainDeparture);
+        }
+      }
+      for (; error < chunk.errorLines.size(); error++) {
+        errors.add(errorMessage(firstLine + chunk.errorLines.get(error),
+            chunk.errorMessages.get(error)));
+      }
+      firstLine += chunk.lineCount;
+    }
+    int added;
+    try {
+      registry.addTrainDepartures(accepted);
+      added = accepted.size();
+    } catch (IllegalArgumentException e) {
+      added = addOneByOne(registry, accepted, acceptedLines, errors);
+    }
+    return new TimetableImportResult(added, errors, System.nanoTime() - start);
+  }
+
+  /**
+   * Adds the departures one by one, after another writer added one of their train numbers
+   * between the check and the bulk add. A row is reported if its train number is taken by a
+   * different departure. A train number holding an equal departure counts as added, since a
+   * registry without an atomic bulk add may have added it before the bulk add failed.
+   *
+   * @param registry      the registry to add the train departures to
+   * @param accepted      the train departures to add
+   * @param acceptedLines the line number of each train departure
+   * @param errors        the errors to report rejected rows in
+   * @return the number of train departures added
+   */
+  private static int addOneByOne(DepartureRegistry registry, List<TrainDeparture> accepted,
+                                 int[] acceptedLines, List<String> errors) {
+    int added = 0;
+    for (int i = 0; i < accepted.size(); i++) {
+      TrainDeparture trainDeparture = accepted.get(i);
+      try {
+        registry.addTrainDeparture(trainDeparture);
+        added++;
+      } catch (IllegalArgumentException e) {
+        if (holdsEqualDeparture(registry, trainDeparture)) {
+          added++;
+        } else {
+          errors.add(errorMessage(acceptedLines[i], e.getMessage()));
+        }
+      }
+    }
+    return added;
+  }
+
+  /**
+   * Checks if the registry holds a departure equal to a train departure.
+   *
+   * @param registry       the registry
+   * @param trainDeparture the train departure
+   * @return true if the registry holds an equal departure under the same train number
+   */
+  private static boolean holdsEqualDeparture(DepartureRegistry registry,
+                                             TrainDeparture trainDeparture) {
+    try {
+      return registry.getAllFromTrainNumber(trainDeparture.getTrainNumber())
+          .equals(trainDeparture.trainInfo());
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Creates the message for a rejected row.
+   *
+   * @param line    the line number of the row
+   * @param message the reason the row was rejected
+   * @return the error message
+   */
+  private static String errorMessage(int line, String message) {
+    return "Line " + line + ": " + message;
+  }
+
+  /**
+   * Finds the chunk boundaries of the file. Every boundary except the first and last is placed
+   * just after a line break, so no line is split between chunks.
+   *
+   * @param channel the file channel
+   * @return the start of every chunk, followed by the file size
+   * @throws IOException if the file cannot be read
+   */
+  private long[] chunkBoundaries(FileChannel channel) throws IOException {
+    long size = channel.size();
+    List<Long> boundaries = new ArrayList<>();
+    boundaries.add(0L);
+    ByteBuffer window = ByteBuffer.allocate(4096);
+    long position = chunkSize;
+    while (position < size) {
+      long lineEnd = -1;
+      while (lineEnd < 0 && position < size) {
+        window.clear();
+        int read = channel.read(window, position);
+        for (int i = 0; i < read && lineEnd < 0; i++) {
+          if (window.get(i) == '\n') {
+            lineEnd = position + i + 1;
+          }
+        }
+        position += Math.max(read, 0);
+      }
+      if (lineEnd < 0 || lineEnd >= size) {
+        break;
+      }
+      boundaries.add(lineEnd);
+      position = lineEnd + chunkSize;
+    }
+    boundaries.add(size);
+    return boundaries.stream().mapToLong(Long::longValue).toArray();
+  }
+
+  /**
+   * This class represents one memory mapped chunk of the file, and the departures and errors
+   * parsed from it. Line numbers are relative to the start of the chunk, and {@code lines}
+   * holds the line number of each parsed departure.
+   */
+  private static class Chunk {
+    private final boolean first;
+    private final MappedByteBuffer buffer;
+    private final List<TrainDeparture> departures = new ArrayList<>();
+    private int[] lines = new int[1024];
+    private final List<Integer> errorLines = new ArrayList<>();
+    private final List<String> errorMessages = new ArrayList<>();
+    private final int[] fieldStarts = new int[MAX_FIELDS];
+    private final int[] fieldEnds = new int[MAX_FIELDS];
+    private final HashMap<String, String> texts = new HashMap<>();
+    private byte[] line = new byte[256];
+    private int lineCount;
+
+    /**
+     * Constructor for chunk.
+     *
+     * @param first  whether this is the first chunk of the file, which may hold a header
+     * @param buffer the mapped bytes of the chunk
+     */
+    Chunk(boolean first, MappedByteBuffer buffer) {
+      this.first = first;
+      this.buffer = buffer;
+    }
+
+    /**
+     * Parses every line of the chunk.
+     */
+    void parse() {
+      int length = 0;
+      while (buffer.hasRemaining()) {
+        byte b = buffer.get();
+        if (b == '\n') {
+          parseLine(length);
+          length = 0;
+        } else {
+          if (length == line.length) {
+            line = Arrays.copyOf(line, length << 1);
+          }
+          line[length++] = b;
+        }
+      }
+      if (length > 0) {
+        parseLine(length);
+      }
+    }
+
+    /**
+     * Parses one line into a train departure, or records why it was rejected.
+     *
+     * @param length the length of the line in the line buffer
+     */
+    private void parseLine(int length) {
+      int lineNumber = lineCount++;
+      if (length > 0 && line[length - 1] == '\r') {
+        length--;
+      }
+      if (length == 0 || (first && lineNumber == 0 && Character.isLetter(line[0]))) {
+        return;
+      }
+      int fields = 0;
+      int start = 0;
+      for (int i = 0; i <= length; i++) {
+        if (i == length || line[i] == ',') {
+          if (fields == MAX_FIELDS) {
+            reject(lineNumber, "Too many fields");
+            return;
+          }
+          fieldStarts[fields] = start;
+          fieldEnds[fields] = i;
+          fields++;
+          start = i + 1;
+        }
+      }
+      if (fields < 4) {
+        reject(lineNumber, "Expected at least 4 fields, found " + fields);
+        return;
+      }
+      try {
+        int trainNumber = parseInt(0, "Train number");
+        String lineName = text(1);
+        String destination = text(2);
+        LocalTime departureTime = parseTime(3);
+        int delay = fields > 4 ? parseInt(4, "Delay") : 0;
+        int track = fields > 5 ? parseInt(5, "Track") : -1;
+        departures.add(new TrainDeparture(trainNumber, lineName, destination, departureTime,
+            delay, track));
+        if (departures.size() > lines.length) {
+          lines = Arrays.copyOf(lines, lines.length << 1);
+        }
+        lines[departures.size() - 1] = lineNumber;
+      } catch (IllegalArgumentException | DateTimeException e) {
+        reject(lineNumber, e.getMessage());
+      }
+    }
+
+    /**
+     * Records a rejected line.
+     *
+     * @param lineNumber the line number within the chunk
+     * @param message    the reason the line was rejected
+     */
+    private void reject(int lineNumber, String message) {
+      errorLines.add(lineNumber);
+      errorMessages.add(message);
+    }
+
+    /**
+     * Decodes a field as trimmed UTF-8 text. Lines and destinations repeat a lot, so equal
+     * texts within a chunk share one string instance.
+     *
+     * @param field the field index
+     * @return the text of the field
+     */
+    private String text(int field) {
+      String text = new String(line, fieldStarts[field], fieldEnds[field] - fieldStarts[field],
+          StandardCharsets.UTF_8).trim();
+      String shared = texts.putIfAbsent(text, text);
+      return shared == null ? text : shared;
+    }
+
+    /**
+     * Parses a field as an integer straight from the bytes.
+     *
+     * @param field the field index
+     * @param name  the name of the field, used in the error message
+     * @return the parsed integer
+     * @throws IllegalArgumentException if the field is not an integer
+     */
+    private int parseInt(int field, String name) {
+      int start = fieldStarts[field];
+      int end = fieldEnds[field];
+      while (start < end && line[start] == ' ') {
+        start++;
+      }
+      while (end > start && line[end - 1] == ' ') {
+        end--;
+      }
+      boolean negative = start < end && line[start] == '-';
+      int i = negative ? start + 1 : start;
+      if (i == end || end - i > 9) {
+        throw new IllegalArgumentException(name + " must be a number");
+      }
+      int value = 0;
+      for (; i < end; i++) {
+        int digit = line[i] - '0';
+        if (digit < 0 || digit > 9) {
+          throw new IllegalArgumentException(name + " must be a number");
+        }
+        value = value * 10 + digit;
+      }
+      return negative ? -value : value;
+    }
+
+    /**
+     * Parses a field in the format HH:mm straight from the bytes.
+     *
+     * @param field the field index
+     * @return the parsed time
+     * @throws IllegalArgumentException if the field is not in the format HH:mm
+     * @throws DateTimeException if the hour or minute is out of range
+     */
+    private LocalTime parseTime(int field) {
+      int start = fieldStarts[field];
+      int end = fieldEnds[field];
+      while (start < end && line[start] == ' ') {
+        start++;
+      }
+      while (end > start && line[end - 1] == ' ') {
+        end--;
+      }
+      if (end - start != 5 || line[start + 2] != ':') {
+        throw new IllegalArgumentException("Time must be in the format HH:mm");
+      }
+      int hour = digit(start) * 10 + digit(start + 1);
+      int minute = digit(start + 3) * 10 + digit(start + 4);
+      if (hour < 24 && minute < 60) {
+        return TIMES[hour * 60 + minute];
+      }
+      return LocalTime.of(hour, minute);
+    }
+
+    /**
+     * Parses one digit of a time.
+     *
+     * @param index the index of the digit in the line buffer
+     * @return the digit value
+     * @throws IllegalArgumentException if the byte is not a digit
+     */
+    private int digit(int index) {
+      int digit = line[index] - '0';
+      if (digit < 0 || digit > 9) {
+        throw new IllegalArgumentException("Time must be in the format HH:mm");
+      }
+      return digit;
+    }
+  }
+}
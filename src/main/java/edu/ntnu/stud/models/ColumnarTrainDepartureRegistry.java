@@ -0,0 +1,594 @@
+package edu.ntnu.stud.models;
+
+import edu.ntnu.stud.utils.IntIntHashMap;
+import edu.ntnu.stud.utils.Validation;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * This class represents a train departure registry for very large timetables. Instead of one
+ * {@link TrainDeparture} object per departure, the fields are kept in parallel primitive arrays,
+ * one row per departure. Lines and destinations are stored as ids into string dictionaries,
+ * and departure times are stored as minute of the day, so times are kept at minute resolution.
+ * Scans and filters run over the contiguous arrays, and {@link TrainDeparture} objects are only
+ * created for the departures a method returns.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+public class ColumnarTrainDepartureRegistry implements DepartureRegistry {
+  private static final int DEFAULT_CAPACITY = 16;
+  private static final int MINUTES_PER_DAY = 24 * 60;
+  private static final long NANOS_PER_MINUTE = 60_000_000_000L;
+  private static final int COLUMNS = 6;
+  private static final long BYTES_PER_MAP_SLOT = 16;
+
+  private final IntIntHashMap rowByTrainNumber;
+  private final StringDictionary lines = new StringDictionary();
+  private final StringDictionary destinations = new StringDictionary();
+
+  private int[] trainNumbers;
+  private int[] departureMinutes;
+  private int[] delays;
+  private int[] tracks;
+  private int[] lineIds;
+  private int[] destinationIds;
+  private int size;
+  private long version;
+  private TrainDepartureSnapshot snapshot;
+
+  /**
+   * Constructor for columnar train departure registry, creates an empty registry
+   * with default capacity.
+   */
+  public ColumnarTrainDepartureRegistry() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Constructor for columnar train departure registry, creates an empty registry with room
+   * for the expected number of departures before the arrays have to grow.
+   *
+   * @param expectedSize the expected number of train departures
+   * @throws IllegalArgumentException if expected size is negative
+   */
+  public ColumnarTrainDepartureRegistry(int expectedSize) {
+    Validation.validateZeroOrPositiveNumber(expectedSize, "Expected size");
+    int capacity = Math.max(DEFAULT_CAPACITY, expectedSize);
+    rowByTrainNumber = new IntIntHashMap(capacity);
+    trainNumbers = new int[capacity];
+    departureMinutes = new int[capacity];
+    delays = new int[capacity];
+    tracks = new int[capacity];
+    lineIds = new int[capacity];
+    destinationIds = new int[capacity];
+  }
+
+  /**
+   * Gets the row of a train departure from train number.
+   *
+   * @param trainNumber the train number of the train departure
+   * @return the row of the train departure
+   * @throws IllegalArgumentException if train number is not in registry
+   */
+  private int getRow(int trainNumber) {
+    int row = rowByTrainNumber.get(trainNumber);
+    if (row < 0) {
+      throw new IllegalArgumentException("Train departure is not in the registry");
+    }
+    return row;
+  }
+
+  /**
+   * Creates and adds a new train departure as a new row.
+   *
+   * @param trainNumber   the train number
+   * @param line          the line
+   * @param destination   the destination
+   * @param departureTime the departure time, stored at minute resolution
+   * @throws IllegalArgumentException if train number is zero or less
+   * @throws IllegalArgumentException if line is blank
+   * @throws IllegalArgumentException if destination is blank
+   * @throws IllegalArgumentException if departure time is null
+   * @throws IllegalArgumentException if train number already exists
+   */
+  @Override
+  public void newTrainDeparture(int trainNumber, String line, String destination,
+                                LocalTime departureTime) {
+    Validation.validatePositiveNumber(trainNumber, "Train number");
+    Validation.validateStringNotBlank(line, "Line");
+    Validation.validateStringNotBlank(destination, "Destination");
+    Validation.validateNotNull(departureTime, "Departure time");
+    addRow(trainNumber, line, destination, departureTime, 0, -1);
+  }
+
+  /**
+   * Adds a train departure to registry as a new row, copying its fields.
+   *
+   * @param trainDeparture the train departure
+   * @throws IllegalArgumentException if train number already exists
+   */
+  @Override
+  public void addTrainDeparture(TrainDeparture trainDeparture) {
+    addRow(trainDeparture.getTrainNumber(), trainDeparture.getLine(),
+        trainDeparture.getDestination(), trainDeparture.getDepartureTime(),
+        trainDeparture.getDelay(), trainDeparture.getTrack());
+  }
+
+  /**
+   * Appends a row with already validated fields.
+   *
+   * @param trainNumber   the train number
+   * @param line          the line
+   * @param destination   the destination
+   * @param departureTime the departure time, stored at minute resolution
+   * @param delay         the delay
+   * @param track         the track
+   * @throws IllegalArgumentException if train number already exists
+   */
+  private void addRow(int trainNumber, String line, String destination,
+                      LocalTime departureTime, int delay, int track) {
+    if (containsTrainNumber(trainNumber)) {
+      throw new IllegalArgumentException("Train number already exists");
+    }
+    if (size == trainNumbers.length) {
+      grow();
+    }
+    trainNumbers[size] = trainNumber;
+    departureMinutes[size] = departureTime.toSecondOfDay() / 60;
+    delays[size] = delay;
+    tracks[size] = track;
+    lineIds[size] = lines.idOf(line);
+    destinationIds[size] = destinations.idOf(destination);
+    rowByTrainNumber.put(trainNumber, size);
+    size++;
+    version++;
+  }
+
+  /**
+   * Grows every column by half its length.
+   */
+  private void grow() {
+    int capacity = trainNumbers.length + (trainNumbers.length >> 1);
+    trainNumbers = Arrays.copyOf(trainNumbers, capacity);
+    departureMinutes = Arrays.copyOf(departureMinutes, capacity);
+    delays = Arrays.copyOf(delays, capacity);
+    tracks = Arrays.copyOf(tracks, capacity);
+    lineIds = Arrays.copyOf(lineIds, capacity);
+    destinationIds = Arrays.copyOf(destinationIds, capacity);
+  }
+
+  /**
+   * Adds delay to train departure from train number.
+   *
+   * @param trainNumber the train number of the train departure
+   * @param delay       the delay
+   * @throws IllegalArgumentException if train number is not in registry
+   * @throws IllegalArgumentException if delay is zero or less
+   * @throws IllegalArgumentException if the total delay overflows
+   */
+  @Override
+  public void addDelay(int trainNumber, int delay) {
+    int row = getRow(trainNumber);
+    Validation.validatePositiveNumber(delay, "Delay");
+    Validation.validateZeroOrPositiveNumber(delays[row] + delay, "Delay");
+    delays[row] += delay;
+    version++;
+  }
+
+  /**
+   * Sets track to train departure from train number.
+   *
+   * @param trainNumber the train number of the train departure
+   * @param track       the track
+   * @throws IllegalArgumentException if train number is not in registry
+   * @throws IllegalArgumentException if track is zero or less, unless -1
+   */
+  @Override
+  public void setTrack(int trainNumber, int track) {
+    int row = getRow(trainNumber);
+    Validation.validatePositiveUnlessNegativeOne(track, "Track");
+    tracks[row] = track;
+    version++;
+  }
+
+  /**
+   * Checks if registry contains train departure with train number.
+   *
+   * @param trainNumber the train number to check
+   * @return true if registry contains train departure with train number
+   */
+  @Override
+  public boolean containsTrainNumber(int trainNumber) {
+    return rowByTrainNumber.containsKey(trainNumber);
+  }
+
+  /**
+   * Gets the number of train departures in the registry.
+   *
+   * @return the number of train departures
+   */
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Deletes a train departure from train number. The last row is moved into the freed row,
+   * so the columns stay contiguous.
+   *
+   * @param trainNumber the train number
+   * @throws IllegalArgumentException if train number is not in registry
+   */
+  @Override
+  public void removeTrainDeparture(int trainNumber) {
+    removeRow(getRow(trainNumber));
+  }
+
+  /**
+   * Removes a row by moving the last row into it.
+   *
+   * @param row the row to remove
+   */
+  private void removeRow(int row) {
+    rowByTrainNumber.remove(trainNumbers[row]);
+    int last = --size;
+    if (row != last) {
+      trainNumbers[row] = trainNumbers[last];
+      departureMinutes[row] = departureMinutes[last];
+      delays[row] = delays[last];
+      tracks[row] = tracks[last];
+      lineIds[row] = lineIds[last];
+      destinationIds[row] = destinationIds[last];
+      rowByTrainNumber.put(trainNumbers[row], row);
+    }
+    version++;
+  }
+
+  /**
+   * Gets the departure time with delay of a row as minute of the day.
+   * Wraps around midnight the same way as {@link TrainDeparture#departureTimeWithDelay()}.
+   *
+   * @param row the row
+   * @return the departure time with delay as minute of the day
+   */
+  private int minuteWithDelay(int row) {
+    return Math.floorMod((long) departureMinutes[row] + delays[row], MINUTES_PER_DAY);
+  }
+
+  /**
+   * Deletes train departures with departure time with delay before time, and passes each
+   * deleted train departure to the callback. Scans the time and delay columns once.
+   *
+   * @param time      the time to delete before
+   * @param onEvicted the callback receiving each deleted train departure
+   * @throws IllegalArgumentException if time is null
+   * @throws IllegalArgumentException if callback is null
+   */
+  @Override
+  public void removeTrainDeparturesBeforeTime(LocalTime time,
+                                              Consumer<TrainDeparture> onEvicted) {
+    Validation.validateNotNull(time, "Time");
+    Validation.validateNotNull(onEvicted, "Callback");
+    long cutoff = time.toNanoOfDay();
+    int row = 0;
+    while (row < size) {
+      if (minuteWithDelay(row) * NANOS_PER_MINUTE < cutoff) {
+        TrainDeparture trainDeparture = toTrainDeparture(row);
+        removeRow(row);
+        onEvicted.accept(trainDeparture);
+      } else {
+        row++;
+      }
+    }
+  }
+
+  /**
+   * Returns a read-only view of the train departures to destination, sorted by departure time.
+   * The matching rows are found by scanning the destination id column, and the view holds
+   * copies of them, so later changes to the registry are not visible through it.
+   *
+   * @param destination the destination to filter from
+   * @return a read-only view of the train departures to destination
+   * @throws IllegalArgumentException if destination is blank
+   */
+  @Override
+  public TrainDepartureView trainDeparturesByDestination(String destination) {
+    Validation.validateStringNotBlank(destination, "Destination");
+    int destinationId = destinations.find(destination);
+    int matches = 0;
+    long[] keys = new long[DEFAULT_CAPACITY];
+    for (int row = 0; row < size; row++) {
+      if (destinationIds[row] == destinationId) {
+        if (matches == keys.length) {
+          keys = Arrays.copyOf(keys, matches << 1);
+        }
+        keys[matches++] = sortKey(departureMinutes[row], row);
+      }
+    }
+    Arrays.sort(keys, 0, matches);
+    ArrayList<TrainDeparture> result = new ArrayList<>(matches);
+    for (int i = 0; i < matches; i++) {
+      result.add(toTrainDeparture(rowByTrainNumber.get((int) keys[i])));
+    }
+    return new TrainDepartureView(result);
+  }
+
+  /**
+   * Returns an immutable snapshot of the train departures to destination, sorted by departure
+   * time with delay. The matching rows are found by scanning the destination id column, and
+   * only they are turned into departures.
+   *
+   * @param destination the destination to filter from
+   * @return a snapshot of the train departures to destination
+   * @throws IllegalArgumentException if destination is blank
+   */
+  @Override
+  public TrainDepartureSnapshot trainDeparturesTo(String destination) {
+    Validation.validateStringNotBlank(destination, "Destination");
+    int destinationId = destinations.find(destination);
+    int matches = 0;
+    long[] keys = new long[DEFAULT_CAPACITY];
+    for (int row = 0; row < size; row++) {
+      if (destinationIds[row] == destinationId) {
+        if (matches == keys.length) {
+          keys = Arrays.copyOf(keys, matches << 1);
+        }
+        keys[matches++] = sortKey(minuteWithDelay(row), row);
+      }
+    }
+    Arrays.sort(keys, 0, matches);
+    ArrayList<TrainDeparture> result = new ArrayList<>(matches);
+    for (int i = 0; i < matches; i++) {
+      result.add(toTrainDeparture(rowByTrainNumber.get((int) keys[i])));
+    }
+    return new TrainDepartureSnapshot(version, result);
+  }
+
+  /**
+   * Returns a page of the train departures with departure time with delay at or after time,
+   * sorted by departure time with delay. While the cached snapshot is current the page is
+   * found in it. Otherwise the rows at or after time are found by scanning the time and delay
+   * columns, their sort keys are sorted, and only the rows on the page are turned into
+   * departures.
+   *
+   * @param time  the time to list departures from
+   * @param skip  the number of departures to leave out
+   * @param count the largest number of departures to return
+   * @return a snapshot of the page of train departures
+   * @throws IllegalArgumentException if time is null
+   * @throws IllegalArgumentException if skip is negative
+   * @throws IllegalArgumentException if count is zero or less
+   */
+  @Override
+  public TrainDepartureSnapshot upcomingTrainDepartures(LocalTime time, int skip, int count) {
+    if (snapshot != null && snapshot.getVersion() == version) {
+      return DepartureRegistry.super.upcomingTrainDepartures(time, skip, count);
+    }
+    Validation.validateNotNull(time, "Time");
+    Validation.validateZeroOrPositiveNumber(skip, "Skip");
+    Validation.validatePositiveNumber(count, "Count");
+    long from = time.toNanoOfDay();
+    int matches = 0;
+    long[] keys = new long[DEFAULT_CAPACITY];
+    for (int row = 0; row < size; row++) {
+      int minute = minuteWithDelay(row);
+      if (minute * NANOS_PER_MINUTE >= from) {
+        if (matches == keys.length) {
+          keys = Arrays.copyOf(keys, matches << 1);
+        }
+        keys[matches++] = sortKey(minute, row);
+      }
+    }
+    Arrays.sort(keys, 0, matches);
+    int first = (int) Math.min(skip, matches);
+    int last = (int) Math.min((long) first + count, matches);
+    ArrayList<TrainDeparture> page = new ArrayList<>(last - first);
+    for (int i = first; i < last; i++) {
+      page.add(toTrainDeparture(rowByTrainNumber.get((int) keys[i])));
+    }
+    return new TrainDepartureSnapshot(version, page);
+  }
+
+  /**
+   * Creates a sort key ordering rows by minute and then by train number.
+   *
+   * @param minute the minute of the day
+   * @param row    the row
+   * @return the sort key, with the train number in the low 32 bits
+   */
+  private long sortKey(int minute, int row) {
+    return ((long) minute << 32) | trainNumbers[row];
+  }
+
+  /**
+   * Returns a list of train numbers sorted by scheduled departure time.
+   *
+   * @return a list of train numbers sorted by departure time
+   */
+  @Override
+  public ArrayList<Integer> sortedByDepartureTime() {
+    long[] keys = new long[size];
+    for (int row = 0; row < size; row++) {
+      keys[row] = sortKey(departureMinutes[row], row);
+    }
+    return trainNumbersOf(keys);
+  }
+
+  /**
+   * Returns a list of train numbers sorted by departure time with delay.
+   *
+   * @return a list of train numbers sorted by departure time with delay
+   */
+  @Override
+  public ArrayList<Integer> sortedByDepartureTimeWithDelay() {
+    long[] keys = new long[size];
+    for (int row = 0; row < size; row++) {
+      keys[row] = sortKey(minuteWithDelay(row), row);
+    }
+    return trainNumbersOf(keys);
+  }
+
+  /**
+   * Sorts the keys and collects the train numbers from their low 32 bits.
+   *
+   * @param keys the sort keys
+   * @return a list of train numbers in key order
+   */
+  private static ArrayList<Integer> trainNumbersOf(long[] keys) {
+    Arrays.sort(keys);
+    ArrayList<Integer> result = new ArrayList<>(keys.length);
+    for (long key : keys) {
+      result.add((int) key);
+    }
+    return result;
+  }
+
+  /**
+   * Creates a train departure object from a row.
+   *
+   * @param row the row
+   * @return a new train departure with the fields of the row
+   */
+  private TrainDeparture toTrainDeparture(int row) {
+    return new TrainDeparture(trainNumbers[row], lines.get(lineIds[row]),
+        destinations.get(destinationIds[row]),
+        LocalTime.ofSecondOfDay(departureMinutes[row] * 60L), delays[row], tracks[row]);
+  }
+
+  /**
+   * Gets the version of the registry, which is increased on every mutation.
+   *
+   * @return the version of the registry
+   */
+  @Override
+  public long version() {
+    return version;
+  }
+
+  /**
+   * Estimates the heap used by the train departures and the indices of the registry, from
+   * the capacity of the columns and about 16 bytes a slot in the train number map.
+   *
+   * @return the estimated bytes
+   */
+  @Override
+  public long estimatedIndexBytes() {
+    return (long) trainNumbers.length * COLUMNS * Integer.BYTES
+        + (long) rowByTrainNumber.size() * BYTES_PER_MAP_SLOT;
+  }
+
+  /**
+   * Returns an immutable snapshot of the registry, sorted by departure time with delay.
+   * The snapshot is cached, so rows are only turned into departures again after the registry
+   * has changed.
+   *
+   * @return a snapshot of the registry
+   */
+  @Override
+  public TrainDepartureSnapshot snapshot() {
+    if (snapshot == null || snapshot.getVersion() != version) {
+      ArrayList<Integer> sorted = sortedByDepartureTimeWithDelay();
+      ArrayList<TrainDeparture> trainDepartures = new ArrayList<>(sorted.size());
+      sorted.forEach(trainNumber ->
+          trainDepartures.add(toTrainDeparture(rowByTrainNumber.get(trainNumber))));
+      snapshot = new TrainDepartureSnapshot(version, trainDepartures);
+    }
+    return snapshot;
+  }
+
+  /**
+   * Finds the train departure with train number, and creates a departure from its row.
+   *
+   * @param trainNumber the train number
+   * @return the train departure, or null if train number is not in registry
+   */
+  @Override
+  public TrainDeparture findTrainDeparture(int trainNumber) {
+    int row = rowByTrainNumber.get(trainNumber);
+    return row < 0 ? null : toTrainDeparture(row);
+  }
+
+  /**
+   * Returns a string representation of the train departure from train number.
+   *
+   * @param trainNumber the train number
+   * @return a string representation of the train departure from train number
+   * @throws IllegalArgumentException if train number is not in registry
+   */
+  @Override
+  public String trainDepartureString(int trainNumber) {
+    return toTrainDeparture(getRow(trainNumber)).toString();
+  }
+
+  /**
+   * Returns a HashMap of information about the train departure from train number.
+   *
+   * @param trainNumber the train number of the train departure
+   * @return a Hashmap of information about the train departure from train number
+   * @throws IllegalArgumentException if train number is not in registry
+   */
+  @Override
+  public HashMap<String, String> getAllFromTrainNumber(int trainNumber) {
+    return toTrainDeparture(getRow(trainNumber)).trainInfo();
+  }
+
+  /**
+   * Returns a string representation of the train departure registry,
+   * sorted by departure time.
+   *
+   * @return a string representation of the train departure registry
+   */
+  @Override
+  public String toString() {
+    return sortedByDepartureTime().stream()
+        .map(this::trainDepartureString)
+        .collect(Collectors.joining("\n"));
+  }
+
+  /**
+   * This class represents a dictionary of strings, giving each distinct string a dense id.
+   */
+  private static class StringDictionary {
+    private final ArrayList<String> strings = new ArrayList<>();
+    private final HashMap<String, Integer> ids = new HashMap<>();
+
+    /**
+     * Gets the id of a string, adding it to the dictionary if it is new.
+     *
+     * @param string the string
+     * @return the id of the string
+     */
+    int idOf(String string) {
+      return ids.computeIfAbsent(string, key -> {
+        strings.add(key);
+        return strings.size() - 1;
+      });
+    }
+
+    /**
+     * Finds the id of a string without adding it.
+     *
+     * @param string the string
+     * @return the id of the string, or -1 if the string is not in the dictionary
+     */
+    int find(String string) {
+      return ids.getOrDefault(string, -1);
+    }
+
+    /**
+     * Gets the string with id.
+     *
+     * @param id the id
+     * @return the string with id
+     */
+    String get(int id) {
+      return strings.get(id);
+    }
+  }
+}
@@ -0,0 +1,580 @@
+package edu.ntnu.stud.models;
+
+import edu.ntnu.stud.utils.Validation;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * This class represents a train departure registry that can be shared between threads.
+ * Several dispatcher threads can update departures while other threads read them.
+ *
+ * <p>The departures stored in the registry are never changed after they are added. An update
+ * replaces the departure with a new one inside {@link ConcurrentHashMap#computeIfPresent}, which
+ * locks only the bin of that train number. Concurrent updates to the same train are therefore
+ * applied one after another and never lose a delay, while updates to different trains change
+ * the map and the ordered indices in parallel. The ordered indices are updated inside the
+ * same atomic step, and readers see a weakly consistent view of them without locking.
+ *
+ * <p>The departures are also kept in a persistent {@link DepartureTree} sorted by departure
+ * time with delay. Each write queues its change to the tree inside its atomic step, and
+ * publishes it after leaving the bin, so no bin stays locked while the tree is updated. One
+ * writer at a time holds the publisher lock and publishes every queued change in one pass,
+ * in O(log n) each, sharing the rest of the tree with the previous version. Writers that
+ * find the lock taken wait for it, and usually find their change already published by then,
+ * instead of retrying a swap against each other. A write returns once its change is
+ * published. Readers that need a consistent view of the whole registry, such as information
+ * board rendering, take a {@link #snapshot()}, which is one read of the published tree and
+ * never copies the registry. Readers never wait for writers.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+public class ConcurrentTrainDepartureRegistry implements DepartureRegistry {
+  // rough sizes for estimatedIndexBytes, on a 64-bit JVM with compressed references
+  private static final long BYTES_PER_TRAIN_DEPARTURE = 40 + 70 + 2 * 60 + 40;
+  private static final long BYTES_PER_DESTINATION = 200;
+  private static final int MAX_PUBLISH_BATCH = 1024;
+
+  private final ConcurrentHashMap<Integer, TrainDeparture> trainDepartures =
+      new ConcurrentHashMap<>();
+  private final ConcurrentSkipListMap<Long, TrainDeparture> byDepartureTime =
+      new ConcurrentSkipListMap<>();
+  private final ConcurrentHashMap<String, ConcurrentSkipListMap<Long, TrainDeparture>>
+      byDestination = new ConcurrentHashMap<>();
+  private final ConcurrentLinkedQueue<TreeChange> queued = new ConcurrentLinkedQueue<>();
+  private final ReentrantLock publisher = new ReentrantLock();
+  private volatile DepartureTree published = DepartureTree.empty(0);
+  private volatile TrainDepartureSnapshot snapshot;
+
+  /**
+   * Creates an index key ordering departures by time and then by train number.
+   *
+   * @param secondOfDay the time as seconds of the day
+   * @param trainNumber the train number
+   * @return the index key, with the train number in the low 32 bits
+   */
+  private static long indexKey(int secondOfDay, int trainNumber) {
+    return ((long) secondOfDay << 32) | trainNumber;
+  }
+
+  /**
+   * Gets the scheduled departure time index key of a train departure.
+   *
+   * @param trainDeparture the train departure
+   * @return the index key
+   */
+  private static long departureTimeKey(TrainDeparture trainDeparture) {
+    return indexKey(trainDeparture.getDepartureTime().toSecondOfDay(),
+        trainDeparture.getTrainNumber());
+  }
+
+  /**
+   * Gets a train departure from train number in one read.
+   *
+   * @param trainNumber the train number of the train departure
+   * @return the train departure with the train number
+   * @throws IllegalArgumentException if train number is not in registry
+   */
+  private TrainDeparture getTrainDeparture(int trainNumber) {
+    TrainDeparture trainDeparture = trainDepartures.get(trainNumber);
+    if (trainDeparture == null) {
+      throw new IllegalArgumentException("Train departure is not in the registry");
+    }
+    return trainDeparture;
+  }
+
+  /**
+   * Creates and adds a new train departure, utilizes {@link #addTrainDeparture(TrainDeparture)}.
+   *
+   * @param trainNumber   the train number
+   * @param line          the line
+   * @param destination   the destination
+   * @param departureTime the departure time
+   * @throws IllegalArgumentException if train number is zero or less
+   * @throws IllegalArgumentException if line is blank
+   * @throws IllegalArgumentException if destination is blank
+   * @throws IllegalArgumentException if departure time is null
+   * @throws IllegalArgumentException if train number already exists
+   */
+  @Override
+  public void newTrainDeparture(int trainNumber, String line, String destination,
+                                LocalTime departureTime) {
+    addTrainDeparture(new TrainDeparture(trainNumber, line, destination, departureTime));
+  }
+
+  /**
+   * Adds a train departure to registry. The registry takes over the train departure,
+   * so it must not be changed by the caller afterwards. The existence check and the insert are one
+   * atomic step.
+   *
+   * @param trainDeparture the train departure
+   * @throws IllegalArgumentException if train number already exists
+   */
+  @Override
+  public void addTrainDeparture(TrainDeparture trainDeparture) {
+    TreeChange[] change = new TreeChange[1];
+    trainDepartures.compute(trainDeparture.getTrainNumber(), (trainNumber, existing) -> {
+      if (existing != null) {
+        throw new IllegalArgumentException("Train number already exists");
+      }
+      index(trainDeparture);
+      change[0] = queue(null, trainDeparture);
+      return trainDeparture;
+    });
+    publish(change[0]);
+  }
+
+  /**
+   * Replaces a train departure with an updated copy, as one atomic step.
+   *
+   * @param trainNumber the train number of the train departure
+   * @param update      the update creating the new train departure from the current one
+   * @throws IllegalArgumentException if train number is not in registry
+   */
+  private void replaceTrainDeparture(int trainNumber,
+                                     UnaryOperator<TrainDeparture> update) {
+    TreeChange[] change = new TreeChange[1];
+    trainDepartures.computeIfPresent(trainNumber, (key, current) -> {
+      TrainDeparture updated = update.apply(current);
+      unindex(current);
+      index(updated);
+      change[0] = queue(current, updated);
+      return updated;
+    });
+    if (change[0] == null) {
+      throw new IllegalArgumentException("Train departure is not in the registry");
+    }
+    publish(change[0]);
+  }
+
+  /**
+   * Queues a change to the tree with one train departure replaced, removed or added. Called
+   * inside the atomic step of the train number, so the changes to one train are queued, and
+   * published, in order.
+   *
+   * @param removed the train departure to remove, or null
+   * @param added   the train departure to add, or null
+   * @return the queued change
+   */
+  private TreeChange queue(TrainDeparture removed, TrainDeparture added) {
+    var change = new TreeChange(
+        removed == null ? DepartureTree.NO_KEY : DepartureTree.keyOf(removed),
+        added == null ? DepartureTree.NO_KEY : DepartureTree.keyOf(added), added);
+    queued.add(change);
+    return change;
+  }
+
+  /**
+   * Waits until a queued change is published. Called after leaving the atomic step. The
+   * writer holding the publisher lock publishes every change queued so far as one batch, so
+   * a writer that had to wait for the lock usually finds its change already published.
+   *
+   * @param change the queued change
+   */
+  private void publish(TreeChange change) {
+    while (!change.published) {
+      publisher.lock();
+      try {
+        if (!change.published) {
+          publishQueued();
+        }
+      } finally {
+        publisher.unlock();
+      }
+    }
+  }
+
+  /**
+   * Publishes the queued changes, each as the next version of the tree. At most
+   * {@link #MAX_PUBLISH_BATCH} changes are taken, so the writer holding the publisher lock
+   * is not kept publishing the changes of others forever. Must be called while holding the
+   * publisher lock.
+   */
+  private void publishQueued() {
+    DepartureTree tree = published;
+    ArrayList<TreeChange> batch = new ArrayList<>();
+    TreeChange change;
+    while (batch.size() < MAX_PUBLISH_BATCH && (change = queued.poll()) != null) {
+      tree = tree.with(tree.version() + 1, change.removedKey, change.addedKey, change.added);
+      batch.add(change);
+    }
+    published = tree;
+    batch.forEach(done -> done.published = true);
+  }
+
+  /**
+   * Adds a train departure to the time and destination indices.
+   *
+   * @param trainDeparture the train departure
+   */
+  private void index(TrainDeparture trainDeparture) {
+    long key = departureTimeKey(trainDeparture);
+    byDepartureTime.put(key, trainDeparture);
+    byDestination.computeIfAbsent(trainDeparture.getDestination(),
+        destination -> new ConcurrentSkipListMap<>()).put(key, trainDeparture);
+  }
+
+  /**
+   * Removes a train departure from the time and destination indices. Only entries holding this
+   * exact departure are removed, so a newer departure with the same train number is left alone.
+   *
+   * @param trainDeparture the train departure
+   */
+  private void unindex(TrainDeparture trainDeparture) {
+    long key = departureTimeKey(trainDeparture);
+    byDepartureTime.remove(key, trainDeparture);
+    byDestination.get(trainDeparture.getDestination()).remove(key, trainDeparture);
+  }
+
+  /**
+   * Adds delay to train departure from train number. Concurrent calls for the same train
+   * are applied one after another, so no delay is lost.
+   *
+   * @param trainNumber the train number of the train departure
+   * @param delay       the delay
+   * @throws IllegalArgumentException if train number is not in registry
+   * @throws IllegalArgumentException if delay is zero or less
+   */
+  @Override
+  public void addDelay(int trainNumber, int delay) {
+    Validation.validatePositiveNumber(delay, "Delay");
+    replaceTrainDeparture(trainNumber, current -> new TrainDeparture(current.getTrainNumber(),
+        current.getLine(), current.getDestination(), current.getDepartureTime(),
+        current.getDelay() + delay, current.getTrack()));
+  }
+
+  /**
+   * Sets track to train departure from train number.
+   *
+   * @param trainNumber the train number of the train departure
+   * @param track       the track
+   * @throws IllegalArgumentException if train number is not in registry
+   * @throws IllegalArgumentException if track is zero or less, unless -1
+   */
+  @Override
+  public void setTrack(int trainNumber, int track) {
+    Validation.validatePositiveUnlessNegativeOne(track, "Track");
+    replaceTrainDeparture(trainNumber, current -> new TrainDeparture(current.getTrainNumber(),
+        current.getLine(), current.getDestination(), current.getDepartureTime(),
+        current.getDelay(), track));
+  }
+
+  /**
+   * Checks if registry contains train departure with train number.
+   *
+   * @param trainNumber the train number to check
+   * @return true if registry contains train departure with train number
+   */
+  @Override
+  public boolean containsTrainNumber(int trainNumber) {
+    return trainDepartures.containsKey(trainNumber);
+  }
+
+  /**
+   * Gets the number of train departures in the registry.
+   *
+   * @return the number of train departures
+   */
+  @Override
+  public int size() {
+    return trainDepartures.size();
+  }
+
+  /**
+   * Deletes a train departure from train number. The existence check and the removal are one
+   * atomic step.
+   *
+   * @param trainNumber the train number
+   * @throws IllegalArgumentException if train number is not in registry
+   */
+  @Override
+  public void removeTrainDeparture(int trainNumber) {
+    TreeChange[] change = new TreeChange[1];
+    trainDepartures.computeIfPresent(trainNumber, (key, current) -> {
+      unindex(current);
+      change[0] = queue(current, null);
+      return null;
+    });
+    if (change[0] == null) {
+      throw new IllegalArgumentException("Train departure is not in the registry");
+    }
+    publish(change[0]);
+  }
+
+  /**
+   * Removes a train departure only if it is still the current departure for its train number.
+   *
+   * @param trainDeparture the train departure to remove
+   * @return true if the train departure was removed
+   */
+  private boolean removeIfCurrent(TrainDeparture trainDeparture) {
+    TreeChange[] change = new TreeChange[1];
+    trainDepartures.computeIfPresent(trainDeparture.getTrainNumber(), (key, current) -> {
+      if (current != trainDeparture) {
+        return current;
+      }
+      unindex(current);
+      change[0] = queue(current, null);
+      return null;
+    });
+    if (change[0] == null) {
+      return false;
+    }
+    publish(change[0]);
+    return true;
+  }
+
+  /**
+   * Deletes train departures with departure time with delay before time, and passes each
+   * deleted train departure to the callback. The departures are taken from the front of the
+   * published tree. A departure that another thread updates or removes at the same time is
+   * skipped by this pass.
+   *
+   * @param time      the time to delete before
+   * @param onEvicted the callback receiving each deleted train departure
+   * @throws IllegalArgumentException if time is null
+   * @throws IllegalArgumentException if callback is null
+   */
+  @Override
+  public void removeTrainDeparturesBeforeTime(LocalTime time,
+                                              Consumer<TrainDeparture> onEvicted) {
+    Validation.validateNotNull(time, "Time");
+    Validation.validateNotNull(onEvicted, "Callback");
+    for (TrainDeparture trainDeparture : published.asList()) {
+      if (!trainDeparture.departureTimeWithDelay().isBefore(time)) {
+        break;
+      }
+      if (removeIfCurrent(trainDeparture)) {
+        onEvicted.accept(trainDeparture);
+      }
+    }
+  }
+
+  /**
+   * Returns a read-only view of the train departures to destination, sorted by departure time.
+   * The view is backed by the destination index and is weakly consistent.
+   *
+   * @param destination the destination to filter from
+   * @return a read-only view of the train departures to destination
+   * @throws IllegalArgumentException if destination is blank
+   */
+  @Override
+  public TrainDepartureView trainDeparturesByDestination(String destination) {
+    Validation.validateStringNotBlank(destination, "Destination");
+    ConcurrentSkipListMap<Long, TrainDeparture> matches = byDestination.get(destination);
+    if (matches == null) {
+      return new TrainDepartureView(Collections.emptySet());
+    }
+    return new TrainDepartureView(matches.values());
+  }
+
+  /**
+   * Returns an immutable snapshot of the train departures to destination, sorted by departure
+   * time with delay. The departures are read from the destination index and sorted, in
+   * O(k log k) for k departures to the destination. As the index is weakly consistent, the
+   * snapshot has the version read before it, and may already hold writes made after that.
+   *
+   * @param destination the destination to filter from
+   * @return a snapshot of the train departures to destination
+   * @throws IllegalArgumentException if destination is blank
+   */
+  @Override
+  public TrainDepartureSnapshot trainDeparturesTo(String destination) {
+    Validation.validateStringNotBlank(destination, "Destination");
+    long version = version();
+    ConcurrentSkipListMap<Long, TrainDeparture> matches = byDestination.get(destination);
+    ArrayList<TrainDeparture> found = matches == null
+        ? new ArrayList<>() : new ArrayList<>(matches.values());
+    found.sort(Comparator.comparingLong(DepartureTree::keyOf));
+    return new TrainDepartureSnapshot(version, found);
+  }
+
+  /**
+   * Returns a list of train numbers sorted by scheduled departure time.
+   *
+   * @return a list of train numbers sorted by departure time
+   */
+  @Override
+  public ArrayList<Integer> sortedByDepartureTime() {
+    return trainNumbersOf(byDepartureTime.values());
+  }
+
+  /**
+   * Returns a list of train numbers sorted by departure time with delay.
+   *
+   * @return a list of train numbers sorted by departure time with delay
+   */
+  @Override
+  public ArrayList<Integer> sortedByDepartureTimeWithDelay() {
+    return trainNumbersOf(published.asList());
+  }
+
+  /**
+   * Collects the train numbers of an index in iteration order.
+   *
+   * @param index the index to collect from
+   * @return a list of train numbers in the order of the index
+   */
+  private static ArrayList<Integer> trainNumbersOf(Collection<TrainDeparture> index) {
+    ArrayList<Integer> trainNumbers = new ArrayList<>();
+    index.forEach(trainDeparture -> trainNumbers.add(trainDeparture.getTrainNumber()));
+    return trainNumbers;
+  }
+
+  /**
+   * Returns a page of the train departures with departure time with delay at or after time,
+   * sorted by departure time with delay. The page is read from one version of the published
+   * tree in O(log n + count), so it is consistent with that version without waiting for
+   * writers.
+   *
+   * @param time  the time to list departures from
+   * @param skip  the number of departures to leave out
+   * @param count the largest number of departures to return
+   * @return a snapshot of the page of train departures
+   * @throws IllegalArgumentException if time is null
+   * @throws IllegalArgumentException if skip is negative
+   * @throws IllegalArgumentException if count is zero or less
+   */
+  @Override
+  public TrainDepartureSnapshot upcomingTrainDepartures(LocalTime time, int skip, int count) {
+    Validation.validateNotNull(time, "Time");
+    Validation.validateZeroOrPositiveNumber(skip, "Skip");
+    Validation.validatePositiveNumber(count, "Count");
+    DepartureTree tree = published;
+    int first = (int) Math.min((long) tree.indexOf(time) + skip, tree.size());
+    ArrayList<TrainDeparture> page = new ArrayList<>(Math.min(count, tree.size() - first));
+    Iterator<TrainDeparture> upcoming = tree.iterator(first);
+    while (page.size() < count && upcoming.hasNext()) {
+      page.add(upcoming.next());
+    }
+    return new TrainDepartureSnapshot(tree.version(), page);
+  }
+
+  /**
+   * Gets the version of the registry, which is the number of published writes.
+   *
+   * @return the version of the registry
+   */
+  @Override
+  public long version() {
+    return published.version();
+  }
+
+  /**
+   * Estimates the heap used by the train departures and the indices of the registry. Each
+   * train departure takes about 40 bytes, its entry in the train number map about 70, its
+   * entry in each of the two skip lists about 60, with the boxed keys, and its node in the
+   * tree about 40, on a 64-bit JVM with compressed references.
+   *
+   * @return the estimated bytes
+   */
+  @Override
+  public long estimatedIndexBytes() {
+    return trainDepartures.size() * BYTES_PER_TRAIN_DEPARTURE
+        + byDestination.size() * BYTES_PER_DESTINATION;
+  }
+
+  /**
+   * Returns an immutable snapshot of the registry, sorted by departure time with delay. The
+   * snapshot is backed by the published tree, so taking it is O(1) and never waits for
+   * writers. It is cached per version, so readers of the same version share its index.
+   *
+   * @return a snapshot of the registry
+   */
+  @Override
+  public TrainDepartureSnapshot snapshot() {
+    DepartureTree tree = published;
+    TrainDepartureSnapshot cached = snapshot;
+    if (cached != null && cached.getVersion() == tree.version()) {
+      return cached;
+    }
+    TrainDepartureSnapshot taken = new TrainDepartureSnapshot(tree.version(), tree.asList());
+    snapshot = taken;
+    return taken;
+  }
+
+  /**
+   * Finds the train departure with train number in one read. The departures in the registry
+   * are never changed, so no copy is made.
+   *
+   * @param trainNumber the train number
+   * @return the train departure, or null if train number is not in registry
+   */
+  @Override
+  public TrainDeparture findTrainDeparture(int trainNumber) {
+    return trainDepartures.get(trainNumber);
+  }
+
+  /**
+   * Returns a string representation of the train departure from train number.
+   *
+   * @param trainNumber the train number
+   * @return a string representation of the train departure from train number
+   * @throws IllegalArgumentException if train number is not in registry
+   */
+  @Override
+  public String trainDepartureString(int trainNumber) {
+    return getTrainDeparture(trainNumber).toString();
+  }
+
+  /**
+   * Returns a HashMap of information about the train departure from train number.
+   *
+   * @param trainNumber the train number of the train departure
+   * @return a Hashmap of information about the train departure from train number
+   * @throws IllegalArgumentException if train number is not in registry
+   */
+  @Override
+  public HashMap<String, String> getAllFromTrainNumber(int trainNumber) {
+    return getTrainDeparture(trainNumber).trainInfo();
+  }
+
+  /**
+   * Returns a string representation of the train departure registry,
+   * sorted by departure time.
+   *
+   * @return a string representation of the train departure registry
+   */
+  @Override
+  public String toString() {
+    return byDepartureTime.values().stream()
+        .map(TrainDeparture::toString)
+        .collect(Collectors.joining("\n"));
+  }
+
+  /**
+   * This class represents a change to the tree, queued by a writer until it is published.
+   */
+  private static final class TreeChange {
+    private final long removedKey;
+    private final long addedKey;
+    private final TrainDeparture added;
+    private volatile boolean published;
+
+    /**
+     * Constructor for tree change.
+     *
+     * @param removedKey the key of the train departure to remove, or NO_KEY
+     * @param addedKey   the key of the train departure to add, or NO_KEY
+     * @param added      the train departure to add, or null
+     */
+    TreeChange(long removedKey, long addedKey, TrainDeparture added) {
+      this.removedKey = removedKey;
+      this.addedKey = addedKey;
+      this.added = added;
+    }
+  }
+}
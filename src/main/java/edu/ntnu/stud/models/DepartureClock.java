@@ -0,0 +1,120 @@
+package edu.ntnu.stud.models;
+
+import edu.ntnu.stud.utils.Validation;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class follows a real-time clock and removes the departed trains from a registry as the
+ * clock passes them, instead of waiting for an operator to set the time.
+ *
+ * <p>Each {@link #tick()} reads the clock and removes the train departures before it. When the
+ * clock has passed midnight since the last tick, the train departures left from the day before
+ * are removed first. Started with {@link #start(int)}, a background thread ticks at a fixed
+ * interval. With a {@link TimingWheelDepartureRegistry}, each tick only visits the minutes
+ * that passed since the tick before. A tick that fails on that thread is reported to its
+ * uncaught exception handler, and the clock keeps ticking.
+ *
+ * <p>The background thread mutates the registry, so it must be thread safe when the clock is
+ * started.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+public class DepartureClock implements AutoCloseable {
+  private final DepartureRegistry registry;
+  private final Clock clock;
+  private LocalDate date;
+  private LocalTime time;
+  private ScheduledExecutorService ticker;
+
+  /**
+   * Constructor for departure clock. The clock does not tick until {@link #tick()} or
+   * {@link #start(int)} is called.
+   *
+   * @param registry the registry to remove departed trains from
+   * @param clock    the clock to follow
+   * @throws IllegalArgumentException if registry or clock is null
+   */
+  public DepartureClock(DepartureRegistry registry, Clock clock) {
+    Validation.validateNotNull(registry, "Registry");
+    Validation.validateNotNull(clock, "Clock");
+    this.registry = registry;
+    this.clock = clock;
+  }
+
+  /**
+   * Reads the clock and removes the train departures before it.
+   *
+   * @return the time read from the clock
+   */
+  public synchronized LocalTime tick() {
+    LocalDateTime now = LocalDateTime.now(clock);
+    if (date != null && now.toLocalDate().isAfter(date)) {
+      registry.removeTrainDeparturesBeforeTime(LocalTime.MAX);
+    }
+    date = now.toLocalDate();
+    time = now.toLocalTime();
+    registry.removeTrainDeparturesBeforeTime(time);
+    return time;
+  }
+
+  /**
+   * Gets the time of the latest tick, ticking first if the clock has never ticked.
+   *
+   * @return the time of the latest tick
+   */
+  public synchronized LocalTime getTime() {
+    return time == null ? tick() : time;
+  }
+
+  /**
+   * Starts ticking on a background thread at a fixed interval.
+   *
+   * @param intervalMillis the milliseconds between ticks
+   * @throws IllegalArgumentException if interval is zero or less
+   * @throws IllegalStateException if the clock is already started
+   */
+  public synchronized void start(int intervalMillis) {
+    Validation.validatePositiveNumber(intervalMillis, "Interval");
+    if (ticker != null) {
+      throw new IllegalStateException("Clock is already started");
+    }
+    ticker = Executors.newSingleThreadScheduledExecutor(task -> {
+      var thread = new Thread(task, "departure-clock");
+      thread.setDaemon(true);
+      return thread;
+    });
+    ticker.scheduleAtFixedRate(this::tickAndReport, 0, intervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Ticks on the background thread. A failure is reported instead of thrown, since a task that
+   * throws is never run again by the executor.
+   */
+  private void tickAndReport() {
+    try {
+      tick();
+    } catch (RuntimeException e) {
+      Thread thread = Thread.currentThread();
+      thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+    }
+  }
+
+  /**
+   * Stops ticking. The clock can still be ticked by hand, and started again.
+   */
+  @Override
+  public synchronized void close() {
+    if (ticker != null) {
+      ticker.shutdownNow();
+      ticker = null;
+    }
+  }
+}
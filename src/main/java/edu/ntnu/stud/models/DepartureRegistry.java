@@ -0,0 +1,295 @@
+package edu.ntnu.stud.models;
+
+import edu.ntnu.stud.utils.IntHashMap;
+import edu.ntnu.stud.utils.Validation;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * This interface represents the operations of a train departure registry. It lets the
+ * application choose between registry backends, such as {@link TrainDepartureRegistry}
+ * and {@link ColumnarTrainDepartureRegistry}.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+public interface DepartureRegistry {
+
+  /**
+   * Creates and adds a new train departure.
+   *
+   * @param trainNumber   the train number
+   * @param line          the line
+   * @param destination   the destination
+   * @param departureTime the departure time
+   * @throws IllegalArgumentException if train number is zero or less
+   * @throws IllegalArgumentException if line is blank
+   * @throws IllegalArgumentException if destination is blank
+   * @throws IllegalArgumentException if departure time is null
+   * @throws IllegalArgumentException if train number already exists
+   */
+  void newTrainDeparture(int trainNumber, String line, String destination,
+                         LocalTime departureTime);
+
+  /**
+   * Adds a train departure to registry, including its delay and track. The registry takes
+   * over the train departure, so it must not be changed by the caller afterwards.
+   *
+   * @param trainDeparture the train departure
+   * @throws IllegalArgumentException if train number already exists
+   */
+  void addTrainDeparture(TrainDeparture trainDeparture);
+
+  /**
+   * Adds many train departures to registry in one pass. Either every train departure is
+   * added, or none are. The registry takes over the train departures.
+   *
+   * @param trainDepartures the train departures
+   * @throws IllegalArgumentException if a train number already exists, or appears twice
+   */
+  default void addTrainDepartures(List<TrainDeparture> trainDepartures) {
+    IntHashMap<TrainDeparture> seen = new IntHashMap<>(trainDepartures.size());
+    for (TrainDeparture trainDeparture : trainDepartures) {
+      if (containsTrainDeparture(trainDeparture)
+          || seen.put(trainDeparture.getTrainNumber(), trainDeparture) != null) {
+        throw new IllegalArgumentException("Train number already exists");
+      }
+    }
+    trainDepartures.forEach(this::addTrainDeparture);
+  }
+
+  /**
+   * Adds delay to train departure from train number.
+   *
+   * @param trainNumber the train number of the train departure
+   * @param delay       the delay
+   * @throws IllegalArgumentException if train number is not in registry
+   * @throws IllegalArgumentException if delay is zero or less
+   */
+  void addDelay(int trainNumber, int delay);
+
+  /**
+   * Sets track to train departure from train number.
+   *
+   * @param trainNumber the train number of the train departure
+   * @param track       the track
+   * @throws IllegalArgumentException if train number is not in registry
+   * @throws IllegalArgumentException if track is zero or less, unless -1
+   */
+  void setTrack(int trainNumber, int track);
+
+  /**
+   * Checks if registry contains train departure, utilizes {@link #containsTrainNumber(int)}.
+   *
+   * @param trainDeparture the train departure to check
+   * @return true if registry contains train departure
+   */
+  default boolean containsTrainDeparture(TrainDeparture trainDeparture) {
+    return containsTrainNumber(trainDeparture.getTrainNumber());
+  }
+
+  /**
+   * Checks if registry contains train departure with train number.
+   *
+   * @param trainNumber the train number to check
+   * @return true if registry contains train departure with train number
+   */
+  boolean containsTrainNumber(int trainNumber);
+
+  /**
+   * Validates train departure presence from train number,
+   * utilizes {@link #containsTrainNumber(int)}.
+   *
+   * @param trainNumber the train number to check
+   * @throws IllegalArgumentException if train number is not in registry
+   */
+  default void validateTrainNumberExistence(int trainNumber) {
+    if (!containsTrainNumber(trainNumber)) {
+      throw new IllegalArgumentException("Train departure is not in the registry");
+    }
+  }
+
+  /**
+   * Gets the number of train departures in the registry.
+   *
+   * @return the number of train departures
+   */
+  int size();
+
+  /**
+   * Deletes a train departure from train number.
+   *
+   * @param trainNumber the train number
+   * @throws IllegalArgumentException if train number is not in registry
+   */
+  void removeTrainDeparture(int trainNumber);
+
+  /**
+   * Deletes train departures with departure time with delay before time,
+   * utilizes {@link #removeTrainDeparturesBeforeTime(LocalTime, Consumer)}.
+   *
+   * @param time the time to delete before
+   * @throws IllegalArgumentException if time is null
+   */
+  default void removeTrainDeparturesBeforeTime(LocalTime time) {
+    removeTrainDeparturesBeforeTime(time, trainDeparture -> { });
+  }
+
+  /**
+   * Deletes train departures with departure time with delay before time, and passes each
+   * deleted train departure to the callback.
+   *
+   * @param time      the time to delete before
+   * @param onEvicted the callback receiving each deleted train departure
+   * @throws IllegalArgumentException if time is null
+   * @throws IllegalArgumentException if callback is null
+   */
+  void removeTrainDeparturesBeforeTime(LocalTime time, Consumer<TrainDeparture> onEvicted);
+
+  /**
+   * Returns a read-only view of the train departures to destination, sorted by departure time.
+   *
+   * @param destination the destination to filter from
+   * @return a read-only view of the train departures to destination
+   * @throws IllegalArgumentException if destination is blank
+   */
+  TrainDepartureView trainDeparturesByDestination(String destination);
+
+  /**
+   * Returns an immutable snapshot of the train departures to destination, sorted by departure
+   * time with delay. An unknown destination gives an empty snapshot.
+   *
+   * <p>This default filters the whole {@link #snapshot()}. Registries with a destination index
+   * copy only the departures to the destination from it.
+   *
+   * @param destination the destination to filter from
+   * @return a snapshot of the train departures to destination
+   * @throws IllegalArgumentException if destination is blank
+   */
+  default TrainDepartureSnapshot trainDeparturesTo(String destination) {
+    Validation.validateStringNotBlank(destination, "Destination");
+    TrainDepartureSnapshot snapshot = snapshot();
+    List<TrainDeparture> matches = new ArrayList<>();
+    for (TrainDeparture trainDeparture : snapshot.getTrainDepartures()) {
+      if (trainDeparture.getDestination().equals(destination)) {
+        matches.add(trainDeparture);
+      }
+    }
+    return new TrainDepartureSnapshot(snapshot.getVersion(), matches);
+  }
+
+  /**
+   * Returns a list of train numbers sorted by scheduled departure time.
+   *
+   * @return a list of train numbers sorted by departure time
+   */
+  ArrayList<Integer> sortedByDepartureTime();
+
+  /**
+   * Returns a list of train numbers sorted by departure time with delay.
+   *
+   * @return a list of train numbers sorted by departure time with delay
+   */
+  ArrayList<Integer> sortedByDepartureTimeWithDelay();
+
+  /**
+   * Returns a page of the train departures with departure time with delay at or after time,
+   * sorted by departure time with delay. The first {@code skip} of them are left out, and at
+   * most {@code count} are returned, so a board can show them one page at a time.
+   *
+   * <p>This default searches the sorted {@link #snapshot()}, which is only cheap while the
+   * registry is unchanged. Registries with a sorted index find the page in
+   * O(log n + skip + count) without copying the rest of the registry.
+   *
+   * @param time  the time to list departures from
+   * @param skip  the number of departures to leave out
+   * @param count the largest number of departures to return
+   * @return a snapshot of the page of train departures
+   * @throws IllegalArgumentException if time is null
+   * @throws IllegalArgumentException if skip is negative
+   * @throws IllegalArgumentException if count is zero or less
+   */
+  default TrainDepartureSnapshot upcomingTrainDepartures(LocalTime time, int skip, int count) {
+    Validation.validateNotNull(time, "Time");
+    Validation.validateZeroOrPositiveNumber(skip, "Skip");
+    Validation.validatePositiveNumber(count, "Count");
+    TrainDepartureSnapshot snapshot = snapshot();
+    List<TrainDeparture> trainDepartures = snapshot.getTrainDepartures();
+    int low = 0;
+    int high = trainDepartures.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (trainDepartures.get(middle).departureTimeWithDelay().isBefore(time)) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    int from = (int) Math.min((long) low + skip, trainDepartures.size());
+    int to = (int) Math.min((long) from + count, trainDepartures.size());
+    return new TrainDepartureSnapshot(snapshot.getVersion(), trainDepartures.subList(from, to));
+  }
+
+  /**
+   * Gets the version of the registry. The version changes on every mutation, so two equal
+   * versions mean the registry has not changed in between.
+   *
+   * @return the version of the registry
+   */
+  long version();
+
+  /**
+   * Estimates the heap used by the train departures and the indices of the registry, for
+   * monitoring. Lines and destinations shared between train departures are not counted.
+   *
+   * @return the estimated bytes, or -1 if the registry cannot estimate them
+   */
+  default long estimatedIndexBytes() {
+    return -1;
+  }
+
+  /**
+   * Returns an immutable snapshot of the registry, sorted by departure time with delay.
+   * Taking a snapshot of an unchanged registry returns the cached snapshot of that version.
+   *
+   * @return a snapshot of the registry
+   */
+  TrainDepartureSnapshot snapshot();
+
+  /**
+   * Finds the train departure with train number as it is now. The returned departure is never
+   * changed by the registry, so it can be read while the registry keeps changing, and it must
+   * not be changed by the caller either.
+   *
+   * <p>This default looks the train up in the {@link #snapshot()}, which is only cheap while
+   * the registry is unchanged. Registries look it up by train number directly.
+   *
+   * @param trainNumber the train number
+   * @return the train departure, or null if train number is not in registry
+   */
+  default TrainDeparture findTrainDeparture(int trainNumber) {
+    return snapshot().findTrainDeparture(trainNumber);
+  }
+
+  /**
+   * Returns a string representation of the train departure from train number.
+   *
+   * @param trainNumber the train number
+   * @return a string representation of the train departure from train number
+   * @throws IllegalArgumentException if train number is not in registry
+   */
+  String trainDepartureString(int trainNumber);
+
+  /**
+   * Returns a HashMap of information about the train departure from train number.
+   *
+   * @param trainNumber the train number of the train departure
+   * @return a Hashmap of information about the train departure from train number
+   * @throws IllegalArgumentException if train number is not in registry
+   */
+  HashMap<String, String> getAllFromTrainNumber(int trainNumber);
+}
@@ -0,0 +1,203 @@
+package edu.ntnu.stud.models;
+
+import edu.ntnu.stud.utils.IntHashMap;
+import edu.ntnu.stud.utils.IntIntHashMap;
+import edu.ntnu.stud.utils.Validation;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * This class represents a timing wheel of train departures, with one slot for every minute of
+ * the day keyed on the departure time with delay. Advancing the wheel expires the train
+ * departures in the slots the clock has passed, so finding the departed trains costs one step
+ * per passed minute and one per departed train, however many train departures are waiting.
+ *
+ * <p>A registry only holds one day, so the 1440 slots cover every departure time and no
+ * coarser wheel has to cascade into this one. In the slot of the current minute, each train
+ * departure is compared to the exact time, so a train expires exactly when
+ * {@link DepartureRegistry#removeTrainDeparturesBeforeTime(LocalTime)} would remove it. A
+ * train departure scheduled before the current time, for example when a delay takes it past
+ * midnight, is put in the slot of the current minute and expires on the next advance.
+ *
+ * <p>This class is not thread safe.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+public class DepartureTimingWheel {
+  /**
+   * The number of slots, one for every minute of the day.
+   */
+  public static final int SLOTS = 24 * 60;
+
+  // slots are created on first use, as most minutes of a small timetable have no departures
+  private final List<IntHashMap<TrainDeparture>> slots = new ArrayList<>(SLOTS);
+  private final IntIntHashMap slotByTrainNumber = new IntIntHashMap();
+  private LocalTime time = LocalTime.MIN;
+
+  /**
+   * Constructor for departure timing wheel, creates an empty wheel at midnight.
+   */
+  public DepartureTimingWheel() {
+    for (int i = 0; i < SLOTS; i++) {
+      slots.add(null);
+    }
+  }
+
+  /**
+   * Gets the time of the wheel, the latest time it was advanced or rewound to.
+   *
+   * @return the time of the wheel
+   */
+  public LocalTime getTime() {
+    return time;
+  }
+
+  /**
+   * Gets the number of scheduled train departures.
+   *
+   * @return the number of train departures
+   */
+  public int size() {
+    return slotByTrainNumber.size();
+  }
+
+  /**
+   * Gets the scheduled train departure from train number.
+   *
+   * @param trainNumber the train number
+   * @return the train departure, or null if it is not scheduled
+   */
+  public TrainDeparture get(int trainNumber) {
+    int slot = slotByTrainNumber.get(trainNumber);
+    return slot < 0 ? null : slots.get(slot).get(trainNumber);
+  }
+
+  /**
+   * Gets the slot of a time.
+   *
+   * @param time the time
+   * @return the minute of the day
+   */
+  private static int slotOf(LocalTime time) {
+    return time.getHour() * 60 + time.getMinute();
+  }
+
+  /**
+   * Schedules a train departure in the slot of its departure time with delay. Scheduling a
+   * train departure again moves it to the slot of its current departure time with delay, so
+   * it must be scheduled again after a delay is added to it.
+   *
+   * @param trainDeparture the train departure
+   * @throws IllegalArgumentException if train departure is null
+   */
+  public void schedule(TrainDeparture trainDeparture) {
+    Validation.validateNotNull(trainDeparture, "Train departure");
+    cancel(trainDeparture.getTrainNumber());
+    LocalTime departureTime = trainDeparture.departureTimeWithDelay();
+    put(departureTime.isBefore(time) ? slotOf(time) : slotOf(departureTime), trainDeparture);
+  }
+
+  /**
+   * Puts a train departure in a slot.
+   *
+   * @param slot           the slot
+   * @param trainDeparture the train departure
+   */
+  private void put(int slot, TrainDeparture trainDeparture) {
+    IntHashMap<TrainDeparture> trainDepartures = slots.get(slot);
+    if (trainDepartures == null) {
+      trainDepartures = new IntHashMap<>();
+      slots.set(slot, trainDepartures);
+    }
+    trainDepartures.put(trainDeparture.getTrainNumber(), trainDeparture);
+    slotByTrainNumber.put(trainDeparture.getTrainNumber(), slot);
+  }
+
+  /**
+   * Removes a train departure from the wheel without expiring it.
+   *
+   * @param trainNumber the train number
+   * @return the removed train departure, or null if it was not scheduled
+   */
+  public TrainDeparture cancel(int trainNumber) {
+    int slot = slotByTrainNumber.remove(trainNumber);
+    return slot < 0 ? null : slots.get(slot).remove(trainNumber);
+  }
+
+  /**
+   * Gets the train departures that advancing the wheel to a time would expire, those with
+   * departure time with delay before the time, without changing the wheel. Only the slots
+   * from the time of the wheel to the new time are visited.
+   *
+   * @param to the time to advance to
+   * @return the train departures due to expire
+   * @throws IllegalArgumentException if time is null
+   * @throws IllegalArgumentException if time is before the time of the wheel
+   */
+  public List<TrainDeparture> due(LocalTime to) {
+    Validation.validateNotNull(to, "Time");
+    Validation.validateTimeAfter(time, to);
+    List<TrainDeparture> due = new ArrayList<>();
+    int last = slotOf(to);
+    for (int slot = slotOf(time); slot < last; slot++) {
+      IntHashMap<TrainDeparture> trainDepartures = slots.get(slot);
+      if (trainDepartures != null) {
+        trainDepartures.forEachValue(due::add);
+      }
+    }
+    IntHashMap<TrainDeparture> current = slots.get(last);
+    if (current != null) {
+      current.forEachValue(trainDeparture -> {
+        if (trainDeparture.departureTimeWithDelay().isBefore(to)) {
+          due.add(trainDeparture);
+        }
+      });
+    }
+    return due;
+  }
+
+  /**
+   * Advances the wheel to a time, and passes each train departure with departure time with
+   * delay before the time to the callback. Only the slots from the old to the new time are
+   * visited.
+   *
+   * @param to        the time to advance to
+   * @param onExpired the callback receiving each expired train departure
+   * @return the number of expired train departures
+   * @throws IllegalArgumentException if time or callback is null
+   * @throws IllegalArgumentException if time is before the time of the wheel
+   */
+  public int advance(LocalTime to, Consumer<TrainDeparture> onExpired) {
+    Validation.validateNotNull(onExpired, "Callback");
+    List<TrainDeparture> expired = due(to);
+    expired.forEach(trainDeparture -> cancel(trainDeparture.getTrainNumber()));
+    time = to;
+    expired.forEach(onExpired);
+    return expired.size();
+  }
+
+  /**
+   * Rewinds the wheel to an earlier time, such as the start of a new day. Nothing expires.
+   * Train departures that were put in the slot of the old time because they were already
+   * overdue are moved back to the slot they belong in.
+   *
+   * @param to the time to rewind to
+   * @throws IllegalArgumentException if time is null
+   * @throws IllegalArgumentException if time is after the time of the wheel
+   */
+  public void rewind(LocalTime to) {
+    Validation.validateNotNull(to, "Time");
+    Validation.validateTimeAfter(to, time);
+    IntHashMap<TrainDeparture> current = slots.get(slotOf(time));
+    time = to;
+    if (current != null && !current.isEmpty()) {
+      List<TrainDeparture> overdue = new ArrayList<>(current.size());
+      current.forEachValue(overdue::add);
+      overdue.forEach(this::schedule);
+    }
+  }
+}
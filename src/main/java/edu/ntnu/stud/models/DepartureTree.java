@@ -0,0 +1,424 @@
+package edu.ntnu.stud.models;
+
+import java.time.LocalTime;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * This class represents an immutable, persistent set of train departures sorted by departure
+ * time with delay and then by train number, at one registry version.
+ *
+ * <p>The departures are kept in a treap whose priorities are a hash of the keys, so it stays
+ * balanced in expectation without storing any balance information. A change returns a new
+ * tree that shares every node off the changed paths with the old one, in O(log n), and the
+ * old tree stays valid. A registry can therefore publish each version through one reference,
+ * and a reader holding a tree keeps a consistent view of its version however the registry
+ * changes afterwards. The departures in a tree must never be changed.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+final class DepartureTree {
+  /**
+   * The key given for no departure, when a change only adds or only removes one.
+   */
+  static final long NO_KEY = -1;
+
+  private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+
+  private final Node root;
+  private final long version;
+
+  /**
+   * This class represents one departure in the tree, with the size of its subtree.
+   */
+  private static final class Node {
+    private final long key;
+    private final TrainDeparture value;
+    private final Node left;
+    private final Node right;
+    private final int size;
+
+    /**
+     * Constructor for node.
+     *
+     * @param key   the key of the departure
+     * @param value the departure
+     * @param left  the subtree of smaller keys
+     * @param right the subtree of larger keys
+     */
+    Node(long key, TrainDeparture value, Node left, Node right) {
+      this.key = key;
+      this.value = value;
+      this.left = left;
+      this.right = right;
+      this.size = 1 + sizeOf(left) + sizeOf(right);
+    }
+  }
+
+  /**
+   * Constructor for departure tree.
+   *
+   * @param root    the root, or null if the tree is empty
+   * @param version the registry version of the tree
+   */
+  private DepartureTree(Node root, long version) {
+    this.root = root;
+    this.version = version;
+  }
+
+  /**
+   * Creates an empty tree.
+   *
+   * @param version the registry version of the tree
+   * @return the empty tree
+   */
+  static DepartureTree empty(long version) {
+    return new DepartureTree(null, version);
+  }
+
+  /**
+   * Creates a tree of departures already sorted by key, in O(n log n) without rotations.
+   *
+   * @param version         the registry version of the tree
+   * @param trainDepartures the departures, sorted by {@link #keyOf(TrainDeparture)}
+   * @return the tree
+   */
+  static DepartureTree of(long version, List<TrainDeparture> trainDepartures) {
+    int count = trainDepartures.size();
+    long[] keys = new long[count];
+    TrainDeparture[] values = trainDepartures.toArray(new TrainDeparture[0]);
+    for (int i = 0; i < count; i++) {
+      keys[i] = keyOf(values[i]);
+    }
+    return new DepartureTree(build(keys, values, 0, count), version);
+  }
+
+  /**
+   * Builds the treap of a sorted range, with the departure of the highest priority as root.
+   *
+   * @param keys   the sorted keys
+   * @param values the departures of the keys
+   * @param from   the first index of the range
+   * @param to     the index after the range
+   * @return the root of the range, or null if the range is empty
+   */
+  private static Node build(long[] keys, TrainDeparture[] values, int from, int to) {
+    if (from >= to) {
+      return null;
+    }
+    int top = from;
+    for (int i = from + 1; i < to; i++) {
+      if (priorityOf(keys[i]) > priorityOf(keys[top])) {
+        top = i;
+      }
+    }
+    return new Node(keys[top], values[top], build(keys, values, from, top),
+        build(keys, values, top + 1, to));
+  }
+
+  /**
+   * Gets the key of a departure, its departure time with delay as seconds of the day in the
+   * high 32 bits and its train number in the low 32 bits. Wraps around midnight the same way
+   * as {@link TrainDeparture#departureTimeWithDelay()}.
+   *
+   * @param trainDeparture the departure
+   * @return the key
+   */
+  static long keyOf(TrainDeparture trainDeparture) {
+    return keyAt(trainDeparture.departureSecondOfDayWithDelay(),
+        trainDeparture.getTrainNumber());
+  }
+
+  /**
+   * Gets the key of a time and a train number.
+   *
+   * @param secondOfDay the time as seconds of the day
+   * @param trainNumber the train number
+   * @return the key
+   */
+  static long keyAt(int secondOfDay, int trainNumber) {
+    return ((long) secondOfDay << 32) | trainNumber;
+  }
+
+  /**
+   * Gets the priority of a key, a hash that spreads neighbouring keys apart.
+   *
+   * @param key the key
+   * @return the priority
+   */
+  private static int priorityOf(long key) {
+    long hash = key * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32));
+  }
+
+  /**
+   * Gets the size of a subtree.
+   *
+   * @param node the root of the subtree, or null
+   * @return the number of departures in the subtree
+   */
+  private static int sizeOf(Node node) {
+    return node == null ? 0 : node.size;
+  }
+
+  /**
+   * Returns a tree with one departure replaced, removed or added. The tree itself is left as
+   * it is.
+   *
+   * @param version    the registry version of the new tree
+   * @param removedKey the key to remove, or {@link #NO_KEY}
+   * @param addedKey   the key to add, or {@link #NO_KEY}
+   * @param added      the departure of the added key, or null
+   * @return the new tree
+   */
+  DepartureTree with(long version, long removedKey, long addedKey, TrainDeparture added) {
+    Node changed = root;
+    if (removedKey != NO_KEY) {
+      changed = remove(changed, removedKey);
+    }
+    if (addedKey != NO_KEY) {
+      changed = insert(changed, addedKey, added);
+    }
+    return new DepartureTree(changed, version);
+  }
+
+  /**
+   * Inserts a key into a subtree, copying the path to it.
+   *
+   * @param node  the root of the subtree, or null
+   * @param key   the key
+   * @param value the departure of the key
+   * @return the new root of the subtree
+   */
+  private static Node insert(Node node, long key, TrainDeparture value) {
+    if (node == null) {
+      return new Node(key, value, null, null);
+    }
+    if (priorityOf(key) > priorityOf(node.key)) {
+      return new Node(key, value, below(node, key), atOrAbove(node, key));
+    }
+    if (key < node.key) {
+      return new Node(node.key, node.value, insert(node.left, key, value), node.right);
+    }
+    return new Node(node.key, node.value, node.left, insert(node.right, key, value));
+  }
+
+  /**
+   * Gets the part of a subtree with keys below a key.
+   *
+   * @param node the root of the subtree, or null
+   * @param key  the key
+   * @return the root of the part below the key
+   */
+  private static Node below(Node node, long key) {
+    if (node == null) {
+      return null;
+    }
+    if (node.key < key) {
+      return new Node(node.key, node.value, node.left, below(node.right, key));
+    }
+    return below(node.left, key);
+  }
+
+  /**
+   * Gets the part of a subtree with keys at or above a key.
+   *
+   * @param node the root of the subtree, or null
+   * @param key  the key
+   * @return the root of the part at or above the key
+   */
+  private static Node atOrAbove(Node node, long key) {
+    if (node == null) {
+      return null;
+    }
+    if (node.key >= key) {
+      return new Node(node.key, node.value, atOrAbove(node.left, key), node.right);
+    }
+    return atOrAbove(node.right, key);
+  }
+
+  /**
+   * Removes a key from a subtree, copying the path to it. A missing key leaves the subtree
+   * as it is.
+   *
+   * @param node the root of the subtree, or null
+   * @param key  the key
+   * @return the new root of the subtree
+   */
+  private static Node remove(Node node, long key) {
+    if (node == null) {
+      return null;
+    }
+    if (key == node.key) {
+      return merge(node.left, node.right);
+    }
+    if (key < node.key) {
+      Node left = remove(node.left, key);
+      return left == node.left ? node : new Node(node.key, node.value, left, node.right);
+    }
+    Node right = remove(node.right, key);
+    return right == node.right ? node : new Node(node.key, node.value, node.left, right);
+  }
+
+  /**
+   * Merges two subtrees where every key of the first is below every key of the second.
+   *
+   * @param left  the subtree of smaller keys, or null
+   * @param right the subtree of larger keys, or null
+   * @return the root of the merged subtree
+   */
+  private static Node merge(Node left, Node right) {
+    if (left == null) {
+      return right;
+    }
+    if (right == null) {
+      return left;
+    }
+    if (priorityOf(left.key) > priorityOf(right.key)) {
+      return new Node(left.key, left.value, left.left, merge(left.right, right));
+    }
+    return new Node(right.key, right.value, merge(left, right.left), right.right);
+  }
+
+  /**
+   * Gets the registry version of the tree.
+   *
+   * @return the version
+   */
+  long version() {
+    return version;
+  }
+
+  /**
+   * Gets the number of departures in the tree.
+   *
+   * @return the number of departures
+   */
+  int size() {
+    return sizeOf(root);
+  }
+
+  /**
+   * Gets the number of departures departing before a time, with delay, in O(log n).
+   *
+   * @param time the time
+   * @return the index of the first departure at or after time
+   */
+  int indexOf(LocalTime time) {
+    int firstSecond = time.toSecondOfDay() + (time.getNano() > 0 ? 1 : 0);
+    if (firstSecond >= SECONDS_PER_DAY) {
+      return size();
+    }
+    long key = keyAt(firstSecond, 0);
+    int index = 0;
+    Node node = root;
+    while (node != null) {
+      if (node.key < key) {
+        index += sizeOf(node.left) + 1;
+        node = node.right;
+      } else {
+        node = node.left;
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Gets the departure at an index, in O(log n).
+   *
+   * @param index the index
+   * @return the departure
+   * @throws IndexOutOfBoundsException if index is not in the tree
+   */
+  TrainDeparture get(int index) {
+    if (index < 0 || index >= size()) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size());
+    }
+    Node node = root;
+    while (true) {
+      int leftSize = sizeOf(node.left);
+      if (index < leftSize) {
+        node = node.left;
+      } else if (index == leftSize) {
+        return node.value;
+      } else {
+        index -= leftSize + 1;
+        node = node.right;
+      }
+    }
+  }
+
+  /**
+   * Iterates over the departures in key order, starting at an index. Finding the start takes
+   * O(log n), and each step O(1) amortized.
+   *
+   * @param index the index of the first departure
+   * @return the iterator
+   */
+  Iterator<TrainDeparture> iterator(int index) {
+    ArrayDeque<Node> path = new ArrayDeque<>();
+    Node node = root;
+    int remaining = index;
+    while (node != null) {
+      int leftSize = sizeOf(node.left);
+      if (remaining < leftSize) {
+        path.push(node);
+        node = node.left;
+      } else if (remaining == leftSize) {
+        path.push(node);
+        node = null;
+      } else {
+        remaining -= leftSize + 1;
+        node = node.right;
+      }
+    }
+    return new Iterator<>() {
+      @Override
+      public boolean hasNext() {
+        return !path.isEmpty();
+      }
+
+      @Override
+      public TrainDeparture next() {
+        if (path.isEmpty()) {
+          throw new NoSuchElementException();
+        }
+        Node next = path.pop();
+        for (Node child = next.right; child != null; child = child.left) {
+          path.push(child);
+        }
+        return next.value;
+      }
+    };
+  }
+
+  /**
+   * Returns the departures as an unmodifiable list backed by the tree. Iterating it takes
+   * O(n), and getting one departure by index O(log n).
+   *
+   * @return the list of departures in key order
+   */
+  List<TrainDeparture> asList() {
+    return new AbstractList<>() {
+      @Override
+      public TrainDeparture get(int index) {
+        return DepartureTree.this.get(index);
+      }
+
+      @Override
+      public int size() {
+        return DepartureTree.this.size();
+      }
+
+      @Override
+      public Iterator<TrainDeparture> iterator() {
+        return DepartureTree.this.iterator(0);
+      }
+    };
+  }
+}
@@ -0,0 +1,45 @@
+package edu.ntnu.stud.models;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * This class represents a JDK Flight Recorder event for one removal of departed trains from
+ * a departure registry, recorded by {@link FlightRecordedDepartureRegistry}. The duration of
+ * the event is the time the whole removal took, callbacks included.
+ *
+ * <p>The event is disabled by default and costs nothing until a recording enables it.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+@Name("edu.ntnu.stud.Eviction")
+@Label("Eviction")
+@Category({"Train Dispatch", "Registry"})
+@Description("Departed trains removed from the registry")
+@Enabled(false)
+@StackTrace(false)
+public final class EvictionEvent extends Event {
+  @Label("Operation")
+  String operation;
+
+  @Label("Before Time")
+  @Description("The departure time with delay the trains were removed before")
+  String beforeTime;
+
+  @Label("Evicted Count")
+  int evictedCount;
+
+  @Label("Registry Size")
+  @Description("The number of train departures in the registry after the removal")
+  int registrySize;
+
+  @Label("Succeeded")
+  boolean succeeded;
+}
@@ -0,0 +1,380 @@
+package edu.ntnu.stud.models;
+
+import edu.ntnu.stud.utils.Validation;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * This class records every mutation of a registry as a JDK Flight Recorder event, so latency
+ * spikes in production can be lined up with garbage collection, allocation and lock events in
+ * the same recording, without attaching a profiler.
+ *
+ * <p>Each addition, delay, track change and removal is recorded as a
+ * {@link RegistryMutationEvent}, and each removal of departed trains as an
+ * {@link EvictionEvent}. Both carry the size of the registry afterwards. The events are
+ * disabled by default. While no recording enables them, each mutation costs an event the JIT
+ * compiler removes, and the size of the registry is not read. Reads are passed on without
+ * recording.
+ *
+ * <p>This class adds no locking, so it is as thread safe as the wrapped registry.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+public class FlightRecordedDepartureRegistry implements DepartureRegistry {
+  private final DepartureRegistry delegate;
+
+  /**
+   * Constructor for flight recorded departure registry.
+   *
+   * @param delegate the registry to record mutations of
+   * @throws IllegalArgumentException if delegate is null
+   */
+  public FlightRecordedDepartureRegistry(DepartureRegistry delegate) {
+    Validation.validateNotNull(delegate, "Registry");
+    this.delegate = delegate;
+  }
+
+  /**
+   * Ends a mutation event and commits it, if a recording wants it.
+   *
+   * @param event       the event
+   * @param operation   the name of the operation
+   * @param trainNumber the train number, or -1 if the mutation covers many trains
+   * @param trainCount  the number of train departures the mutation covers
+   */
+  private void commit(RegistryMutationEvent event, String operation, int trainNumber,
+                      int trainCount) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.operation = operation;
+      event.trainNumber = trainNumber;
+      event.trainCount = trainCount;
+      event.registrySize = delegate.size();
+      event.commit();
+    }
+  }
+
+  /**
+   * Creates and adds a new train departure, and records it.
+   *
+   * @param trainNumber   the train number
+   * @param line          the line
+   * @param destination   the destination
+   * @param departureTime the departure time
+   * @throws IllegalArgumentException if train number is zero or less
+   * @throws IllegalArgumentException if line is blank
+   * @throws IllegalArgumentException if destination is blank
+   * @throws IllegalArgumentException if departure time is null
+   * @throws IllegalArgumentException if train number already exists
+   */
+  @Override
+  public void newTrainDeparture(int trainNumber, String line, String destination,
+                                LocalTime departureTime) {
+    var event = new RegistryMutationEvent();
+    event.begin();
+    try {
+      delegate.newTrainDeparture(trainNumber, line, destination, departureTime);
+      event.succeeded = true;
+    } finally {
+      commit(event, "newTrainDeparture", trainNumber, 1);
+    }
+  }
+
+  /**
+   * Adds a train departure to registry, and records it.
+   *
+   * @param trainDeparture the train departure
+   * @throws IllegalArgumentException if train number already exists
+   */
+  @Override
+  public void addTrainDeparture(TrainDeparture trainDeparture) {
+    var event = new RegistryMutationEvent();
+    event.begin();
+    try {
+      delegate.addTrainDeparture(trainDeparture);
+      event.succeeded = true;
+    } finally {
+      commit(event, "addTrainDeparture",
+          trainDeparture == null ? -1 : trainDeparture.getTrainNumber(), 1);
+    }
+  }
+
+  /**
+   * Adds many train departures to registry in one pass, and records the whole pass as one
+   * mutation.
+   *
+   * @param trainDepartures the train departures
+   * @throws IllegalArgumentException if a train number already exists, or appears twice
+   */
+  @Override
+  public void addTrainDepartures(List<TrainDeparture> trainDepartures) {
+    var event = new RegistryMutationEvent();
+    event.begin();
+    try {
+      delegate.addTrainDepartures(trainDepartures);
+      event.succeeded = true;
+    } finally {
+      commit(event, "addTrainDepartures", -1,
+          trainDepartures == null ? 0 : trainDepartures.size());
+    }
+  }
+
+  /**
+   * Adds delay to train departure from train number, and records it.
+   *
+   * @param trainNumber the train number of the train departure
+   * @param delay       the delay
+   * @throws IllegalArgumentException if train number is not in registry
+   * @throws IllegalArgumentException if delay is zero or less
+   */
+  @Override
+  public void addDelay(int trainNumber, int delay) {
+    var event = new RegistryMutationEvent();
+    event.begin();
+    try {
+      delegate.addDelay(trainNumber, delay);
+      event.succeeded = true;
+    } finally {
+      commit(event, "addDelay", trainNumber, 1);
+    }
+  }
+
+  /**
+   * Sets track to train departure from train number, and records it.
+   *
+   * @param trainNumber the train number of the train departure
+   * @param track       the track
+   * @throws IllegalArgumentException if train number is not in registry
+   * @throws IllegalArgumentException if track is zero or less, unless -1
+   */
+  @Override
+  public void setTrack(int trainNumber, int track) {
+    var event = new RegistryMutationEvent();
+    event.begin();
+    try {
+      delegate.setTrack(trainNumber, track);
+      event.succeeded = true;
+    } finally {
+      commit(event, "setTrack", trainNumber, 1);
+    }
+  }
+
+  /**
+   * Checks if registry contains train departure with train number.
+   *
+   * @param trainNumber the train number to check
+   * @return true if registry contains train departure with train number
+   */
+  @Override
+  public boolean containsTrainNumber(int trainNumber) {
+    return delegate.containsTrainNumber(trainNumber);
+  }
+
+  /**
+   * Gets the number of train departures in the registry.
+   *
+   * @return the number of train departures
+   */
+  @Override
+  public int size() {
+    return delegate.size();
+  }
+
+  /**
+   * Deletes a train departure from train number, and records it.
+   *
+   * @param trainNumber the train number
+   * @throws IllegalArgumentException if train number is not in registry
+   */
+  @Override
+  public void removeTrainDeparture(int trainNumber) {
+    var event = new RegistryMutationEvent();
+    event.begin();
+    try {
+      delegate.removeTrainDeparture(trainNumber);
+      event.succeeded = true;
+    } finally {
+      commit(event, "removeTrainDeparture", trainNumber, 1);
+    }
+  }
+
+  /**
+   * Deletes train departures with departure time with delay before time, passes each deleted
+   * train departure to the callback, and records the removal with the number of deleted train
+   * departures. The deleted train departures are only counted while the event is enabled.
+   *
+   * @param time      the time to delete before
+   * @param onEvicted the callback receiving each deleted train departure
+   * @throws IllegalArgumentException if time is null
+   * @throws IllegalArgumentException if callback is null
+   */
+  @Override
+  public void removeTrainDeparturesBeforeTime(LocalTime time,
+                                              Consumer<TrainDeparture> onEvicted) {
+    var event = new EvictionEvent();
+    if (!event.isEnabled()) {
+      delegate.removeTrainDeparturesBeforeTime(time, onEvicted);
+      return;
+    }
+    Validation.validateNotNull(onEvicted, "Callback");
+    int[] evicted = new int[1];
+    event.begin();
+    try {
+      delegate.removeTrainDeparturesBeforeTime(time, trainDeparture -> {
+        evicted[0]++;
+        onEvicted.accept(trainDeparture);
+      });
+      event.succeeded = true;
+    } finally {
+      event.end();
+      if (event.shouldCommit()) {
+        event.operation = "removeTrainDeparturesBeforeTime";
+        event.beforeTime = String.valueOf(time);
+        event.evictedCount = evicted[0];
+        event.registrySize = delegate.size();
+        event.commit();
+      }
+    }
+  }
+
+  /**
+   * Returns a read-only view of the train departures to destination.
+   *
+   * @param destination the destination to filter from
+   * @return a read-only view of the train departures to destination
+   * @throws IllegalArgumentException if destination is blank
+   */
+  @Override
+  public TrainDepartureView trainDeparturesByDestination(String destination) {
+    return delegate.trainDeparturesByDestination(destination);
+  }
+
+  /**
+   * Returns a list of train numbers sorted by scheduled departure time.
+   *
+   * @return a list of train numbers sorted by departure time
+   */
+  @Override
+  public ArrayList<Integer> sortedByDepartureTime() {
+    return delegate.sortedByDepartureTime();
+  }
+
+  /**
+   * Returns a list of train numbers sorted by departure time with delay.
+   *
+   * @return a list of train numbers sorted by departure time with delay
+   */
+  @Override
+  public ArrayList<Integer> sortedByDepartureTimeWithDelay() {
+    return delegate.sortedByDepartureTimeWithDelay();
+  }
+
+  /**
+   * Returns a page of the train departures with departure time with delay at or after time.
+   *
+   * @param time  the time to list departures from
+   * @param skip  the number of departures to leave out
+   * @param count the largest number of departures to return
+   * @return a snapshot of the page of train departures
+   * @throws IllegalArgumentException if time is null
+   * @throws IllegalArgumentException if skip is negative
+   * @throws IllegalArgumentException if count is zero or less
+   */
+  @Override
+  public TrainDepartureSnapshot upcomingTrainDepartures(LocalTime time, int skip, int count) {
+    return delegate.upcomingTrainDepartures(time, skip, count);
+  }
+
+  /**
+   * Gets the version of the registry.
+   *
+   * @return the version of the registry
+   */
+  @Override
+  public long version() {
+    return delegate.version();
+  }
+
+  /**
+   * Estimates the heap used by the train departures and the indices of the wrapped registry.
+   *
+   * @return the estimated bytes, or -1 if the registry cannot estimate them
+   */
+  @Override
+  public long estimatedIndexBytes() {
+    return delegate.estimatedIndexBytes();
+  }
+
+  /**
+   * Returns an immutable snapshot of the registry.
+   *
+   * @return a snapshot of the registry
+   */
+  @Override
+  public TrainDepartureSnapshot snapshot() {
+    return delegate.snapshot();
+  }
+
+  /**
+   * Returns an immutable snapshot of the train departures to destination, sorted by departure
+   * time with delay.
+   *
+   * @param destination the destination to filter from
+   * @return a snapshot of the train departures to destination
+   * @throws IllegalArgumentException if destination is blank
+   */
+  @Override
+  public TrainDepartureSnapshot trainDeparturesTo(String destination) {
+    return delegate.trainDeparturesTo(destination);
+  }
+
+  /**
+   * Finds the train departure with train number as it is now.
+   *
+   * @param trainNumber the train number
+   * @return the train departure, or null if train number is not in registry
+   */
+  @Override
+  public TrainDeparture findTrainDeparture(int trainNumber) {
+    return delegate.findTrainDeparture(trainNumber);
+  }
+
+  /**
+   * Returns a string representation of the train departure from train number.
+   *
+   * @param trainNumber the train number
+   * @return a string representation of the train departure from train number
+   * @throws IllegalArgumentException if train number is not in registry
+   */
+  @Override
+  public String trainDepartureString(int trainNumber) {
+    return delegate.trainDepartureString(trainNumber);
+  }
+
+  /**
+   * Returns a HashMap of information about the train departure from train number.
+   *
+   * @param trainNumber the train number of the train departure
+   * @return a Hashmap of information about the train departure from train number
+   * @throws IllegalArgumentException if train number is not in registry
+   */
+  @Override
+  public HashMap<String, String> getAllFromTrainNumber(int trainNumber) {
+    return delegate.getAllFromTrainNumber(trainNumber);
+  }
+
+  /**
+   * Returns a string representation of the registry.
+   *
+   * @return a string representation of the registry
+   */
+  @Override
+  public String toString() {
+    return delegate.toString();
+  }
+}
@@ -0,0 +1,410 @@
+package edu.ntnu.stud.models;
+
+import edu.ntnu.stud.utils.DispatchMetrics;
+import edu.ntnu.stud.utils.LatencyHistogram;
+import edu.ntnu.stud.utils.Validation;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * This class records how long every operation on a registry takes, in a latency histogram per
+ * operation, and publishes the size and estimated index memory of the registry as gauges.
+ *
+ * <p>The histograms are named {@code registry.<operation>} and the gauges
+ * {@code registry.size} and {@code registry.indexBytes}. Failed operations are timed as well.
+ * Each operation costs two reads of {@link System#nanoTime()} and one record on top of the
+ * wrapped registry, and this class adds no locking, so it is as thread safe as the wrapped
+ * registry.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+public class InstrumentedDepartureRegistry implements DepartureRegistry {
+  private static final String PREFIX = "registry.";
+
+  private final DepartureRegistry delegate;
+  private final LatencyHistogram addTimes;
+  private final LatencyHistogram addManyTimes;
+  private final LatencyHistogram delayTimes;
+  private final LatencyHistogram trackTimes;
+  private final LatencyHistogram containsTimes;
+  private final LatencyHistogram removeTimes;
+  private final LatencyHistogram removeBeforeTimes;
+  private final LatencyHistogram destinationTimes;
+  private final LatencyHistogram sortedTimes;
+  private final LatencyHistogram sortedWithDelayTimes;
+  private final LatencyHistogram upcomingTimes;
+  private final LatencyHistogram snapshotTimes;
+  private final LatencyHistogram lookupTimes;
+
+  /**
+   * Constructor for instrumented departure registry.
+   *
+   * @param delegate the registry to time
+   * @param metrics  the metrics to record to
+   * @throws IllegalArgumentException if delegate or metrics is null
+   */
+  public InstrumentedDepartureRegistry(DepartureRegistry delegate, DispatchMetrics metrics) {
+    Validation.validateNotNull(delegate, "Registry");
+    Validation.validateNotNull(metrics, "Metrics");
+    this.delegate = delegate;
+    addTimes = metrics.histogram(PREFIX + "addTrainDeparture");
+    addManyTimes = metrics.histogram(PREFIX + "addTrainDepartures");
+    delayTimes = metrics.histogram(PREFIX + "addDelay");
+    trackTimes = metrics.histogram(PREFIX + "setTrack");
+    containsTimes = metrics.histogram(PREFIX + "containsTrainNumber");
+    removeTimes = metrics.histogram(PREFIX + "removeTrainDeparture");
+    removeBeforeTimes = metrics.histogram(PREFIX + "removeTrainDeparturesBeforeTime");
+    destinationTimes = metrics.histogram(PREFIX + "trainDeparturesByDestination");
+    sortedTimes = metrics.histogram(PREFIX + "sortedByDepartureTime");
+    sortedWithDelayTimes = metrics.histogram(PREFIX + "sortedByDepartureTimeWithDelay");
+    upcomingTimes = metrics.histogram(PREFIX + "upcomingTrainDepartures");
+    snapshotTimes = metrics.histogram(PREFIX + "snapshot");
+    lookupTimes = metrics.histogram(PREFIX + "lookup");
+    metrics.gauge(PREFIX + "size", delegate::size);
+    metrics.gauge(PREFIX + "indexBytes", delegate::estimatedIndexBytes);
+  }
+
+  /**
+   * Creates and adds a new train departure, and times it.
+   *
+   * @param trainNumber   the train number
+   * @param line          the line
+   * @param destination   the destination
+   * @param departureTime the departure time
+   * @throws IllegalArgumentException if train number is zero or less
+   * @throws IllegalArgumentException if line is blank
+   * @throws IllegalArgumentException if destination is blank
+   * @throws IllegalArgumentException if departure time is null
+   * @throws IllegalArgumentException if train number already exists
+   */
+  @Override
+  public void newTrainDeparture(int trainNumber, String line, String destination,
+                                LocalTime departureTime) {
+    long start = System.nanoTime();
+    try {
+      delegate.newTrainDeparture(trainNumber, line, destination, departureTime);
+    } finally {
+      addTimes.recordSince(start);
+    }
+  }
+
+  /**
+   * Adds a train departure to registry, and times it.
+   *
+   * @param trainDeparture the train departure
+   * @throws IllegalArgumentException if train number already exists
+   */
+  @Override
+  public void addTrainDeparture(TrainDeparture trainDeparture) {
+    long start = System.nanoTime();
+    try {
+      delegate.addTrainDeparture(trainDeparture);
+    } finally {
+      addTimes.recordSince(start);
+    }
+  }
+
+  /**
+   * Adds many train departures to registry in one pass, and times the whole pass.
+   *
+   * @param trainDepartures the train departures
+   * @throws IllegalArgumentException if a train number already exists, or appears twice
+   */
+  @Override
+  public void addTrainDepartures(List<TrainDeparture> trainDepartures) {
+    long start = System.nanoTime();
+    try {
+      delegate.addTrainDepartures(trainDepartures);
+    } finally {
+      addManyTimes.recordSince(start);
+    }
+  }
+
+  /**
+   * Adds delay to train departure from train number, and times it.
+   *
+   * @param trainNumber the train number of the train departure
+   * @param delay       the delay
+   * @throws IllegalArgumentException if train number is not in registry
+   * @throws IllegalArgumentException if delay is zero or less
+   */
+  @Override
+  public void addDelay(int trainNumber, int delay) {
+    long start = System.nanoTime();
+    try {
+      delegate.addDelay(trainNumber, delay);
+    } finally {
+      delayTimes.recordSince(start);
+    }
+  }
+
+  /**
+   * Sets track to train departure from train number, and times it.
+   *
+   * @param trainNumber the train number of the train departure
+   * @param track       the track
+   * @throws IllegalArgumentException if train number is not in registry
+   * @throws IllegalArgumentException if track is zero or less, unless -1
+   */
+  @Override
+  public void setTrack(int trainNumber, int track) {
+    long start = System.nanoTime();
+    try {
+      delegate.setTrack(trainNumber, track);
+    } finally {
+      trackTimes.recordSince(start);
+    }
+  }
+
+  /**
+   * Checks if registry contains train departure with train number, and times it.
+   *
+   * @param trainNumber the train number to check
+   * @return true if registry contains train departure with train number
+   */
+  @Override
+  public boolean containsTrainNumber(int trainNumber) {
+    long start = System.nanoTime();
+    try {
+      return delegate.containsTrainNumber(trainNumber);
+    } finally {
+      containsTimes.recordSince(start);
+    }
+  }
+
+  /**
+   * Gets the number of train departures in the registry. It is not timed, as it is read by
+   * the size gauge.
+   *
+   * @return the number of train departures
+   */
+  @Override
+  public int size() {
+    return delegate.size();
+  }
+
+  /**
+   * Deletes a train departure from train number, and times it.
+   *
+   * @param trainNumber the train number
+   * @throws IllegalArgumentException if train number is not in registry
+   */
+  @Override
+  public void removeTrainDeparture(int trainNumber) {
+    long start = System.nanoTime();
+    try {
+      delegate.removeTrainDeparture(trainNumber);
+    } finally {
+      removeTimes.recordSince(start);
+    }
+  }
+
+  /**
+   * Deletes train departures with departure time with delay before time, passes each deleted
+   * train departure to the callback, and times it, callbacks included.
+   *
+   * @param time      the time to delete before
+   * @param onEvicted the callback receiving each deleted train departure
+   * @throws IllegalArgumentException if time is null
+   * @throws IllegalArgumentException if callback is null
+   */
+  @Override
+  public void removeTrainDeparturesBeforeTime(LocalTime time,
+                                              Consumer<TrainDeparture> onEvicted) {
+    long start = System.nanoTime();
+    try {
+      delegate.removeTrainDeparturesBeforeTime(time, onEvicted);
+    } finally {
+      removeBeforeTimes.recordSince(start);
+    }
+  }
+
+  /**
+   * Returns a read-only view of the train departures to destination, and times it.
+   *
+   * @param destination the destination to filter from
+   * @return a read-only view of the train departures to destination
+   * @throws IllegalArgumentException if destination is blank
+   */
+  @Override
+  public TrainDepartureView trainDeparturesByDestination(String destination) {
+    long start = System.nanoTime();
+    try {
+      return delegate.trainDeparturesByDestination(destination);
+    } finally {
+      destinationTimes.recordSince(start);
+    }
+  }
+
+  /**
+   * Returns a list of train numbers sorted by scheduled departure time, and times it.
+   *
+   * @return a list of train numbers sorted by departure time
+   */
+  @Override
+  public ArrayList<Integer> sortedByDepartureTime() {
+    long start = System.nanoTime();
+    try {
+      return delegate.sortedByDepartureTime();
+    } finally {
+      sortedTimes.recordSince(start);
+    }
+  }
+
+  /**
+   * Returns a list of train numbers sorted by departure time with delay, and times it.
+   *
+   * @return a list of train numbers sorted by departure time with delay
+   */
+  @Override
+  public ArrayList<Integer> sortedByDepartureTimeWithDelay() {
+    long start = System.nanoTime();
+    try {
+      return delegate.sortedByDepartureTimeWithDelay();
+    } finally {
+      sortedWithDelayTimes.recordSince(start);
+    }
+  }
+
+  /**
+   * Returns a page of the train departures with departure time with delay at or after time,
+   * and times it.
+   *
+   * @param time  the time to list departures from
+   * @param skip  the number of departures to leave out
+   * @param count the largest number of departures to return
+   * @return a snapshot of the page of train departures
+   * @throws IllegalArgumentException if time is null
+   * @throws IllegalArgumentException if skip is negative
+   * @throws IllegalArgumentException if count is zero or less
+   */
+  @Override
+  public TrainDepartureSnapshot upcomingTrainDepartures(LocalTime time, int skip, int count) {
+    long start = System.nanoTime();
+    try {
+      return delegate.upcomingTrainDepartures(time, skip, count);
+    } finally {
+      upcomingTimes.recordSince(start);
+    }
+  }
+
+  /**
+   * Gets the version of the registry. It is not timed, as it is only a read of a counter.
+   *
+   * @return the version of the registry
+   */
+  @Override
+  public long version() {
+    return delegate.version();
+  }
+
+  /**
+   * Estimates the heap used by the train departures and the indices of the wrapped registry.
+   *
+   * @return the estimated bytes, or -1 if the registry cannot estimate them
+   */
+  @Override
+  public long estimatedIndexBytes() {
+    return delegate.estimatedIndexBytes();
+  }
+
+  /**
+   * Returns an immutable snapshot of the registry, and times it.
+   *
+   * @return a snapshot of the registry
+   */
+  @Override
+  public TrainDepartureSnapshot snapshot() {
+    long start = System.nanoTime();
+    try {
+      return delegate.snapshot();
+    } finally {
+      snapshotTimes.recordSince(start);
+    }
+  }
+
+  /**
+   * Returns an immutable snapshot of the train departures to destination, and times it with
+   * the other destination queries.
+   *
+   * @param destination the destination to filter from
+   * @return a snapshot of the train departures to destination
+   * @throws IllegalArgumentException if destination is blank
+   */
+  @Override
+  public TrainDepartureSnapshot trainDeparturesTo(String destination) {
+    long start = System.nanoTime();
+    try {
+      return delegate.trainDeparturesTo(destination);
+    } finally {
+      destinationTimes.recordSince(start);
+    }
+  }
+
+  /**
+   * Finds the train departure with train number, and times it with the other lookups.
+   *
+   * @param trainNumber the train number
+   * @return the train departure, or null if train number is not in registry
+   */
+  @Override
+  public TrainDeparture findTrainDeparture(int trainNumber) {
+    long start = System.nanoTime();
+    try {
+      return delegate.findTrainDeparture(trainNumber);
+    } finally {
+      lookupTimes.recordSince(start);
+    }
+  }
+
+  /**
+   * Returns a string representation of the train departure from train number, and times it as
+   * a lookup.
+   *
+   * @param trainNumber the train number
+   * @return a string representation of the train departure from train number
+   * @throws IllegalArgumentException if train number is not in registry
+   */
+  @Override
+  public String trainDepartureString(int trainNumber) {
+    long start = System.nanoTime();
+    try {
+      return delegate.trainDepartureString(trainNumber);
+    } finally {
+      lookupTimes.recordSince(start);
+    }
+  }
+
+  /**
+   * Returns a HashMap of information about the train departure from train number, and times
+   * it as a lookup.
+   *
+   * @param trainNumber the train number of the train departure
+   * @return a Hashmap of information about the train departure from train number
+   * @throws IllegalArgumentException if train number is not in registry
+   */
+  @Override
+  public HashMap<String, String> getAllFromTrainNumber(int trainNumber) {
+    long start = System.nanoTime();
+    try {
+      return delegate.getAllFromTrainNumber(trainNumber);
+    } finally {
+      lookupTimes.recordSince(start);
+    }
+  }
+
+  /**
+   * Returns a string representation of the registry.
+   *
+   * @return a string representation of the registry
+   */
+  @Override
+  public String toString() {
+    return delegate.toString();
+  }
+}
@@ -0,0 +1,593 @@
+package edu.ntnu.stud.models;
+
+import edu.ntnu.stud.utils.Validation;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * This class publishes the changes to a registry as {@link RegistryEvent}s, so boards, loggers
+ * and analytics can subscribe instead of polling.
+ *
+ * <p>Mutations are applied to the wrapped registry, and an event is then put in the buffer of
+ * every subscriber. Events are delivered on an executor as subscribers request them, so the
+ * mutating thread never waits for a subscriber. While events wait in a buffer, later events
+ * for the same train departure are merged into them:
+ * <ul>
+ *   <li>delays and tracks merge into a waiting added event</li>
+ *   <li>delays add up, and a later track replaces an earlier one</li>
+ *   <li>a removal drops the waiting delay and track, and an added train departure that is
+ *   removed before either event is delivered is not delivered at all</li>
+ * </ul>
+ * A subscriber whose buffer still grows past its capacity is too slow to keep up. Its
+ * subscription is cancelled and it gets {@link Flow.Subscriber#onError(Throwable)}.
+ *
+ * <p>Mutations are serialized by this class, so events are buffered in the order the mutations
+ * happened. It is as thread safe as the wrapped registry is for reads.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+public class ObservableDepartureRegistry implements DepartureRegistry,
+    Flow.Publisher<RegistryEvent> {
+  private static final int DEFAULT_BUFFER_CAPACITY = 1024;
+  private static final int ADDED_SLOT = 0;
+  private static final int DELAY_SLOT = 1;
+  private static final int TRACK_SLOT = 2;
+  private static final int REMOVED_SLOT = 3;
+
+  private final DepartureRegistry delegate;
+  private final Executor executor;
+  private final int bufferCapacity;
+  private final CopyOnWriteArrayList<EventSubscription> subscriptions =
+      new CopyOnWriteArrayList<>();
+  private volatile boolean closed;
+
+  /**
+   * Constructor for observable departure registry, delivering events on the common pool with
+   * the default buffer capacity.
+   *
+   * @param delegate the registry to apply mutations to
+   * @throws IllegalArgumentException if delegate is null
+   */
+  public ObservableDepartureRegistry(DepartureRegistry delegate) {
+    this(delegate, ForkJoinPool.commonPool(), DEFAULT_BUFFER_CAPACITY);
+  }
+
+  /**
+   * Constructor for observable departure registry.
+   *
+   * @param delegate       the registry to apply mutations to
+   * @param executor       the executor events are delivered on
+   * @param bufferCapacity the largest number of undelivered events per subscriber
+   * @throws IllegalArgumentException if delegate or executor is null
+   * @throws IllegalArgumentException if buffer capacity is zero or less
+   */
+  public ObservableDepartureRegistry(DepartureRegistry delegate, Executor executor,
+                                     int bufferCapacity) {
+    Validation.validateNotNull(delegate, "Registry");
+    Validation.validateNotNull(executor, "Executor");
+    Validation.validatePositiveNumber(bufferCapacity, "Buffer capacity");
+    this.delegate = delegate;
+    this.executor = executor;
+    this.bufferCapacity = bufferCapacity;
+  }
+
+  /**
+   * Subscribes to the events of every later mutation.
+   *
+   * @param subscriber the subscriber
+   * @throws NullPointerException if subscriber is null, as {@link Flow.Publisher} requires
+   */
+  @Override
+  public void subscribe(Flow.Subscriber<? super RegistryEvent> subscriber) {
+    Objects.requireNonNull(subscriber, "Subscriber cannot be null");
+    var subscription = new EventSubscription(subscriber);
+    subscriber.onSubscribe(subscription);
+    if (closed) {
+      subscription.complete();
+    } else {
+      subscriptions.add(subscription);
+    }
+  }
+
+  /**
+   * Gets the number of active subscriptions.
+   *
+   * @return the number of subscriptions
+   */
+  public int subscriberCount() {
+    return subscriptions.size();
+  }
+
+  /**
+   * Stops publishing. Each subscriber gets its buffered events and then
+   * {@link Flow.Subscriber#onComplete()}. Mutations still work, but are no longer published.
+   */
+  public synchronized void close() {
+    closed = true;
+    subscriptions.forEach(EventSubscription::complete);
+    subscriptions.clear();
+  }
+
+  /**
+   * Puts an event in the buffer of every subscriber.
+   *
+   * @param event the event
+   */
+  private void publish(RegistryEvent event) {
+    for (EventSubscription subscription : subscriptions) {
+      subscription.offer(event);
+    }
+  }
+
+  /**
+   * Creates and adds a new train departure, and publishes it.
+   *
+   * @param trainNumber   the train number
+   * @param line          the line
+   * @param destination   the destination
+   * @param departureTime the departure time
+   * @throws IllegalArgumentException if train number is zero or less
+   * @throws IllegalArgumentException if line is blank
+   * @throws IllegalArgumentException if destination is blank
+   * @throws IllegalArgumentException if departure time is null
+   * @throws IllegalArgumentException if train number already exists
+   */
+  @Override
+  public synchronized void newTrainDeparture(int trainNumber, String line, String destination,
+                                             LocalTime departureTime) {
+    addTrainDeparture(new TrainDeparture(trainNumber, line, destination, departureTime));
+  }
+
+  /**
+   * Adds a train departure to registry, and publishes it.
+   *
+   * @param trainDeparture the train departure
+   * @throws IllegalArgumentException if train number already exists
+   */
+  @Override
+  public synchronized void addTrainDeparture(TrainDeparture trainDeparture) {
+    delegate.addTrainDeparture(trainDeparture);
+    if (!subscriptions.isEmpty()) {
+      publish(RegistryEvent.added(trainDeparture));
+    }
+  }
+
+  /**
+   * Adds many train departures to registry in one pass, and publishes each of them.
+   *
+   * @param trainDepartures the train departures
+   * @throws IllegalArgumentException if a train number already exists, or appears twice
+   */
+  @Override
+  public synchronized void addTrainDepartures(List<TrainDeparture> trainDepartures) {
+    delegate.addTrainDepartures(trainDepartures);
+    if (!subscriptions.isEmpty()) {
+      trainDepartures.forEach(trainDeparture -> publish(RegistryEvent.added(trainDeparture)));
+    }
+  }
+
+  /**
+   * Adds delay to train departure from train number, and publishes it.
+   *
+   * @param trainNumber the train number of the train departure
+   * @param delay       the delay
+   * @throws IllegalArgumentException if train number is not in registry
+   * @throws IllegalArgumentException if delay is zero or less
+   */
+  @Override
+  public synchronized void addDelay(int trainNumber, int delay) {
+    delegate.addDelay(trainNumber, delay);
+    publish(RegistryEvent.delayAdded(trainNumber, delay));
+  }
+
+  /**
+   * Sets track to train departure from train number, and publishes it.
+   *
+   * @param trainNumber the train number of the train departure
+   * @param track       the track
+   * @throws IllegalArgumentException if train number is not in registry
+   * @throws IllegalArgumentException if track is zero or less, unless -1
+   */
+  @Override
+  public synchronized void setTrack(int trainNumber, int track) {
+    delegate.setTrack(trainNumber, track);
+    publish(RegistryEvent.trackSet(trainNumber, track));
+  }
+
+  /**
+   * Checks if registry contains train departure with train number.
+   *
+   * @param trainNumber the train number to check
+   * @return true if registry contains train departure with train number
+   */
+  @Override
+  public boolean containsTrainNumber(int trainNumber) {
+    return delegate.containsTrainNumber(trainNumber);
+  }
+
+  /**
+   * Gets the number of train departures in the registry.
+   *
+   * @return the number of train departures
+   */
+  @Override
+  public int size() {
+    return delegate.size();
+  }
+
+  /**
+   * Deletes a train departure from train number, and publishes it.
+   *
+   * @param trainNumber the train number
+   * @throws IllegalArgumentException if train number is not in registry
+   */
+  @Override
+  public synchronized void removeTrainDeparture(int trainNumber) {
+    delegate.removeTrainDeparture(trainNumber);
+    publish(RegistryEvent.removed(trainNumber));
+  }
+
+  /**
+   * Deletes train departures with departure time with delay before time, passes each deleted
+   * train departure to the callback, and publishes each of them as evicted.
+   *
+   * @param time      the time to delete before
+   * @param onEvicted the callback receiving each deleted train departure
+   * @throws IllegalArgumentException if time is null
+   * @throws IllegalArgumentException if callback is null
+   */
+  @Override
+  public synchronized void removeTrainDeparturesBeforeTime(LocalTime time,
+                                                          Consumer<TrainDeparture> onEvicted) {
+    Validation.validateNotNull(onEvicted, "Callback");
+    delegate.removeTrainDeparturesBeforeTime(time, trainDeparture -> {
+      publish(RegistryEvent.evicted(trainDeparture));
+      onEvicted.accept(trainDeparture);
+    });
+  }
+
+  /**
+   * Returns a read-only view of the train departures to destination, sorted by departure time.
+   *
+   * @param destination the destination to filter from
+   * @return a read-only view of the train departures to destination
+   * @throws IllegalArgumentException if destination is blank
+   */
+  @Override
+  public TrainDepartureView trainDeparturesByDestination(String destination) {
+    return delegate.trainDeparturesByDestination(destination);
+  }
+
+  /**
+   * Returns a list of train numbers sorted by scheduled departure time.
+   *
+   * @return a list of train numbers sorted by departure time
+   */
+  @Override
+  public ArrayList<Integer> sortedByDepartureTime() {
+    return delegate.sortedByDepartureTime();
+  }
+
+  /**
+   * Returns a list of train numbers sorted by departure time with delay.
+   *
+   * @return a list of train numbers sorted by departure time with delay
+   */
+  @Override
+  public ArrayList<Integer> sortedByDepartureTimeWithDelay() {
+    return delegate.sortedByDepartureTimeWithDelay();
+  }
+
+  /**
+   * Returns a page of the train departures with departure time with delay at or after time,
+   * sorted by departure time with delay.
+   *
+   * @param time  the time to list departures from
+   * @param skip  the number of departures to leave out
+   * @param count the largest number of departures to return
+   * @return a snapshot of the page of train departures
+   * @throws IllegalArgumentException if time is null
+   * @throws IllegalArgumentException if skip is negative
+   * @throws IllegalArgumentException if count is zero or less
+   */
+  @Override
+  public TrainDepartureSnapshot upcomingTrainDepartures(LocalTime time, int skip, int count) {
+    return delegate.upcomingTrainDepartures(time, skip, count);
+  }
+
+  /**
+   * Gets the version of the registry.
+   *
+   * @return the version of the registry
+   */
+  @Override
+  public long version() {
+    return delegate.version();
+  }
+
+  /**
+   * Estimates the heap used by the train departures and the indices of the wrapped registry.
+   *
+   * @return the estimated bytes, or -1 if the registry cannot estimate them
+   */
+  @Override
+  public long estimatedIndexBytes() {
+    return delegate.estimatedIndexBytes();
+  }
+
+  /**
+   * Returns an immutable snapshot of the registry, sorted by departure time with delay.
+   *
+   * @return a snapshot of the registry
+   */
+  @Override
+  public TrainDepartureSnapshot snapshot() {
+    return delegate.snapshot();
+  }
+
+  /**
+   * Returns an immutable snapshot of the train departures to destination, sorted by departure
+   * time with delay.
+   *
+   * @param destination the destination to filter from
+   * @return a snapshot of the train departures to destination
+   * @throws IllegalArgumentException if destination is blank
+   */
+  @Override
+  public TrainDepartureSnapshot trainDeparturesTo(String destination) {
+    return delegate.trainDeparturesTo(destination);
+  }
+
+  /**
+   * Finds the train departure with train number as it is now.
+   *
+   * @param trainNumber the train number
+   * @return the train departure, or null if train number is not in registry
+   */
+  @Override
+  public TrainDeparture findTrainDeparture(int trainNumber) {
+    return delegate.findTrainDeparture(trainNumber);
+  }
+
+  /**
+   * Returns a string representation of the train departure from train number.
+   *
+   * @param trainNumber the train number
+   * @return a string representation of the train departure from train number
+   * @throws IllegalArgumentException if train number is not in registry
+   */
+  @Override
+  public String trainDepartureString(int trainNumber) {
+    return delegate.trainDepartureString(trainNumber);
+  }
+
+  /**
+   * Returns a HashMap of information about the train departure from train number.
+   *
+   * @param trainNumber the train number of the train departure
+   * @return a Hashmap of information about the train departure from train number
+   * @throws IllegalArgumentException if train number is not in registry
+   */
+  @Override
+  public HashMap<String, String> getAllFromTrainNumber(int trainNumber) {
+    return delegate.getAllFromTrainNumber(trainNumber);
+  }
+
+  /**
+   * Returns a string representation of the registry.
+   *
+   * @return a string representation of the registry
+   */
+  @Override
+  public String toString() {
+    return delegate.toString();
+  }
+
+  /**
+   * This class represents one subscriber, its bounded buffer of undelivered events, and the
+   * number of events it has requested. The buffer is keyed by train number and slot, so a
+   * later event for the same train departure can find the waiting event it merges into.
+   * At most one task per subscription delivers events at a time.
+   */
+  private final class EventSubscription implements Flow.Subscription, Runnable {
+    private final Flow.Subscriber<? super RegistryEvent> subscriber;
+    private final LinkedHashMap<Long, RegistryEvent> buffer = new LinkedHashMap<>();
+    private final AtomicInteger pendingRuns = new AtomicInteger();
+    private long demand;
+    private boolean completing;
+    private boolean done;
+    private Throwable failure;
+
+    /**
+     * Constructor for event subscription.
+     *
+     * @param subscriber the subscriber
+     */
+    EventSubscription(Flow.Subscriber<? super RegistryEvent> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    /**
+     * Gets the buffer key of a slot for a train departure.
+     *
+     * @param trainNumber the train number
+     * @param slot        the slot
+     * @return the buffer key
+     */
+    private static long key(int trainNumber, int slot) {
+      return ((long) trainNumber << 2) | slot;
+    }
+
+    /**
+     * Puts an event in the buffer, merging it into a waiting event for the same train
+     * departure if possible. Fails the subscription if the buffer grows past its capacity.
+     *
+     * @param event the event
+     */
+    void offer(RegistryEvent event) {
+      synchronized (this) {
+        if (done || completing) {
+          return;
+        }
+        int trainNumber = event.getTrainNumber();
+        switch (event.getType()) {
+          case ADDED -> buffer.put(key(trainNumber, ADDED_SLOT), event);
+          case DELAY_ADDED -> merge(event, DELAY_SLOT);
+          case TRACK_SET -> merge(event, TRACK_SLOT);
+          default -> {
+            buffer.remove(key(trainNumber, DELAY_SLOT));
+            buffer.remove(key(trainNumber, TRACK_SLOT));
+            if (buffer.remove(key(trainNumber, ADDED_SLOT)) == null) {
+              buffer.put(key(trainNumber, REMOVED_SLOT), event);
+            }
+          }
+        }
+        if (buffer.size() > bufferCapacity) {
+          buffer.clear();
+          failure = new IllegalStateException("Subscriber is too slow, more than "
+              + bufferCapacity + " events are waiting");
+        }
+      }
+      schedule();
+    }
+
+    /**
+     * Merges a delay or track event into the waiting added event of the train departure, or
+     * into the waiting event of the same kind, or adds it to the buffer.
+     *
+     * @param event the event
+     * @param slot  the slot of the event kind
+     */
+    private void merge(RegistryEvent event, int slot) {
+      long addedKey = key(event.getTrainNumber(), ADDED_SLOT);
+      RegistryEvent added = buffer.get(addedKey);
+      if (added != null) {
+        buffer.put(addedKey, added.coalesce(event));
+        return;
+      }
+      long key = key(event.getTrainNumber(), slot);
+      RegistryEvent waiting = buffer.get(key);
+      buffer.put(key, waiting == null ? event : waiting.coalesce(event));
+    }
+
+    /**
+     * Delivers the buffered events and then completes the subscriber.
+     */
+    void complete() {
+      synchronized (this) {
+        completing = true;
+      }
+      schedule();
+    }
+
+    /**
+     * Requests more events.
+     *
+     * @param n the number of events
+     */
+    @Override
+    public void request(long n) {
+      synchronized (this) {
+        if (n <= 0) {
+          buffer.clear();
+          failure = new IllegalArgumentException("Requested events must be positive");
+        } else {
+          demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+        }
+      }
+      schedule();
+    }
+
+    /**
+     * Cancels the subscription. Buffered events are dropped.
+     */
+    @Override
+    public void cancel() {
+      synchronized (this) {
+        done = true;
+        buffer.clear();
+      }
+      subscriptions.remove(this);
+    }
+
+    /**
+     * Starts a delivery task, unless one is already running. A running task checks again for
+     * work before it stops, so no event is left behind.
+     */
+    private void schedule() {
+      if (pendingRuns.getAndIncrement() == 0) {
+        executor.execute(this);
+      }
+    }
+
+    /**
+     * Delivers events while the subscriber has demand, then the error or completion signal.
+     */
+    @Override
+    public void run() {
+      int runs = pendingRuns.get();
+      while (true) {
+        deliver();
+        runs = pendingRuns.addAndGet(-runs);
+        if (runs == 0) {
+          return;
+        }
+      }
+    }
+
+    /**
+     * Delivers what can be delivered now. The subscriber is called outside the lock, so
+     * mutating threads can keep buffering meanwhile.
+     */
+    private void deliver() {
+      while (true) {
+        RegistryEvent next = null;
+        Throwable error = null;
+        boolean complete = false;
+        synchronized (this) {
+          if (done) {
+            return;
+          }
+          if (failure != null) {
+            error = failure;
+            done = true;
+          } else if (demand > 0 && !buffer.isEmpty()) {
+            Iterator<RegistryEvent> first = buffer.values().iterator();
+            next = first.next();
+            first.remove();
+            demand--;
+          } else if (completing && buffer.isEmpty()) {
+            complete = true;
+            done = true;
+          } else {
+            return;
+          }
+        }
+        if (error != null) {
+          subscriptions.remove(this);
+          subscriber.onError(error);
+          return;
+        }
+        if (complete) {
+          subscriptions.remove(this);
+          subscriber.onComplete();
+          return;
+        }
+        subscriber.onNext(next);
+      }
+    }
+  }
+}
@@ -0,0 +1,207 @@
+package edu.ntnu.stud.models;
+
+/**
+ * This class represents a change to a train departure registry, as published by
+ * {@link ObservableDepartureRegistry}. Which fields are set depends on the type of the event.
+ *
+ * <ul>
+ *   <li>{@link Type#ADDED} and {@link Type#EVICTED} hold the train departure, as it was when
+ *   it was added or evicted.</li>
+ *   <li>{@link Type#DELAY_ADDED} holds the minutes of delay that were added.</li>
+ *   <li>{@link Type#TRACK_SET} holds the new track.</li>
+ *   <li>{@link Type#REMOVED} holds only the train number.</li>
+ * </ul>
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+public class RegistryEvent {
+
+  /**
+   * The kinds of change to a registry.
+   */
+  public enum Type {
+    ADDED,
+    DELAY_ADDED,
+    TRACK_SET,
+    REMOVED,
+    EVICTED
+  }
+
+  private final Type type;
+  private final int trainNumber;
+  private final TrainDeparture trainDeparture;
+  private final int delay;
+  private final int track;
+
+  /**
+   * Constructor for registry event.
+   *
+   * @param type           the type of the event
+   * @param trainNumber    the train number of the changed train departure
+   * @param trainDeparture the train departure, or null
+   * @param delay          the delay added, or 0
+   * @param track          the new track, or -1
+   */
+  private RegistryEvent(Type type, int trainNumber, TrainDeparture trainDeparture, int delay,
+                        int track) {
+    this.type = type;
+    this.trainNumber = trainNumber;
+    this.trainDeparture = trainDeparture;
+    this.delay = delay;
+    this.track = track;
+  }
+
+  /**
+   * Creates an event for an added train departure. The train departure is copied, since some
+   * registries keep changing the one they were given.
+   *
+   * @param trainDeparture the added train departure
+   * @return the event
+   */
+  public static RegistryEvent added(TrainDeparture trainDeparture) {
+    return new RegistryEvent(Type.ADDED, trainDeparture.getTrainNumber(),
+        new TrainDeparture(trainDeparture.getTrainNumber(), trainDeparture.getLine(),
+            trainDeparture.getDestination(), trainDeparture.getDepartureTime(),
+            trainDeparture.getDelay(), trainDeparture.getTrack()), 0, -1);
+  }
+
+  /**
+   * Creates an event for delay added to a train departure.
+   *
+   * @param trainNumber the train number
+   * @param delay       the minutes of delay added
+   * @return the event
+   */
+  public static RegistryEvent delayAdded(int trainNumber, int delay) {
+    return new RegistryEvent(Type.DELAY_ADDED, trainNumber, null, delay, -1);
+  }
+
+  /**
+   * Creates an event for a track set on a train departure.
+   *
+   * @param trainNumber the train number
+   * @param track       the new track
+   * @return the event
+   */
+  public static RegistryEvent trackSet(int trainNumber, int track) {
+    return new RegistryEvent(Type.TRACK_SET, trainNumber, null, 0, track);
+  }
+
+  /**
+   * Creates an event for a train departure that was removed.
+   *
+   * @param trainNumber the train number
+   * @return the event
+   */
+  public static RegistryEvent removed(int trainNumber) {
+    return new RegistryEvent(Type.REMOVED, trainNumber, null, 0, -1);
+  }
+
+  /**
+   * Creates an event for a train departure evicted because it has departed.
+   *
+   * @param trainDeparture the evicted train departure, which the registry no longer changes
+   * @return the event
+   */
+  public static RegistryEvent evicted(TrainDeparture trainDeparture) {
+    return new RegistryEvent(Type.EVICTED, trainDeparture.getTrainNumber(), trainDeparture, 0,
+        -1);
+  }
+
+  /**
+   * Gets the type of the event.
+   *
+   * @return the type
+   */
+  public Type getType() {
+    return type;
+  }
+
+  /**
+   * Gets the train number of the changed train departure.
+   *
+   * @return the train number
+   */
+  public int getTrainNumber() {
+    return trainNumber;
+  }
+
+  /**
+   * Gets the train departure of an added or evicted event. It must not be changed.
+   *
+   * @return the train departure, or null for the other types
+   */
+  public TrainDeparture getTrainDeparture() {
+    return trainDeparture;
+  }
+
+  /**
+   * Gets the minutes of delay added by a delay event.
+   *
+   * @return the delay, or 0 for the other types
+   */
+  public int getDelay() {
+    return delay;
+  }
+
+  /**
+   * Gets the new track of a track event.
+   *
+   * @return the track, or -1 for the other types
+   */
+  public int getTrack() {
+    return track;
+  }
+
+  /**
+   * Combines this event with a later event for the same train departure, if the two can be
+   * delivered as one.
+   *
+   * <ul>
+   *   <li>An added train departure takes in later delays and tracks.</li>
+   *   <li>Two delays add up.</li>
+   *   <li>A later track replaces an earlier one.</li>
+   * </ul>
+   *
+   * @param later the later event
+   * @return the combined event, or null if the events cannot be combined
+   */
+  RegistryEvent coalesce(RegistryEvent later) {
+    if (type == Type.ADDED && later.type == Type.DELAY_ADDED) {
+      return new RegistryEvent(Type.ADDED, trainNumber, new TrainDeparture(trainNumber,
+          trainDeparture.getLine(), trainDeparture.getDestination(),
+          trainDeparture.getDepartureTime(), trainDeparture.getDelay() + later.delay,
+          trainDeparture.getTrack()), 0, -1);
+    }
+    if (type == Type.ADDED && later.type == Type.TRACK_SET) {
+      return new RegistryEvent(Type.ADDED, trainNumber, new TrainDeparture(trainNumber,
+          trainDeparture.getLine(), trainDeparture.getDestination(),
+          trainDeparture.getDepartureTime(), trainDeparture.getDelay(), later.track), 0, -1);
+    }
+    if (type == Type.DELAY_ADDED && later.type == Type.DELAY_ADDED) {
+      return delayAdded(trainNumber, delay + later.delay);
+    }
+    if (type == Type.TRACK_SET && later.type == Type.TRACK_SET) {
+      return later;
+    }
+    return null;
+  }
+
+  /**
+   * Returns a string representation of the event.
+   *
+   * @return a string representation of the event
+   */
+  @Override
+  public String toString() {
+    return switch (type) {
+      case ADDED, EVICTED ->
+          type + " " + trainNumber + " " + trainDeparture.departureTimeWithDelay();
+      case DELAY_ADDED -> type + " " + trainNumber + " " + delay + " min";
+      case TRACK_SET -> type + " " + trainNumber + " track " + track;
+      case REMOVED -> type + " " + trainNumber;
+    };
+  }
+}
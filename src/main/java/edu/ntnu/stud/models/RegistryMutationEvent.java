@@ -0,0 +1,47 @@
+package edu.ntnu.stud.models;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * This class represents a JDK Flight Recorder event for one mutation of a departure registry,
+ * recorded by {@link FlightRecordedDepartureRegistry}. The duration of the event is the time
+ * the mutation took.
+ *
+ * <p>The event is disabled by default and costs nothing until a recording enables it, such as
+ * {@code jcmd <pid> JFR.start settings=profile +edu.ntnu.stud.RegistryMutation#enabled=true}.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+@Name("edu.ntnu.stud.RegistryMutation")
+@Label("Registry Mutation")
+@Category({"Train Dispatch", "Registry"})
+@Description("A train departure added to, changed in or removed from the registry")
+@Enabled(false)
+@StackTrace(false)
+public final class RegistryMutationEvent extends Event {
+  @Label("Operation")
+  String operation;
+
+  @Label("Train Number")
+  @Description("The train number, or -1 if the mutation covers many trains")
+  int trainNumber;
+
+  @Label("Train Count")
+  @Description("The number of train departures the mutation covers")
+  int trainCount;
+
+  @Label("Registry Size")
+  @Description("The number of train departures in the registry after the mutation")
+  int registrySize;
+
+  @Label("Succeeded")
+  boolean succeeded;
+}
@@ -0,0 +1,53 @@
+package edu.ntnu.stud.models;
+
+/**
+ * This class represents a train departure together with the station it departs from, as
+ * found by a query across the stations of a {@link StationNetwork}.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+public class StationDeparture {
+  private final String station;
+  private final TrainDeparture trainDeparture;
+
+  /**
+   * Constructor for station departure.
+   *
+   * @param station        the station the train departs from
+   * @param trainDeparture the train departure, which must not be changed
+   */
+  public StationDeparture(String station, TrainDeparture trainDeparture) {
+    this.station = station;
+    this.trainDeparture = trainDeparture;
+  }
+
+  /**
+   * Gets the station the train departs from.
+   *
+   * @return the station
+   */
+  public String getStation() {
+    return station;
+  }
+
+  /**
+   * Gets the train departure.
+   *
+   * @return the train departure
+   */
+  public TrainDeparture getTrainDeparture() {
+    return trainDeparture;
+  }
+
+  /**
+   * Returns a string representation of the station departure.
+   *
+   * @return a string representation of the station departure
+   */
+  @Override
+  public String toString() {
+    return "Station: " + station + "\n" + trainDeparture;
+  }
+}
@@ -0,0 +1,277 @@
+package edu.ntnu.stud.models;
+
+import edu.ntnu.stud.utils.Validation;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * This class represents the stations of a train network, each with its own registry. A
+ * station's registry is a shard of the network. It is used on its own for everything at
+ * that station, and never waits on another station.
+ *
+ * <p>Queries across the network are split over the stations on a {@link ForkJoinPool}. Each
+ * station is queried from its own snapshot in parallel, and the sorted results are merged
+ * pairwise as the tasks join, so the merge also runs in parallel.
+ *
+ * <p>Stations can be added and removed while queries run. The registries must be thread
+ * safe if stations are changed while the network is queried, as the default
+ * {@link ConcurrentTrainDepartureRegistry} is.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+public class StationNetwork {
+  private static final Comparator<StationDeparture> BY_DEPARTURE_TIME_WITH_DELAY =
+      Comparator.comparingInt((StationDeparture departure) ->
+          departure.getTrainDeparture().departureSecondOfDayWithDelay())
+          .thenComparing(StationDeparture::getStation)
+          .thenComparingInt(departure -> departure.getTrainDeparture().getTrainNumber());
+  private static final Comparator<StationDeparture> BY_DELAY_DESCENDING =
+      Comparator.comparingInt((StationDeparture departure) ->
+          -departure.getTrainDeparture().getDelay())
+          .thenComparing(BY_DEPARTURE_TIME_WITH_DELAY);
+
+  private final Map<String, DepartureRegistry> stations = new ConcurrentSkipListMap<>();
+  private final Supplier<DepartureRegistry> registryFactory;
+  private final ForkJoinPool pool;
+
+  /**
+   * Constructor for station network, giving each station a
+   * {@link ConcurrentTrainDepartureRegistry} and querying on the common pool.
+   */
+  public StationNetwork() {
+    this(ConcurrentTrainDepartureRegistry::new, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Constructor for station network.
+   *
+   * @param registryFactory creates the registry of each new station
+   * @param pool            the pool queries across stations run on
+   * @throws IllegalArgumentException if registry factory or pool is null
+   */
+  public StationNetwork(Supplier<DepartureRegistry> registryFactory, ForkJoinPool pool) {
+    Validation.validateNotNull(registryFactory, "Registry factory");
+    Validation.validateNotNull(pool, "Pool");
+    this.registryFactory = registryFactory;
+    this.pool = pool;
+  }
+
+  /**
+   * Adds a station with an empty registry.
+   *
+   * @param station the name of the station
+   * @return the registry of the station
+   * @throws IllegalArgumentException if station is blank
+   * @throws IllegalArgumentException if station already exists
+   */
+  public DepartureRegistry addStation(String station) {
+    Validation.validateStringNotBlank(station, "Station");
+    DepartureRegistry registry = registryFactory.get();
+    if (stations.putIfAbsent(station, registry) != null) {
+      throw new IllegalArgumentException("Station " + station + " already exists");
+    }
+    return registry;
+  }
+
+  /**
+   * Removes a station and its train departures.
+   *
+   * @param station the name of the station
+   * @throws IllegalArgumentException if station does not exist
+   */
+  public void removeStation(String station) {
+    if (station == null || stations.remove(station) == null) {
+      throw new IllegalArgumentException("Station " + station + " does not exist");
+    }
+  }
+
+  /**
+   * Gets the registry of a station.
+   *
+   * @param station the name of the station
+   * @return the registry of the station
+   * @throws IllegalArgumentException if station does not exist
+   */
+  public DepartureRegistry station(String station) {
+    DepartureRegistry registry = station == null ? null : stations.get(station);
+    if (registry == null) {
+      throw new IllegalArgumentException("Station " + station + " does not exist");
+    }
+    return registry;
+  }
+
+  /**
+   * Returns the names of the stations, sorted.
+   *
+   * @return a list of station names
+   */
+  public List<String> stations() {
+    return new ArrayList<>(stations.keySet());
+  }
+
+  /**
+   * Gets the number of train departures at every station.
+   *
+   * @return the number of train departures in the network
+   */
+  public int size() {
+    return stations.values().stream().mapToInt(DepartureRegistry::size).sum();
+  }
+
+  /**
+   * Returns the train departures to destination from every station, sorted by departure
+   * time with delay, then by station and train number.
+   *
+   * @param destination the destination to filter from
+   * @return a list of the train departures to destination
+   * @throws IllegalArgumentException if destination is blank
+   */
+  public List<StationDeparture> trainDeparturesTo(String destination) {
+    Validation.validateStringNotBlank(destination, "Destination");
+    return query((station, registry) -> {
+      // in time order and then by train number, as the station is the same for all of them
+      List<TrainDeparture> trainDepartures =
+          registry.trainDeparturesTo(destination).getTrainDepartures();
+      List<StationDeparture> found = new ArrayList<>(trainDepartures.size());
+      for (TrainDeparture trainDeparture : trainDepartures) {
+        found.add(new StationDeparture(station, trainDeparture));
+      }
+      return found;
+    }, BY_DEPARTURE_TIME_WITH_DELAY, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Returns the most delayed train departures in the network, most delayed first. Train
+   * departures with equal delay are sorted by departure time with delay, then by station
+   * and train number. Train departures without delay are not included.
+   *
+   * @param count the largest number of train departures to return
+   * @return a list of the most delayed train departures
+   * @throws IllegalArgumentException if count is zero or less
+   */
+  public List<StationDeparture> mostDelayed(int count) {
+    Validation.validatePositiveNumber(count, "Count");
+    return query((station, registry) -> {
+      PriorityQueue<StationDeparture> leastDelayedFirst =
+          new PriorityQueue<>(BY_DELAY_DESCENDING.reversed());
+      for (TrainDeparture trainDeparture : registry.snapshot().getTrainDepartures()) {
+        if (trainDeparture.getDelay() > 0) {
+          leastDelayedFirst.add(new StationDeparture(station, trainDeparture));
+          if (leastDelayedFirst.size() > count) {
+            leastDelayedFirst.poll();
+          }
+        }
+      }
+      List<StationDeparture> found = new ArrayList<>(leastDelayedFirst);
+      found.sort(BY_DELAY_DESCENDING);
+      return found;
+    }, BY_DELAY_DESCENDING, count);
+  }
+
+  /**
+   * Runs a query on every station in parallel and merges the results.
+   *
+   * @param stationQuery finds the sorted results of one station
+   * @param order        the order of the results
+   * @param limit        the largest number of results to keep
+   * @return the merged results
+   */
+  private List<StationDeparture> query(
+      BiFunction<String, DepartureRegistry, List<StationDeparture>> stationQuery,
+      Comparator<StationDeparture> order, int limit) {
+    List<Map.Entry<String, DepartureRegistry>> shards = new ArrayList<>(stations.entrySet());
+    if (shards.isEmpty()) {
+      return new ArrayList<>();
+    }
+    return pool.invoke(new ShardQuery(shards, 0, shards.size(), stationQuery, order, limit));
+  }
+
+  /**
+   * This class queries a range of stations. A range of more than one station is split in
+   * two halves that run in parallel, and their results are merged in order.
+   */
+  private static final class ShardQuery extends RecursiveTask<List<StationDeparture>> {
+    private static final long serialVersionUID = 1L;
+
+    private final List<Map.Entry<String, DepartureRegistry>> shards;
+    private final int from;
+    private final int to;
+    private final BiFunction<String, DepartureRegistry, List<StationDeparture>> stationQuery;
+    private final Comparator<StationDeparture> order;
+    private final int limit;
+
+    /**
+     * Constructor for shard query.
+     *
+     * @param shards       the stations and their registries
+     * @param from         the index of the first station in the range
+     * @param to           the index after the last station in the range
+     * @param stationQuery finds the sorted results of one station
+     * @param order        the order of the results
+     * @param limit        the largest number of results to keep
+     */
+    ShardQuery(List<Map.Entry<String, DepartureRegistry>> shards, int from, int to,
+               BiFunction<String, DepartureRegistry, List<StationDeparture>> stationQuery,
+               Comparator<StationDeparture> order, int limit) {
+      this.shards = shards;
+      this.from = from;
+      this.to = to;
+      this.stationQuery = stationQuery;
+      this.order = order;
+      this.limit = limit;
+    }
+
+    /**
+     * Queries the range of stations.
+     *
+     * @return the sorted results of the range
+     */
+    @Override
+    protected List<StationDeparture> compute() {
+      if (to - from == 1) {
+        Map.Entry<String, DepartureRegistry> shard = shards.get(from);
+        return stationQuery.apply(shard.getKey(), shard.getValue());
+      }
+      int middle = (from + to) >>> 1;
+      var left = new ShardQuery(shards, from, middle, stationQuery, order, limit);
+      var right = new ShardQuery(shards, middle, to, stationQuery, order, limit);
+      left.fork();
+      List<StationDeparture> rightResults = right.compute();
+      return merge(left.join(), rightResults);
+    }
+
+    /**
+     * Merges two sorted lists, keeping at most the limit.
+     *
+     * @param first  the first list
+     * @param second the second list
+     * @return the merged list
+     */
+    private List<StationDeparture> merge(List<StationDeparture> first,
+                                         List<StationDeparture> second) {
+      int size = (int) Math.min((long) first.size() + second.size(), limit);
+      List<StationDeparture> merged = new ArrayList<>(size);
+      int i = 0;
+      int j = 0;
+      while (merged.size() < size) {
+        if (j == second.size()
+            || (i < first.size() && order.compare(first.get(i), second.get(j)) <= 0)) {
+          merged.add(first.get(i++));
+        } else {
+          merged.add(second.get(j++));
+        }
+      }
+      return merged;
+    }
+  }
+}
@@ -0,0 +1,353 @@
+package edu.ntnu.stud.models;
+
+import edu.ntnu.stud.utils.Validation;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * This class keeps the train departures of a registry in a {@link DepartureTimingWheel}, so
+ * advancing the clock removes exactly the trains in the minutes that passed, without searching
+ * the registry.
+ *
+ * <p>Mutations are applied to the wrapped registry and then to the wheel, which keeps its own
+ * copy of each train departure, so a delay moves the train to the slot of its new departure
+ * time with delay. {@link #removeTrainDeparturesBeforeTime(LocalTime, Consumer)} with a time at
+ * or after the time of the wheel finds the train departures due in the passed slots, and if
+ * there are any, removes them from the wrapped registry in one call, so a durable registry
+ * below logs one record per advance. Each train leaves the wheel only when the wrapped
+ * registry has removed it, and the wheel only advances once the call has returned, so a
+ * failed call leaves the rest to the next advance. An earlier time, such as the start of a
+ * new day, is passed on to the wrapped registry and rewinds the wheel.
+ *
+ * <p>Mutations are serialized by this class. It is as thread safe as the wrapped registry is
+ * for reads.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+public class TimingWheelDepartureRegistry implements DepartureRegistry {
+  // rough size of a copy in the wheel and its slot entries, for estimatedIndexBytes
+  private static final long BYTES_PER_SCHEDULED = 40 + 32;
+
+  private final DepartureRegistry delegate;
+  private final DepartureTimingWheel wheel = new DepartureTimingWheel();
+
+  /**
+   * Constructor for timing wheel departure registry. The train departures already in the
+   * wrapped registry are scheduled in the wheel, which starts at midnight.
+   *
+   * @param delegate the registry to apply mutations to
+   * @throws IllegalArgumentException if delegate is null
+   */
+  public TimingWheelDepartureRegistry(DepartureRegistry delegate) {
+    Validation.validateNotNull(delegate, "Registry");
+    this.delegate = delegate;
+    delegate.snapshot().getTrainDepartures().forEach(this::schedule);
+  }
+
+  /**
+   * Schedules a copy of a train departure in the wheel, so later changes to the train
+   * departure inside the wrapped registry do not move it behind the back of the wheel.
+   *
+   * @param trainDeparture the train departure
+   */
+  private void schedule(TrainDeparture trainDeparture) {
+    wheel.schedule(new TrainDeparture(trainDeparture.getTrainNumber(), trainDeparture.getLine(),
+        trainDeparture.getDestination(), trainDeparture.getDepartureTime(),
+        trainDeparture.getDelay(), trainDeparture.getTrack()));
+  }
+
+  /**
+   * Gets the time of the wheel, the latest time departed trains were removed before.
+   *
+   * @return the time of the wheel
+   */
+  public synchronized LocalTime getTime() {
+    return wheel.getTime();
+  }
+
+  /**
+   * Creates and adds a new train departure, and schedules it.
+   *
+   * @param trainNumber   the train number
+   * @param line          the line
+   * @param destination   the destination
+   * @param departureTime the departure time
+   * @throws IllegalArgumentException if train number is zero or less
+   * @throws IllegalArgumentException if line is blank
+   * @throws IllegalArgumentException if destination is blank
+   * @throws IllegalArgumentException if departure time is null
+   * @throws IllegalArgumentException if train number already exists
+   */
+  @Override
+  public synchronized void newTrainDeparture(int trainNumber, String line, String destination,
+                                             LocalTime departureTime) {
+    addTrainDeparture(new TrainDeparture(trainNumber, line, destination, departureTime));
+  }
+
+  /**
+   * Adds a train departure to registry, and schedules it.
+   *
+   * @param trainDeparture the train departure
+   * @throws IllegalArgumentException if train number already exists
+   */
+  @Override
+  public synchronized void addTrainDeparture(TrainDeparture trainDeparture) {
+    delegate.addTrainDeparture(trainDeparture);
+    schedule(trainDeparture);
+  }
+
+  /**
+   * Adds many train departures to registry in one pass, and schedules each of them.
+   *
+   * @param trainDepartures the train departures
+   * @throws IllegalArgumentException if a train number already exists, or appears twice
+   */
+  @Override
+  public synchronized void addTrainDepartures(List<TrainDeparture> trainDepartures) {
+    delegate.addTrainDepartures(trainDepartures);
+    trainDepartures.forEach(this::schedule);
+  }
+
+  /**
+   * Adds delay to train departure from train number, and moves it to the slot of its new
+   * departure time with delay.
+   *
+   * @param trainNumber the train number of the train departure
+   * @param delay       the delay
+   * @throws IllegalArgumentException if train number is not in registry
+   * @throws IllegalArgumentException if delay is zero or less
+   */
+  @Override
+  public synchronized void addDelay(int trainNumber, int delay) {
+    delegate.addDelay(trainNumber, delay);
+    TrainDeparture trainDeparture = wheel.get(trainNumber);
+    trainDeparture.addDelay(delay);
+    wheel.schedule(trainDeparture);
+  }
+
+  /**
+   * Sets track to train departure from train number.
+   *
+   * @param trainNumber the train number of the train departure
+   * @param track       the track
+   * @throws IllegalArgumentException if train number is not in registry
+   * @throws IllegalArgumentException if track is zero or less, unless -1
+   */
+  @Override
+  public synchronized void setTrack(int trainNumber, int track) {
+    delegate.setTrack(trainNumber, track);
+    wheel.get(trainNumber).setTrack(track);
+  }
+
+  /**
+   * Checks if registry contains train departure with train number.
+   *
+   * @param trainNumber the train number to check
+   * @return true if registry contains train departure with train number
+   */
+  @Override
+  public boolean containsTrainNumber(int trainNumber) {
+    return delegate.containsTrainNumber(trainNumber);
+  }
+
+  /**
+   * Gets the number of train departures in the registry.
+   *
+   * @return the number of train departures
+   */
+  @Override
+  public int size() {
+    return delegate.size();
+  }
+
+  /**
+   * Deletes a train departure from train number, and removes it from the wheel.
+   *
+   * @param trainNumber the train number
+   * @throws IllegalArgumentException if train number is not in registry
+   */
+  @Override
+  public synchronized void removeTrainDeparture(int trainNumber) {
+    delegate.removeTrainDeparture(trainNumber);
+    wheel.cancel(trainNumber);
+  }
+
+  /**
+   * Deletes train departures with departure time with delay before time, and passes each
+   * deleted train departure to the callback. A time at or after the time of the wheel only
+   * visits the slots that passed, and the wrapped registry is only asked to remove the
+   * departed trains if any are due there. If the wrapped registry or the callback throws,
+   * the trains not yet removed stay in the wheel, which keeps its time. An earlier time
+   * searches the wrapped registry and rewinds the wheel.
+   *
+   * @param time      the time to delete before
+   * @param onEvicted the callback receiving each deleted train departure
+   * @throws IllegalArgumentException if time is null
+   * @throws IllegalArgumentException if callback is null
+   */
+  @Override
+  public synchronized void removeTrainDeparturesBeforeTime(LocalTime time,
+                                                          Consumer<TrainDeparture> onEvicted) {
+    Validation.validateNotNull(time, "Time");
+    Validation.validateNotNull(onEvicted, "Callback");
+    if (time.isBefore(wheel.getTime())) {
+      delegate.removeTrainDeparturesBeforeTime(time, trainDeparture -> {
+        wheel.cancel(trainDeparture.getTrainNumber());
+        onEvicted.accept(trainDeparture);
+      });
+      wheel.rewind(time);
+      return;
+    }
+    if (!wheel.due(time).isEmpty()) {
+      delegate.removeTrainDeparturesBeforeTime(time, trainDeparture -> {
+        wheel.cancel(trainDeparture.getTrainNumber());
+        onEvicted.accept(trainDeparture);
+      });
+    }
+    wheel.advance(time, trainDeparture -> { });
+  }
+
+  /**
+   * Returns a read-only view of the train departures to destination, sorted by departure time.
+   *
+   * @param destination the destination to filter from
+   * @return a read-only view of the train departures to destination
+   * @throws IllegalArgumentException if destination is blank
+   */
+  @Override
+  public TrainDepartureView trainDeparturesByDestination(String destination) {
+    return delegate.trainDeparturesByDestination(destination);
+  }
+
+  /**
+   * Returns a list of train numbers sorted by scheduled departure time.
+   *
+   * @return a list of train numbers sorted by departure time
+   */
+  @Override
+  public ArrayList<Integer> sortedByDepartureTime() {
+    return delegate.sortedByDepartureTime();
+  }
+
+  /**
+   * Returns a list of train numbers sorted by departure time with delay.
+   *
+   * @return a list of train numbers sorted by departure time with delay
+   */
+  @Override
+  public ArrayList<Integer> sortedByDepartureTimeWithDelay() {
+    return delegate.sortedByDepartureTimeWithDelay();
+  }
+
+  /**
+   * Returns a page of the train departures with departure time with delay at or after time,
+   * sorted by departure time with delay.
+   *
+   * @param time  the time to list departures from
+   * @param skip  the number of departures to leave out
+   * @param count the largest number of departures to return
+   * @return a snapshot of the page of train departures
+   * @throws IllegalArgumentException if time is null
+   * @throws IllegalArgumentException if skip is negative
+   * @throws IllegalArgumentException if count is zero or less
+   */
+  @Override
+  public TrainDepartureSnapshot upcomingTrainDepartures(LocalTime time, int skip, int count) {
+    return delegate.upcomingTrainDepartures(time, skip, count);
+  }
+
+  /**
+   * Gets the version of the registry.
+   *
+   * @return the version of the registry
+   */
+  @Override
+  public long version() {
+    return delegate.version();
+  }
+
+  /**
+   * Estimates the heap used by the train departures and the indices of the wrapped registry,
+   * and by the copies in the wheel, about 40 bytes each and 32 for their slot entries.
+   *
+   * @return the estimated bytes, or -1 if the wrapped registry cannot estimate them
+   */
+  @Override
+  public synchronized long estimatedIndexBytes() {
+    long delegateBytes = delegate.estimatedIndexBytes();
+    return delegateBytes < 0 ? -1 : delegateBytes + wheel.size() * BYTES_PER_SCHEDULED;
+  }
+
+  /**
+   * Returns an immutable snapshot of the registry, sorted by departure time with delay.
+   *
+   * @return a snapshot of the registry
+   */
+  @Override
+  public TrainDepartureSnapshot snapshot() {
+    return delegate.snapshot();
+  }
+
+  /**
+   * Returns an immutable snapshot of the train departures to destination, sorted by departure
+   * time with delay.
+   *
+   * @param destination the destination to filter from
+   * @return a snapshot of the train departures to destination
+   * @throws IllegalArgumentException if destination is blank
+   */
+  @Override
+  public TrainDepartureSnapshot trainDeparturesTo(String destination) {
+    return delegate.trainDeparturesTo(destination);
+  }
+
+  /**
+   * Finds the train departure with train number as it is now.
+   *
+   * @param trainNumber the train number
+   * @return the train departure, or null if train number is not in registry
+   */
+  @Override
+  public TrainDeparture findTrainDeparture(int trainNumber) {
+    return delegate.findTrainDeparture(trainNumber);
+  }
+
+  /**
+   * Returns a string representation of the train departure from train number.
+   *
+   * @param trainNumber the train number
+   * @return a string representation of the train departure from train number
+   * @throws IllegalArgumentException if train number is not in registry
+   */
+  @Override
+  public String trainDepartureString(int trainNumber) {
+    return delegate.trainDepartureString(trainNumber);
+  }
+
+  /**
+   * Returns a HashMap of information about the train departure from train number.
+   *
+   * @param trainNumber the train number of the train departure
+   * @return a Hashmap of information about the train departure from train number
+   * @throws IllegalArgumentException if train number is not in registry
+   */
+  @Override
+  public HashMap<String, String> getAllFromTrainNumber(int trainNumber) {
+    return delegate.getAllFromTrainNumber(trainNumber);
+  }
+
+  /**
+   * Returns a string representation of the registry.
+   *
+   * @return a string representation of the registry
+   */
+  @Override
+  public String toString() {
+    return delegate.toString();
+  }
+}
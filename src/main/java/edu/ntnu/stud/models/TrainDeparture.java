@@ -13,6 +13,8 @@ import java.util.HashMap;
  * @since 0.1
  */
 public class TrainDeparture {
+  private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+
   private final int trainNumber;
   private final String line;
   private final String destination;
@@ -168,6 +170,16 @@ public class TrainDeparture {
     return departureTime.plusMinutes(delay);
   }
 
+  /**
+   * Gets the departure time with delay as seconds of the day, without creating a new LocalTime.
+   * Wraps around midnight the same way as {@link #departureTimeWithDelay()}.
+   *
+   * @return the departure time with delay as seconds of the day
+   */
+  public int departureSecondOfDayWithDelay() {
+    return Math.floorMod(departureTime.toSecondOfDay() + delay * 60L, SECONDS_PER_DAY);
+  }
+
   /**
    * Gets the train info as HashMap.
    *
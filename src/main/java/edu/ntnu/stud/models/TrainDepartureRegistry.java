@@ -1,25 +1,107 @@
 package edu.ntnu.stud.models;
 
+import edu.ntnu.stud.utils.IntHashMap;
 import edu.ntnu.stud.utils.Validation;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
- * This class represents a train departure registry. It contains a HashMap of train departures
- * and methods to manage them.
+ * This class represents a train departure registry. It contains a map of train departures
+ * keyed by primitive train number and methods to manage them. The departures are also kept in
+ * two ordered indices, one by scheduled departure time and one by departure time with delay,
+ * and in an index by destination. The indices are updated on every mutation so ordered
+ * iteration and destination lookups never have to scan or sort the registry.
+ *
+ * <p>Snapshots are taken from a persistent {@link DepartureTree} of copies of the
+ * departures, since this registry changes its departures in place. The tree is brought up to
+ * date when a snapshot is taken, by replacing only the departures that changed since the last
+ * one, so a snapshot after k changes costs O(k log n) instead of copying the registry. After
+ * many changes the tree is rebuilt from the delay index instead.
  *
  * @author 10065
  * @version 1.0
  * @since 0.2
  */
-public class TrainDepartureRegistry {
+public class TrainDepartureRegistry implements DepartureRegistry {
+
+  private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+  // rough sizes for estimatedIndexBytes, on a 64-bit JVM with compressed references
+  private static final long BYTES_PER_TRAIN_DEPARTURE = 40 + 16 + 3 * 40;
+  private static final long BYTES_PER_DESTINATION = 120;
+  // a copy and its tree node, for each departure in the published tree
+  private static final long BYTES_PER_PUBLISHED = 40 + 40;
+  // fewest changes before the tree is rebuilt instead of changed one departure at a time
+  private static final int MIN_REBUILD_CHANGES = 64;
+
+  private static final Comparator<TrainDeparture> BY_DEPARTURE_TIME =
+      Comparator.comparing(TrainDeparture::getDepartureTime)
+          .thenComparingInt(TrainDeparture::getTrainNumber);
+  private static final Comparator<TrainDeparture> BY_DEPARTURE_TIME_WITH_DELAY =
+      Comparator.comparingInt(TrainDeparture::departureSecondOfDayWithDelay)
+          .thenComparingInt(TrainDeparture::getTrainNumber);
+
+  private final IntHashMap<TrainDeparture> trainDepartures = new IntHashMap<>();
+  private final TreeSet<TrainDeparture> byDepartureTime = new TreeSet<>(BY_DEPARTURE_TIME);
+  private final TreeSet<TrainDeparture> byDepartureTimeWithDelay =
+      new TreeSet<>(BY_DEPARTURE_TIME_WITH_DELAY);
+  private final HashMap<String, TreeSet<TrainDeparture>> byDestination = new HashMap<>();
+  private long version;
+  private TrainDepartureSnapshot snapshot;
+  // the tree the last snapshot was taken from, and the trains changed since
+  private DepartureTree published = DepartureTree.empty(0);
+  private final IntHashMap<PublishedChange> changed = new IntHashMap<>();
+  private boolean rebuild;
 
-  private final HashMap<Integer, TrainDeparture> trainDepartures = new HashMap<>();
+  /**
+   * This class represents a train changed since the last snapshot, with its key in the tree
+   * of that snapshot.
+   */
+  private static final class PublishedChange {
+    private final int trainNumber;
+    private final long publishedKey;
+
+    /**
+     * Constructor for published change.
+     *
+     * @param trainNumber  the train number
+     * @param publishedKey the key in the published tree, or {@link DepartureTree#NO_KEY}
+     */
+    PublishedChange(int trainNumber, long publishedKey) {
+      this.trainNumber = trainNumber;
+      this.publishedKey = publishedKey;
+    }
+  }
+
+  /**
+   * Remembers that a train is about to change, unless it already changed since the last
+   * snapshot. Must be called before the change, while the departure still has the key it
+   * was published with. Once the changes reach an eighth of the registry the tree is marked
+   * for a rebuild, and no more changes are remembered.
+   *
+   * @param trainNumber  the train number
+   * @param publishedKey the key the train was published with, or {@link DepartureTree#NO_KEY}
+   *                     for a train that is not in the registry
+   */
+  private void markChanged(int trainNumber, long publishedKey) {
+    if (rebuild || changed.containsKey(trainNumber)) {
+      return;
+    }
+    if (changed.size() >= Math.max(MIN_REBUILD_CHANGES, trainDepartures.size() / 8)) {
+      rebuild = true;
+      changed.clear();
+      return;
+    }
+    changed.put(trainNumber, new PublishedChange(trainNumber, publishedKey));
+  }
 
   /**
    * Gets a train departure from train number.
@@ -29,8 +111,11 @@ public class TrainDepartureRegistry {
    * @throws IllegalArgumentException if train number is not in registry
    */
   private TrainDeparture getTrainDeparture(int trainNumber) {
-    validateTrainNumberExistence(trainNumber);
-    return trainDepartures.get(trainNumber);
+    TrainDeparture trainDeparture = trainDepartures.get(trainNumber);
+    if (trainDeparture == null) {
+      throw new IllegalArgumentException("Train departure is not in the registry");
+    }
+    return trainDeparture;
   }
 
   /**
@@ -45,6 +130,7 @@ public class TrainDepartureRegistry {
    * @throws IllegalArgumentException if destination is blank
    * @throws IllegalArgumentException if departure time is null
    */
+  @Override
   public void newTrainDeparture(int trainNumber, String line, String destination,
                                 LocalTime departureTime) {
     var trainDeparture = new TrainDeparture(trainNumber, line, destination, departureTime);
@@ -52,16 +138,55 @@ public class TrainDepartureRegistry {
   }
 
   /**
-   * Adds a train departure to registry.
+   * Adds a train departure to registry. The registry takes over the train departure,
+   * so it must not be changed by the caller afterwards.
    *
    * @param trainDeparture the train departure
    * @throws IllegalArgumentException if train number already exists
    */
-  private void addTrainDeparture(TrainDeparture trainDeparture) {
+  @Override
+  public void addTrainDeparture(TrainDeparture trainDeparture) {
     if (containsTrainDeparture(trainDeparture)) {
       throw new IllegalArgumentException("Train number already exists");
     }
+    markChanged(trainDeparture.getTrainNumber(), DepartureTree.NO_KEY);
     trainDepartures.put(trainDeparture.getTrainNumber(), trainDeparture);
+    byDepartureTime.add(trainDeparture);
+    byDepartureTimeWithDelay.add(trainDeparture);
+    byDestination.computeIfAbsent(trainDeparture.getDestination(),
+        destination -> new TreeSet<>(BY_DEPARTURE_TIME)).add(trainDeparture);
+    version++;
+  }
+
+  /**
+   * Adds many train departures to registry in one pass. Either every train departure is
+   * added, or none are. Each index is filled in its own sorted order, which keeps the tree
+   * insertions local and is much faster than adding the departures one by one.
+   *
+   * @param trainDepartures the train departures
+   * @throws IllegalArgumentException if a train number already exists, or appears twice
+   */
+  @Override
+  public void addTrainDepartures(List<TrainDeparture> trainDepartures) {
+    IntHashMap<TrainDeparture> added = new IntHashMap<>(trainDepartures.size());
+    for (TrainDeparture trainDeparture : trainDepartures) {
+      if (containsTrainDeparture(trainDeparture)
+          || added.put(trainDeparture.getTrainNumber(), trainDeparture) != null) {
+        throw new IllegalArgumentException("Train number already exists");
+      }
+    }
+    TrainDeparture[] sorted = trainDepartures.toArray(new TrainDeparture[0]);
+    Arrays.sort(sorted, BY_DEPARTURE_TIME);
+    for (TrainDeparture trainDeparture : sorted) {
+      markChanged(trainDeparture.getTrainNumber(), DepartureTree.NO_KEY);
+      this.trainDepartures.put(trainDeparture.getTrainNumber(), trainDeparture);
+      byDepartureTime.add(trainDeparture);
+      byDestination.computeIfAbsent(trainDeparture.getDestination(),
+          destination -> new TreeSet<>(BY_DEPARTURE_TIME)).add(trainDeparture);
+    }
+    Arrays.sort(sorted, BY_DEPARTURE_TIME_WITH_DELAY);
+    Collections.addAll(byDepartureTimeWithDelay, sorted);
+    version++;
   }
 
   /**
@@ -72,9 +197,17 @@ public class TrainDepartureRegistry {
    * @throws IllegalArgumentException if train number is not in registry
    * @throws IllegalArgumentException if delay is zero or less
    */
+  @Override
   public void addDelay(int trainNumber, int delay) {
-    validateTrainNumberExistence(trainNumber);
-    trainDepartures.get(trainNumber).addDelay(delay);
+    TrainDeparture trainDeparture = getTrainDeparture(trainNumber);
+    markChanged(trainNumber, DepartureTree.keyOf(trainDeparture));
+    byDepartureTimeWithDelay.remove(trainDeparture);
+    try {
+      trainDeparture.addDelay(delay);
+      version++;
+    } finally {
+      byDepartureTimeWithDelay.add(trainDeparture);
+    }
   }
 
   /**
@@ -85,43 +218,34 @@ public class TrainDepartureRegistry {
    * @throws IllegalArgumentException if train number is not in registry
    * @throws IllegalArgumentException if track is zero or less, unless -1
    */
+  @Override
   public void setTrack(int trainNumber, int track) {
-    validateTrainNumberExistence(trainNumber);
-    trainDepartures.get(trainNumber).setTrack(track);
+    TrainDeparture trainDeparture = getTrainDeparture(trainNumber);
+    markChanged(trainNumber, DepartureTree.keyOf(trainDeparture));
+    trainDeparture.setTrack(track);
+    version++;
   }
 
 
-  /**
-   * Checks if registry contains train departure, utilizes {@link #containsTrainNumber(int)}.
-   *
-   * @param trainDeparture the train departure to check
-   * @return true if registry contains train departure
-   */
-  public boolean containsTrainDeparture(TrainDeparture trainDeparture) {
-    return containsTrainNumber(trainDeparture.getTrainNumber());
-  }
-
   /**
    * Checks if registry contains train departure with train number.
    *
    * @param trainNumber the train number to check
    * @return true if registry contains train departure with train number
    */
+  @Override
   public boolean containsTrainNumber(int trainNumber) {
     return trainDepartures.containsKey(trainNumber);
   }
 
   /**
-   * Validates train departure presence from train number,
-   * utilizes {@link #containsTrainNumber(int)}.
+   * Gets the number of train departures in the registry.
    *
-   * @param trainNumber the train number to check
-   * @throws IllegalArgumentException if train number is not in registry
+   * @return the number of train departures
    */
-  public void validateTrainNumberExistence(int trainNumber) {
-    if (!containsTrainNumber(trainNumber)) {
-      throw new IllegalArgumentException("Train departure is not in the registry");
-    }
+  @Override
+  public int size() {
+    return trainDepartures.size();
   }
 
   /**
@@ -130,52 +254,237 @@ public class TrainDepartureRegistry {
    * @param trainNumber the train number
    * @throws IllegalArgumentException if train number is not in registry
    */
+  @Override
   public void removeTrainDeparture(int trainNumber) {
-    validateTrainNumberExistence(trainNumber);
-    trainDepartures.remove(trainNumber);
+    TrainDeparture trainDeparture = getTrainDeparture(trainNumber);
+    byDepartureTimeWithDelay.remove(trainDeparture);
+    removeFromOtherIndices(trainDeparture);
   }
 
   /**
-   * Deletes train departures before time.
+   * Removes a train departure from the map and every index except the delay index.
    *
-   * @param time the time to delete before
+   * @param trainDeparture the train departure to remove
+   */
+  private void removeFromOtherIndices(TrainDeparture trainDeparture) {
+    markChanged(trainDeparture.getTrainNumber(), DepartureTree.keyOf(trainDeparture));
+    trainDepartures.remove(trainDeparture.getTrainNumber());
+    byDepartureTime.remove(trainDeparture);
+    byDestination.get(trainDeparture.getDestination()).remove(trainDeparture);
+    version++;
+  }
+
+  /**
+   * Deletes train departures with departure time with delay before time, and passes each
+   * deleted train departure to the callback. The departures are taken from the front of the
+   * delay index, so only the deleted departures are visited.
+   *
+   * @param time      the time to delete before
+   * @param onEvicted the callback receiving each deleted train departure
    * @throws IllegalArgumentException if time is null
+   * @throws IllegalArgumentException if callback is null
    */
-  public void removeTrainDeparturesBeforeTime(LocalTime time) {
+  @Override
+  public void removeTrainDeparturesBeforeTime(LocalTime time,
+                                              Consumer<TrainDeparture> onEvicted) {
     Validation.validateNotNull(time, "Time");
-    List<Integer> trainsToRemove = trainDepartures.values().stream()
-        .filter(trainDeparture -> trainDeparture.departureTimeWithDelay().isBefore(time))
-        .map(TrainDeparture::getTrainNumber)
-        .toList();
-    trainsToRemove.forEach(this::removeTrainDeparture);
+    Validation.validateNotNull(onEvicted, "Callback");
+    while (!byDepartureTimeWithDelay.isEmpty()
+        && byDepartureTimeWithDelay.first().departureTimeWithDelay().isBefore(time)) {
+      TrainDeparture trainDeparture = byDepartureTimeWithDelay.pollFirst();
+      removeFromOtherIndices(trainDeparture);
+      onEvicted.accept(trainDeparture);
+    }
   }
 
 
   /**
-   * Creates new train departure registry filtered from destination.
+   * Returns a read-only view of the train departures to destination, sorted by departure time.
+   * The view is backed by the destination index, so later changes to departures to a known
+   * destination are visible through it. An unknown destination gives an empty view.
    *
    * @param destination the destination to filter from
+   * @return a read-only view of the train departures to destination
    * @throws IllegalArgumentException if destination is blank
    */
-  public TrainDepartureRegistry trainDeparturesByDestination(String destination) {
+  @Override
+  public TrainDepartureView trainDeparturesByDestination(String destination) {
     Validation.validateStringNotBlank(destination, "Destination");
-    var result = new TrainDepartureRegistry();
-    trainDepartures.values().stream()
-        .filter(trainDeparture -> trainDeparture.getDestination().equals(destination))
-        .forEach(result::addTrainDeparture);
-    return result;
+    TreeSet<TrainDeparture> matches = byDestination.get(destination);
+    if (matches == null) {
+      return new TrainDepartureView(Collections.emptySet());
+    }
+    return new TrainDepartureView(matches);
   }
 
   /**
-   * Returns a list of train numbers sorted by departure time.
+   * Returns an immutable snapshot of the train departures to destination, sorted by departure
+   * time with delay. Only the departures in the destination index are copied and sorted, in
+   * O(k log k) for k departures to the destination.
+   *
+   * @param destination the destination to filter from
+   * @return a snapshot of the train departures to destination
+   * @throws IllegalArgumentException if destination is blank
+   */
+  @Override
+  public TrainDepartureSnapshot trainDeparturesTo(String destination) {
+    Validation.validateStringNotBlank(destination, "Destination");
+    TreeSet<TrainDeparture> matches = byDestination.get(destination);
+    ArrayList<TrainDeparture> copies = new ArrayList<>(matches == null ? 0 : matches.size());
+    if (matches != null) {
+      matches.forEach(trainDeparture -> copies.add(copyOf(trainDeparture)));
+    }
+    copies.sort(BY_DEPARTURE_TIME_WITH_DELAY);
+    return new TrainDepartureSnapshot(version, copies);
+  }
+
+  /**
+   * Returns a list of train numbers sorted by scheduled departure time.
    *
    * @return a list of train numbers sorted by departure time
    */
+  @Override
   public ArrayList<Integer> sortedByDepartureTime() {
-    return trainDepartures.entrySet().stream()
-        .sorted(Comparator.comparing(entry -> entry.getValue().getDepartureTime()))
-        .map(Map.Entry::getKey)
-        .collect(Collectors.toCollection(ArrayList::new));
+    return trainNumbersOf(byDepartureTime);
+  }
+
+  /**
+   * Returns a list of train numbers sorted by departure time with delay.
+   *
+   * @return a list of train numbers sorted by departure time with delay
+   */
+  @Override
+  public ArrayList<Integer> sortedByDepartureTimeWithDelay() {
+    return trainNumbersOf(byDepartureTimeWithDelay);
+  }
+
+  /**
+   * Collects the train numbers of an index in iteration order.
+   *
+   * @param index the index to collect from
+   * @return a list of train numbers in the order of the index
+   */
+  private static ArrayList<Integer> trainNumbersOf(TreeSet<TrainDeparture> index) {
+    ArrayList<Integer> trainNumbers = new ArrayList<>(index.size());
+    index.forEach(trainDeparture -> trainNumbers.add(trainDeparture.getTrainNumber()));
+    return trainNumbers;
+  }
+
+  /**
+   * Returns a page of the train departures with departure time with delay at or after time,
+   * sorted by departure time with delay. The page starts from a probe in the delay index, so
+   * it is found in O(log n + skip + count), and only the departures on the page are copied.
+   *
+   * @param time  the time to list departures from
+   * @param skip  the number of departures to leave out
+   * @param count the largest number of departures to return
+   * @return a snapshot of the page of train departures
+   * @throws IllegalArgumentException if time is null
+   * @throws IllegalArgumentException if skip is negative
+   * @throws IllegalArgumentException if count is zero or less
+   */
+  @Override
+  public TrainDepartureSnapshot upcomingTrainDepartures(LocalTime time, int skip, int count) {
+    Validation.validateNotNull(time, "Time");
+    Validation.validateZeroOrPositiveNumber(skip, "Skip");
+    Validation.validatePositiveNumber(count, "Count");
+    ArrayList<TrainDeparture> page = new ArrayList<>(Math.min(count, size()));
+    int firstSecond = time.toSecondOfDay() + (time.getNano() > 0 ? 1 : 0);
+    if (firstSecond < SECONDS_PER_DAY) {
+      var probe = new TrainDeparture(1, "probe", "probe", LocalTime.ofSecondOfDay(firstSecond));
+      Iterator<TrainDeparture> upcoming =
+          byDepartureTimeWithDelay.tailSet(probe, true).iterator();
+      for (int i = 0; i < skip && upcoming.hasNext(); i++) {
+        upcoming.next();
+      }
+      while (page.size() < count && upcoming.hasNext()) {
+        page.add(copyOf(upcoming.next()));
+      }
+    }
+    return new TrainDepartureSnapshot(version, page);
+  }
+
+  /**
+   * Gets the version of the registry, which is increased on every mutation.
+   *
+   * @return the version of the registry
+   */
+  @Override
+  public long version() {
+    return version;
+  }
+
+  /**
+   * Estimates the heap used by the train departures and the indices of the registry. Each
+   * train departure takes about 40 bytes, a slot in the train number map about 16, and an
+   * entry in each of the three sorted sets about 40, on a 64-bit JVM with compressed
+   * references. Each departure in the published tree adds a copy and a node of about 40
+   * bytes each.
+   *
+   * @return the estimated bytes
+   */
+  @Override
+  public long estimatedIndexBytes() {
+    return trainDepartures.size() * BYTES_PER_TRAIN_DEPARTURE
+        + byDestination.size() * BYTES_PER_DESTINATION
+        + published.size() * BYTES_PER_PUBLISHED;
+  }
+
+  /**
+   * Returns an immutable snapshot of the registry, sorted by departure time with delay.
+   * The snapshot is backed by the published tree, which is first brought up to date with a
+   * copy of each departure changed since the last snapshot. The snapshot is cached, so an
+   * unchanged registry returns the same snapshot.
+   *
+   * @return a snapshot of the registry
+   */
+  @Override
+  public TrainDepartureSnapshot snapshot() {
+    if (snapshot == null || snapshot.getVersion() != version) {
+      if (rebuild) {
+        ArrayList<TrainDeparture> copies = new ArrayList<>(byDepartureTimeWithDelay.size());
+        byDepartureTimeWithDelay.forEach(trainDeparture -> copies.add(copyOf(trainDeparture)));
+        published = DepartureTree.of(version, copies);
+      } else {
+        changed.forEachValue(change -> {
+          TrainDeparture current = trainDepartures.get(change.trainNumber);
+          published = current == null
+              ? published.with(version, change.publishedKey, DepartureTree.NO_KEY, null)
+              : published.with(version, change.publishedKey, DepartureTree.keyOf(current),
+                  copyOf(current));
+        });
+      }
+      changed.clear();
+      rebuild = false;
+      snapshot = new TrainDepartureSnapshot(version, published.asList());
+    }
+    return snapshot;
+  }
+
+  /**
+   * Finds the train departure with train number, and returns a copy of it, as the registry
+   * changes its departures in place.
+   *
+   * @param trainNumber the train number
+   * @return a copy of the train departure, or null if train number is not in registry
+   */
+  @Override
+  public TrainDeparture findTrainDeparture(int trainNumber) {
+    TrainDeparture trainDeparture = trainDepartures.get(trainNumber);
+    return trainDeparture == null ? null : copyOf(trainDeparture);
+  }
+
+  /**
+   * Copies a train departure, so it can be handed out while the registry keeps changing the
+   * original.
+   *
+   * @param trainDeparture the train departure
+   * @return a copy of the train departure
+   */
+  private static TrainDeparture copyOf(TrainDeparture trainDeparture) {
+    return new TrainDeparture(trainDeparture.getTrainNumber(), trainDeparture.getLine(),
+        trainDeparture.getDestination(), trainDeparture.getDepartureTime(),
+        trainDeparture.getDelay(), trainDeparture.getTrack());
   }
 
   /**
@@ -185,8 +494,8 @@ public class TrainDepartureRegistry {
    * @return a string representation of the train departure from train number
    * @throws IllegalArgumentException if train number is not in registry
    */
+  @Override
   public String trainDepartureString(int trainNumber) {
-    validateTrainNumberExistence(trainNumber);
     return getTrainDeparture(trainNumber).toString();
   }
 
@@ -197,19 +506,20 @@ public class TrainDepartureRegistry {
    * @return a Hashmap of information about the train departure from train number
    * @throws IllegalArgumentException if train number is not in registry
    */
+  @Override
   public HashMap<String, String> getAllFromTrainNumber(int trainNumber) {
-    validateTrainNumberExistence(trainNumber);
-    return trainDepartures.get(trainNumber).trainInfo();
+    return getTrainDeparture(trainNumber).trainInfo();
   }
 
   /**
-   * Returns a string representation of the train departure registry.
+   * Returns a string representation of the train departure registry,
+   * sorted by departure time.
    *
    * @return a string representation of the train departure registry
    */
   @Override
   public String toString() {
-    return trainDepartures.values().stream()
+    return byDepartureTime.stream()
         .map(TrainDeparture::toString)
         .collect(Collectors.joining("\n"));
   }
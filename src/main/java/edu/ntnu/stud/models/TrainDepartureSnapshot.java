@@ -0,0 +1,92 @@
+package edu.ntnu.stud.models;
+
+import edu.ntnu.stud.utils.IntHashMap;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * This class represents an immutable snapshot of a train departure registry, or of one page of
+ * it, at one version.
+ * The train departures are sorted by departure time with delay. A snapshot is shared by every
+ * reader of that version, so the train departures in it must not be changed.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+public class TrainDepartureSnapshot {
+  private final long version;
+  private final List<TrainDeparture> trainDepartures;
+  // built on the first lookup by train number, shared by later lookups
+  private volatile IntHashMap<TrainDeparture> byTrainNumber;
+
+  /**
+   * Constructor for train departure snapshot.
+   *
+   * @param version         the registry version the snapshot was taken at
+   * @param trainDepartures the train departures sorted by departure time with delay
+   */
+  public TrainDepartureSnapshot(long version, List<TrainDeparture> trainDepartures) {
+    this.version = version;
+    this.trainDepartures = Collections.unmodifiableList(trainDepartures);
+  }
+
+  /**
+   * Gets the registry version the snapshot was taken at.
+   *
+   * @return the version
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Gets the number of train departures in the snapshot.
+   *
+   * @return the number of train departures
+   */
+  public int size() {
+    return trainDepartures.size();
+  }
+
+  /**
+   * Gets the train departures sorted by departure time with delay.
+   *
+   * @return an unmodifiable list of the train departures
+   */
+  public List<TrainDeparture> getTrainDepartures() {
+    return trainDepartures;
+  }
+
+  /**
+   * Finds the train departure with train number. The first lookup indexes the snapshot, so
+   * later lookups in the same snapshot take constant time.
+   *
+   * @param trainNumber the train number
+   * @return the train departure, or null if it is not in the snapshot
+   */
+  public TrainDeparture findTrainDeparture(int trainNumber) {
+    IntHashMap<TrainDeparture> index = byTrainNumber;
+    if (index == null) {
+      index = new IntHashMap<>(trainDepartures.size());
+      for (TrainDeparture trainDeparture : trainDepartures) {
+        index.put(trainDeparture.getTrainNumber(), trainDeparture);
+      }
+      byTrainNumber = index;
+    }
+    return index.get(trainNumber);
+  }
+
+  /**
+   * Returns a string representation of the train departures in the snapshot.
+   *
+   * @return a string representation of the train departures in the snapshot
+   */
+  @Override
+  public String toString() {
+    return trainDepartures.stream()
+        .map(TrainDeparture::toString)
+        .collect(Collectors.joining("\n"));
+  }
+}
@@ -0,0 +1,79 @@
+package edu.ntnu.stud.models;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.stream.Collectors;
+
+/**
+ * This class represents a read-only view of a selection of train departures in a registry.
+ * It does not copy the departures, it reads them straight from the collection it wraps.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+public class TrainDepartureView {
+  private final Collection<TrainDeparture> trainDepartures;
+
+  /**
+   * Constructor for train departure view, creates a read-only view of the train departures.
+   *
+   * @param trainDepartures the train departures to view
+   */
+  public TrainDepartureView(Collection<TrainDeparture> trainDepartures) {
+    this.trainDepartures = Collections.unmodifiableCollection(trainDepartures);
+  }
+
+  /**
+   * Gets the number of train departures in the view.
+   *
+   * @return the number of train departures
+   */
+  public int size() {
+    return trainDepartures.size();
+  }
+
+  /**
+   * Checks if the view contains no train departures.
+   *
+   * @return true if the view is empty
+   */
+  public boolean isEmpty() {
+    return trainDepartures.isEmpty();
+  }
+
+  /**
+   * Checks if the view contains a train departure with train number.
+   *
+   * @param trainNumber the train number to check
+   * @return true if the view contains a train departure with train number
+   */
+  public boolean containsTrainNumber(int trainNumber) {
+    return trainDepartures.stream()
+        .anyMatch(trainDeparture -> trainDeparture.getTrainNumber() == trainNumber);
+  }
+
+  /**
+   * Returns a list of the train numbers in the view, in the order of the view.
+   *
+   * @return a list of train numbers
+   */
+  public ArrayList<Integer> trainNumbers() {
+    ArrayList<Integer> trainNumbers = new ArrayList<>(trainDepartures.size());
+    trainDepartures.forEach(trainDeparture -> trainNumbers.add(trainDeparture.getTrainNumber()));
+    return trainNumbers;
+  }
+
+  /**
+   * Returns a string representation of the train departures in the view.
+   *
+   * @return a string representation of the train departures in the view
+   */
+  @Override
+  public String toString() {
+    return trainDepartures.stream()
+        .map(TrainDeparture::toString)
+        .collect(Collectors.joining("\n"));
+  }
+}
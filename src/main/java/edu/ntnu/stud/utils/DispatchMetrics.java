@@ -0,0 +1,254 @@
+package edu.ntnu.stud.utils;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongSupplier;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+/**
+ * This class collects named latency histograms and gauges, and publishes them as one MBean on
+ * the platform MBean server, so they can be watched from JConsole or any JMX scraper.
+ *
+ * <p>Every histogram is published as the attributes {@code <name>.count},
+ * {@code <name>.ratePerSecond}, {@code <name>.meanNanos}, {@code <name>.p50Nanos},
+ * {@code <name>.p90Nanos}, {@code <name>.p99Nanos}, {@code <name>.p999Nanos} and
+ * {@code <name>.maxNanos}, and every gauge as the attribute {@code <name>}. The rate is the
+ * mean rate since the histogram was created or last reset. The operation {@code reset} clears
+ * every histogram.
+ *
+ * <p>This class is thread safe.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+public class DispatchMetrics implements DynamicMBean {
+  /**
+   * The name the metrics are published under by {@link #register()}.
+   */
+  public static final String OBJECT_NAME = "edu.ntnu.stud:type=DispatchMetrics";
+
+  private static final String[] STATISTICS = {"count", "ratePerSecond", "meanNanos", "p50Nanos",
+      "p90Nanos", "p99Nanos", "p999Nanos", "maxNanos"};
+  private static final String RESET_OPERATION = "reset";
+
+  private final Map<String, LatencyHistogram> histograms = new ConcurrentSkipListMap<>();
+  private final Map<String, LongSupplier> gauges = new ConcurrentSkipListMap<>();
+  private volatile long startNanos = System.nanoTime();
+  private ObjectName registeredName;
+
+  /**
+   * Gets the histogram with a name, creating it if it does not exist.
+   *
+   * @param name the name of the histogram
+   * @return the histogram
+   * @throws IllegalArgumentException if name is blank
+   */
+  public LatencyHistogram histogram(String name) {
+    Validation.validateStringNotBlank(name, "Name");
+    return histograms.computeIfAbsent(name, key -> new LatencyHistogram());
+  }
+
+  /**
+   * Adds a gauge, replacing any gauge with the same name. The supplier is called each time
+   * the gauge is read, on the thread reading it.
+   *
+   * @param name     the name of the gauge
+   * @param supplier the supplier of the value of the gauge
+   * @throws IllegalArgumentException if name is blank or supplier is null
+   */
+  public void gauge(String name, LongSupplier supplier) {
+    Validation.validateStringNotBlank(name, "Name");
+    Validation.validateNotNull(supplier, "Supplier");
+    gauges.put(name, supplier);
+  }
+
+  /**
+   * Clears every histogram and restarts the rates.
+   */
+  public void reset() {
+    histograms.values().forEach(LatencyHistogram::reset);
+    startNanos = System.nanoTime();
+  }
+
+  /**
+   * Publishes the metrics on the platform MBean server under {@link #OBJECT_NAME}.
+   *
+   * @throws IllegalStateException if metrics are already published under the name
+   */
+  public synchronized void register() {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      ObjectName name = new ObjectName(OBJECT_NAME);
+      server.registerMBean(this, name);
+      registeredName = name;
+    } catch (JMException e) {
+      throw new IllegalStateException("Metrics not published, reason: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Stops publishing the metrics, if they are published.
+   */
+  public synchronized void unregister() {
+    if (registeredName == null) {
+      return;
+    }
+    try {
+      ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+    } catch (JMException e) {
+      // already gone, nothing to stop publishing
+    }
+    registeredName = null;
+  }
+
+  /**
+   * Reads one statistic of a histogram.
+   *
+   * @param histogram the histogram
+   * @param statistic the statistic
+   * @return the value of the statistic, or null if there is no such statistic
+   */
+  private Object statistic(LatencyHistogram histogram, String statistic) {
+    return switch (statistic) {
+      case "count" -> histogram.getCount();
+      case "ratePerSecond" -> {
+        long elapsed = System.nanoTime() - startNanos;
+        yield elapsed <= 0 ? 0.0 : histogram.getCount() * 1_000_000_000.0 / elapsed;
+      }
+      case "meanNanos" -> histogram.getMean();
+      case "p50Nanos" -> histogram.valueAtPercentile(50);
+      case "p90Nanos" -> histogram.valueAtPercentile(90);
+      case "p99Nanos" -> histogram.valueAtPercentile(99);
+      case "p999Nanos" -> histogram.valueAtPercentile(99.9);
+      case "maxNanos" -> histogram.getMax();
+      default -> null;
+    };
+  }
+
+  /**
+   * Reads an attribute.
+   *
+   * @param attribute the name of the attribute
+   * @return the value of the attribute
+   * @throws AttributeNotFoundException if there is no such attribute
+   */
+  @Override
+  public Object getAttribute(String attribute) throws AttributeNotFoundException {
+    LongSupplier gauge = gauges.get(attribute);
+    if (gauge != null) {
+      return gauge.getAsLong();
+    }
+    int separator = attribute.lastIndexOf('.');
+    LatencyHistogram histogram = separator < 0 ? null
+        : histograms.get(attribute.substring(0, separator));
+    Object value = histogram == null ? null
+        : statistic(histogram, attribute.substring(separator + 1));
+    if (value == null) {
+      throw new AttributeNotFoundException("No such attribute: " + attribute);
+    }
+    return value;
+  }
+
+  /**
+   * Reads many attributes. Attributes that do not exist are left out.
+   *
+   * @param attributes the names of the attributes
+   * @return the attributes found
+   */
+  @Override
+  public AttributeList getAttributes(String[] attributes) {
+    var list = new AttributeList();
+    for (String attribute : attributes) {
+      try {
+        list.add(new Attribute(attribute, getAttribute(attribute)));
+      } catch (AttributeNotFoundException e) {
+        // left out, as the interface asks
+      }
+    }
+    return list;
+  }
+
+  /**
+   * Rejects writing an attribute, as every attribute is read-only.
+   *
+   * @param attribute the attribute
+   * @throws AttributeNotFoundException always
+   */
+  @Override
+  public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+    throw new AttributeNotFoundException("Attribute is read-only: " + attribute.getName());
+  }
+
+  /**
+   * Rejects writing attributes, as every attribute is read-only.
+   *
+   * @param attributes the attributes
+   * @return an empty list, as no attribute was written
+   */
+  @Override
+  public AttributeList setAttributes(AttributeList attributes) {
+    return new AttributeList();
+  }
+
+  /**
+   * Runs an operation. Only {@code reset} exists.
+   *
+   * @param actionName the name of the operation
+   * @param params     the parameters of the operation
+   * @param signature  the parameter types of the operation
+   * @return null
+   * @throws ReflectionException if there is no such operation
+   */
+  @Override
+  public Object invoke(String actionName, Object[] params, String[] signature)
+      throws ReflectionException {
+    if (!RESET_OPERATION.equals(actionName)) {
+      throw new ReflectionException(new NoSuchMethodException(actionName),
+          "No such operation: " + actionName);
+    }
+    reset();
+    return null;
+  }
+
+  /**
+   * Describes the attributes and operations of the metrics as they are now. Histograms and
+   * gauges added later show up the next time this is read.
+   *
+   * @return the description of the MBean
+   */
+  @Override
+  public MBeanInfo getMBeanInfo() {
+    List<MBeanAttributeInfo> attributes = new ArrayList<>();
+    for (String gauge : gauges.keySet()) {
+      attributes.add(new MBeanAttributeInfo(gauge, "long", "Gauge " + gauge,
+          true, false, false));
+    }
+    for (String histogram : histograms.keySet()) {
+      for (String statistic : STATISTICS) {
+        String type = statistic.equals("ratePerSecond") || statistic.equals("meanNanos")
+            ? "double" : "long";
+        attributes.add(new MBeanAttributeInfo(histogram + "." + statistic, type,
+            statistic + " of " + histogram, true, false, false));
+      }
+    }
+    var reset = new MBeanOperationInfo(RESET_OPERATION, "Clears every histogram",
+        null, "void", MBeanOperationInfo.ACTION);
+    return new MBeanInfo(getClass().getName(), "Latencies and gauges of the dispatch system",
+        attributes.toArray(new MBeanAttributeInfo[0]), null,
+        new MBeanOperationInfo[] {reset}, null);
+  }
+}
@@ -0,0 +1,198 @@
+package edu.ntnu.stud.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * This class reads lines and whole numbers from an input stream. It reads the stream in large
+ * blocks and finds line ends and digits in the bytes, so no regular expressions are used and
+ * a number is parsed without creating a string.
+ *
+ * <p>A read only waits for the bytes the stream has ready, so reading from a terminal returns
+ * each line as soon as it is entered. Lines end with {@code \n} or {@code \r\n} and are
+ * decoded as UTF-8.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+public class FastInputReader {
+  /**
+   * The value {@link #readIntLine()} returns for a line that is not a whole number.
+   */
+  public static final long NOT_A_NUMBER = Long.MIN_VALUE;
+
+  private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+  private static final int INITIAL_LINE_CAPACITY = 128;
+
+  private final InputStream source;
+  private final byte[] buffer;
+  private int position;
+  private int limit;
+  private byte[] line;
+  private int lineLength;
+
+  /**
+   * Constructor for fast input reader, reading blocks of 64 KiB.
+   *
+   * @param source the stream to read from
+   * @throws IllegalArgumentException if source is null
+   */
+  public FastInputReader(InputStream source) {
+    this(source, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Constructor for fast input reader. A small buffer suits many readers that each get
+   * little input, such as network connections.
+   *
+   * @param source     the stream to read from
+   * @param bufferSize the size of the blocks read from the stream
+   * @throws IllegalArgumentException if source is null
+   * @throws IllegalArgumentException if buffer size is zero or less
+   */
+  public FastInputReader(InputStream source, int bufferSize) {
+    Validation.validateNotNull(source, "Source");
+    Validation.validatePositiveNumber(bufferSize, "Buffer size");
+    this.source = source;
+    this.buffer = new byte[bufferSize];
+    this.line = new byte[Math.min(bufferSize, INITIAL_LINE_CAPACITY)];
+  }
+
+  /**
+   * Reads the next line.
+   *
+   * @return the line without its line end, or null if the stream has ended
+   * @throws UncheckedIOException if the stream cannot be read
+   */
+  public String readLine() {
+    if (!nextLine()) {
+      return null;
+    }
+    return new String(line, 0, lineLength, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Reads the next line as a whole number. Spaces around the number are ignored.
+   *
+   * @return the number, or {@link #NOT_A_NUMBER} if the line is not a number that fits an int
+   * @throws NoSuchElementException if the stream has ended
+   * @throws UncheckedIOException if the stream cannot be read
+   */
+  public long readIntLine() {
+    if (!nextLine()) {
+      throw new NoSuchElementException("No line found");
+    }
+    int start = 0;
+    int end = lineLength;
+    while (start < end && line[start] == ' ') {
+      start++;
+    }
+    while (end > start && line[end - 1] == ' ') {
+      end--;
+    }
+    int i = start;
+    boolean negative = false;
+    if (i < end && (line[i] == '-' || line[i] == '+')) {
+      negative = line[i] == '-';
+      i++;
+    }
+    if (i == end || end - i > 10) {
+      return NOT_A_NUMBER;
+    }
+    long value = 0;
+    for (; i < end; i++) {
+      int digit = line[i] - '0';
+      if (digit < 0 || digit > 9) {
+        return NOT_A_NUMBER;
+      }
+      value = value * 10 + digit;
+    }
+    value = negative ? -value : value;
+    return value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ? NOT_A_NUMBER : value;
+  }
+
+  /**
+   * Checks if a whole line has been read from the stream and not yet returned, so the next
+   * line can be returned without waiting for the stream.
+   *
+   * @return true if a whole line is buffered
+   */
+  public boolean hasBufferedLine() {
+    for (int i = position; i < limit; i++) {
+      if (buffer[i] == '\n') {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Copies the next line into the line buffer, without its line end.
+   *
+   * @return false if the stream has ended before the line started
+   * @throws UncheckedIOException if the stream cannot be read
+   */
+  private boolean nextLine() {
+    lineLength = 0;
+    boolean read = false;
+    while (true) {
+      if (position == limit && !fill()) {
+        break;
+      }
+      read = true;
+      int start = position;
+      while (position < limit && buffer[position] != '\n') {
+        position++;
+      }
+      append(start, position);
+      if (position < limit) {
+        position++;
+        break;
+      }
+    }
+    if (lineLength > 0 && line[lineLength - 1] == '\r') {
+      lineLength--;
+    }
+    return read;
+  }
+
+  /**
+   * Appends part of the read buffer to the line buffer, growing it if needed.
+   *
+   * @param start the index the part starts at
+   * @param end   the index after the part
+   */
+  private void append(int start, int end) {
+    int length = end - start;
+    if (lineLength + length > line.length) {
+      line = Arrays.copyOf(line, Math.max(line.length * 2, lineLength + length));
+    }
+    System.arraycopy(buffer, start, line, lineLength, length);
+    lineLength += length;
+  }
+
+  /**
+   * Reads the next block from the stream.
+   *
+   * @return false if the stream has ended
+   * @throws UncheckedIOException if the stream cannot be read
+   */
+  private boolean fill() {
+    try {
+      int read;
+      do {
+        read = source.read(buffer, 0, buffer.length);
+      } while (read == 0);
+      position = 0;
+      limit = Math.max(read, 0);
+      return read > 0;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,222 @@
+package edu.ntnu.stud.utils;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * This class represents a hash map with primitive int keys. It uses open addressing with
+ * linear probing, so keys are never boxed and entries need no node objects. Lookups do not
+ * allocate. Null values are not allowed, a null value marks an empty slot.
+ *
+ * @param <V> the type of the values
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+public class IntHashMap<V> {
+  private static final int DEFAULT_CAPACITY = 16;
+
+  private int[] keys;
+  private V[] values;
+  private int size;
+  private int mask;
+  private int resizeAt;
+
+  /**
+   * Constructor for int hash map, creates an empty map with default capacity.
+   */
+  public IntHashMap() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Constructor for int hash map, creates an empty map with room for the expected number of
+   * entries before it has to grow.
+   *
+   * @param expectedSize the expected number of entries
+   * @throws IllegalArgumentException if expected size is negative
+   */
+  public IntHashMap(int expectedSize) {
+    Validation.validateZeroOrPositiveNumber(expectedSize, "Expected size");
+    int capacity = Integer.highestOneBit(Math.max(1, expectedSize * 2 - 1)) << 1;
+    allocate(Math.max(DEFAULT_CAPACITY, capacity));
+  }
+
+  /**
+   * Allocates the arrays for the given capacity, which must be a power of two.
+   *
+   * @param capacity the capacity
+   */
+  @SuppressWarnings("unchecked")
+  private void allocate(int capacity) {
+    keys = new int[capacity];
+    values = (V[]) new Object[capacity];
+    mask = capacity - 1;
+    resizeAt = capacity / 2;
+  }
+
+  /**
+   * Spreads the key over the table, so consecutive keys do not form long probe sequences.
+   *
+   * @param key the key
+   * @return the home slot of the key
+   */
+  private int slot(int key) {
+    int hash = key * 0x9E3779B9;
+    return (hash ^ (hash >>> 16)) & mask;
+  }
+
+  /**
+   * Finds the slot holding the key.
+   *
+   * @param key the key
+   * @return the slot of the key, or -1 if the key is not in the map
+   */
+  private int find(int key) {
+    int slot = slot(key);
+    while (values[slot] != null) {
+      if (keys[slot] == key) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  /**
+   * Gets the value of the key.
+   *
+   * @param key the key
+   * @return the value, or null if the key is not in the map
+   */
+  public V get(int key) {
+    int slot = find(key);
+    return slot < 0 ? null : values[slot];
+  }
+
+  /**
+   * Checks if the map contains the key.
+   *
+   * @param key the key to check
+   * @return true if the map contains the key
+   */
+  public boolean containsKey(int key) {
+    return find(key) >= 0;
+  }
+
+  /**
+   * Puts the value for the key, replacing any previous value.
+   *
+   * @param key   the key
+   * @param value the value
+   * @return the previous value, or null if the key was not in the map
+   * @throws IllegalArgumentException if value is null
+   */
+  public V put(int key, V value) {
+    Validation.validateNotNull(value, "Value");
+    int slot = slot(key);
+    while (values[slot] != null) {
+      if (keys[slot] == key) {
+        V previous = values[slot];
+        values[slot] = value;
+        return previous;
+      }
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = key;
+    values[slot] = value;
+    if (++size > resizeAt) {
+      resize(keys.length << 1);
+    }
+    return null;
+  }
+
+  /**
+   * Removes the key. The entries after it in the probe sequence are shifted back,
+   * so the table never needs tombstones.
+   *
+   * @param key the key to remove
+   * @return the removed value, or null if the key was not in the map
+   */
+  public V remove(int key) {
+    int slot = find(key);
+    if (slot < 0) {
+      return null;
+    }
+    V removed = values[slot];
+    int gap = slot;
+    int next = (gap + 1) & mask;
+    while (values[next] != null) {
+      int home = slot(keys[next]);
+      if (((next - home) & mask) >= ((next - gap) & mask)) {
+        keys[gap] = keys[next];
+        values[gap] = values[next];
+        gap = next;
+      }
+      next = (next + 1) & mask;
+    }
+    values[gap] = null;
+    size--;
+    return removed;
+  }
+
+  /**
+   * Grows the table and reinserts every entry.
+   *
+   * @param capacity the new capacity, a power of two
+   */
+  private void resize(int capacity) {
+    int[] oldKeys = keys;
+    V[] oldValues = values;
+    allocate(capacity);
+    for (int i = 0; i < oldValues.length; i++) {
+      if (oldValues[i] != null) {
+        int slot = slot(oldKeys[i]);
+        while (values[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  /**
+   * Gets the number of entries.
+   *
+   * @return the number of entries
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Checks if the map is empty.
+   *
+   * @return true if the map is empty
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Removes every entry.
+   */
+  public void clear() {
+    Arrays.fill(values, null);
+    size = 0;
+  }
+
+  /**
+   * Passes every value to the action, in table order.
+   *
+   * @param action the action to perform on each value
+   */
+  public void forEachValue(Consumer<? super V> action) {
+    for (V value : values) {
+      if (value != null) {
+        action.accept(value);
+      }
+    }
+  }
+}
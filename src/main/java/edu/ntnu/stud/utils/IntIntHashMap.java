@@ -0,0 +1,201 @@
+package edu.ntnu.stud.utils;
+
+import java.util.Arrays;
+
+/**
+ * This class represents a hash map from primitive int keys to primitive int values.
+ * It is the int valued counterpart of {@link IntHashMap}, using open addressing with linear
+ * probing and backward-shift deletion. Values must be zero or positive, since -1 is returned
+ * for missing keys.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+public class IntIntHashMap {
+  private static final int DEFAULT_CAPACITY = 16;
+  private static final int EMPTY = -1;
+
+  private int[] keys;
+  private int[] values;
+  private int size;
+  private int mask;
+  private int resizeAt;
+
+  /**
+   * Constructor for int int hash map, creates an empty map with default capacity.
+   */
+  public IntIntHashMap() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Constructor for int int hash map, creates an empty map with room for the expected number
+   * of entries before it has to grow.
+   *
+   * @param expectedSize the expected number of entries
+   * @throws IllegalArgumentException if expected size is negative
+   */
+  public IntIntHashMap(int expectedSize) {
+    Validation.validateZeroOrPositiveNumber(expectedSize, "Expected size");
+    int capacity = Integer.highestOneBit(Math.max(1, expectedSize * 2 - 1)) << 1;
+    allocate(Math.max(DEFAULT_CAPACITY, capacity));
+  }
+
+  /**
+   * Allocates the arrays for the given capacity, which must be a power of two.
+   *
+   * @param capacity the capacity
+   */
+  private void allocate(int capacity) {
+    keys = new int[capacity];
+    values = new int[capacity];
+    Arrays.fill(values, EMPTY);
+    mask = capacity - 1;
+    resizeAt = capacity / 2;
+  }
+
+  /**
+   * Spreads the key over the table, so consecutive keys do not form long probe sequences.
+   *
+   * @param key the key
+   * @return the home slot of the key
+   */
+  private int slot(int key) {
+    int hash = key * 0x9E3779B9;
+    return (hash ^ (hash >>> 16)) & mask;
+  }
+
+  /**
+   * Finds the slot holding the key.
+   *
+   * @param key the key
+   * @return the slot of the key, or -1 if the key is not in the map
+   */
+  private int find(int key) {
+    int slot = slot(key);
+    while (values[slot] != EMPTY) {
+      if (keys[slot] == key) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  /**
+   * Gets the value of the key.
+   *
+   * @param key the key
+   * @return the value, or -1 if the key is not in the map
+   */
+  public int get(int key) {
+    int slot = find(key);
+    return slot < 0 ? EMPTY : values[slot];
+  }
+
+  /**
+   * Checks if the map contains the key.
+   *
+   * @param key the key to check
+   * @return true if the map contains the key
+   */
+  public boolean containsKey(int key) {
+    return find(key) >= 0;
+  }
+
+  /**
+   * Puts the value for the key, replacing any previous value.
+   *
+   * @param key   the key
+   * @param value the value
+   * @return the previous value, or -1 if the key was not in the map
+   * @throws IllegalArgumentException if value is negative
+   */
+  public int put(int key, int value) {
+    Validation.validateZeroOrPositiveNumber(value, "Value");
+    int slot = slot(key);
+    while (values[slot] != EMPTY) {
+      if (keys[slot] == key) {
+        int previous = values[slot];
+        values[slot] = value;
+        return previous;
+      }
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = key;
+    values[slot] = value;
+    if (++size > resizeAt) {
+      resize(keys.length << 1);
+    }
+    return EMPTY;
+  }
+
+  /**
+   * Removes the key. The entries after it in the probe sequence are shifted back,
+   * so the table never needs tombstones.
+   *
+   * @param key the key to remove
+   * @return the removed value, or -1 if the key was not in the map
+   */
+  public int remove(int key) {
+    int slot = find(key);
+    if (slot < 0) {
+      return EMPTY;
+    }
+    int removed = values[slot];
+    int gap = slot;
+    int next = (gap + 1) & mask;
+    while (values[next] != EMPTY) {
+      int home = slot(keys[next]);
+      if (((next - home) & mask) >= ((next - gap) & mask)) {
+        keys[gap] = keys[next];
+        values[gap] = values[next];
+        gap = next;
+      }
+      next = (next + 1) & mask;
+    }
+    values[gap] = EMPTY;
+    size--;
+    return removed;
+  }
+
+  /**
+   * Grows the table and reinserts every entry.
+   *
+   * @param capacity the new capacity, a power of two
+   */
+  private void resize(int capacity) {
+    int[] oldKeys = keys;
+    int[] oldValues = values;
+    allocate(capacity);
+    for (int i = 0; i < oldValues.length; i++) {
+      if (oldValues[i] != EMPTY) {
+        int slot = slot(oldKeys[i]);
+        while (values[slot] != EMPTY) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  /**
+   * Gets the number of entries.
+   *
+   * @return the number of entries
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Checks if the map is empty.
+   *
+   * @return true if the map is empty
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+}
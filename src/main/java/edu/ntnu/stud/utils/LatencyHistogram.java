@@ -0,0 +1,157 @@
+package edu.ntnu.stud.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class represents a histogram of latencies in nanoseconds, with buckets in the style of
+ * HdrHistogram. Every power of two is split into 32 linear buckets, so any recorded value is
+ * within about 3 percent of the bucket it is counted in, from one nanosecond up to centuries,
+ * in a fixed table of less than 2000 counters.
+ *
+ * <p>Recording a value costs one atomic increment and two uncontended adds, and never
+ * allocates or locks, so it can be left on in production and called from many threads.
+ * Percentiles are read from the counters while recording goes on, so a read taken during
+ * heavy recording may be off by the values recorded meanwhile.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+public class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 6;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+  private static final int BUCKETS = bucketOf(Long.MAX_VALUE) + 1;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Gets the bucket a value is counted in. Values below 64 get a bucket each, and every
+   * power of two above is split into 32 buckets.
+   *
+   * @param value the value, zero or positive
+   * @return the bucket
+   */
+  private static int bucketOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+    return shift * HALF_SUB_BUCKETS + (int) (value >>> shift);
+  }
+
+  /**
+   * Gets the highest value counted in a bucket.
+   *
+   * @param bucket the bucket
+   * @return the highest value of the bucket
+   */
+  private static long highestValueOf(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = bucket / HALF_SUB_BUCKETS - 1;
+    long subBucket = bucket - (long) shift * HALF_SUB_BUCKETS;
+    return ((subBucket + 1) << shift) - 1;
+  }
+
+  /**
+   * Records a latency. Negative values, which a clock stepping back can give, count as zero.
+   *
+   * @param nanos the latency in nanoseconds
+   */
+  public void record(long nanos) {
+    long value = Math.max(0, nanos);
+    counts.incrementAndGet(bucketOf(value));
+    count.increment();
+    sum.add(value);
+    long highest = max.get();
+    while (value > highest && !max.compareAndSet(highest, value)) {
+      highest = max.get();
+    }
+  }
+
+  /**
+   * Records the latency from a start time to now.
+   *
+   * @param startNanos the start time from {@link System#nanoTime()}
+   */
+  public void recordSince(long startNanos) {
+    record(System.nanoTime() - startNanos);
+  }
+
+  /**
+   * Gets the number of recorded latencies.
+   *
+   * @return the number of latencies
+   */
+  public long getCount() {
+    return count.sum();
+  }
+
+  /**
+   * Gets the mean of the recorded latencies.
+   *
+   * @return the mean in nanoseconds, or 0 if nothing is recorded
+   */
+  public double getMean() {
+    long recorded = count.sum();
+    return recorded == 0 ? 0 : (double) sum.sum() / recorded;
+  }
+
+  /**
+   * Gets the highest recorded latency.
+   *
+   * @return the highest latency in nanoseconds, or 0 if nothing is recorded
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Gets the latency at a percentile, as the highest value of the bucket the percentile falls
+   * in, but never above the highest recorded latency.
+   *
+   * @param percentile the percentile, from 0 to 100
+   * @return the latency in nanoseconds, or 0 if nothing is recorded
+   * @throws IllegalArgumentException if percentile is not from 0 to 100
+   */
+  public long valueAtPercentile(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("Percentile must be from 0 to 100");
+    }
+    long total = 0;
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      total += counts.get(bucket);
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+    long seen = 0;
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      seen += counts.get(bucket);
+      if (seen >= rank) {
+        return Math.min(highestValueOf(bucket), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  /**
+   * Clears every recorded latency. Latencies recorded while clearing may be partly kept.
+   */
+  public void reset() {
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      counts.set(bucket, 0);
+    }
+    count.reset();
+    sum.reset();
+    max.set(0);
+  }
+}
@@ -0,0 +1,96 @@
+package edu.ntnu.stud.utils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class creates threads for tasks that spend most of their time waiting, such as
+ * serving a connection.
+ *
+ * <p>Virtual threads are used when the Java runtime has them. They are looked up when the
+ * class is loaded, so the application still builds and runs on Java 17, where each task gets
+ * a daemon platform thread with a small stack instead.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+public final class Threads {
+  private static final long PLATFORM_STACK_SIZE = 256 * 1024;
+  private static final Method OF_VIRTUAL = ofVirtual();
+
+  /**
+   * Not to be instantiated.
+   */
+  private Threads() {
+  }
+
+  /**
+   * Checks if tasks get virtual threads.
+   *
+   * @return true if virtual threads are used
+   */
+  public static boolean virtualThreadsSupported() {
+    return OF_VIRTUAL != null;
+  }
+
+  /**
+   * Creates a factory making one new thread for every task. The threads are named with the
+   * prefix and a counter. Every factory starts from its own builder, since a builder is
+   * changed by naming it and is not safe to share between threads.
+   *
+   * @param namePrefix the prefix of the thread names
+   * @return the thread factory
+   * @throws IllegalArgumentException if name prefix is blank
+   */
+  public static ThreadFactory perTaskFactory(String namePrefix) {
+    Validation.validateStringNotBlank(namePrefix, "Name prefix");
+    if (OF_VIRTUAL != null) {
+      try {
+        Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+        Object builder = builderType.getMethod("name", String.class, long.class)
+            .invoke(OF_VIRTUAL.invoke(null), namePrefix, 0L);
+        return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+      } catch (ReflectiveOperationException e) {
+        // fall through to platform threads
+      }
+    }
+    var counter = new AtomicLong();
+    return task -> {
+      var thread = new Thread(null, task, namePrefix + counter.getAndIncrement(),
+          PLATFORM_STACK_SIZE);
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  /**
+   * Creates an executor running every task on a new thread from
+   * {@link #perTaskFactory(String)}.
+   *
+   * @param namePrefix the prefix of the thread names
+   * @return the executor
+   * @throws IllegalArgumentException if name prefix is blank
+   */
+  public static Executor perTaskExecutor(String namePrefix) {
+    ThreadFactory threads = perTaskFactory(namePrefix);
+    return task -> threads.newThread(task).start();
+  }
+
+  /**
+   * Looks up the method creating builders of virtual threads, and checks that it works.
+   *
+   * @return the method, or null if the runtime has no virtual threads
+   */
+  private static Method ofVirtual() {
+    try {
+      Method ofVirtual = Thread.class.getMethod("ofVirtual");
+      ofVirtual.invoke(null);
+      return ofVirtual;
+    } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+      return null;
+    }
+  }
+}
@@ -1,45 +1,58 @@
 package edu.ntnu.stud.utils;
 
-import java.util.Scanner;
+import java.io.InputStream;
+import java.util.NoSuchElementException;
 
 /**
  * This class represents user input. It contains methods for reading input from the user.
  *
+ * <p>Input is read with a {@link FastInputReader}, from standard input unless another source
+ * is set, so large inputs piped into the application are read quickly.
+ *
  * @author 10065
  * @version 1.0
  * @since 1.0
  */
 public class UserInput {
-  private static final Scanner scanner = new Scanner(System.in);
+  private static FastInputReader reader = new FastInputReader(System.in);
+
+  /**
+   * Sets the stream input is read from.
+   *
+   * @param source the stream to read from
+   * @throws IllegalArgumentException if source is null
+   */
+  public static void setSource(InputStream source) {
+    reader = new FastInputReader(source);
+  }
 
   /**
    * Reads a string from the user.
    *
    * @return the inputted string
+   * @throws NoSuchElementException if the input has ended
    */
   public static String readString() {
-    return scanner.nextLine();
+    String line = reader.readLine();
+    if (line == null) {
+      throw new NoSuchElementException("No line found");
+    }
+    return line;
   }
 
   /**
    * Reads an integer from the user.
    *
    * @return the inputted integer
+   * @throws NoSuchElementException if the input has ended
    */
   public static int readInt() {
-    String stringInput;
-    boolean valid = false;
-    int intInput = 0;
-    while (!valid) {
-      stringInput = scanner.nextLine();
-      try {
-        intInput = Integer.parseInt(stringInput);
-        valid = true;
-      } catch (NumberFormatException e) {
-        System.out.println("Please enter a number.");
-      }
+    long intInput = reader.readIntLine();
+    while (intInput == FastInputReader.NOT_A_NUMBER) {
+      System.out.println("Please enter a number.");
+      intInput = reader.readIntLine();
     }
-    return intInput;
+    return (int) intInput;
   }
 
   /**
@@ -63,4 +76,4 @@ public class UserInput {
     System.out.println(prompt);
     return readString();
   }
-}
\ No newline at end of file
+}
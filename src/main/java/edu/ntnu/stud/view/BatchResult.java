@@ -0,0 +1,90 @@
+package edu.ntnu.stud.view;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class represents the result of running a script of commands. It contains the number
+ * of commands run and failed, and a message for the first failed commands.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+public class BatchResult {
+  private final int commands;
+  private final int failed;
+  private final List<String> errors;
+  private final long elapsedNanos;
+
+  /**
+   * Constructor for batch result.
+   *
+   * @param commands     the number of commands run
+   * @param failed       the number of commands that failed
+   * @param errors       the messages for the first failed commands
+   * @param elapsedNanos the time the script took in nanoseconds
+   */
+  public BatchResult(int commands, int failed, List<String> errors, long elapsedNanos) {
+    this.commands = commands;
+    this.failed = failed;
+    this.errors = Collections.unmodifiableList(errors);
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  /**
+   * Gets the number of commands run.
+   *
+   * @return the number of commands run
+   */
+  public int getCommands() {
+    return commands;
+  }
+
+  /**
+   * Gets the number of commands that failed.
+   *
+   * @return the number of failed commands
+   */
+  public int getFailed() {
+    return failed;
+  }
+
+  /**
+   * Gets the messages for the first failed commands, in script order.
+   *
+   * @return the error messages
+   */
+  public List<String> getErrors() {
+    return errors;
+  }
+
+  /**
+   * Gets the time the script took in nanoseconds.
+   *
+   * @return the elapsed time in nanoseconds
+   */
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  /**
+   * Gets the number of commands run per second.
+   *
+   * @return the throughput in commands per second
+   */
+  public long commandsPerSecond() {
+    return elapsedNanos == 0 ? 0 : (long) (commands * 1_000_000_000.0 / elapsedNanos);
+  }
+
+  /**
+   * Returns a one line summary of the script.
+   *
+   * @return a summary of the script
+   */
+  @Override
+  public String toString() {
+    return "Ran " + commands + " commands, " + failed + " failed, in "
+        + elapsedNanos / 1_000_000 + " ms (" + commandsPerSecond() + " commands/s)";
+  }
+}
@@ -0,0 +1,339 @@
+package edu.ntnu.stud.view;
+
+import edu.ntnu.stud.models.TrainDeparture;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import java.util.Arrays;
+
+/**
+ * This class is a reusable byte buffer that board frames are encoded into. It writes numbers,
+ * times and text straight from the fields of each train departure, and pads the columns the
+ * same way as {@code "%-12s%-11s%-18s%-16s%-12s%-11s"}, so encoding a row does not allocate.
+ * The buffer grows to fit the largest frame and is then reused.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+class BoardFrame {
+  static final int LINE_WIDTH = 75;
+  static final byte[] LINE = ascii("-".repeat(LINE_WIDTH));
+  static final byte[] HEADER = ascii(String.format("%-12s%-11s%-18s%-16s%-12s%-11s",
+      "Train", "Line", "Destination", "Departure", "Track", "Delay"));
+  private static final int[] COLUMN_WIDTHS = {12, 11, 18, 16, 12, 11};
+  private static final int TITLE_WIDTH = 56;
+  private static final byte[] TITLE = ascii("Information board");
+  private static final byte[] CURRENT_TIME = ascii("Current time ");
+  private static final byte[] MINUTES = ascii(" min");
+  private static final int INITIAL_CAPACITY = 16 * 1024;
+
+  private byte[] frame;
+  private ByteBuffer frameBuffer;
+  private int position;
+  private int column;
+
+  /**
+   * Constructor for board frame, with room for a small board.
+   */
+  BoardFrame() {
+    this(INITIAL_CAPACITY);
+  }
+
+  /**
+   * Constructor for board frame.
+   *
+   * @param capacity the initial capacity in bytes
+   */
+  BoardFrame(int capacity) {
+    frame = new byte[capacity];
+    frameBuffer = ByteBuffer.wrap(frame);
+  }
+
+  /**
+   * Empties the frame, so the next frame can be encoded into the same buffer.
+   */
+  void clear() {
+    position = 0;
+    column = 0;
+  }
+
+  /**
+   * Gets the number of bytes in the frame.
+   *
+   * @return the number of bytes
+   */
+  int length() {
+    return position;
+  }
+
+  /**
+   * Checks if the frame holds the same bytes as part of an array.
+   *
+   * @param bytes  the array
+   * @param length the number of bytes of the array to compare, or -1 for none
+   * @return true if the frame holds exactly those bytes
+   */
+  boolean contentEquals(byte[] bytes, int length) {
+    return length >= 0 && Arrays.equals(frame, 0, position, bytes, 0, length);
+  }
+
+  /**
+   * Copies the frame into an array, growing the array if it is too small.
+   *
+   * @param bytes the array to copy into
+   * @return the array holding the copy, which is a new array if the old one was too small
+   */
+  byte[] copyTo(byte[] bytes) {
+    byte[] target = bytes.length < position ? new byte[Math.max(position, bytes.length * 2)]
+        : bytes;
+    System.arraycopy(frame, 0, target, 0, position);
+    return target;
+  }
+
+  /**
+   * Writes the frame to a channel.
+   *
+   * @param channel the channel
+   * @throws IOException if the channel cannot be written
+   */
+  void writeTo(WritableByteChannel channel) throws IOException {
+    frameBuffer.clear().limit(position);
+    while (frameBuffer.hasRemaining()) {
+      channel.write(frameBuffer);
+    }
+  }
+
+  /**
+   * Writes the title line of the board, without the line break.
+   *
+   * @param currentTime the time shown in the title
+   */
+  void putTitle(LocalTime currentTime) {
+    column = 0;
+    put(TITLE);
+    pad(TITLE_WIDTH);
+    put(CURRENT_TIME);
+    putTime(currentTime);
+  }
+
+  /**
+   * Writes the bytes of another frame.
+   *
+   * @param other the frame to copy from
+   */
+  void put(BoardFrame other) {
+    put(other.frame, other.position);
+  }
+
+  /**
+   * Writes bytes from part of an array, counting each as one column.
+   *
+   * @param bytes  the array
+   * @param length the number of bytes to write
+   */
+  void put(byte[] bytes, int length) {
+    ensureCapacity(length);
+    System.arraycopy(bytes, 0, frame, position, length);
+    position += length;
+    column += length;
+  }
+
+  /**
+   * Writes one row of the board, without the line break.
+   *
+   * @param trainDeparture the train departure of the row
+   */
+  void putRow(TrainDeparture trainDeparture) {
+    column = 0;
+    putInt(trainDeparture.getTrainNumber());
+    pad(COLUMN_WIDTHS[0]);
+    int start = column;
+    putText(trainDeparture.getLine());
+    pad(start + COLUMN_WIDTHS[1]);
+    start = column;
+    putText(trainDeparture.getDestination());
+    pad(start + COLUMN_WIDTHS[2]);
+    start = column;
+    putTime(trainDeparture.getDepartureTime());
+    pad(start + COLUMN_WIDTHS[3]);
+    start = column;
+    if (trainDeparture.getTrack() != -1) {
+      putInt(trainDeparture.getTrack());
+    }
+    pad(start + COLUMN_WIDTHS[4]);
+    start = column;
+    if (trainDeparture.getDelay() > 0) {
+      putInt(trainDeparture.getDelay());
+      put(MINUTES);
+    }
+    pad(start + COLUMN_WIDTHS[5]);
+  }
+
+  /**
+   * Pads the current line with spaces up to a column. Like {@code %-Ns}, nothing is added if
+   * the field is already wider than its column, and the next field starts right after it.
+   *
+   * @param end the column to pad to
+   */
+  void pad(int end) {
+    int count = end - column;
+    if (count > 0) {
+      ensureCapacity(count);
+      Arrays.fill(frame, position, position + count, (byte) ' ');
+      position += count;
+      column = end;
+    }
+  }
+
+  /**
+   * Ends the current line.
+   */
+  void newLine() {
+    ensureCapacity(1);
+    frame[position++] = (byte) '\n';
+    column = 0;
+  }
+
+  /**
+   * Writes ASCII bytes, counting each as one column.
+   *
+   * @param bytes the bytes
+   */
+  void put(byte[] bytes) {
+    ensureCapacity(bytes.length);
+    System.arraycopy(bytes, 0, frame, position, bytes.length);
+    position += bytes.length;
+    column += bytes.length;
+  }
+
+  /**
+   * Writes text as UTF-8. Each char counts as one column, the same as the length
+   * {@link String#format} pads by.
+   *
+   * @param text the text
+   */
+  private void putText(String text) {
+    int length = text.length();
+    ensureCapacity(length * 3);
+    for (int i = 0; i < length; i++) {
+      char c = text.charAt(i);
+      if (c < 0x80) {
+        frame[position++] = (byte) c;
+      } else if (c < 0x800) {
+        frame[position++] = (byte) (0xC0 | c >> 6);
+        frame[position++] = (byte) (0x80 | c & 0x3F);
+      } else if (Character.isHighSurrogate(c) && i + 1 < length
+          && Character.isLowSurrogate(text.charAt(i + 1))) {
+        int codePoint = Character.toCodePoint(c, text.charAt(++i));
+        frame[position++] = (byte) (0xF0 | codePoint >> 18);
+        frame[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+        frame[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+        frame[position++] = (byte) (0x80 | codePoint & 0x3F);
+      } else if (Character.isSurrogate(c)) {
+        frame[position++] = (byte) '?';
+      } else {
+        frame[position++] = (byte) (0xE0 | c >> 12);
+        frame[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+        frame[position++] = (byte) (0x80 | c & 0x3F);
+      }
+    }
+    column += length;
+  }
+
+  /**
+   * Writes an integer in decimal.
+   *
+   * @param value the integer
+   */
+  void putInt(int value) {
+    ensureCapacity(11);
+    if (value < 0) {
+      frame[position++] = (byte) '-';
+      column++;
+    }
+    int digits = 1;
+    for (int rest = value / 10; rest != 0; rest /= 10) {
+      digits++;
+    }
+    int remaining = value;
+    for (int i = position + digits - 1; i >= position; i--) {
+      frame[i] = (byte) ('0' + Math.abs(remaining % 10));
+      remaining /= 10;
+    }
+    position += digits;
+    column += digits;
+  }
+
+  /**
+   * Writes a time the same way as {@link LocalTime#toString()}.
+   *
+   * @param time the time
+   */
+  void putTime(LocalTime time) {
+    putTwoDigits(time.getHour());
+    put((byte) ':');
+    putTwoDigits(time.getMinute());
+    int second = time.getSecond();
+    int nano = time.getNano();
+    if (second > 0 || nano > 0) {
+      put((byte) ':');
+      putTwoDigits(second);
+      if (nano > 0) {
+        put((byte) '.');
+        int digits = nano % 1_000_000 == 0 ? 3 : nano % 1000 == 0 ? 6 : 9;
+        int divisor = 100_000_000;
+        for (int i = 0; i < digits; i++) {
+          put((byte) ('0' + nano / divisor % 10));
+          divisor /= 10;
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes a number from 0 to 99 as two digits.
+   *
+   * @param value the number
+   */
+  private void putTwoDigits(int value) {
+    put((byte) ('0' + value / 10));
+    put((byte) ('0' + value % 10));
+  }
+
+  /**
+   * Writes one ASCII byte.
+   *
+   * @param b the byte
+   */
+  void put(byte b) {
+    ensureCapacity(1);
+    frame[position++] = b;
+    column++;
+  }
+
+  /**
+   * Grows the buffer if fewer than the needed bytes are left. The buffer doubles, so a frame
+   * larger than any before it only grows it a few times.
+   *
+   * @param needed the number of bytes about to be written
+   */
+  private void ensureCapacity(int needed) {
+    if (frame.length - position < needed) {
+      frame = Arrays.copyOf(frame, Math.max(frame.length * 2, position + needed));
+      frameBuffer = ByteBuffer.wrap(frame);
+    }
+  }
+
+  /**
+   * Encodes a constant as ASCII bytes.
+   *
+   * @param text the text
+   * @return the bytes
+   */
+  private static byte[] ascii(String text) {
+    return text.getBytes(StandardCharsets.US_ASCII);
+  }
+}
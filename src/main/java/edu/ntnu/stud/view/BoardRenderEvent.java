@@ -0,0 +1,39 @@
+package edu.ntnu.stud.view;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * This class represents a JDK Flight Recorder event for one render of an information board,
+ * recorded by {@link InformationBoardRenderer} and {@link LiveInformationBoard}. The duration
+ * of the event is the time the board took to render and write.
+ *
+ * <p>The event is disabled by default and costs nothing until a recording enables it.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+@Name("edu.ntnu.stud.BoardRender")
+@Label("Board Render")
+@Category({"Train Dispatch", "View"})
+@Description("An information board rendered and written")
+@Enabled(false)
+@StackTrace(false)
+public final class BoardRenderEvent extends Event {
+  @Label("Board")
+  @Description("The kind of board, information or live")
+  String board;
+
+  @Label("Departure Count")
+  @Description("The number of train departures on the board")
+  int departureCount;
+
+  @Label("Lines Written")
+  int linesWritten;
+}
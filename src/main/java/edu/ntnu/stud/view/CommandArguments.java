@@ -0,0 +1,117 @@
+package edu.ntnu.stud.view;
+
+import java.time.LocalTime;
+
+/**
+ * This class represents the arguments of a command matched by {@link CommandDispatcher}.
+ * The arguments are numbered in the order their placeholders appear in the command pattern,
+ * starting at 0. Numbers and times are parsed while the command is matched, and words are
+ * only cut out of the command line when they are asked for.
+ *
+ * <p>The dispatcher reuses one instance for every command, so the arguments are only valid
+ * while the handler runs.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+public class CommandArguments {
+  static final int MAX_ARGUMENTS = 8;
+
+  private final int[] values = new int[MAX_ARGUMENTS];
+  private final int[] starts = new int[MAX_ARGUMENTS];
+  private final int[] ends = new int[MAX_ARGUMENTS];
+  private String command = "";
+  private int count;
+
+  /**
+   * Starts the arguments of a new command line.
+   *
+   * @param command the command line
+   */
+  void reset(String command) {
+    this.command = command;
+    this.count = 0;
+  }
+
+  /**
+   * Sets an argument.
+   *
+   * @param index the index of the argument
+   * @param value the parsed number or second of day, or 0 for a word
+   * @param start the index in the command line the argument starts at
+   * @param end   the index in the command line after the argument
+   */
+  void set(int index, int value, int start, int end) {
+    values[index] = value;
+    starts[index] = start;
+    ends[index] = end;
+  }
+
+  /**
+   * Sets the number of arguments of the matched pattern.
+   *
+   * @param count the number of arguments
+   */
+  void setSize(int count) {
+    this.count = count;
+  }
+
+  /**
+   * Gets the number of arguments.
+   *
+   * @return the number of arguments
+   */
+  public int size() {
+    return count;
+  }
+
+  /**
+   * Gets an argument matched by an {@code <int>} placeholder.
+   *
+   * @param index the index of the argument
+   * @return the number
+   * @throws IndexOutOfBoundsException if there is no argument at index
+   */
+  public int getInt(int index) {
+    checkIndex(index);
+    return values[index];
+  }
+
+  /**
+   * Gets an argument matched by a {@code <time>} placeholder.
+   *
+   * @param index the index of the argument
+   * @return the time
+   * @throws IndexOutOfBoundsException if there is no argument at index
+   */
+  public LocalTime getTime(int index) {
+    checkIndex(index);
+    return LocalTime.ofSecondOfDay(values[index]);
+  }
+
+  /**
+   * Gets an argument as it was written in the command line. Any placeholder can be read
+   * as a word.
+   *
+   * @param index the index of the argument
+   * @return the word
+   * @throws IndexOutOfBoundsException if there is no argument at index
+   */
+  public String getWord(int index) {
+    checkIndex(index);
+    return command.substring(starts[index], ends[index]);
+  }
+
+  /**
+   * Checks that there is an argument at index.
+   *
+   * @param index the index of the argument
+   * @throws IndexOutOfBoundsException if there is no argument at index
+   */
+  private void checkIndex(int index) {
+    if (index < 0 || index >= count) {
+      throw new IndexOutOfBoundsException("No argument " + index + " in command");
+    }
+  }
+}
@@ -0,0 +1,371 @@
+package edu.ntnu.stud.view;
+
+import edu.ntnu.stud.utils.DispatchMetrics;
+import edu.ntnu.stud.utils.LatencyHistogram;
+import edu.ntnu.stud.utils.Validation;
+import java.util.Arrays;
+
+/**
+ * This class runs commands by matching them against registered patterns. The patterns are
+ * compiled into a trie of tokens, so a command line is matched in one pass over its tokens
+ * and handed straight to its handler.
+ *
+ * <p>A pattern is a list of tokens separated by spaces. A token is either a literal word, or
+ * one of the placeholders
+ * <ul>
+ *   <li>{@code <int>}, a whole number such as 42 or -1</li>
+ *   <li>{@code <time>}, a time in the format HH:mm or HH:mm:ss</li>
+ *   <li>{@code <word>}, any token</li>
+ * </ul>
+ * When a token could match more than one branch, a literal word is tried first, then a
+ * number, then a time, and last a word. So {@code train add prompt} and
+ * {@code train add <int> <word> <word> <time>} can both be registered, and a pattern ending
+ * in {@code <word>} where another ends in {@code <time>} catches times in the wrong format.
+ *
+ * <p>The command line is read where it is, without splitting it, and numbers and times are
+ * parsed from its characters. The arguments are reused between commands, so this class is
+ * not thread safe.
+ *
+ * <p>Each command is recorded as a {@link CommandEvent} while a flight recording enables it.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+public class CommandDispatcher {
+  private static final String INT_PLACEHOLDER = "<int>";
+  private static final String TIME_PLACEHOLDER = "<time>";
+  private static final String WORD_PLACEHOLDER = "<word>";
+
+  private final Node root = new Node();
+  private final CommandArguments arguments = new CommandArguments();
+  // set by instrument, null while commands are not timed
+  private DispatchMetrics metrics;
+  private String metricPrefix;
+  private LatencyHistogram unknownTimes;
+
+  /**
+   * This interface represents the code run for a command.
+   */
+  @FunctionalInterface
+  public interface Handler {
+
+    /**
+     * Runs the command.
+     *
+     * @param arguments the arguments of the command
+     */
+    void handle(CommandArguments arguments);
+  }
+
+  /**
+   * This class represents one token in the trie. The children are kept in arrays, as a node
+   * rarely has more than a handful of them.
+   */
+  private static final class Node {
+    private String[] literals = new String[0];
+    private Node[] literalChildren = new Node[0];
+    private Node intChild;
+    private Node timeChild;
+    private Node wordChild;
+    private Handler handler;
+    private int argumentCount;
+    private String pattern;
+    private LatencyHistogram times;
+
+    /**
+     * Gets the child for a pattern token, creating it if it does not exist.
+     *
+     * @param token the pattern token
+     * @return the child
+     */
+    Node child(String token) {
+      switch (token) {
+        case INT_PLACEHOLDER:
+          intChild = intChild == null ? new Node() : intChild;
+          return intChild;
+        case TIME_PLACEHOLDER:
+          timeChild = timeChild == null ? new Node() : timeChild;
+          return timeChild;
+        case WORD_PLACEHOLDER:
+          wordChild = wordChild == null ? new Node() : wordChild;
+          return wordChild;
+        default:
+          for (int i = 0; i < literals.length; i++) {
+            if (literals[i].equals(token)) {
+              return literalChildren[i];
+            }
+          }
+          literals = Arrays.copyOf(literals, literals.length + 1);
+          literalChildren = Arrays.copyOf(literalChildren, literalChildren.length + 1);
+          literals[literals.length - 1] = token;
+          literalChildren[literalChildren.length - 1] = new Node();
+          return literalChildren[literalChildren.length - 1];
+      }
+    }
+  }
+
+  /**
+   * Registers a command.
+   *
+   * @param pattern the pattern of the command
+   * @param handler the code to run for the command
+   * @throws IllegalArgumentException if pattern is blank or handler is null
+   * @throws IllegalArgumentException if pattern has more than 8 placeholders
+   * @throws IllegalArgumentException if pattern is already registered
+   */
+  public void register(String pattern, Handler handler) {
+    Validation.validateStringNotBlank(pattern, "Pattern");
+    Validation.validateNotNull(handler, "Handler");
+    Node node = root;
+    int placeholders = 0;
+    for (String token : pattern.strip().split(" +")) {
+      if (token.equals(INT_PLACEHOLDER) || token.equals(TIME_PLACEHOLDER)
+          || token.equals(WORD_PLACEHOLDER)) {
+        placeholders++;
+      }
+      node = node.child(token);
+    }
+    if (placeholders > CommandArguments.MAX_ARGUMENTS) {
+      throw new IllegalArgumentException("Pattern cannot have more than "
+          + CommandArguments.MAX_ARGUMENTS + " placeholders");
+    }
+    if (node.handler != null) {
+      throw new IllegalArgumentException("Pattern is already registered: " + pattern);
+    }
+    node.handler = handler;
+    node.argumentCount = placeholders;
+    node.pattern = pattern.strip();
+    if (metrics != null) {
+      node.times = metrics.histogram(metricName(node.pattern));
+    }
+  }
+
+  /**
+   * Times every command from now on, in a latency histogram per pattern. The histograms are
+   * named after the prefix and the tokens of the pattern joined by dots, without the angle
+   * brackets of placeholders, such as {@code command.train.edit.addDelay.int.int}. Command
+   * lines matching no pattern are timed as {@code <prefix>unknown}.
+   *
+   * @param metrics the metrics to record to
+   * @param prefix  the prefix of the histogram names
+   * @throws IllegalArgumentException if metrics or prefix is null
+   */
+  public void instrument(DispatchMetrics metrics, String prefix) {
+    Validation.validateNotNull(metrics, "Metrics");
+    Validation.validateNotNull(prefix, "Prefix");
+    this.metrics = metrics;
+    this.metricPrefix = prefix;
+    unknownTimes = metrics.histogram(prefix + "unknown");
+    instrument(root);
+  }
+
+  /**
+   * Gives every pattern below a node its histogram.
+   *
+   * @param node the node
+   */
+  private void instrument(Node node) {
+    if (node.handler != null) {
+      node.times = metrics.histogram(metricName(node.pattern));
+    }
+    for (Node child : node.literalChildren) {
+      instrument(child);
+    }
+    for (Node child : new Node[] {node.intChild, node.timeChild, node.wordChild}) {
+      if (child != null) {
+        instrument(child);
+      }
+    }
+  }
+
+  /**
+   * Gets the histogram name of a pattern.
+   *
+   * @param pattern the pattern
+   * @return the histogram name
+   */
+  private String metricName(String pattern) {
+    return metricPrefix + String.join(".", pattern.replace("<", "").replace(">", "").split(" +"));
+  }
+
+  /**
+   * Runs the handler of the pattern the command line matches.
+   *
+   * @param command the command line
+   * @return true if a pattern matched, false if the command is unknown
+   * @throws IllegalArgumentException if command is null
+   */
+  public boolean dispatch(String command) {
+    Validation.validateNotNull(command, "Command");
+    var event = new CommandEvent();
+    event.begin();
+    long start = metrics == null ? 0 : System.nanoTime();
+    arguments.reset(command);
+    Node matched = match(root, command, skipSpaces(command, 0), 0);
+    if (matched == null) {
+      if (unknownTimes != null) {
+        unknownTimes.recordSince(start);
+      }
+      commit(event, command, null);
+      return false;
+    }
+    arguments.setSize(matched.argumentCount);
+    try {
+      matched.handler.handle(arguments);
+      event.succeeded = true;
+    } finally {
+      if (matched.times != null) {
+        matched.times.recordSince(start);
+      }
+      commit(event, command, matched.pattern);
+    }
+    return true;
+  }
+
+  /**
+   * Ends a command event and commits it, if a flight recording wants it.
+   *
+   * @param event   the event
+   * @param command the command line
+   * @param pattern the pattern the command matched, or null if it is unknown
+   */
+  private static void commit(CommandEvent event, String command, String pattern) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.command = command;
+      event.pattern = pattern;
+      event.commit();
+    }
+  }
+
+  /**
+   * Matches the rest of a command line from a node, trying the branches in priority order.
+   *
+   * @param node     the node reached so far
+   * @param command  the command line
+   * @param start    the index of the next token, or the length if there are no more
+   * @param argument the index of the next argument
+   * @return the last node of the matched pattern, or null if none matches
+   */
+  private Node match(Node node, String command, int start, int argument) {
+    int length = command.length();
+    if (start == length) {
+      return node.handler == null ? null : node;
+    }
+    int end = start;
+    while (end < length && command.charAt(end) != ' ') {
+      end++;
+    }
+    int next = skipSpaces(command, end);
+    Node matched = null;
+    int tokenLength = end - start;
+    for (int i = 0; i < node.literals.length && matched == null; i++) {
+      String literal = node.literals[i];
+      if (literal.length() == tokenLength && command.startsWith(literal, start)) {
+        matched = match(node.literalChildren[i], command, next, argument);
+      }
+    }
+    if (matched == null && node.intChild != null) {
+      long value = parseInt(command, start, end);
+      if (value != Long.MIN_VALUE) {
+        arguments.set(argument, (int) value, start, end);
+        matched = match(node.intChild, command, next, argument + 1);
+      }
+    }
+    if (matched == null && node.timeChild != null) {
+      int secondOfDay = parseTime(command, start, end);
+      if (secondOfDay >= 0) {
+        arguments.set(argument, secondOfDay, start, end);
+        matched = match(node.timeChild, command, next, argument + 1);
+      }
+    }
+    if (matched == null && node.wordChild != null) {
+      arguments.set(argument, 0, start, end);
+      matched = match(node.wordChild, command, next, argument + 1);
+    }
+    return matched;
+  }
+
+  /**
+   * Finds the first character at or after index that is not a space.
+   *
+   * @param command the command line
+   * @param index   the index to start at
+   * @return the index of the character, or the length if there is none
+   */
+  private static int skipSpaces(String command, int index) {
+    while (index < command.length() && command.charAt(index) == ' ') {
+      index++;
+    }
+    return index;
+  }
+
+  /**
+   * Parses a whole number from part of a command line.
+   *
+   * @param command the command line
+   * @param start   the index the number starts at
+   * @param end     the index after the number
+   * @return the number, or Long.MIN_VALUE if the token is not a number that fits an int
+   */
+  private static long parseInt(String command, int start, int end) {
+    boolean negative = command.charAt(start) == '-';
+    int i = negative ? start + 1 : start;
+    if (i == end || end - i > 10) {
+      return Long.MIN_VALUE;
+    }
+    long value = 0;
+    for (; i < end; i++) {
+      int digit = command.charAt(i) - '0';
+      if (digit < 0 || digit > 9) {
+        return Long.MIN_VALUE;
+      }
+      value = value * 10 + digit;
+    }
+    value = negative ? -value : value;
+    return value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ? Long.MIN_VALUE : value;
+  }
+
+  /**
+   * Parses a time in the format HH:mm or HH:mm:ss from part of a command line, the formats
+   * {@link java.time.LocalTime#parse(CharSequence)} accepts without fractions of a second.
+   *
+   * @param command the command line
+   * @param start   the index the time starts at
+   * @param end     the index after the time
+   * @return the second of day of the time, or -1 if the token is not a valid time
+   */
+  private static int parseTime(String command, int start, int end) {
+    int length = end - start;
+    if ((length != 5 && length != 8) || command.charAt(start + 2) != ':') {
+      return -1;
+    }
+    int hour = twoDigits(command, start);
+    int minute = twoDigits(command, start + 3);
+    int second = 0;
+    if (length == 8) {
+      second = command.charAt(start + 5) == ':' ? twoDigits(command, start + 6) : -1;
+    }
+    if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+      return -1;
+    }
+    return hour * 3600 + minute * 60 + second;
+  }
+
+  /**
+   * Parses two digits from a command line.
+   *
+   * @param command the command line
+   * @param start   the index of the first digit
+   * @return the number, or -1 if the characters are not digits
+   */
+  private static int twoDigits(String command, int start) {
+    int tens = command.charAt(start) - '0';
+    int ones = command.charAt(start + 1) - '0';
+    if (tens < 0 || tens > 9 || ones < 0 || ones > 9) {
+      return -1;
+    }
+    return tens * 10 + ones;
+  }
+}
@@ -0,0 +1,39 @@
+package edu.ntnu.stud.view;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * This class represents a JDK Flight Recorder event for one command run by
+ * {@link CommandDispatcher}. The duration of the event is the time the command took to match
+ * and run.
+ *
+ * <p>The event is disabled by default and costs nothing until a recording enables it.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+@Name("edu.ntnu.stud.Command")
+@Label("Command")
+@Category({"Train Dispatch", "View"})
+@Description("A command matched and run")
+@Enabled(false)
+@StackTrace(false)
+public final class CommandEvent extends Event {
+  @Label("Pattern")
+  @Description("The pattern the command matched, or null if the command is unknown")
+  String pattern;
+
+  @Label("Command")
+  String command;
+
+  @Label("Succeeded")
+  @Description("Whether the command matched a pattern and its handler returned normally")
+  boolean succeeded;
+}
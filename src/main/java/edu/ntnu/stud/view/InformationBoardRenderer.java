@@ -0,0 +1,84 @@
+package edu.ntnu.stud.view;
+
+import edu.ntnu.stud.models.TrainDeparture;
+import edu.ntnu.stud.models.TrainDepartureSnapshot;
+import edu.ntnu.stud.utils.Validation;
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * This class renders the information board into a reusable buffer and writes each frame to
+ * a channel in one go.
+ *
+ * <p>The rows are written straight from the fields of each train departure, so rendering a
+ * row does not allocate. The output is the same as formatting each row with
+ * {@code "%-12s%-11s%-18s%-16s%-12s%-11s"}, the layout the board has always used. The
+ * buffer grows to fit the largest frame and is then reused, so steady re-rendering does not
+ * allocate either.
+ *
+ * <p>Each render is recorded as a {@link BoardRenderEvent} while a flight recording enables
+ * it.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+public class InformationBoardRenderer {
+  // the title, the header and the three lines around it
+  private static final int HEADER_LINES = 5;
+
+  private final WritableByteChannel channel;
+  private final BoardFrame frame = new BoardFrame();
+
+  /**
+   * Constructor for information board renderer.
+   *
+   * @param channel the channel each frame is written to
+   * @throws IllegalArgumentException if channel is null
+   */
+  public InformationBoardRenderer(WritableByteChannel channel) {
+    Validation.validateNotNull(channel, "Channel");
+    this.channel = channel;
+  }
+
+  /**
+   * Renders the information board of a snapshot and writes it to the channel.
+   *
+   * @param currentTime the time shown in the title
+   * @param snapshot    the train departures to show, in board order
+   * @throws IOException if the channel cannot be written
+   * @throws IllegalArgumentException if current time or snapshot is null
+   */
+  public void render(LocalTime currentTime, TrainDepartureSnapshot snapshot) throws IOException {
+    Validation.validateNotNull(currentTime, "Current time");
+    Validation.validateNotNull(snapshot, "Snapshot");
+    var event = new BoardRenderEvent();
+    event.begin();
+    frame.clear();
+    frame.putTitle(currentTime);
+    frame.newLine();
+    frame.put(BoardFrame.LINE);
+    frame.newLine();
+    frame.put(BoardFrame.HEADER);
+    frame.newLine();
+    frame.put(BoardFrame.LINE);
+    frame.newLine();
+    List<TrainDeparture> trainDepartures = snapshot.getTrainDepartures();
+    for (TrainDeparture trainDeparture : trainDepartures) {
+      frame.putRow(trainDeparture);
+      frame.newLine();
+    }
+    frame.put(BoardFrame.LINE);
+    frame.newLine();
+    frame.writeTo(channel);
+    event.end();
+    if (event.shouldCommit()) {
+      event.board = "information";
+      event.departureCount = trainDepartures.size();
+      event.linesWritten = trainDepartures.size() + HEADER_LINES;
+      event.commit();
+    }
+  }
+}
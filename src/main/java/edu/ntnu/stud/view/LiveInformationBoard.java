@@ -0,0 +1,204 @@
+package edu.ntnu.stud.view;
+
+import edu.ntnu.stud.models.TrainDeparture;
+import edu.ntnu.stud.models.TrainDepartureSnapshot;
+import edu.ntnu.stud.utils.Validation;
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class keeps an information board up to date on an ANSI terminal by redrawing only the
+ * lines that changed since the last update.
+ *
+ * <p>The board remembers the bytes of every line it last drew. On each update every line is
+ * encoded again and compared with the remembered one, and only the lines that differ are
+ * written, each after a cursor move to its position. A delay, a new track, a departed train
+ * or a new train therefore costs a few lines of output instead of the whole board. The first
+ * update, and the first update after {@link #invalidate()}, clears the screen and draws
+ * everything.
+ *
+ * <p>Each update is recorded as a {@link BoardRenderEvent} while a flight recording enables
+ * it.
+ *
+ * @author 10065
+ * @version 1.0
+ * @since 1.1
+ */
+public class LiveInformationBoard {
+  private static final int TITLE_LINE = 1;
+  private static final int FIRST_ROW_LINE = 5;
+  private static final int ROW_CAPACITY = 128;
+  private static final byte[] CLEAR_SCREEN = ascii("\033[2J");
+  private static final byte[] CURSOR_PREFIX = ascii("\033[");
+  private static final byte[] CURSOR_SUFFIX = ascii(";1H");
+  private static final byte[] CLEAR_TO_END_OF_LINE = ascii("\033[K");
+
+  private final WritableByteChannel channel;
+  private final BoardFrame output = new BoardFrame();
+  private final BoardFrame line = new BoardFrame(ROW_CAPACITY);
+  private byte[] title = new byte[ROW_CAPACITY];
+  private int titleLength = -1;
+  private byte[][] rows = new byte[0][];
+  private int[] rowLengths = new int[0];
+  private int rowCount;
+  private boolean drawn;
+
+  /**
+   * Constructor for live information board.
+   *
+   * @param channel the terminal channel the updates are written to
+   * @throws IllegalArgumentException if channel is null
+   */
+  public LiveInformationBoard(WritableByteChannel channel) {
+    Validation.validateNotNull(channel, "Channel");
+    this.channel = channel;
+  }
+
+  /**
+   * Makes the next update clear the screen and draw the whole board, for when something else
+   * has been written to the terminal.
+   */
+  public void invalidate() {
+    drawn = false;
+  }
+
+  /**
+   * Updates the board on the terminal to show a snapshot. Nothing is written if no line
+   * changed.
+   *
+   * @param currentTime the time shown in the title
+   * @param snapshot    the train departures to show, in board order
+   * @return the number of lines that were written
+   * @throws IOException if the channel cannot be written
+   * @throws IllegalArgumentException if current time or snapshot is null
+   */
+  public int update(LocalTime currentTime, TrainDepartureSnapshot snapshot) throws IOException {
+    Validation.validateNotNull(currentTime, "Current time");
+    Validation.validateNotNull(snapshot, "Snapshot");
+    var event = new BoardRenderEvent();
+    event.begin();
+    output.clear();
+    int written = 0;
+    if (!drawn) {
+      output.put(CLEAR_SCREEN);
+      titleLength = -1;
+      rowCount = 0;
+      putLine(TITLE_LINE + 1, BoardFrame.LINE);
+      putLine(TITLE_LINE + 2, BoardFrame.HEADER);
+      putLine(TITLE_LINE + 3, BoardFrame.LINE);
+      written += 3;
+    }
+
+    line.clear();
+    line.putTitle(currentTime);
+    if (!line.contentEquals(title, titleLength)) {
+      putLine(TITLE_LINE, line);
+      title = line.copyTo(title);
+      titleLength = line.length();
+      written++;
+    }
+
+    List<TrainDeparture> trainDepartures = snapshot.getTrainDepartures();
+    int count = trainDepartures.size();
+    ensureRows(count);
+    for (int i = 0; i < count; i++) {
+      line.clear();
+      line.putRow(trainDepartures.get(i));
+      if (i >= rowCount || !line.contentEquals(rows[i], rowLengths[i])) {
+        putLine(FIRST_ROW_LINE + i, line);
+        rows[i] = line.copyTo(rows[i]);
+        rowLengths[i] = line.length();
+        written++;
+      }
+    }
+    if (!drawn || count != rowCount) {
+      putLine(FIRST_ROW_LINE + count, BoardFrame.LINE);
+      written++;
+      for (int i = count + 1; i <= rowCount; i++) {
+        moveTo(FIRST_ROW_LINE + i);
+        output.put(CLEAR_TO_END_OF_LINE);
+        written++;
+      }
+    }
+    rowCount = count;
+    drawn = true;
+    if (written > 0) {
+      moveTo(FIRST_ROW_LINE + count + 1);
+      output.writeTo(channel);
+    }
+    event.end();
+    if (event.shouldCommit()) {
+      event.board = "live";
+      event.departureCount = count;
+      event.linesWritten = written;
+      event.commit();
+    }
+    return written;
+  }
+
+  /**
+   * Moves the cursor to a line and replaces the line with a frame.
+   *
+   * @param lineNumber the line, starting at 1
+   * @param content    the new content of the line
+   */
+  private void putLine(int lineNumber, BoardFrame content) {
+    moveTo(lineNumber);
+    output.put(content);
+    output.put(CLEAR_TO_END_OF_LINE);
+  }
+
+  /**
+   * Moves the cursor to a line and replaces the line with bytes.
+   *
+   * @param lineNumber the line, starting at 1
+   * @param content    the new content of the line
+   */
+  private void putLine(int lineNumber, byte[] content) {
+    moveTo(lineNumber);
+    output.put(content);
+    output.put(CLEAR_TO_END_OF_LINE);
+  }
+
+  /**
+   * Moves the cursor to the start of a line.
+   *
+   * @param lineNumber the line, starting at 1
+   */
+  private void moveTo(int lineNumber) {
+    output.put(CURSOR_PREFIX);
+    output.putInt(lineNumber);
+    output.put(CURSOR_SUFFIX);
+  }
+
+  /**
+   * Makes room to remember the lines of a board with more rows than before.
+   *
+   * @param count the number of rows
+   */
+  private void ensureRows(int count) {
+    if (rows.length < count) {
+      int capacity = Math.max(count, rows.length * 2);
+      int old = rows.length;
+      rows = Arrays.copyOf(rows, capacity);
+      rowLengths = Arrays.copyOf(rowLengths, capacity);
+      for (int i = old; i < capacity; i++) {
+        rows[i] = new byte[ROW_CAPACITY];
+      }
+    }
+  }
+
+  /**
+   * Encodes a constant as ASCII bytes.
+   *
+   * @param text the text
+   * @return the bytes
+   */
+  private static byte[] ascii(String text) {
+    return text.getBytes(StandardCharsets.US_ASCII);
+  }
+}
@@ -1,12 +1,24 @@
 package edu.ntnu.stud.view;
 
+import edu.ntnu.stud.utils.DispatchMetrics;
 import edu.ntnu.stud.utils.UserInput;
 import edu.ntnu.stud.utils.Validation;
+import edu.ntnu.stud.models.DepartureClock;
+import edu.ntnu.stud.models.DepartureRegistry;
 import edu.ntnu.stud.models.TrainDepartureRegistry;
+import edu.ntnu.stud.models.TrainDepartureSnapshot;
+import edu.ntnu.stud.models.TrainDepartureView;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
 import java.time.LocalTime;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class represents the user interface. It contains methods for running the application.
@@ -18,12 +30,23 @@ import java.util.HashMap;
  */
 public class UserInterface {
   private final MenuBuilder menus = new MenuBuilder();
-  private final TrainDepartureRegistry trainDepartureRegistry = new TrainDepartureRegistry();
+  private final CommandDispatcher commands = new CommandDispatcher();
+  private final DepartureRegistry trainDepartureRegistry;
+  private final PrintStream out;
+  // created on first use, as boards are not printed in every session
+  private InformationBoardRenderer boardRenderer;
+
+  // the real-time clock the current time follows, or null if the time is set by the user
+  private DepartureClock clock;
 
   // default values
-  private LocalTime currentTime = LocalTime.of(0, 0);
+  private LocalTime currentTime;
   private String selectedMenu = MAIN_MENU;
   private boolean exit = false;
+  // whether commands come from a script, with no user to answer prompts
+  private boolean headless = false;
+  // the failure message of the command being run, or null if it has not failed
+  private String failure;
 
   // whether to use menu or command mode
   private static final boolean COMMAND_MODE = false;
@@ -36,9 +59,72 @@ public class UserInterface {
   // constants for frequently used strings
   private static final String COMMAND_UNKNOWN_MESSAGE = "\nCommand unknown";
   private static final String COMMAND_SUCCESS_MESSAGE = "\nCommand successful";
+  private static final String TIME_FORMAT_MESSAGE = "\nTime must be in the format HH:mm";
+  private static final String CLOCK_TIME_MESSAGE =
+      "\nTime follows the real-time clock and cannot be set";
+  private static final String COMMAND_INTERACTIVE_MESSAGE =
+      "\nCommand needs a user and cannot run from a script";
+  // number of departures on one page of the next departures board
+  private static final int BOARD_PAGE_SIZE = 15;
+  // number of departures on the live board, and how often it is refreshed
+  private static final int LIVE_BOARD_ROWS = 20;
+  private static final long LIVE_BOARD_REFRESH_MILLIS = 500;
+  // number of failure messages kept when running a script
+  private static final int MAX_KEPT_BATCH_ERRORS = 1000;
+
+  /**
+   * Constructor for user interface, with a new empty train departure registry.
+   */
+  public UserInterface() {
+    this(new TrainDepartureRegistry());
+  }
+
+  /**
+   * Constructor for user interface, working on the given registry.
+   *
+   * @param trainDepartureRegistry the registry to work on
+   * @throws IllegalArgumentException if registry is null
+   */
+  public UserInterface(DepartureRegistry trainDepartureRegistry) {
+    this(trainDepartureRegistry, System.out);
+  }
+
+  /**
+   * Constructor for user interface, working on the given registry and printing to the given
+   * stream.
+   *
+   * @param trainDepartureRegistry the registry to work on
+   * @param out                    the stream to print to
+   * @throws IllegalArgumentException if registry or stream is null
+   */
+  public UserInterface(DepartureRegistry trainDepartureRegistry, PrintStream out) {
+    this(trainDepartureRegistry, out, LocalTime.of(0, 0));
+  }
+
+  /**
+   * Constructor for user interface, working on the given registry, printing to the given
+   * stream and starting at the given time. Used to continue a session where an earlier user
+   * interface left it.
+   *
+   * @param trainDepartureRegistry the registry to work on
+   * @param out                    the stream to print to
+   * @param currentTime            the time to start at
+   * @throws IllegalArgumentException if registry, stream or time is null
+   */
+  public UserInterface(DepartureRegistry trainDepartureRegistry, PrintStream out,
+                       LocalTime currentTime) {
+    Validation.validateNotNull(trainDepartureRegistry, "Registry");
+    Validation.validateNotNull(out, "Output stream");
+    Validation.validateNotNull(currentTime, "Current time");
+    this.trainDepartureRegistry = trainDepartureRegistry;
+    this.out = out;
+    this.currentTime = currentTime;
+    registerCommands();
+  }
 
   /**
    * Initializes the user interface, creates menus and adds menu options.
+   * Adds train departures for testing if the registry is empty.
    */
   public void init() {
     menus.addMenu(MAIN_MENU);
@@ -46,7 +132,10 @@ public class UserInterface {
     menus.addMenuOption(MAIN_MENU, "Configure train departures", 1, "go " + TRAIN_MENU);
     menus.addMenuOption(MAIN_MENU, "Set time", 2, "time prompt");
     menus.addMenuOption(MAIN_MENU, "View information board", 3, "train informationBoard");
-    menus.addMenuOption(MAIN_MENU, "Quit", 4, "exit");
+    menus.addMenuOption(MAIN_MENU, "View next departures", 4, "train nextDepartures prompt");
+    menus.addMenuOption(MAIN_MENU, "View live board, press enter to leave", 5,
+        "train liveBoard");
+    menus.addMenuOption(MAIN_MENU, "Quit", 6, "exit");
 
     menus.addMenu(TRAIN_MENU);
     menus.addMenuOption(TRAIN_MENU, "Add departure", 1, "train add prompt");
@@ -70,6 +159,9 @@ public class UserInterface {
     menus.addMenuOption(EDIT_TRAIN_MENU, "Main menu", 4, "go " + MAIN_MENU);
 
     // train departures for testing
+    if (trainDepartureRegistry.size() > 0) {
+      return;
+    }
     trainDepartureRegistry.newTrainDeparture(10, "A4", "Trondheim", LocalTime.of(6, 15));
     trainDepartureRegistry.newTrainDeparture(4, "A7", "Oslo", LocalTime.of(14, 45));
     trainDepartureRegistry.newTrainDeparture(54, "F6", "Bergen", LocalTime.of(6, 0));
@@ -82,7 +174,7 @@ public class UserInterface {
    * Starts the user interface, runs the application.
    */
   public void start() {
-    System.out.println("Train Departure Application v1.0");
+    out.println("Train Departure Application v1.0");
     while (!exit) {
       if (COMMAND_MODE) {
         String command = UserInput.promptString("");
@@ -92,10 +184,123 @@ public class UserInterface {
         runCommand(command);
       }
     }
-    System.out.println("\nExiting Train Departure Application...");
+    out.println("\nExiting Train Departure Application...");
     System.exit(0);
   }
 
+  /**
+   * Runs the commands of a script, one per line, back to back. No menus are shown and no
+   * prompts wait for the user; commands that need a user fail instead. Blank lines and lines
+   * starting with '#' are skipped, and an exit command ends the script. A command that fails
+   * is counted and the script goes on, and the messages of the first failures are kept.
+   *
+   * <p>Output is printed to the stream of this user interface. It is not flushed after each
+   * command, so give a buffered stream to keep printing from slowing the script down.
+   *
+   * @param script the script to read commands from
+   * @return a summary of the commands run
+   * @throws IOException if the script cannot be read
+   * @throws IllegalArgumentException if script is null
+   */
+  public BatchResult runBatch(BufferedReader script) throws IOException {
+    Validation.validateNotNull(script, "Script");
+    int run = 0;
+    int failed = 0;
+    int lineNumber = 0;
+    List<String> errors = new ArrayList<>();
+    long start = System.nanoTime();
+    String command;
+    while (!exit && (command = script.readLine()) != null) {
+      lineNumber++;
+      command = command.strip();
+      if (command.isEmpty() || command.startsWith("#")) {
+        continue;
+      }
+      run++;
+      String commandFailure = runHeadless(command);
+      if (commandFailure != null && ++failed <= MAX_KEPT_BATCH_ERRORS) {
+        errors.add("Line " + lineNumber + ": " + command + " -> " + commandFailure);
+      }
+    }
+    long elapsedNanos = System.nanoTime() - start;
+    out.flush();
+    return new BatchResult(run, failed, errors, elapsedNanos);
+  }
+
+  /**
+   * Runs one command with no user to answer prompts; commands that need a user fail. The
+   * output is printed to the stream of this user interface, which is not flushed.
+   *
+   * @param command the command to run
+   * @return why the command failed, or null if it was successful
+   * @throws IllegalArgumentException if command is null
+   */
+  public String runHeadless(String command) {
+    Validation.validateNotNull(command, "Command");
+    headless = true;
+    try {
+      runCommand(command);
+    } catch (RuntimeException e) {
+      failure = e.toString();
+    }
+    return failure == null ? null : failure.strip();
+  }
+
+  /**
+   * Gets the current time of the user interface.
+   *
+   * @return the current time
+   */
+  public LocalTime getCurrentTime() {
+    return currentTime;
+  }
+
+  /**
+   * Continues the session at a time set elsewhere, such as by another user interface working
+   * on the same registry. The departures before the time are not removed here.
+   *
+   * @param currentTime the time to continue at
+   * @throws IllegalArgumentException if time is null
+   */
+  public void resumeAt(LocalTime currentTime) {
+    Validation.validateNotNull(currentTime, "Current time");
+    this.currentTime = currentTime;
+  }
+
+  /**
+   * Makes the current time follow a real-time clock. The time is read from the clock before
+   * every command, and can no longer be set by the user.
+   *
+   * @param clock the clock to follow
+   * @throws IllegalArgumentException if clock is null
+   */
+  public void followClock(DepartureClock clock) {
+    Validation.validateNotNull(clock, "Clock");
+    this.clock = clock;
+    currentTime = clock.getTime();
+  }
+
+  /**
+   * Times every command from now on, in a latency histogram per command named
+   * {@code command.<tokens of the command pattern>}, see
+   * {@link CommandDispatcher#instrument(DispatchMetrics, String)}.
+   *
+   * @param metrics the metrics to record to
+   * @throws IllegalArgumentException if metrics is null
+   */
+  public void instrument(DispatchMetrics metrics) {
+    commands.instrument(metrics, "command.");
+  }
+
+  /**
+   * Checks if the exit command has been run.
+   *
+   * @return true if the user interface has been told to quit
+   */
+  public boolean hasExited() {
+    return exit;
+  }
+
 
   /**
    * Displays a menu and prompts the user to chose option.
@@ -104,8 +309,8 @@ public class UserInterface {
    * @return the command to run
    */
   private String goToMenu(String menuName) {
-    System.out.println("\n");
-    System.out.println("Current time " + currentTime);
+    out.println("\n");
+    out.println("Current time " + currentTime);
     menus.displayMenu(menuName);
     int choice = UserInput.promptInt("Enter one of the options above:");
     return menus.selectOption(menuName, choice);
@@ -115,7 +320,19 @@ public class UserInterface {
    * Waits for user to press enter.
    */
   private void waitForUser() {
-    UserInput.promptString("\nPress enter to continue...");
+    if (!headless) {
+      UserInput.promptString("\nPress enter to continue...");
+    }
+  }
+
+  /**
+   * Prints why the command being run failed, and marks it as failed.
+   *
+   * @param message the message to print
+   */
+  private void reportFailure(String message) {
+    out.println(message);
+    failure = message;
   }
 
 
@@ -137,7 +354,7 @@ public class UserInterface {
       trainDepartureRegistry.newTrainDeparture(trainNumber, line, destination, departureTime);
       success = true;
     } catch (IllegalArgumentException e) {
-      System.out.println("\n" + "Departure not added, reason: " + e.getMessage());
+      reportFailure("\n" + "Departure not added, reason: " + e.getMessage());
     }
     return success;
   }
@@ -155,7 +372,7 @@ public class UserInterface {
       trainDepartureRegistry.setTrack(trainNumber, track);
       success = true;
     } catch (IllegalArgumentException e) {
-      System.out.println("\n" + "Track not set, reason: " + e.getMessage());
+      reportFailure("\n" + "Track not set, reason: " + e.getMessage());
     }
     return success;
   }
@@ -173,28 +390,18 @@ public class UserInterface {
       trainDepartureRegistry.addDelay(trainNumber, delay);
       success = true;
     } catch (IllegalArgumentException e) {
-      System.out.println("\n" + "Delay not added, reason: " + e.getMessage());
+      reportFailure("\n" + "Delay not added, reason: " + e.getMessage());
     }
     return success;
   }
 
   /**
-   * Returns a sorted list of train departures.
+   * Returns a snapshot of the train departures sorted by departure time with delay.
    *
-   * @return a sorted list of train departures
+   * @return a snapshot of the train departures
    */
-  private ArrayList<Integer> sortedTrainDepartures() {
-    return trainDepartureRegistry.sortedByDepartureTime();
-  }
-
-  /**
-   * Returns a HashMap with train departure information from train number.
-   *
-   * @param trainNumber the train number of the train departure
-   * @return a HashMap with train departure information
-   */
-  private HashMap<String, String> trainDepartureInfo(int trainNumber) {
-    return trainDepartureRegistry.getAllFromTrainNumber(trainNumber);
+  private TrainDepartureSnapshot sortedTrainDepartures() {
+    return trainDepartureRegistry.snapshot();
   }
 
   /**
@@ -205,9 +412,9 @@ public class UserInterface {
   private void searchByTrainNumber(int trainNumber) {
     try {
       String departure = trainDepartureRegistry.trainDepartureString(trainNumber);
-      System.out.println(departure);
+      out.println(departure);
     } catch (IllegalArgumentException e) {
-      System.out.println("\n" + "Train departure not found, reason: " + e.getMessage());
+      reportFailure("\n" + "Train departure not found, reason: " + e.getMessage());
     }
   }
 
@@ -217,35 +424,83 @@ public class UserInterface {
    * @param destination the destination of the train departures
    */
   private void searchByDestination(String destination) {
-    TrainDepartureRegistry trainDepartures = trainDepartureRegistry
+    TrainDepartureView trainDepartures = trainDepartureRegistry
         .trainDeparturesByDestination(destination);
-    System.out.println(trainDepartures);
+    out.println(trainDepartures);
   }
 
   /**
-   * Prints the train departures in the form of an information board.
+   * Prints the train departures in the form of an information board. The board is printed
+   * from one snapshot of the registry, so changes made while printing do not show up halfway.
+   * The rows are rendered by {@link InformationBoardRenderer} and written in one go.
    */
   private void printInformationBoard() {
-    System.out.printf("%-56s%s\n", "Information board", "Current time " + currentTime);
-    System.out.println("-".repeat(75));
-    System.out.printf("%-12s%-11s%-18s%-16s%-12s%-11s\n",
-        "Train",
-        "Line",
-        "Destination",
-        "Departure",
-        "Track",
-        "Delay");
-    System.out.println("-".repeat(75));
-    sortedTrainDepartures().stream()
-        .map(this::trainDepartureInfo)
-        .forEach(info -> System.out.printf("%-12s%-11s%-18s%-16s%-12s%-11s\n",
-            info.get("trainNumber"),
-            info.get("line"),
-            info.get("destination"),
-            info.get("departureTime"),
-            info.get("track"),
-            info.get("delay")));
-    System.out.println("-".repeat(75));
+    try {
+      boardRenderer().render(currentTime, sortedTrainDepartures());
+    } catch (IOException e) {
+      reportFailure("\n" + "Information board not printed, reason: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Gets the information board renderer, creating it on first use.
+   *
+   * @return the renderer writing to the output stream
+   */
+  private InformationBoardRenderer boardRenderer() {
+    if (boardRenderer == null) {
+      boardRenderer = new InformationBoardRenderer(Channels.newChannel(out));
+    }
+    return boardRenderer;
+  }
+
+  /**
+   * Prints one page of the departures at or after the current time as an information board.
+   * Only the departures on the page are read from the registry.
+   *
+   * @param page the page to print, starting at 1
+   * @return true if there may be departures on the next page
+   */
+  private boolean printNextDepartures(int page) {
+    int skip = (int) Math.min((long) (page - 1) * BOARD_PAGE_SIZE, Integer.MAX_VALUE);
+    TrainDepartureSnapshot departures = trainDepartureRegistry
+        .upcomingTrainDepartures(currentTime, skip, BOARD_PAGE_SIZE);
+    try {
+      boardRenderer().render(currentTime, departures);
+    } catch (IOException e) {
+      reportFailure("\n" + "Information board not printed, reason: " + e.getMessage());
+    }
+    out.println("Page " + page);
+    return departures.size() == BOARD_PAGE_SIZE;
+  }
+
+  /**
+   * Shows the next departures on a live board until the user presses enter. A background
+   * thread refreshes the board, and only the lines that changed are redrawn.
+   */
+  private void showLiveBoard() {
+    var liveBoard = new LiveInformationBoard(Channels.newChannel(out));
+    ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(task -> {
+      var thread = new Thread(task, "live-board");
+      thread.setDaemon(true);
+      return thread;
+    });
+    refresher.scheduleWithFixedDelay(() -> {
+      try {
+        LocalTime time = clock == null ? currentTime : clock.getTime();
+        liveBoard.update(time, trainDepartureRegistry
+            .upcomingTrainDepartures(time, 0, LIVE_BOARD_ROWS));
+      } catch (IOException e) {
+        refresher.shutdown();
+      }
+    }, 0, LIVE_BOARD_REFRESH_MILLIS, TimeUnit.MILLISECONDS);
+    UserInput.readString();
+    refresher.shutdownNow();
+    try {
+      refresher.awaitTermination(LIVE_BOARD_REFRESH_MILLIS, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
   }
 
   /**
@@ -262,6 +517,10 @@ public class UserInterface {
    * @return true if time was set successfully, false otherwise
    */
   private boolean setCurrentTime(LocalTime time) {
+    if (clock != null) {
+      reportFailure(CLOCK_TIME_MESSAGE);
+      return false;
+    }
     boolean success = false;
     try {
       Validation.validateNotNull(time, "Time");
@@ -270,7 +529,7 @@ public class UserInterface {
       updateDeparted();
       success = true;
     } catch (IllegalArgumentException e) {
-      System.out.println("\n" + "Time not set, reason: " + e.getMessage());
+      reportFailure("\n" + "Time not set, reason: " + e.getMessage());
     }
     return success;
   }
@@ -287,293 +546,123 @@ public class UserInterface {
     try {
       time = LocalTime.parse(timeString);
     } catch (DateTimeParseException e) {
-      System.out.println("\nTime must be in the format HH:mm");
+      reportFailure(TIME_FORMAT_MESSAGE);
     }
     return time;
   }
 
 
   /**
-   * Starts to process a command.
-   *
-   * @param command the command to run
+   * Registers the commands of the application.
    */
-  private void runCommand(String command) {
-    String [] commands = command.split(" ");
-    String primaryCommand = commands[0];
-    switch (primaryCommand) {
-      case "go":
-        goCommand(commands);
-        break;
-      case "exit":
-        quitCommand(commands);
-        break;
-      case "train":
-        trainCommand(commands);
-        break;
-      case "time":
-        timeCommand(commands);
-        break;
-      default:
-        System.out.println(COMMAND_UNKNOWN_MESSAGE);
-        break;
-    }
-  }
+  private void registerCommands() {
+    commands.register("go <word>", arguments -> selectedMenu = arguments.getWord(0));
+    commands.register("exit", arguments -> exit = true);
 
-  /**
-   * Selects menu from command.
-   *
-   * @param commands the command (go "menuName")
-   */
-  private void goCommand(String [] commands) {
-    selectedMenu = commands[1];
-  }
+    registerPrompt("time prompt", this::promptSetCurrentTime);
+    commands.register("time <time>", arguments ->
+        printIfSuccessful(setCurrentTime(arguments.getTime(0))));
+    commands.register("time <word>", arguments -> reportFailure(TIME_FORMAT_MESSAGE));
 
-  /**
-   * Tells the application to quit.
-   *
-   * @param commands the command (exit)
-   */
-  private void quitCommand(String [] commands) {
-    if (commands.length == 1) {
-      exit = true;
-    } else {
-      System.out.println(COMMAND_UNKNOWN_MESSAGE);
-    }
-  }
+    registerPrompt("train add prompt", this::promptAddDeparture);
+    commands.register("train add <int> <word> <word> <time>", arguments ->
+        printIfSuccessful(addDeparture(arguments.getInt(0), arguments.getWord(1),
+            arguments.getWord(2), arguments.getTime(3))));
+    commands.register("train add <int> <word> <word> <word>", arguments ->
+        reportFailure(TIME_FORMAT_MESSAGE));
 
-  /**
-   * Processes commands for train departures.
-   *
-   * @param command the command to run
-   */
-  private void trainCommand(String [] command) {
-    String nextCommandWord = command[1];
-    switch (nextCommandWord) {
-      case "add":
-        trainAddCommand(command);
-        break;
-      case "edit":
-        editTrainCommand(command);
-        break;
-      case "search":
-        trainSearchCommand(command);
-        break;
-      case "informationBoard":
-        informationBoardCommand(command);
-        break;
-      case "list":
-        trainListCommand(command);
-        break;
-      default:
-        System.out.println(COMMAND_UNKNOWN_MESSAGE);
-        break;
-    }
-  }
+    registerPrompt("train edit addDelay prompt", this::promptAddDelay);
+    commands.register("train edit addDelay <int> <int>", arguments ->
+        printIfSuccessful(addDelay(arguments.getInt(0), arguments.getInt(1))));
+    registerPrompt("train edit setTrack prompt", this::promptSetTrack);
+    commands.register("train edit setTrack <int> <int>", arguments ->
+        printIfSuccessful(setTrack(arguments.getInt(0), arguments.getInt(1))));
 
-  /**
-   * Prompts the user to set the current time or sets the current time from command.
-   *
-   * @param command the command (time prompt or time "HH:mm")
-   */
-  private void timeCommand(String [] command) {
-    String nextCommandWord = command[1];
-    if (nextCommandWord.equals("prompt")) {
-      promptSetCurrentTime();
-      waitForUser();
-    } else if (command.length == 2) {
-      LocalTime time = timeFromString(nextCommandWord);
-      boolean success = setCurrentTime(time);
-      if (success) {
-        System.out.println(COMMAND_SUCCESS_MESSAGE);
-      }
-    } else {
-      System.out.println(COMMAND_UNKNOWN_MESSAGE);
-    }
-  }
+    registerPrompt("train search trainNumber prompt", this::promptSearchByTrainNumber);
+    commands.register("train search trainNumber <int>", arguments ->
+        searchByTrainNumber(arguments.getInt(0)));
+    registerPrompt("train search destination prompt", this::promptSearchByDestination);
+    commands.register("train search destination <word>", arguments ->
+        searchByDestination(arguments.getWord(0)));
 
-  /**
-   * Prompts the user to add a train departure or adds a train departure from command.
-   *
-   * @param command the command (train add prompt or
-   *                train add "trainNumber" "line" "destination" "HH:mm")
-   */
-  private void trainAddCommand(String [] command) {
-    String nextCommandWord = command[2];
-    if (nextCommandWord.equals("prompt")) {
-      promptAddDeparture();
+    commands.register("train informationBoard", arguments -> {
+      out.println("\n");
+      printInformationBoard();
       waitForUser();
-    } else if (command.length == 6) {
-      int trainNumber = Integer.parseInt(nextCommandWord);
-      String line = command[3];
-      String destination = command[4];
-      String timeString = command[5];
-      LocalTime departureTime = timeFromString(timeString);
-      boolean success = addDeparture(trainNumber, line, destination, departureTime);
-      if (success) {
-        System.out.println(COMMAND_SUCCESS_MESSAGE);
+    });
+    registerInteractive("train nextDepartures prompt", this::promptNextDepartures);
+    commands.register("train nextDepartures <int>", arguments -> {
+      if (arguments.getInt(0) > 0) {
+        printNextDepartures(arguments.getInt(0));
+      } else {
+        reportFailure("\nPage must be 1 or more");
       }
-    } else {
-      System.out.println(COMMAND_UNKNOWN_MESSAGE);
-    }
-  }
-
-  /**
-   * Processes commands for train search.
-   *
-   * @param command the command to run
-   */
-  private void trainSearchCommand(String [] command) {
-    String searchType = command[2];
-    switch (searchType) {
-      case "trainNumber":
-        searchByTrainNumberCommand(command);
-        break;
-      case "destination":
-        searchByDestinationCommand(command);
-        break;
-      default:
-        System.out.println(COMMAND_UNKNOWN_MESSAGE);
-        break;
-    }
-  }
-
-  /**
-   * Processes commands for editing train departures.
-   *
-   * @param command the command to run
-   */
-  private void editTrainCommand(String [] command) {
-    String nextCommandWord = command[2];
-    switch (nextCommandWord) {
-      case "addDelay":
-        addDelayCommand(command);
-        break;
-      case "setTrack":
-        setTrackCommand(command);
-        break;
-      default:
-        System.out.println(COMMAND_UNKNOWN_MESSAGE);
-        break;
-    }
-  }
-
-  /**
-   * Displays the information board from command.
-   *
-   * @param command the command (train informationBoard)
-   */
-  private void informationBoardCommand(String [] command) {
-    if (command.length == 2) {
-      System.out.println(COMMAND_UNKNOWN_MESSAGE);
-      System.out.println("\n");
-      printInformationBoard();
+    });
+    registerInteractive("train liveBoard", this::showLiveBoard);
+    commands.register("train list", arguments -> {
+      out.println("\nTrain departures:\n");
+      out.println(trainDepartureRegistry);
       waitForUser();
-    } else {
-      System.out.println(COMMAND_UNKNOWN_MESSAGE);
-    }
+    });
   }
 
   /**
-   * Displays the list of train departures from command.
+   * Registers a command that prompts the user, and then waits for the user to continue.
    *
-   * @param command the command (train list)
+   * @param pattern the pattern of the command
+   * @param prompt  the prompt to run
    */
-  private void trainListCommand(String [] command) {
-    if (command.length == 2) {
-      System.out.println("\nTrain departures:\n");
-      System.out.println(trainDepartureRegistry);
+  private void registerPrompt(String pattern, Runnable prompt) {
+    registerInteractive(pattern, () -> {
+      prompt.run();
       waitForUser();
-    } else {
-      System.out.println(COMMAND_UNKNOWN_MESSAGE);
-    }
+    });
   }
 
   /**
-   * Prompts the user to search for a train departure by train number or searches by command.
+   * Registers a command that needs a user. When running a script, the command fails instead.
    *
-   * @param command the command (train search trainNumber prompt or
-   *                train search trainNumber "number")
+   * @param pattern the pattern of the command
+   * @param action  the code to run for the command
    */
-  private void searchByTrainNumberCommand(String [] command) {
-    String nextCommandWord = command[3];
-    if (nextCommandWord.equals("prompt")) {
-      promptSearchByTrainNumber();
-      waitForUser();
-    } else if (command.length == 4) {
-      int trainNumber = Integer.parseInt(nextCommandWord);
-      searchByTrainNumber(trainNumber);
-    } else {
-      System.out.println(COMMAND_UNKNOWN_MESSAGE);
-    }
+  private void registerInteractive(String pattern, Runnable action) {
+    commands.register(pattern, arguments -> {
+      if (headless) {
+        reportFailure(COMMAND_INTERACTIVE_MESSAGE);
+      } else {
+        action.run();
+      }
+    });
   }
 
   /**
-   * Prompts the user to search for train departures by destination or searches by command.
+   * Prints that the command was successful, if it was.
    *
-   * @param command the command (train search destination prompt or
-   *                train search destination "destination")
+   * @param success whether the command was successful
    */
-  private void searchByDestinationCommand(String [] command) {
-    String nextCommandWord = command[3];
-    if (nextCommandWord.equals("prompt")) {
-      promptSearchByDestination();
-      waitForUser();
-    } else if (command.length == 4) {
-      searchByDestination(nextCommandWord);
-    } else {
-      System.out.println(COMMAND_UNKNOWN_MESSAGE);
+  private void printIfSuccessful(boolean success) {
+    if (success) {
+      out.println(COMMAND_SUCCESS_MESSAGE);
     }
   }
 
   /**
-   * Prompts the user to add delay to a train departure or adds delay from command.
+   * Starts to process a command.
    *
-   * @param command the command (train edit addDelay prompt or
-   *                train edit addDelay "trainNumber" "delay")
+   * @param command the command to run
+   * @return true if the command was run successfully, false otherwise
    */
-  private void addDelayCommand(String [] command) {
-    String nextCommandWord = command[3];
-    if (nextCommandWord.equals("prompt")) {
-      promptAddDelay();
-      waitForUser();
-    } else if (command.length == 5) {
-      int trainNumber = Integer.parseInt(nextCommandWord);
-      String delayString = command[4];
-      int delay = Integer.parseInt(delayString);
-      boolean success = addDelay(trainNumber, delay);
-      if (success) {
-        System.out.println(COMMAND_SUCCESS_MESSAGE);
-      }
-    } else {
-      System.out.println(COMMAND_UNKNOWN_MESSAGE);
+  private boolean runCommand(String command) {
+    failure = null;
+    if (clock != null) {
+      currentTime = clock.tick();
     }
-  }
-
-  /**
-   * Prompts the user to set the track of a train departure or sets the track from command.
-   *
-   * @param command the command (train edit setTrack prompt or
-   *                train edit setTrack "trainNumber" "track")
-   */
-  private void setTrackCommand(String [] command) {
-    String nextCommandWord = command[3];
-    if (nextCommandWord.equals("prompt")) {
-      promptSetTrack();
-      waitForUser();
-    } else if (command.length == 5) {
-      int trainNumber = Integer.parseInt(nextCommandWord);
-      int track = Integer.parseInt(command[4]);
-      boolean success = setTrack(trainNumber, track);
-      if (success) {
-        System.out.println(COMMAND_SUCCESS_MESSAGE);
-      }
-    } else {
-      System.out.println(COMMAND_UNKNOWN_MESSAGE);
+    if (!commands.dispatch(command)) {
+      reportFailure(COMMAND_UNKNOWN_MESSAGE);
     }
+    return failure == null;
   }
 
-
   /**
    * Prompts the user to add a train departure.
    */
@@ -584,11 +673,32 @@ public class UserInterface {
     LocalTime departureTime = promptTime();
     boolean success = addDeparture(trainNumber, line, destination, departureTime);
     if (success) {
-      System.out.println("\nTrain departure added successfully:");
+      out.println("\nTrain departure added successfully:");
       searchByTrainNumber(trainNumber);
     }
   }
 
+  /**
+   * Shows the next departures one page at a time, until the user goes back.
+   */
+  private void promptNextDepartures() {
+    int page = 1;
+    boolean browsing = true;
+    while (browsing) {
+      out.println("\n");
+      boolean hasNextPage = printNextDepartures(page);
+      String choice = UserInput.promptString(
+          "\n'n' -> Next page, 'p' -> Previous page, Enter -> Back");
+      if (choice.equals("n") && hasNextPage) {
+        page++;
+      } else if (choice.equals("p") && page > 1) {
+        page--;
+      } else if (!choice.equals("n") && !choice.equals("p")) {
+        browsing = false;
+      }
+    }
+  }
+
   /**
    * Prompts the user to set the track of a train departure.
    */
@@ -597,7 +707,7 @@ public class UserInterface {
     int track = promptTrack();
     boolean success = setTrack(trainNumber, track);
     if (success) {
-      System.out.println("\nUpdated train info:");
+      out.println("\nUpdated train info:");
       searchByTrainNumber(trainNumber);
     }
   }
@@ -610,7 +720,7 @@ public class UserInterface {
     int delay = promptDelay();
     boolean success = addDelay(trainNumber, delay);
     if (success) {
-      System.out.println("\nUpdated train info:");
+      out.println("\nUpdated train info:");
       searchByTrainNumber(trainNumber);
     }
   }
@@ -620,7 +730,7 @@ public class UserInterface {
    */
   private void promptSearchByTrainNumber() {
     int trainNumber = promptTrainNumber();
-    System.out.println("\nTrain departure info:");
+    out.println("\nTrain departure info:");
     searchByTrainNumber(trainNumber);
   }
 
@@ -629,7 +739,7 @@ public class UserInterface {
    */
   private void promptSearchByDestination() {
     String destination = promptDestination();
-    System.out.println("\nTrain departures to " + destination + ":");
+    out.println("\nTrain departures to " + destination + ":");
     searchByDestination(destination);
   }
 
@@ -640,7 +750,7 @@ public class UserInterface {
     LocalTime time = promptTime();
     boolean success = setCurrentTime(time);
     if (success) {
-      System.out.println("\nTime set to " + time);
+      out.println("\nTime set to " + time);
     }
   }
 
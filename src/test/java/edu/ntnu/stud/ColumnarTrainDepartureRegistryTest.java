@@ -0,0 +1,140 @@
+package edu.ntnu.stud;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import edu.ntnu.stud.models.ColumnarTrainDepartureRegistry;
+import edu.ntnu.stud.models.DepartureRegistry;
+import edu.ntnu.stud.models.TrainDepartureRegistry;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ColumnarTrainDepartureRegistryTest {
+  private ColumnarTrainDepartureRegistry trainDepartureRegistry;
+
+  @BeforeEach
+  void setUp() {
+    trainDepartureRegistry = new ColumnarTrainDepartureRegistry();
+    trainDepartureRegistry.newTrainDeparture(1, "line", "destination",
+        LocalTime.of(0, 0));
+    trainDepartureRegistry.newTrainDeparture(2, "line2", "destination2",
+        LocalTime.of(0, 1));
+    trainDepartureRegistry.newTrainDeparture(3, "line3", "destination",
+        LocalTime.of(1, 0));
+  }
+
+  @Test
+  @DisplayName("newTrainDeparture throws IllegalArgumentException on train already exists")
+  void newTrainDepartureThrowsExceptionOnTrainNumberAlreadyInRegistry() {
+    assertThrows(IllegalArgumentException.class, () -> {
+      trainDepartureRegistry.newTrainDeparture(1, "line", "destination",
+          LocalTime.of(0, 0));
+    });
+  }
+
+  @Test
+  @DisplayName("addDelay throws IllegalArgumentException on delay zero or less")
+  void addDelayThrowsExceptionOnDelayZeroOrLess() {
+    assertThrows(IllegalArgumentException.class, () -> {
+      trainDepartureRegistry.addDelay(1, 0);
+    });
+  }
+
+  @Test
+  @DisplayName("addDelay throws IllegalArgumentException on total delay overflowing")
+  void addDelayThrowsExceptionOnTotalDelayOverflowing() {
+    trainDepartureRegistry.addDelay(1, Integer.MAX_VALUE);
+    assertThrows(IllegalArgumentException.class, () -> {
+      trainDepartureRegistry.addDelay(1, 1);
+    });
+    assertEquals(Integer.MAX_VALUE + " min",
+        trainDepartureRegistry.getAllFromTrainNumber(1).get("delay"));
+  }
+
+  @Test
+  @DisplayName("removeTrainDeparture keeps the other rows reachable")
+  void removeTrainDepartureKeepsOtherRowsReachable() {
+    trainDepartureRegistry.removeTrainDeparture(1);
+    assertFalse(trainDepartureRegistry.containsTrainNumber(1));
+    assertEquals(List.of(2, 3), trainDepartureRegistry.sortedByDepartureTime());
+    assertEquals(List.of(3),
+        trainDepartureRegistry.trainDeparturesByDestination("destination").trainNumbers());
+  }
+
+  @Test
+  @DisplayName("registry gives the same results as TrainDepartureRegistry")
+  void registryGivesSameResultsAsTrainDepartureRegistry() {
+    DepartureRegistry expected = new TrainDepartureRegistry();
+    DepartureRegistry actual = new ColumnarTrainDepartureRegistry();
+    var random = new Random(7);
+    for (int trainNumber = 1; trainNumber <= 500; trainNumber++) {
+      var time = LocalTime.of(random.nextInt(24), random.nextInt(60));
+      String destination = "destination" + random.nextInt(10);
+      expected.newTrainDeparture(trainNumber, "line", destination, time);
+      actual.newTrainDeparture(trainNumber, "line", destination, time);
+    }
+    for (int i = 0; i < 300; i++) {
+      int trainNumber = 1 + random.nextInt(500);
+      int delay = 1 + random.nextInt(120);
+      expected.addDelay(trainNumber, delay);
+      actual.addDelay(trainNumber, delay);
+    }
+    var expectedEvicted = new ArrayList<Integer>();
+    var actualEvicted = new ArrayList<Integer>();
+    expected.removeTrainDeparturesBeforeTime(LocalTime.of(8, 0),
+        trainDeparture -> expectedEvicted.add(trainDeparture.getTrainNumber()));
+    actual.removeTrainDeparturesBeforeTime(LocalTime.of(8, 0),
+        trainDeparture -> actualEvicted.add(trainDeparture.getTrainNumber()));
+    expectedEvicted.sort(null);
+    actualEvicted.sort(null);
+
+    assertEquals(expectedEvicted, actualEvicted);
+    assertEquals(expected.sortedByDepartureTime(), actual.sortedByDepartureTime());
+    assertEquals(expected.sortedByDepartureTimeWithDelay(),
+        actual.sortedByDepartureTimeWithDelay());
+    assertEquals(expected.trainDeparturesByDestination("destination3").toString(),
+        actual.trainDeparturesByDestination("destination3").toString());
+    assertEquals(expected.trainDeparturesTo("destination3").toString(),
+        actual.trainDeparturesTo("destination3").toString());
+    for (int trainNumber = 1; trainNumber <= 500; trainNumber += 13) {
+      assertEquals(String.valueOf(expected.findTrainDeparture(trainNumber)),
+          String.valueOf(actual.findTrainDeparture(trainNumber)));
+    }
+    assertEquals(expected.toString(), actual.toString());
+    for (int skip = 0; skip < 40; skip += 7) {
+      assertEquals(
+          expected.upcomingTrainDepartures(LocalTime.of(12, 0), skip, 7).toString(),
+          actual.upcomingTrainDepartures(LocalTime.of(12, 0), skip, 7).toString());
+    }
+  }
+
+  @Test
+  @DisplayName("upcomingTrainDepartures pages match TrainDepartureRegistry after changes")
+  void upcomingTrainDeparturesGivesSamePagesAfterChanges() {
+    DepartureRegistry expected = new TrainDepartureRegistry();
+    DepartureRegistry actual = new ColumnarTrainDepartureRegistry();
+    var random = new Random(11);
+    for (int trainNumber = 1; trainNumber <= 200; trainNumber++) {
+      var time = LocalTime.of(random.nextInt(24), random.nextInt(60));
+      expected.newTrainDeparture(trainNumber, "line", "destination", time);
+      actual.newTrainDeparture(trainNumber, "line", "destination", time);
+    }
+    for (int i = 0; i < 50; i++) {
+      int trainNumber = 1 + random.nextInt(200);
+      int delay = 1 + random.nextInt(600);
+      expected.addDelay(trainNumber, delay);
+      actual.addDelay(trainNumber, delay);
+      var time = LocalTime.of(random.nextInt(24), random.nextInt(60), random.nextInt(2) * 30);
+      int skip = random.nextInt(20);
+      assertEquals(expected.upcomingTrainDepartures(time, skip, 5).toString(),
+          actual.upcomingTrainDepartures(time, skip, 5).toString());
+    }
+    assertEquals(0, actual.upcomingTrainDepartures(LocalTime.MAX, 0, 5).size());
+  }
+}
@@ -0,0 +1,131 @@
+package edu.ntnu.stud;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.stud.view.CommandDispatcher;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+public class CommandDispatcherTest {
+  private CommandDispatcher dispatcher;
+  private List<Object> handled;
+
+  @BeforeEach
+  void setUp() {
+    dispatcher = new CommandDispatcher();
+    handled = new ArrayList<>();
+    dispatcher.register("train add prompt", arguments -> handled.add("prompt"));
+    dispatcher.register("train add <int> <word> <word> <time>", arguments -> {
+      handled.add(arguments.getInt(0));
+      handled.add(arguments.getWord(1));
+      handled.add(arguments.getWord(2));
+      handled.add(arguments.getTime(3));
+    });
+    dispatcher.register("train add <int> <word> <word> <word>",
+        arguments -> handled.add("bad time " + arguments.getWord(3)));
+    dispatcher.register("train edit addDelay <int> <int>", arguments -> {
+      handled.add(arguments.getInt(0));
+      handled.add(arguments.getInt(1));
+    });
+    dispatcher.register("exit", arguments -> handled.add("exit " + arguments.size()));
+  }
+
+  @Nested
+  @DisplayName("Positive tests for CommandDispatcher")
+  public class PositiveTests {
+
+    @Test
+    @DisplayName("Dispatch parses the arguments of the matching pattern")
+    void dispatchParsesArgumentsOfMatchingPattern() {
+      assertTrue(dispatcher.dispatch("train add 12 A4 Trondheim 06:15"));
+      assertEquals(List.of(12, "A4", "Trondheim", LocalTime.of(6, 15)), handled);
+    }
+
+    @Test
+    @DisplayName("Times with seconds are parsed like LocalTime.parse")
+    void timesWithSecondsAreParsed() {
+      assertTrue(dispatcher.dispatch("train add 12 A4 Trondheim 06:15:30"));
+      assertTrue(dispatcher.dispatch("train add 12 A4 Trondheim 06:15:60"));
+      assertTrue(dispatcher.dispatch("train add 12 A4 Trondheim 06:15-30"));
+      assertEquals(List.of(12, "A4", "Trondheim", LocalTime.of(6, 15, 30),
+          "bad time 06:15:60", "bad time 06:15-30"), handled);
+    }
+
+    @Test
+    @DisplayName("Literal words are matched before placeholders")
+    void literalWordsAreMatchedBeforePlaceholders() {
+      assertTrue(dispatcher.dispatch("train add prompt"));
+      assertEquals(List.of("prompt"), handled);
+    }
+
+    @Test
+    @DisplayName("Times in the wrong format fall through to words")
+    void timesInWrongFormatFallThroughToWords() {
+      assertTrue(dispatcher.dispatch("train add 12 A4 Trondheim 24:00"));
+      assertTrue(dispatcher.dispatch("train add 12 A4 Trondheim 6:15"));
+      assertEquals(List.of("bad time 24:00", "bad time 6:15"), handled);
+    }
+
+    @Test
+    @DisplayName("Dispatch parses negative numbers and ignores extra spaces")
+    void dispatchParsesNegativeNumbersAndIgnoresExtraSpaces() {
+      assertTrue(dispatcher.dispatch("  train  edit addDelay -1   2147483647 "));
+      assertEquals(List.of(-1, Integer.MAX_VALUE), handled);
+    }
+
+    @Test
+    @DisplayName("Arguments of a failed branch are not counted")
+    void argumentsOfFailedBranchAreNotCounted() {
+      assertTrue(dispatcher.dispatch("exit"));
+      assertEquals(List.of("exit 0"), handled);
+    }
+  }
+
+  @Nested
+  @DisplayName("Negative tests for CommandDispatcher")
+  public class NegativeTests {
+
+    @Test
+    @DisplayName("Dispatch returns false on unknown commands")
+    void dispatchReturnsFalseOnUnknownCommands() {
+      assertFalse(dispatcher.dispatch(""));
+      assertFalse(dispatcher.dispatch("train"));
+      assertFalse(dispatcher.dispatch("train edit addDelay 1"));
+      assertFalse(dispatcher.dispatch("train edit addDelay x 5"));
+      assertFalse(dispatcher.dispatch("train edit addDelay 2147483648 5"));
+      assertFalse(dispatcher.dispatch("exit now"));
+      assertTrue(handled.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Register throws IllegalArgumentException on duplicate pattern")
+    void registerThrowsExceptionOnDuplicatePattern() {
+      assertThrows(IllegalArgumentException.class, () -> {
+        dispatcher.register("train add prompt", arguments -> { });
+      });
+    }
+
+    @Test
+    @DisplayName("Register throws IllegalArgumentException on blank pattern")
+    void registerThrowsExceptionOnBlankPattern() {
+      assertThrows(IllegalArgumentException.class, () -> {
+        dispatcher.register(" ", arguments -> { });
+      });
+    }
+
+    @Test
+    @DisplayName("Getting a missing argument throws IndexOutOfBoundsException")
+    void gettingMissingArgumentThrowsException() {
+      dispatcher.register("time <time>", arguments -> arguments.getInt(1));
+      assertThrows(IndexOutOfBoundsException.class, () -> dispatcher.dispatch("time 12:00"));
+    }
+  }
+}
@@ -0,0 +1,223 @@
+package edu.ntnu.stud;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.stud.models.ConcurrentTrainDepartureRegistry;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ConcurrentTrainDepartureRegistryTest {
+  private static final int THREADS = 8;
+
+  private ConcurrentTrainDepartureRegistry trainDepartureRegistry;
+  private ExecutorService executor;
+
+  @BeforeEach
+  void setUp() {
+    trainDepartureRegistry = new ConcurrentTrainDepartureRegistry();
+    trainDepartureRegistry.newTrainDeparture(1, "line", "destination",
+        LocalTime.of(0, 0));
+    trainDepartureRegistry.newTrainDeparture(2, "line2", "destination2",
+        LocalTime.of(0, 1));
+    trainDepartureRegistry.newTrainDeparture(3, "line3", "destination",
+        LocalTime.of(1, 0));
+    executor = Executors.newFixedThreadPool(THREADS);
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  @DisplayName("addDelay throws IllegalArgumentException on train number not in registry")
+  void addDelayThrowsExceptionOnTrainNumberNotInRegistry() {
+    assertThrows(IllegalArgumentException.class, () -> {
+      trainDepartureRegistry.addDelay(4, 1);
+    });
+  }
+
+  @Test
+  @DisplayName("removeTrainDeparture throws IllegalArgumentException on "
+      + "train number not in registry")
+  void removeTrainDepartureThrowsExceptionOnTrainNumberNotInRegistry() {
+    assertThrows(IllegalArgumentException.class, () -> {
+      trainDepartureRegistry.removeTrainDeparture(4);
+    });
+  }
+
+  @Test
+  @DisplayName("addDelay updates the delay index")
+  void addDelayUpdatesDelayIndex() {
+    trainDepartureRegistry.addDelay(1, 90);
+    assertEquals(List.of(2, 3, 1), trainDepartureRegistry.sortedByDepartureTimeWithDelay());
+    assertEquals(List.of(1, 2, 3), trainDepartureRegistry.sortedByDepartureTime());
+  }
+
+  @Test
+  @DisplayName("upcomingTrainDepartures reads a page from the delay index")
+  void upcomingTrainDeparturesReadsPageFromDelayIndex() {
+    trainDepartureRegistry.addDelay(1, 90);
+    var page = trainDepartureRegistry.upcomingTrainDepartures(LocalTime.of(0, 1), 1, 5);
+    assertEquals(List.of(3, 1), page.getTrainDepartures().stream()
+        .map(trainDeparture -> trainDeparture.getTrainNumber()).toList());
+    assertEquals(trainDepartureRegistry.version(), page.getVersion());
+  }
+
+  @Test
+  @DisplayName("trainDeparturesTo and findTrainDeparture read the current departures")
+  void trainDeparturesToAndFindTrainDepartureReadCurrentDepartures() {
+    trainDepartureRegistry.addDelay(1, 90);
+    var toDestination = trainDepartureRegistry.trainDeparturesTo("destination");
+    assertEquals(List.of(3, 1), toDestination.getTrainDepartures().stream()
+        .map(trainDeparture -> trainDeparture.getTrainNumber()).toList());
+    assertEquals(90, trainDepartureRegistry.findTrainDeparture(1).getDelay());
+    assertNull(trainDepartureRegistry.findTrainDeparture(4));
+  }
+
+  @Test
+  @DisplayName("snapshot returns the cached snapshot while the registry is unchanged")
+  void snapshotReturnsCachedSnapshotWhileRegistryIsUnchanged() {
+    var snapshot = trainDepartureRegistry.snapshot();
+    assertSame(snapshot, trainDepartureRegistry.snapshot());
+    trainDepartureRegistry.addDelay(1, 90);
+    var updated = trainDepartureRegistry.snapshot();
+    assertEquals(1, updated.getVersion() - snapshot.getVersion());
+    assertEquals(0, snapshot.getTrainDepartures().get(0).getDelay());
+    assertEquals(1, updated.getTrainDepartures().get(2).getTrainNumber());
+  }
+
+  @Test
+  @DisplayName("snapshot taken during concurrent writes is consistent")
+  void snapshotTakenDuringConcurrentWritesIsConsistent() throws Exception {
+    Future<?> writer = executor.submit(() -> {
+      for (int i = 0; i < 5_000; i++) {
+        trainDepartureRegistry.addDelay(1, 1);
+        trainDepartureRegistry.addDelay(2, 1);
+      }
+    });
+    while (!writer.isDone()) {
+      var snapshot = trainDepartureRegistry.snapshot();
+      int delayOne = 0;
+      int delayTwo = 0;
+      for (var trainDeparture : snapshot.getTrainDepartures()) {
+        if (trainDeparture.getTrainNumber() == 1) {
+          delayOne = trainDeparture.getDelay();
+        } else if (trainDeparture.getTrainNumber() == 2) {
+          delayTwo = trainDeparture.getDelay();
+        }
+      }
+      assertEquals(3, snapshot.size());
+      assertTrue(delayOne == delayTwo || delayOne == delayTwo + 1);
+    }
+    writer.get();
+  }
+
+  @Test
+  @DisplayName("snapshots and pages read during writes never wait and keep their version")
+  void snapshotsReadDuringWritesKeepTheirVersion() throws Exception {
+    Future<?> writer = executor.submit(() -> {
+      for (int i = 0; i < 20_000; i++) {
+        trainDepartureRegistry.setTrack(2, 1 + i % 9);
+      }
+    });
+    do {
+      var snapshot = trainDepartureRegistry.snapshot();
+      String text = snapshot.toString();
+      var page = trainDepartureRegistry.upcomingTrainDepartures(LocalTime.of(0, 0), 1, 1);
+      assertEquals(2, page.getTrainDepartures().get(0).getTrainNumber());
+      assertTrue(page.getVersion() >= snapshot.getVersion());
+      assertEquals(text, snapshot.toString());
+    } while (!writer.isDone());
+    writer.get();
+    assertEquals(3 + 20_000, trainDepartureRegistry.version());
+  }
+
+  @Test
+  @DisplayName("concurrent addDelay calls never lose a delay")
+  void concurrentAddDelayCallsNeverLoseDelay() throws Exception {
+    List<Future<?>> futures = new ArrayList<>();
+    for (int thread = 0; thread < THREADS; thread++) {
+      futures.add(executor.submit(() -> {
+        for (int i = 0; i < 1_000; i++) {
+          trainDepartureRegistry.addDelay(1, 1);
+          trainDepartureRegistry.setTrack(1, 1 + i % 5);
+        }
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    assertEquals(String.valueOf(THREADS * 1_000) + " min",
+        trainDepartureRegistry.getAllFromTrainNumber(1).get("delay"));
+    assertEquals(3, trainDepartureRegistry.sortedByDepartureTimeWithDelay().size());
+  }
+
+  @Test
+  @DisplayName("concurrent adds and removes keep the indices consistent with the registry")
+  void concurrentAddsAndRemovesKeepIndicesConsistent() throws Exception {
+    List<Future<?>> futures = new ArrayList<>();
+    for (int thread = 0; thread < THREADS; thread++) {
+      int offset = 100 + thread * 1_000;
+      futures.add(executor.submit(() -> {
+        for (int i = 0; i < 1_000; i++) {
+          trainDepartureRegistry.newTrainDeparture(offset + i, "line", "destination",
+              LocalTime.of(1 + i % 22, i % 60));
+          trainDepartureRegistry.addDelay(offset + i, 1 + i % 30);
+          if (i % 2 == 0) {
+            trainDepartureRegistry.removeTrainDeparture(offset + i);
+          }
+        }
+      }));
+    }
+    futures.add(executor.submit(() -> {
+      for (int i = 0; i < 100; i++) {
+        trainDepartureRegistry.removeTrainDeparturesBeforeTime(LocalTime.of(0, 30));
+      }
+    }));
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    int size = trainDepartureRegistry.size();
+    assertEquals(size, trainDepartureRegistry.sortedByDepartureTime().size());
+    assertEquals(size, trainDepartureRegistry.sortedByDepartureTimeWithDelay().size());
+  }
+
+  @Test
+  @DisplayName("concurrent writes to different trains are published before they return")
+  void concurrentWritesArePublishedBeforeTheyReturn() throws Exception {
+    List<Future<?>> futures = new ArrayList<>();
+    for (int thread = 0; thread < THREADS; thread++) {
+      int offset = 100 + thread * 1_000;
+      futures.add(executor.submit(() -> {
+        for (int i = 0; i < 1_000; i++) {
+          trainDepartureRegistry.newTrainDeparture(offset + i, "line", "destination",
+              LocalTime.of(i % 24, i % 60));
+          int trainNumber = offset + i;
+          assertTrue(trainDepartureRegistry.snapshot().getTrainDepartures().stream()
+              .anyMatch(trainDeparture -> trainDeparture.getTrainNumber() == trainNumber));
+          trainDepartureRegistry.addDelay(offset + i, 1);
+          assertTrue(trainDepartureRegistry.version() >= 3 + 2L * (i + 1));
+        }
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    assertEquals(3 + THREADS * 2_000, trainDepartureRegistry.version());
+    assertEquals(3 + THREADS * 1_000,
+        trainDepartureRegistry.sortedByDepartureTimeWithDelay().size());
+  }
+}
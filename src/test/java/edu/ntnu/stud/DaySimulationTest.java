@@ -0,0 +1,126 @@
+package edu.ntnu.stud;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.stud.app.DaySimulation;
+import edu.ntnu.stud.app.SimulationReport;
+import edu.ntnu.stud.models.TimingWheelDepartureRegistry;
+import edu.ntnu.stud.models.TrainDepartureRegistry;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalTime;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+public class DaySimulationTest {
+
+  /**
+   * Creates a registry with a train departure every ten minutes of the day.
+   *
+   * @return the registry
+   */
+  private static TimingWheelDepartureRegistry timetable() {
+    var registry = new TimingWheelDepartureRegistry(new TrainDepartureRegistry());
+    for (int i = 0; i < 144; i++) {
+      registry.newTrainDeparture(i + 1, "L" + (i % 4), "destination" + (i % 7),
+          LocalTime.of(i / 6, i % 6 * 10));
+    }
+    return registry;
+  }
+
+  @Nested
+  @DisplayName("Positive tests for DaySimulation")
+  public class PositiveTests {
+
+    @Test
+    @DisplayName("A random day ticks every minute and removes every train")
+    void randomDayTicksEveryMinuteAndRemovesEveryTrain() {
+      var registry = timetable();
+      SimulationReport report = new DaySimulation(registry, 0).runRandom(7, 5);
+      assertEquals(24 * 60 - 1, report.getTicks());
+      assertEquals((24 * 60 - 1) * 60, report.getSimulatedSeconds());
+      assertEquals(144 - registry.size(), report.getEvicted());
+      assertTrue(report.getOperations() > 0);
+      assertTrue(report.getPeakHeapBytes() > 0);
+      assertTrue(report.evictionNanosAt(50) <= report.evictionNanosAt(99));
+    }
+
+    @Test
+    @DisplayName("The same seed gives the same workload")
+    void sameSeedGivesSameWorkload() {
+      var first = timetable();
+      var second = timetable();
+      SimulationReport firstReport = new DaySimulation(first, 0).runRandom(7, 5);
+      SimulationReport secondReport = new DaySimulation(second, 0).runRandom(7, 5);
+      assertEquals(firstReport.getOperations(), secondReport.getOperations());
+      assertEquals(firstReport.getFailed(), secondReport.getFailed());
+      assertEquals(first.sortedByDepartureTimeWithDelay(),
+          second.sortedByDepartureTimeWithDelay());
+    }
+
+    @Test
+    @DisplayName("Replaying a trace runs its commands and ticks on its time commands")
+    void replayingTraceRunsCommandsAndTicks() throws IOException {
+      var registry = timetable();
+      String trace = """
+          # morning
+          train edit addDelay 1 15
+          time 00:05
+          train edit setTrack 2 3
+          train edit addDelay 999 5
+          time 00:20
+          """;
+      SimulationReport report = new DaySimulation(registry, 0)
+          .replay(new BufferedReader(new StringReader(trace)));
+      assertEquals(3, report.getOperations());
+      assertEquals(1, report.getFailed());
+      assertEquals(2, report.getTicks());
+      assertEquals(2, report.getEvicted());
+      assertEquals(20 * 60, report.getSimulatedSeconds());
+    }
+
+    @Test
+    @DisplayName("The simulation is paced to the speed")
+    void simulationIsPacedToSpeed() throws IOException {
+      String trace = "time 00:10\n";
+      SimulationReport report = new DaySimulation(timetable(), 6000)
+          .replay(new BufferedReader(new StringReader(trace)));
+      assertTrue(report.getElapsedNanos() >= 100_000_000L);
+      assertTrue(report.speedUp() <= 6000);
+    }
+  }
+
+  @Nested
+  @DisplayName("Negative tests for DaySimulation")
+  public class NegativeTests {
+
+    @Test
+    @DisplayName("Constructor throws IllegalArgumentException on negative speed")
+    void constructorThrowsExceptionOnNegativeSpeed() {
+      assertThrows(IllegalArgumentException.class, () -> new DaySimulation(timetable(), -1));
+    }
+
+    @Test
+    @DisplayName("Running a simulation twice throws IllegalStateException")
+    void runningSimulationTwiceThrowsException() {
+      var simulation = new DaySimulation(timetable(), 0);
+      simulation.runRandom(1, 1);
+      assertThrows(IllegalStateException.class, () -> simulation.runRandom(1, 1));
+    }
+
+    @Test
+    @DisplayName("A time command going back in the trace is counted as failed")
+    void timeCommandGoingBackIsCountedAsFailed() throws IOException {
+      String trace = "time 01:00\ntime 00:30\n";
+      SimulationReport report = new DaySimulation(timetable(), 0)
+          .replay(new BufferedReader(new StringReader(trace)));
+      assertEquals(1, report.getTicks());
+      assertEquals(1, report.getFailed());
+      assertEquals(60 * 60, report.getSimulatedSeconds());
+    }
+  }
+}
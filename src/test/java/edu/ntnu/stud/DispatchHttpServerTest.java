@@ -0,0 +1,186 @@
+package edu.ntnu.stud;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.stud.app.DispatchHttpServer;
+import edu.ntnu.stud.models.ConcurrentTrainDepartureRegistry;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+public class DispatchHttpServerTest {
+  private final HttpClient client = HttpClient.newHttpClient();
+  private ConcurrentTrainDepartureRegistry registry;
+  private DispatchHttpServer server;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    registry = new ConcurrentTrainDepartureRegistry();
+    registry.newTrainDeparture(1, "A1", "Oslo", LocalTime.of(6, 0));
+    registry.newTrainDeparture(2, "A2", "Bergen \"Central\"", LocalTime.of(7, 30));
+    registry.newTrainDeparture(3, "A3", "Oslo", LocalTime.of(8, 0));
+    server = new DispatchHttpServer(registry, 0);
+    server.start();
+  }
+
+  @AfterEach
+  void tearDown() {
+    server.close();
+  }
+
+  /**
+   * Sends a request to the server.
+   *
+   * @param method      the method
+   * @param path        the path and query
+   * @param ifNoneMatch the ETag to send, or null
+   * @return the response
+   * @throws Exception if the request fails
+   */
+  private HttpResponse<String> send(String method, String path, String ifNoneMatch)
+      throws Exception {
+    var request = HttpRequest.newBuilder(
+            URI.create("http://localhost:" + server.getPort() + path))
+        .method(method, HttpRequest.BodyPublishers.noBody());
+    if (ifNoneMatch != null) {
+      request.header("If-None-Match", ifNoneMatch);
+    }
+    return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+  }
+
+  @Nested
+  @DisplayName("Positive tests for DispatchHttpServer")
+  public class PositiveTests {
+
+    @Test
+    @DisplayName("Departures are listed as JSON sorted by departure time with delay")
+    void departuresAreListedAsJson() throws Exception {
+      registry.addDelay(1, 120);
+      HttpResponse<String> response = send("GET", "/departures", null);
+      assertEquals(200, response.statusCode());
+      assertEquals("{\"version\":" + registry.version() + ",\"departures\":["
+          + "{\"trainNumber\":2,\"line\":\"A2\",\"destination\":\"Bergen \\\"Central\\\"\","
+          + "\"departureTime\":\"07:30\",\"delay\":0,\"departureTimeWithDelay\":\"07:30\","
+          + "\"track\":-1},"
+          + "{\"trainNumber\":1,\"line\":\"A1\",\"destination\":\"Oslo\","
+          + "\"departureTime\":\"06:00\",\"delay\":120,\"departureTimeWithDelay\":\"08:00\","
+          + "\"track\":-1},"
+          + "{\"trainNumber\":3,\"line\":\"A3\",\"destination\":\"Oslo\","
+          + "\"departureTime\":\"08:00\",\"delay\":0,\"departureTimeWithDelay\":\"08:00\","
+          + "\"track\":-1}]}", response.body());
+    }
+
+    @Test
+    @DisplayName("Departures are filtered by time, page and destination")
+    void departuresAreFilteredByTimePageAndDestination() throws Exception {
+      String upcoming = send("GET", "/departures?from=07:00&count=1", null).body();
+      assertTrue(upcoming.contains("\"trainNumber\":2"));
+      assertFalse(upcoming.contains("\"trainNumber\":3"));
+      String oslo = send("GET", "/departures?destination=Oslo", null).body();
+      assertTrue(oslo.contains("\"trainNumber\":1") && oslo.contains("\"trainNumber\":3"));
+      assertFalse(oslo.contains("\"trainNumber\":2"));
+    }
+
+    @Test
+    @DisplayName("Departures are filtered by destination before the page is cut")
+    void departuresAreFilteredByDestinationBeforeThePageIsCut() throws Exception {
+      registry.newTrainDeparture(4, "A4", "Oslo", LocalTime.of(9, 0));
+      String first = send("GET", "/departures?destination=Oslo&from=07:00&count=1", null)
+          .body();
+      assertTrue(first.contains("\"trainNumber\":3"));
+      assertFalse(first.contains("\"trainNumber\":2") || first.contains("\"trainNumber\":4"));
+      String second = send("GET", "/departures?destination=Oslo&from=07:00&skip=1&count=1",
+          null).body();
+      assertTrue(second.contains("\"trainNumber\":4"));
+      assertFalse(second.contains("\"trainNumber\":3"));
+      String none = send("GET", "/departures?destination=Moss&from=00:00&count=1", null).body();
+      assertEquals("{\"version\":" + registry.version() + ",\"departures\":[]}", none);
+    }
+
+    @Test
+    @DisplayName("Unchanged registry is answered with 304 Not Modified")
+    void unchangedRegistryIsAnsweredWithNotModified() throws Exception {
+      HttpResponse<String> first = send("GET", "/departures/1", null);
+      String etag = first.headers().firstValue("ETag").orElseThrow();
+      assertEquals(304, send("GET", "/departures/1", etag).statusCode());
+      assertEquals(200, send("POST", "/departures/1/track?track=4", null).statusCode());
+      HttpResponse<String> changed = send("GET", "/departures/1", etag);
+      assertEquals(200, changed.statusCode());
+      assertTrue(changed.body().contains("\"track\":4"));
+    }
+
+    @Test
+    @DisplayName("ETags of a restarted server are not taken as current")
+    void etagsOfRestartedServerAreNotTakenAsCurrent() throws Exception {
+      String etag = send("GET", "/departures", null).headers().firstValue("ETag").orElseThrow();
+      assertTrue(etag.endsWith("-" + registry.version() + "\""), etag);
+      server.close();
+      registry = new ConcurrentTrainDepartureRegistry();
+      registry.newTrainDeparture(5, "A5", "Moss", LocalTime.of(6, 0));
+      registry.newTrainDeparture(6, "A6", "Moss", LocalTime.of(7, 0));
+      registry.newTrainDeparture(7, "A7", "Moss", LocalTime.of(8, 0));
+      server = new DispatchHttpServer(registry, 0);
+      server.start();
+      HttpResponse<String> restarted = send("GET", "/departures", etag);
+      assertEquals(200, restarted.statusCode());
+      assertTrue(restarted.body().contains("\"trainNumber\":5"));
+    }
+
+    @Test
+    @DisplayName("Delay is added by POST")
+    void delayIsAddedByPost() throws Exception {
+      assertEquals(200, send("POST", "/departures/3/delay?minutes=15", null).statusCode());
+      assertEquals(LocalTime.of(8, 15), registry.snapshot().findTrainDeparture(3)
+          .departureTimeWithDelay());
+    }
+  }
+
+  @Nested
+  @DisplayName("Negative tests for DispatchHttpServer")
+  public class NegativeTests {
+
+    @Test
+    @DisplayName("Unknown train numbers and paths give 404")
+    void unknownTrainNumbersAndPathsGiveNotFound() throws Exception {
+      assertEquals(404, send("GET", "/departures/99", null).statusCode());
+      assertEquals(404, send("POST", "/departures/99/delay?minutes=5", null).statusCode());
+      assertEquals(404, send("GET", "/departures/1/line", null).statusCode());
+    }
+
+    @Test
+    @DisplayName("Invalid values give 400 with the reason")
+    void invalidValuesGiveBadRequest() throws Exception {
+      HttpResponse<String> response = send("POST", "/departures/1/delay?minutes=0", null);
+      assertEquals(400, response.statusCode());
+      assertTrue(response.body().startsWith("{\"error\":"));
+      assertEquals(400, send("POST", "/departures/1/track", null).statusCode());
+      assertEquals(400, send("GET", "/departures?from=7", null).statusCode());
+      assertEquals(400, send("GET", "/departures?destination=Oslo&from=07:00&count=0", null)
+          .statusCode());
+    }
+
+    @Test
+    @DisplayName("Wrong methods give 405")
+    void wrongMethodsGiveMethodNotAllowed() throws Exception {
+      assertEquals(405, send("POST", "/departures", null).statusCode());
+      assertEquals(405, send("GET", "/departures/1/delay?minutes=5", null).statusCode());
+    }
+
+    @Test
+    @DisplayName("Constructor throws IllegalArgumentException on null registry")
+    void constructorThrowsExceptionOnNullRegistry() {
+      assertThrows(IllegalArgumentException.class, () -> new DispatchHttpServer(null, 0));
+    }
+  }
+}
@@ -0,0 +1,160 @@
+package edu.ntnu.stud;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.stud.models.InstrumentedDepartureRegistry;
+import edu.ntnu.stud.models.TrainDepartureRegistry;
+import edu.ntnu.stud.utils.DispatchMetrics;
+import edu.ntnu.stud.utils.LatencyHistogram;
+import edu.ntnu.stud.view.UserInterface;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Random;
+import javax.management.AttributeNotFoundException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+public class DispatchMetricsTest {
+
+  @Nested
+  @DisplayName("Positive tests for DispatchMetrics")
+  public class PositiveTests {
+
+    @Test
+    @DisplayName("Percentiles are within the bucket precision of the exact values")
+    void percentilesAreWithinBucketPrecision() {
+      var histogram = new LatencyHistogram();
+      var random = new Random(24);
+      long[] values = new long[100_000];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = (long) Math.exp(random.nextDouble() * 20);
+        histogram.record(values[i]);
+      }
+      Arrays.sort(values);
+      for (double percentile : new double[] {50, 90, 99, 99.9}) {
+        long exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+        long estimate = histogram.valueAtPercentile(percentile);
+        assertTrue(estimate >= exact && estimate <= exact * 1.04 + 1,
+            percentile + ": " + exact + " vs " + estimate);
+      }
+      assertEquals(values[values.length - 1], histogram.valueAtPercentile(100));
+      assertEquals(values[values.length - 1], histogram.getMax());
+      assertEquals(values.length, histogram.getCount());
+    }
+
+    @Test
+    @DisplayName("Small values are recorded exactly, and reset clears the histogram")
+    void smallValuesAreExactAndResetClears() {
+      var histogram = new LatencyHistogram();
+      histogram.record(3);
+      histogram.record(5);
+      histogram.record(-7);
+      assertEquals(0, histogram.valueAtPercentile(0));
+      assertEquals(3, histogram.valueAtPercentile(50));
+      assertEquals(5, histogram.valueAtPercentile(100));
+      assertEquals(8 / 3.0, histogram.getMean(), 1e-9);
+      histogram.reset();
+      assertEquals(0, histogram.getCount());
+      assertEquals(0, histogram.valueAtPercentile(99));
+    }
+
+    @Test
+    @DisplayName("The instrumented registry times operations and publishes gauges")
+    void instrumentedRegistryTimesOperationsAndPublishesGauges() throws Exception {
+      var metrics = new DispatchMetrics();
+      var registry = new InstrumentedDepartureRegistry(new TrainDepartureRegistry(), metrics);
+      registry.newTrainDeparture(1, "line", "destination", LocalTime.of(6, 0));
+      registry.newTrainDeparture(2, "line", "destination", LocalTime.of(7, 0));
+      assertThrows(IllegalArgumentException.class, () -> registry.addDelay(3, 5));
+      registry.addDelay(1, 5);
+      assertEquals(2L, metrics.getAttribute("registry.addTrainDeparture.count"));
+      assertEquals(2L, metrics.getAttribute("registry.addDelay.count"));
+      assertEquals(2L, metrics.getAttribute("registry.size"));
+      assertTrue((Long) metrics.getAttribute("registry.indexBytes") > 0);
+      assertTrue((Long) metrics.getAttribute("registry.addDelay.p99Nanos") > 0);
+      assertTrue((Double) metrics.getAttribute("registry.addDelay.ratePerSecond") > 0);
+    }
+
+    @Test
+    @DisplayName("Commands are timed per pattern")
+    void commandsAreTimedPerPattern() throws Exception {
+      var metrics = new DispatchMetrics();
+      var userInterface = new UserInterface(new TrainDepartureRegistry(),
+          new PrintStream(OutputStream.nullOutputStream()));
+      userInterface.instrument(metrics);
+      userInterface.runHeadless("train add 1 A1 Oslo 06:00");
+      userInterface.runHeadless("train edit addDelay 1 5");
+      userInterface.runHeadless("train edit addDelay 1 5");
+      userInterface.runHeadless("no such command");
+      assertEquals(1L, metrics.getAttribute("command.train.add.int.word.word.time.count"));
+      assertEquals(2L, metrics.getAttribute("command.train.edit.addDelay.int.int.count"));
+      assertEquals(1L, metrics.getAttribute("command.unknown.count"));
+    }
+
+    @Test
+    @DisplayName("The metrics are published on the platform MBean server")
+    void metricsArePublishedOnPlatformMBeanServer() throws Exception {
+      var metrics = new DispatchMetrics();
+      metrics.histogram("test").record(1000);
+      metrics.gauge("answer", () -> 42);
+      metrics.register();
+      try {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        var name = new ObjectName(DispatchMetrics.OBJECT_NAME);
+        assertEquals(42L, server.getAttribute(name, "answer"));
+        assertEquals(1L, server.getAttribute(name, "test.count"));
+        assertTrue(Arrays.stream(server.getMBeanInfo(name).getAttributes())
+            .map(MBeanAttributeInfo::getName)
+            .anyMatch("test.p999Nanos"::equals));
+        server.invoke(name, "reset", null, null);
+        assertEquals(0L, server.getAttribute(name, "test.count"));
+      } finally {
+        metrics.unregister();
+      }
+    }
+  }
+
+  @Nested
+  @DisplayName("Negative tests for DispatchMetrics")
+  public class NegativeTests {
+
+    @Test
+    @DisplayName("Reading an unknown attribute throws AttributeNotFoundException")
+    void readingUnknownAttributeThrowsException() {
+      var metrics = new DispatchMetrics();
+      metrics.histogram("test");
+      assertThrows(AttributeNotFoundException.class, () -> metrics.getAttribute("test.p42"));
+      assertThrows(AttributeNotFoundException.class, () -> metrics.getAttribute("missing"));
+    }
+
+    @Test
+    @DisplayName("Publishing twice under the same name throws IllegalStateException")
+    void publishingTwiceThrowsException() {
+      var first = new DispatchMetrics();
+      var second = new DispatchMetrics();
+      first.register();
+      try {
+        assertThrows(IllegalStateException.class, second::register);
+      } finally {
+        first.unregister();
+      }
+    }
+
+    @Test
+    @DisplayName("A percentile out of range throws IllegalArgumentException")
+    void percentileOutOfRangeThrowsException() {
+      assertThrows(IllegalArgumentException.class, () -> {
+        new LatencyHistogram().valueAtPercentile(101);
+      });
+    }
+  }
+}
@@ -0,0 +1,203 @@
+package edu.ntnu.stud;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.stud.app.DispatchServer;
+import edu.ntnu.stud.models.ConcurrentTrainDepartureRegistry;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+public class DispatchServerTest {
+  private ConcurrentTrainDepartureRegistry registry;
+  private DispatchServer server;
+
+  /**
+   * This class represents a client connected to the server over loopback.
+   */
+  private class Client implements AutoCloseable {
+    private final Socket socket;
+    private final PrintWriter out;
+    private final BufferedReader in;
+
+    Client() throws IOException {
+      socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+      out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+      in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+          StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sends a command and reads the response up to the status line.
+     *
+     * @param command the command
+     * @return the lines of the response, the status line last
+     * @throws IOException if the connection fails
+     */
+    List<String> send(String command) throws IOException {
+      out.println(command);
+      List<String> response = new ArrayList<>();
+      String line;
+      do {
+        line = in.readLine();
+        response.add(line);
+      } while (line != null && !line.equals("OK") && !line.startsWith("ERROR"));
+      return response;
+    }
+
+    /**
+     * Sends a command and reads the status line.
+     *
+     * @param command the command
+     * @return the status line
+     * @throws IOException if the connection fails
+     */
+    String status(String command) throws IOException {
+      List<String> response = send(command);
+      return response.get(response.size() - 1);
+    }
+
+    @Override
+    public void close() throws IOException {
+      socket.close();
+    }
+  }
+
+  @BeforeEach
+  void setUp() throws IOException {
+    registry = new ConcurrentTrainDepartureRegistry();
+    server = new DispatchServer(registry, 0);
+    server.start();
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    server.close();
+  }
+
+  @Nested
+  @DisplayName("Positive tests for DispatchServer")
+  public class PositiveTests {
+
+    @Test
+    @DisplayName("Connections share the registry")
+    void connectionsShareTheRegistry() throws IOException {
+      try (var operator = new Client(); var board = new Client()) {
+        assertEquals("OK", operator.status("train add 1 A1 Oslo 06:00"));
+        assertEquals("OK", operator.status("train edit addDelay 1 5"));
+        List<String> response = board.send("train search trainNumber 1");
+        assertTrue(String.join("\n", response).contains("Oslo"));
+        assertEquals("OK", response.get(response.size() - 1));
+      }
+    }
+
+    @Test
+    @DisplayName("Many connections are served at the same time")
+    void manyConnectionsAreServedAtTheSameTime() throws IOException {
+      List<Client> clients = new ArrayList<>();
+      try {
+        for (int i = 0; i < 200; i++) {
+          clients.add(new Client());
+        }
+        for (int i = 0; i < clients.size(); i++) {
+          assertEquals("OK", clients.get(i).status("train add " + (i + 1) + " L D 12:00"));
+        }
+        assertEquals(200, registry.size());
+        assertEquals(200, server.connectionCount());
+      } finally {
+        for (Client client : clients) {
+          client.close();
+        }
+      }
+    }
+
+    @Test
+    @DisplayName("Current time is kept between commands")
+    void currentTimeIsKeptBetweenCommands() throws IOException {
+      try (var client = new Client()) {
+        assertEquals("OK", client.status("time 10:00"));
+        assertTrue(client.status("train add 1 A1 Oslo 09:00").startsWith("ERROR"));
+        assertEquals("OK", client.status("train add 1 A1 Oslo 11:00"));
+      }
+    }
+
+    @Test
+    @DisplayName("Current time is shared by every connection")
+    void currentTimeIsSharedByEveryConnection() throws IOException {
+      try (var operator = new Client(); var board = new Client()) {
+        assertEquals("OK", board.status("train list"));
+        assertEquals("OK", operator.status("train add 1 A1 Oslo 09:30"));
+        assertEquals("OK", operator.status("time 10:00"));
+        assertEquals(0, registry.size());
+        assertTrue(board.status("train add 2 A2 Bergen 09:00").startsWith("ERROR"));
+        assertTrue(board.status("time 09:00").startsWith("ERROR"));
+        assertEquals("OK", board.status("time 11:00"));
+        assertTrue(operator.status("train add 3 A3 Moss 10:30").startsWith("ERROR"));
+        try (var late = new Client()) {
+          assertTrue(late.status("train add 4 A4 Hamar 10:30").startsWith("ERROR"));
+        }
+      }
+    }
+
+    @Test
+    @DisplayName("Commands sent back to back are answered in order")
+    void commandsSentBackToBackAreAnsweredInOrder() throws IOException {
+      try (var client = new Client()) {
+        client.out.print("train add 1 A1 Oslo 06:00\nfly away\ntrain add 2 A2 Oslo 07:00\n");
+        client.out.flush();
+        List<String> statuses = new ArrayList<>();
+        String line;
+        while (statuses.size() < 3 && (line = client.in.readLine()) != null) {
+          if (line.equals("OK") || line.startsWith("ERROR")) {
+            statuses.add(line);
+          }
+        }
+        assertEquals(List.of("OK", "ERROR Command unknown", "OK"), statuses);
+      }
+    }
+
+    @Test
+    @DisplayName("Exit closes the connection")
+    void exitClosesTheConnection() throws IOException {
+      try (var client = new Client()) {
+        assertEquals("OK", client.status("exit"));
+        assertNull(client.in.readLine());
+      }
+    }
+  }
+
+  @Nested
+  @DisplayName("Negative tests for DispatchServer")
+  public class NegativeTests {
+
+    @Test
+    @DisplayName("Failed commands are answered with ERROR and the reason")
+    void failedCommandsAreAnsweredWithError() throws IOException {
+      try (var client = new Client()) {
+        assertEquals("ERROR Command unknown", client.status("fly away"));
+        assertTrue(client.status("train add prompt").startsWith("ERROR Command needs a user"));
+        assertEquals("OK", client.status("train list"));
+      }
+    }
+
+    @Test
+    @DisplayName("Constructor throws IllegalArgumentException on null registry")
+    void constructorThrowsExceptionOnNullRegistry() {
+      assertThrows(IllegalArgumentException.class, () -> new DispatchServer(null, 0));
+    }
+  }
+}
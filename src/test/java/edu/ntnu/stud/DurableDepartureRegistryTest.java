@@ -0,0 +1,223 @@
+package edu.ntnu.stud;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.stud.io.DurableDepartureRegistry;
+import edu.ntnu.stud.models.TrainDepartureRegistry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class DurableDepartureRegistryTest {
+
+  @TempDir
+  Path directory;
+
+  /**
+   * Opens the registry in the data directory.
+   *
+   * @param snapshotInterval the number of log records between snapshots
+   * @return the registry
+   * @throws IOException if the data directory cannot be opened
+   */
+  private DurableDepartureRegistry open(int snapshotInterval) throws IOException {
+    return new DurableDepartureRegistry(directory, new TrainDepartureRegistry(),
+        snapshotInterval);
+  }
+
+  /**
+   * Applies one of every mutation to the registry.
+   *
+   * @param registry the registry
+   */
+  private static void mutate(DurableDepartureRegistry registry) {
+    registry.newTrainDeparture(1, "line", "destination", LocalTime.of(0, 0));
+    registry.newTrainDeparture(2, "line2", "destination2", LocalTime.of(0, 30));
+    registry.newTrainDeparture(3, "line3", "destination", LocalTime.of(1, 0));
+    registry.newTrainDeparture(4, "line4", "destination4", LocalTime.of(2, 0));
+    registry.addDelay(3, 90);
+    registry.setTrack(2, 5);
+    registry.removeTrainDeparture(4);
+    registry.removeTrainDeparturesBeforeTime(LocalTime.of(0, 10));
+  }
+
+  /**
+   * Lists the log segments in the data directory.
+   *
+   * @return the log segments sorted by name
+   * @throws IOException if the data directory cannot be listed
+   */
+  private List<Path> segments() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(file -> file.getFileName().toString().endsWith(".log"))
+          .sorted()
+          .toList();
+    }
+  }
+
+  @Nested
+  @DisplayName("Positive tests for DurableDepartureRegistry")
+  public class PositiveTests {
+
+    @Test
+    @DisplayName("Reopening replays the log")
+    void reopeningReplaysTheLog() throws IOException {
+      try (var registry = open(1000)) {
+        mutate(registry);
+      }
+      try (var registry = open(1000)) {
+        assertEquals(List.of(2, 3), registry.sortedByDepartureTimeWithDelay());
+        assertEquals("5", registry.getAllFromTrainNumber(2).get("track"));
+        assertEquals("90 min", registry.getAllFromTrainNumber(3).get("delay"));
+      }
+    }
+
+    @Test
+    @DisplayName("Reopening loads the snapshot and deletes covered log segments")
+    void reopeningLoadsTheSnapshotAndDeletesCoveredLogSegments() throws IOException {
+      try (var registry = open(3)) {
+        mutate(registry);
+      }
+      assertTrue(Files.exists(directory.resolve("snapshot.bin")));
+      assertEquals(1, segments().size());
+      try (var registry = open(3)) {
+        assertEquals(List.of(2, 3), registry.sortedByDepartureTimeWithDelay());
+        registry.addDelay(2, 1);
+      }
+      try (var registry = open(3)) {
+        assertEquals("1 min", registry.getAllFromTrainNumber(2).get("delay"));
+      }
+    }
+
+    @Test
+    @DisplayName("Reopening discards a torn record at the end of the log")
+    void reopeningDiscardsTornRecordAtEndOfLog() throws IOException {
+      try (var registry = open(1000)) {
+        mutate(registry);
+      }
+      Path segment = segments().get(segments().size() - 1);
+      long size = Files.size(segment);
+      Files.write(segment, new byte[] {0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+      try (var registry = open(1000)) {
+        assertEquals(List.of(2, 3), registry.sortedByDepartureTimeWithDelay());
+        assertEquals(size, Files.size(segment));
+        registry.newTrainDeparture(5, "line5", "destination5", LocalTime.of(3, 0));
+      }
+      try (var registry = open(1000)) {
+        assertTrue(registry.containsTrainNumber(5));
+      }
+    }
+
+    @Test
+    @DisplayName("Failed mutations are not logged")
+    void failedMutationsAreNotLogged() throws IOException {
+      try (var registry = open(1000)) {
+        registry.newTrainDeparture(1, "line", "destination", LocalTime.of(0, 0));
+        assertThrows(IllegalArgumentException.class, () -> {
+          registry.newTrainDeparture(1, "line", "destination", LocalTime.of(0, 0));
+        });
+      }
+      try (var registry = open(1000)) {
+        assertEquals(1, registry.size());
+      }
+    }
+
+    @Test
+    @DisplayName("Reopening keeps departures removed before a time with a fraction of a second")
+    void reopeningKeepsDeparturesRemovedBeforeFractionalTime() throws IOException {
+      try (var registry = open(1000)) {
+        registry.newTrainDeparture(1, "line", "destination", LocalTime.of(10, 0));
+        registry.newTrainDeparture(2, "line2", "destination2", LocalTime.of(10, 1));
+        registry.removeTrainDeparturesBeforeTime(LocalTime.of(10, 0, 0, 500_000_000));
+        assertEquals(List.of(2), registry.sortedByDepartureTimeWithDelay());
+      }
+      try (var registry = open(1000)) {
+        assertEquals(List.of(2), registry.sortedByDepartureTimeWithDelay());
+      }
+    }
+
+    @Test
+    @DisplayName("Concurrent mutations of one train departure are all applied and logged")
+    void concurrentMutationsOfOneTrainDepartureAreAllAppliedAndLogged() throws Exception {
+      try (var registry = open(50)) {
+        registry.newTrainDeparture(1, "line", "destination", LocalTime.of(0, 0));
+        Thread[] writers = new Thread[4];
+        for (int i = 0; i < writers.length; i++) {
+          int trainNumber = i + 2;
+          writers[i] = new Thread(() -> {
+            registry.newTrainDeparture(trainNumber, "line", "destination", LocalTime.of(1, 0));
+            for (int j = 0; j < 100; j++) {
+              registry.addDelay(1, 1);
+              registry.setTrack(trainNumber, j + 1);
+            }
+          });
+          writers[i].start();
+        }
+        for (Thread writer : writers) {
+          writer.join();
+        }
+        assertEquals("400 min", registry.getAllFromTrainNumber(1).get("delay"));
+      }
+      try (var registry = open(50)) {
+        assertEquals("400 min", registry.getAllFromTrainNumber(1).get("delay"));
+        assertEquals("100", registry.getAllFromTrainNumber(5).get("track"));
+      }
+    }
+  }
+
+  @Nested
+  @DisplayName("Negative tests for DurableDepartureRegistry")
+  public class NegativeTests {
+
+    @Test
+    @DisplayName("Constructor throws IllegalArgumentException on registry not empty")
+    void constructorThrowsExceptionOnRegistryNotEmpty() {
+      var trainDepartureRegistry = new TrainDepartureRegistry();
+      trainDepartureRegistry.newTrainDeparture(1, "line", "destination", LocalTime.of(0, 0));
+      assertThrows(IllegalArgumentException.class, () -> {
+        new DurableDepartureRegistry(directory, trainDepartureRegistry);
+      });
+    }
+
+    @Test
+    @DisplayName("Mutations throw IllegalStateException after close")
+    void mutationsThrowExceptionAfterClose() throws IOException {
+      var registry = open(1000);
+      registry.close();
+      assertThrows(IllegalStateException.class, () -> {
+        registry.newTrainDeparture(1, "line", "destination", LocalTime.of(0, 0));
+      });
+      assertFalse(registry.containsTrainNumber(1));
+    }
+
+    @Test
+    @DisplayName("Rejected mutations are not logged and leave the registry unchanged")
+    void rejectedMutationsAreNotLogged() throws IOException {
+      try (var registry = open(1000)) {
+        registry.newTrainDeparture(1, "line", "destination", LocalTime.of(0, 0));
+        registry.addDelay(1, Integer.MAX_VALUE);
+        assertThrows(IllegalArgumentException.class, () -> registry.addDelay(1, 1));
+        assertThrows(IllegalArgumentException.class, () -> registry.addDelay(2, 1));
+        assertThrows(IllegalArgumentException.class, () -> registry.setTrack(1, 0));
+        assertThrows(IllegalArgumentException.class, () -> registry.setTrack(2, 1));
+        assertThrows(IllegalArgumentException.class, () -> registry.removeTrainDeparture(2));
+        assertEquals(Integer.MAX_VALUE + " min", registry.getAllFromTrainNumber(1).get("delay"));
+      }
+      try (var registry = open(1000)) {
+        assertEquals(Integer.MAX_VALUE + " min", registry.getAllFromTrainNumber(1).get("delay"));
+        assertEquals("", registry.getAllFromTrainNumber(1).get("track"));
+      }
+    }
+  }
+}
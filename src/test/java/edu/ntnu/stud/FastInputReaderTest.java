@@ -0,0 +1,103 @@
+package edu.ntnu.stud;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import edu.ntnu.stud.utils.FastInputReader;
+import edu.ntnu.stud.utils.UserInput;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+public class FastInputReaderTest {
+
+  /**
+   * Creates a stream of text.
+   *
+   * @param text the text
+   * @return the stream
+   */
+  private static InputStream stream(String text) {
+    return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Nested
+  @DisplayName("Positive tests for FastInputReader")
+  public class PositiveTests {
+
+    @Test
+    @DisplayName("Lines are read without line ends")
+    void linesAreReadWithoutLineEnds() {
+      var reader = new FastInputReader(stream("first\r\n\nTromsø\nlast"));
+      assertEquals("first", reader.readLine());
+      assertEquals("", reader.readLine());
+      assertEquals("Tromsø", reader.readLine());
+      assertEquals("last", reader.readLine());
+      assertNull(reader.readLine());
+    }
+
+    @Test
+    @DisplayName("Lines longer than the read buffer are read whole")
+    void linesLongerThanReadBufferAreReadWhole() {
+      String longLine = "x".repeat(200_000);
+      var reader = new FastInputReader(stream(longLine + "\nnext\n"));
+      assertEquals(longLine, reader.readLine());
+      assertEquals("next", reader.readLine());
+    }
+
+    @Test
+    @DisplayName("Numbers are parsed from lines")
+    void numbersAreParsedFromLines() {
+      var reader = new FastInputReader(stream("42\n -7 \n+3\n2147483647\n-2147483648\n"));
+      assertEquals(42, reader.readIntLine());
+      assertEquals(-7, reader.readIntLine());
+      assertEquals(3, reader.readIntLine());
+      assertEquals(Integer.MAX_VALUE, reader.readIntLine());
+      assertEquals(Integer.MIN_VALUE, reader.readIntLine());
+    }
+
+    @Test
+    @DisplayName("UserInput retries until a number is entered")
+    void userInputRetriesUntilNumberIsEntered() {
+      UserInput.setSource(stream("four\n\n4\nOslo\n"));
+      try {
+        assertEquals(4, UserInput.readInt());
+        assertEquals("Oslo", UserInput.readString());
+      } finally {
+        UserInput.setSource(System.in);
+      }
+    }
+  }
+
+  @Nested
+  @DisplayName("Negative tests for FastInputReader")
+  public class NegativeTests {
+
+    @Test
+    @DisplayName("Lines that are not numbers give NOT_A_NUMBER")
+    void linesThatAreNotNumbersGiveNotANumber() {
+      var reader = new FastInputReader(stream("four\n\n-\n12a\n2147483648\n"));
+      for (int i = 0; i < 5; i++) {
+        assertEquals(FastInputReader.NOT_A_NUMBER, reader.readIntLine());
+      }
+    }
+
+    @Test
+    @DisplayName("Reading a number throws NoSuchElementException at end of input")
+    void readingNumberThrowsExceptionAtEndOfInput() {
+      var reader = new FastInputReader(stream(""));
+      assertThrows(NoSuchElementException.class, reader::readIntLine);
+    }
+
+    @Test
+    @DisplayName("Constructor throws IllegalArgumentException on null source")
+    void constructorThrowsExceptionOnNullSource() {
+      assertThrows(IllegalArgumentException.class, () -> new FastInputReader(null));
+    }
+  }
+}
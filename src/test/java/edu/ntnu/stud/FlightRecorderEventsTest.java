@@ -0,0 +1,143 @@
+package edu.ntnu.stud;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.stud.models.FlightRecordedDepartureRegistry;
+import edu.ntnu.stud.models.TrainDepartureRegistry;
+import edu.ntnu.stud.view.UserInterface;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FlightRecorderEventsTest {
+  private static final String[] EVENTS = {"edu.ntnu.stud.RegistryMutation",
+      "edu.ntnu.stud.Eviction", "edu.ntnu.stud.BoardRender", "edu.ntnu.stud.Command"};
+
+  @TempDir
+  Path directory;
+
+  /**
+   * Runs some dispatching in a flight recording, and reads back the events of this project.
+   *
+   * @param enable true to enable the events of this project in the recording
+   * @return the recorded events of this project
+   * @throws IOException if the recording cannot be written or read
+   */
+  private List<RecordedEvent> record(boolean enable) throws IOException {
+    Path file = directory.resolve("dispatch.jfr");
+    try (var recording = new Recording()) {
+      if (enable) {
+        for (String event : EVENTS) {
+          recording.enable(event).withoutThreshold();
+        }
+      }
+      recording.start();
+      var registry = new FlightRecordedDepartureRegistry(new TrainDepartureRegistry());
+      registry.newTrainDeparture(1, "L1", "Oslo", LocalTime.of(6, 0));
+      assertThrows(IllegalArgumentException.class, () -> registry.addDelay(2, 5));
+      var userInterface = new UserInterface(registry,
+          new PrintStream(OutputStream.nullOutputStream()));
+      userInterface.runHeadless("train add 2 L2 Bergen 07:00");
+      userInterface.runHeadless("train edit setTrack 2 4");
+      userInterface.runHeadless("train informationBoard");
+      userInterface.runHeadless("time 06:30");
+      userInterface.runHeadless("no such command");
+      recording.stop();
+      recording.dump(file);
+    }
+    return RecordingFile.readAllEvents(file).stream()
+        .filter(event -> event.getEventType().getName().startsWith("edu.ntnu.stud."))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Keeps the events of one type.
+   *
+   * @param events the events
+   * @param name   the name of the event type
+   * @return the events of the type, in recorded order
+   */
+  private static List<RecordedEvent> ofType(List<RecordedEvent> events, String name) {
+    return events.stream()
+        .filter(event -> event.getEventType().getName().equals(name))
+        .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime()))
+        .collect(Collectors.toList());
+  }
+
+  @Nested
+  @DisplayName("Positive tests for the flight recorder events")
+  public class PositiveTests {
+
+    @Test
+    @DisplayName("Enabled events carry the train number, operation, duration and size")
+    void enabledEventsCarryTheirFields() throws IOException {
+      List<RecordedEvent> events = record(true);
+
+      List<RecordedEvent> mutations = ofType(events, "edu.ntnu.stud.RegistryMutation");
+      assertEquals(List.of("newTrainDeparture", "addDelay", "newTrainDeparture", "setTrack"),
+          mutations.stream().map(event -> event.getString("operation"))
+              .collect(Collectors.toList()));
+      assertEquals(1, mutations.get(0).getInt("trainNumber"));
+      assertEquals(1, mutations.get(0).getInt("registrySize"));
+      assertTrue(mutations.get(0).getBoolean("succeeded"));
+      assertFalse(mutations.get(1).getBoolean("succeeded"));
+      assertEquals(2, mutations.get(3).getInt("trainNumber"));
+      assertEquals(2, mutations.get(3).getInt("registrySize"));
+      assertFalse(mutations.get(3).getDuration().isNegative());
+
+      List<RecordedEvent> evictions = ofType(events, "edu.ntnu.stud.Eviction");
+      assertEquals(1, evictions.size());
+      assertEquals(1, evictions.get(0).getInt("evictedCount"));
+      assertEquals(1, evictions.get(0).getInt("registrySize"));
+      assertEquals("06:30", evictions.get(0).getString("beforeTime"));
+
+      List<RecordedEvent> renders = ofType(events, "edu.ntnu.stud.BoardRender");
+      assertEquals(1, renders.size());
+      assertEquals("information", renders.get(0).getString("board"));
+      assertEquals(2, renders.get(0).getInt("departureCount"));
+
+      List<RecordedEvent> commands = ofType(events, "edu.ntnu.stud.Command");
+      assertEquals(5, commands.size());
+      assertEquals("train edit setTrack <int> <int>", commands.get(1).getString("pattern"));
+      assertEquals("train edit setTrack 2 4", commands.get(1).getString("command"));
+      assertTrue(commands.get(1).getBoolean("succeeded"));
+      assertNull(commands.get(4).getString("pattern"));
+      assertFalse(commands.get(4).getBoolean("succeeded"));
+    }
+  }
+
+  @Nested
+  @DisplayName("Negative tests for the flight recorder events")
+  public class NegativeTests {
+
+    @Test
+    @DisplayName("The events are not recorded unless a recording enables them")
+    void eventsAreDisabledByDefault() throws IOException {
+      assertTrue(record(false).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Wrapping a null registry throws IllegalArgumentException")
+    void wrappingNullRegistryThrowsException() {
+      assertThrows(IllegalArgumentException.class, () -> {
+        new FlightRecordedDepartureRegistry(null);
+      });
+    }
+  }
+}
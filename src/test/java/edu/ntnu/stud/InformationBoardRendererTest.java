@@ -0,0 +1,99 @@
+package edu.ntnu.stud;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import edu.ntnu.stud.models.TrainDeparture;
+import edu.ntnu.stud.models.TrainDepartureSnapshot;
+import edu.ntnu.stud.view.InformationBoardRenderer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class InformationBoardRendererTest {
+  private ByteArrayOutputStream output;
+  private InformationBoardRenderer renderer;
+
+  @BeforeEach
+  void setUp() {
+    output = new ByteArrayOutputStream();
+    renderer = new InformationBoardRenderer(Channels.newChannel(output));
+  }
+
+  /**
+   * Formats the board the way the user interface did before the renderer, with printf.
+   *
+   * @param currentTime     the current time
+   * @param trainDepartures the rows of the board
+   * @return the formatted board
+   */
+  private static String formatted(LocalTime currentTime, List<TrainDeparture> trainDepartures) {
+    var board = new StringBuilder();
+    board.append(String.format("%-56s%s\n", "Information board",
+        "Current time " + currentTime));
+    board.append("-".repeat(75)).append("\n");
+    board.append(String.format("%-12s%-11s%-18s%-16s%-12s%-11s\n",
+        "Train", "Line", "Destination", "Departure", "Track", "Delay"));
+    board.append("-".repeat(75)).append("\n");
+    for (TrainDeparture trainDeparture : trainDepartures) {
+      HashMap<String, String> info = trainDeparture.trainInfo();
+      board.append(String.format("%-12s%-11s%-18s%-16s%-12s%-11s\n",
+          info.get("trainNumber"),
+          info.get("line"),
+          info.get("destination"),
+          info.get("departureTime"),
+          info.get("track"),
+          info.get("delay")));
+    }
+    board.append("-".repeat(75)).append("\n");
+    return board.toString();
+  }
+
+  @Test
+  @DisplayName("render matches the formatted board")
+  void renderMatchesFormattedBoard() throws IOException {
+    List<TrainDeparture> trainDepartures = List.of(
+        new TrainDeparture(1, "A2", "Stavanger", LocalTime.of(5, 50)),
+        new TrainDeparture(123456789, "L1", "Ålesund", LocalTime.of(6, 15, 30), 15, 3),
+        new TrainDeparture(16, "LongerThanColumn", "A destination longer than its column",
+            LocalTime.of(12, 0, 0, 500_000_000), 125, 12),
+        new TrainDeparture(7, "F6", "Bergen 🚆", LocalTime.of(23, 59, 59, 1), 0, -1));
+    LocalTime currentTime = LocalTime.of(4, 5);
+    renderer.render(currentTime, new TrainDepartureSnapshot(1, trainDepartures));
+    assertEquals(formatted(currentTime, trainDepartures),
+        output.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  @DisplayName("render reuses the buffer for frames larger than its initial size")
+  void renderHandlesLargeFrames() throws IOException {
+    List<TrainDeparture> trainDepartures = new ArrayList<>();
+    for (int i = 1; i <= 1000; i++) {
+      trainDepartures.add(new TrainDeparture(i, "L" + i, "Destination" + i,
+          LocalTime.of(i % 24, i % 60), i % 7, i % 5 + 1));
+    }
+    var snapshot = new TrainDepartureSnapshot(1, trainDepartures);
+    LocalTime currentTime = LocalTime.of(0, 0);
+    renderer.render(currentTime, snapshot);
+    output.reset();
+    renderer.render(currentTime, snapshot);
+    assertEquals(formatted(currentTime, trainDepartures),
+        output.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  @DisplayName("render throws IllegalArgumentException on snapshot null")
+  void renderThrowsExceptionOnSnapshotNull() {
+    assertThrows(IllegalArgumentException.class, () -> {
+      renderer.render(LocalTime.of(0, 0), null);
+    });
+  }
+}
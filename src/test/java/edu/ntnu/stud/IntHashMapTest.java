@@ -0,0 +1,79 @@
+package edu.ntnu.stud;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.stud.utils.IntHashMap;
+import java.util.HashMap;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class IntHashMapTest {
+  private IntHashMap<String> map;
+
+  @BeforeEach
+  void setUp() {
+    map = new IntHashMap<>();
+    map.put(1, "one");
+    map.put(2, "two");
+    map.put(3, "three");
+  }
+
+  @Test
+  @DisplayName("put throws IllegalArgumentException on value is null")
+  void putThrowsExceptionOnValueNull() {
+    assertThrows(IllegalArgumentException.class, () -> {
+      map.put(4, null);
+    });
+  }
+
+  @Test
+  @DisplayName("get returns value of key, or null if key is not in map")
+  void getReturnsValueOfKeyOrNull() {
+    assertEquals("two", map.get(2));
+    assertNull(map.get(4));
+  }
+
+  @Test
+  @DisplayName("put replaces value and returns previous value")
+  void putReplacesValueAndReturnsPreviousValue() {
+    assertEquals("one", map.put(1, "uno"));
+    assertEquals("uno", map.get(1));
+    assertEquals(3, map.size());
+  }
+
+  @Test
+  @DisplayName("remove removes key and returns removed value")
+  void removeRemovesKeyAndReturnsRemovedValue() {
+    assertEquals("two", map.remove(2));
+    assertFalse(map.containsKey(2));
+    assertTrue(map.containsKey(3));
+    assertNull(map.remove(2));
+    assertEquals(2, map.size());
+  }
+
+  @Test
+  @DisplayName("map agrees with HashMap after many random puts and removes")
+  void mapAgreesWithHashMapAfterRandomPutsAndRemoves() {
+    var expected = new HashMap<Integer, String>();
+    var actual = new IntHashMap<String>();
+    var random = new Random(42);
+    for (int i = 0; i < 100_000; i++) {
+      int key = random.nextInt(2_000);
+      if (random.nextBoolean()) {
+        assertEquals(expected.put(key, "v" + i), actual.put(key, "v" + i));
+      } else {
+        assertEquals(expected.remove(key), actual.remove(key));
+      }
+    }
+    assertEquals(expected.size(), actual.size());
+    for (int key = 0; key < 2_000; key++) {
+      assertEquals(expected.get(key), actual.get(key));
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package edu.ntnu.stud;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.stud.models.TrainDepartureRegistry;
+import edu.ntnu.stud.view.LiveInformationBoard;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class LiveInformationBoardTest {
+  private static final LocalTime NOW = LocalTime.of(0, 0);
+
+  private ByteArrayOutputStream output;
+  private LiveInformationBoard liveBoard;
+  private TrainDepartureRegistry trainDepartureRegistry;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    output = new ByteArrayOutputStream();
+    liveBoard = new LiveInformationBoard(Channels.newChannel(output));
+    trainDepartureRegistry = new TrainDepartureRegistry();
+    for (int trainNumber = 1; trainNumber <= 10; trainNumber++) {
+      trainDepartureRegistry.newTrainDeparture(trainNumber, "line", "destination",
+          LocalTime.of(trainNumber, 0));
+    }
+    liveBoard.update(NOW, trainDepartureRegistry.snapshot());
+    output.reset();
+  }
+
+  @Test
+  @DisplayName("update writes nothing when nothing changed")
+  void updateWritesNothingWhenNothingChanged() throws IOException {
+    assertEquals(0, liveBoard.update(NOW, trainDepartureRegistry.snapshot()));
+    assertEquals(0, output.size());
+  }
+
+  @Test
+  @DisplayName("update redraws only the row of a changed track")
+  void updateRedrawsOnlyRowOfChangedTrack() throws IOException {
+    trainDepartureRegistry.setTrack(5, 3);
+    assertEquals(1, liveBoard.update(NOW, trainDepartureRegistry.snapshot()));
+    String written = output.toString(StandardCharsets.UTF_8);
+    assertTrue(written.startsWith("\033[9;1H5 "));
+    assertFalse(written.contains("Information board"));
+  }
+
+  @Test
+  @DisplayName("update moves the footer and clears the old line when a train departs")
+  void updateMovesFooterWhenTrainDeparts() throws IOException {
+    trainDepartureRegistry.removeTrainDeparture(10);
+    assertEquals(2, liveBoard.update(NOW, trainDepartureRegistry.snapshot()));
+    String written = output.toString(StandardCharsets.UTF_8);
+    assertTrue(written.contains("\033[14;1H---"));
+    assertTrue(written.contains("\033[15;1H\033[K"));
+  }
+
+  @Test
+  @DisplayName("update redraws only the title when the time changes")
+  void updateRedrawsOnlyTitleWhenTimeChanges() throws IOException {
+    assertEquals(1, liveBoard.update(LocalTime.of(0, 1), trainDepartureRegistry.snapshot()));
+    assertTrue(output.toString(StandardCharsets.UTF_8).contains("Current time 00:01"));
+  }
+
+  @Test
+  @DisplayName("update redraws everything after invalidate")
+  void updateRedrawsEverythingAfterInvalidate() throws IOException {
+    liveBoard.invalidate();
+    assertEquals(15, liveBoard.update(NOW, trainDepartureRegistry.snapshot()));
+    assertTrue(output.toString(StandardCharsets.UTF_8).startsWith("\033[2J"));
+  }
+}
@@ -0,0 +1,192 @@
+package edu.ntnu.stud;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.stud.models.ObservableDepartureRegistry;
+import edu.ntnu.stud.models.RegistryEvent;
+import edu.ntnu.stud.models.TrainDepartureRegistry;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+public class ObservableDepartureRegistryTest {
+  private ObservableDepartureRegistry registry;
+  private RecordingSubscriber subscriber;
+
+  /**
+   * Subscriber that records what it receives, and requests nothing by itself.
+   */
+  private static class RecordingSubscriber implements Flow.Subscriber<RegistryEvent> {
+    private final List<RegistryEvent> events = new ArrayList<>();
+    private Flow.Subscription subscription;
+    private Throwable error;
+    private boolean completed;
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(RegistryEvent item) {
+      events.add(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      error = throwable;
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+    }
+  }
+
+  @BeforeEach
+  void setUp() {
+    registry = new ObservableDepartureRegistry(new TrainDepartureRegistry(), Runnable::run, 3);
+    subscriber = new RecordingSubscriber();
+    registry.subscribe(subscriber);
+  }
+
+  @Nested
+  @DisplayName("Positive tests for ObservableDepartureRegistry")
+  public class PositiveTests {
+
+    @Test
+    @DisplayName("Events are delivered only as requested")
+    void eventsAreDeliveredOnlyAsRequested() {
+      registry.newTrainDeparture(1, "line", "destination", LocalTime.of(0, 0));
+      registry.newTrainDeparture(2, "line2", "destination2", LocalTime.of(1, 0));
+      assertTrue(subscriber.events.isEmpty());
+      subscriber.subscription.request(1);
+      assertEquals(1, subscriber.events.size());
+      assertEquals(1, subscriber.events.get(0).getTrainNumber());
+      subscriber.subscription.request(Long.MAX_VALUE);
+      subscriber.subscription.request(Long.MAX_VALUE);
+      registry.removeTrainDeparture(2);
+      assertEquals(3, subscriber.events.size());
+      assertEquals(RegistryEvent.Type.REMOVED, subscriber.events.get(2).getType());
+    }
+
+    @Test
+    @DisplayName("Waiting delays and tracks are merged")
+    void waitingDelaysAndTracksAreMerged() {
+      subscriber.subscription.request(1);
+      registry.newTrainDeparture(1, "line", "destination", LocalTime.of(0, 0));
+      registry.addDelay(1, 5);
+      registry.addDelay(1, 10);
+      registry.setTrack(1, 2);
+      registry.setTrack(1, 4);
+      subscriber.subscription.request(10);
+      assertEquals(3, subscriber.events.size());
+      assertEquals(15, subscriber.events.get(1).getDelay());
+      assertEquals(4, subscriber.events.get(2).getTrack());
+    }
+
+    @Test
+    @DisplayName("Changes are merged into a waiting added event")
+    void changesAreMergedIntoWaitingAddedEvent() {
+      registry.newTrainDeparture(1, "line", "destination", LocalTime.of(0, 0));
+      registry.addDelay(1, 5);
+      registry.setTrack(1, 2);
+      subscriber.subscription.request(10);
+      assertEquals(1, subscriber.events.size());
+      RegistryEvent event = subscriber.events.get(0);
+      assertEquals(RegistryEvent.Type.ADDED, event.getType());
+      assertEquals(LocalTime.of(0, 5), event.getTrainDeparture().departureTimeWithDelay());
+      assertEquals(2, event.getTrainDeparture().getTrack());
+    }
+
+    @Test
+    @DisplayName("Train departure added and removed before delivery is not delivered")
+    void trainDepartureAddedAndRemovedBeforeDeliveryIsNotDelivered() {
+      registry.newTrainDeparture(1, "line", "destination", LocalTime.of(0, 0));
+      registry.addDelay(1, 5);
+      registry.removeTrainDeparture(1);
+      registry.newTrainDeparture(2, "line2", "destination2", LocalTime.of(1, 0));
+      registry.removeTrainDeparturesBeforeTime(LocalTime.of(2, 0));
+      subscriber.subscription.request(10);
+      assertTrue(subscriber.events.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Evicted train departures are delivered")
+    void evictedTrainDeparturesAreDelivered() {
+      subscriber.subscription.request(10);
+      registry.newTrainDeparture(1, "line", "destination", LocalTime.of(0, 0));
+      registry.removeTrainDeparturesBeforeTime(LocalTime.of(2, 0));
+      assertEquals(RegistryEvent.Type.EVICTED, subscriber.events.get(1).getType());
+      assertEquals(0, registry.size());
+    }
+
+    @Test
+    @DisplayName("Close delivers waiting events and then completes")
+    void closeDeliversWaitingEventsAndThenCompletes() {
+      registry.newTrainDeparture(1, "line", "destination", LocalTime.of(0, 0));
+      registry.close();
+      assertFalse(subscriber.completed);
+      subscriber.subscription.request(1);
+      assertEquals(1, subscriber.events.size());
+      assertTrue(subscriber.completed);
+      assertEquals(0, registry.subscriberCount());
+    }
+
+    @Test
+    @DisplayName("Cancel stops delivery")
+    void cancelStopsDelivery() {
+      subscriber.subscription.cancel();
+      registry.newTrainDeparture(1, "line", "destination", LocalTime.of(0, 0));
+      subscriber.subscription.request(1);
+      assertTrue(subscriber.events.isEmpty());
+      assertEquals(0, registry.subscriberCount());
+    }
+  }
+
+  @Nested
+  @DisplayName("Negative tests for ObservableDepartureRegistry")
+  public class NegativeTests {
+
+    @Test
+    @DisplayName("Subscriber falling behind gets IllegalStateException")
+    void subscriberFallingBehindGetsException() {
+      for (int i = 1; i <= 4; i++) {
+        registry.newTrainDeparture(i, "line", "destination", LocalTime.of(i, 0));
+      }
+      assertInstanceOf(IllegalStateException.class, subscriber.error);
+      assertEquals(0, registry.subscriberCount());
+      assertEquals(4, registry.size());
+    }
+
+    @Test
+    @DisplayName("Request of zero events gives IllegalArgumentException")
+    void requestOfZeroEventsGivesException() {
+      subscriber.subscription.request(0);
+      assertInstanceOf(IllegalArgumentException.class, subscriber.error);
+    }
+
+    @Test
+    @DisplayName("Subscribe throws NullPointerException on null subscriber")
+    void subscribeThrowsExceptionOnNullSubscriber() {
+      assertThrows(NullPointerException.class, () -> registry.subscribe(null));
+    }
+
+    @Test
+    @DisplayName("Failed mutations are not published")
+    void failedMutationsAreNotPublished() {
+      subscriber.subscription.request(10);
+      assertThrows(IllegalArgumentException.class, () -> registry.addDelay(1, 5));
+      assertTrue(subscriber.events.isEmpty());
+    }
+  }
+}
@@ -0,0 +1,138 @@
+package edu.ntnu.stud;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.stud.models.DepartureRegistry;
+import edu.ntnu.stud.models.StationDeparture;
+import edu.ntnu.stud.models.StationNetwork;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+public class StationNetworkTest {
+  private StationNetwork network;
+
+  @BeforeEach
+  void setUp() {
+    network = new StationNetwork();
+    DepartureRegistry trondheim = network.addStation("Trondheim");
+    trondheim.newTrainDeparture(1, "A1", "Oslo", LocalTime.of(8, 0));
+    trondheim.newTrainDeparture(2, "A2", "Bodø", LocalTime.of(9, 0));
+    trondheim.addDelay(2, 30);
+    DepartureRegistry bergen = network.addStation("Bergen");
+    bergen.newTrainDeparture(1, "B1", "Oslo", LocalTime.of(7, 0));
+    bergen.addDelay(1, 90);
+    bergen.newTrainDeparture(2, "B2", "Oslo", LocalTime.of(6, 0));
+    DepartureRegistry stavanger = network.addStation("Stavanger");
+    stavanger.newTrainDeparture(1, "C1", "Oslo", LocalTime.of(7, 30));
+    stavanger.addDelay(1, 5);
+  }
+
+  /**
+   * Describes station departures as station and train number.
+   *
+   * @param departures the station departures
+   * @return the descriptions
+   */
+  private static List<String> describe(List<StationDeparture> departures) {
+    return departures.stream()
+        .map(departure -> departure.getStation() + " "
+            + departure.getTrainDeparture().getTrainNumber())
+        .collect(Collectors.toList());
+  }
+
+  @Nested
+  @DisplayName("Positive tests for StationNetwork")
+  public class PositiveTests {
+
+    @Test
+    @DisplayName("Departures to destination are merged across stations in time order")
+    void departuresToDestinationAreMergedInTimeOrder() {
+      assertEquals(List.of("Bergen 2", "Stavanger 1", "Trondheim 1", "Bergen 1"),
+          describe(network.trainDeparturesTo("Oslo")));
+    }
+
+    @Test
+    @DisplayName("Most delayed departures are merged across stations")
+    void mostDelayedDeparturesAreMergedAcrossStations() {
+      assertEquals(List.of("Bergen 1", "Trondheim 2"), describe(network.mostDelayed(2)));
+      assertEquals(3, network.mostDelayed(10).size());
+    }
+
+    @Test
+    @DisplayName("Stations keep their own train numbers")
+    void stationsKeepTheirOwnTrainNumbers() {
+      assertEquals(List.of("Bergen", "Stavanger", "Trondheim"), network.stations());
+      assertEquals(5, network.size());
+      network.removeStation("Bergen");
+      assertEquals(3, network.size());
+      assertTrue(network.trainDeparturesTo("Bergen").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Queries on many stations match a single pass")
+    void queriesOnManyStationsMatchSinglePass() {
+      var large = new StationNetwork();
+      for (int s = 0; s < 50; s++) {
+        DepartureRegistry station = large.addStation("S" + s);
+        for (int t = 1; t <= 40; t++) {
+          station.newTrainDeparture(t, "L", "D" + t % 3, LocalTime.of(t % 24, s % 60));
+          station.addDelay(t, 1 + (s * t) % 97);
+        }
+      }
+      List<StationDeparture> all = new ArrayList<>();
+      for (String station : large.stations()) {
+        large.station(station).snapshot().getTrainDepartures()
+            .forEach(trainDeparture -> all.add(new StationDeparture(station, trainDeparture)));
+      }
+      Comparator<StationDeparture> byTime = Comparator
+          .comparing((StationDeparture departure) ->
+              departure.getTrainDeparture().departureTimeWithDelay())
+          .thenComparing(StationDeparture::getStation)
+          .thenComparingInt(departure -> departure.getTrainDeparture().getTrainNumber());
+      List<StationDeparture> toD1 = all.stream()
+          .filter(departure -> departure.getTrainDeparture().getDestination().equals("D1"))
+          .sorted(byTime)
+          .collect(Collectors.toList());
+      List<StationDeparture> delayed = all.stream()
+          .sorted(Comparator.comparingInt((StationDeparture departure) ->
+              -departure.getTrainDeparture().getDelay()).thenComparing(byTime))
+          .limit(25)
+          .collect(Collectors.toList());
+      assertEquals(describe(toD1), describe(large.trainDeparturesTo("D1")));
+      assertEquals(describe(delayed), describe(large.mostDelayed(25)));
+    }
+  }
+
+  @Nested
+  @DisplayName("Negative tests for StationNetwork")
+  public class NegativeTests {
+
+    @Test
+    @DisplayName("Adding a station twice throws IllegalArgumentException")
+    void addingStationTwiceThrowsException() {
+      assertThrows(IllegalArgumentException.class, () -> network.addStation("Bergen"));
+    }
+
+    @Test
+    @DisplayName("Getting an unknown station throws IllegalArgumentException")
+    void gettingUnknownStationThrowsException() {
+      assertThrows(IllegalArgumentException.class, () -> network.station("Narvik"));
+      assertThrows(IllegalArgumentException.class, () -> network.removeStation("Narvik"));
+    }
+
+    @Test
+    @DisplayName("Most delayed throws IllegalArgumentException on count zero")
+    void mostDelayedThrowsExceptionOnCountZero() {
+      assertThrows(IllegalArgumentException.class, () -> network.mostDelayed(0));
+    }
+  }
+}
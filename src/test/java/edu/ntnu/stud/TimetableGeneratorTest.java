@@ -0,0 +1,144 @@
+package edu.ntnu.stud;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.stud.app.DaySimulation;
+import edu.ntnu.stud.app.SimulationReport;
+import edu.ntnu.stud.io.TimetableGenerator;
+import edu.ntnu.stud.io.TimetableImportResult;
+import edu.ntnu.stud.io.TimetableLoader;
+import edu.ntnu.stud.models.TrainDeparture;
+import edu.ntnu.stud.models.TrainDepartureRegistry;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TimetableGeneratorTest {
+
+  @TempDir
+  Path directory;
+
+  /**
+   * Generates train departures into a list.
+   *
+   * @param generator the generator
+   * @param count     the number of train departures
+   * @return the train departures
+   */
+  private static List<TrainDeparture> generate(TimetableGenerator generator, int count) {
+    List<TrainDeparture> trainDepartures = new ArrayList<>();
+    generator.generate(count, trainDepartures::add);
+    return trainDepartures;
+  }
+
+  @Nested
+  @DisplayName("Positive tests for TimetableGenerator")
+  public class PositiveTests {
+
+    @Test
+    @DisplayName("The same seed generates the same timetable")
+    void sameSeedGeneratesSameTimetable() {
+      List<TrainDeparture> first = generate(new TimetableGenerator(3), 1000);
+      List<TrainDeparture> second = generate(new TimetableGenerator(3), 1000);
+      assertEquals(first.toString(), second.toString());
+      assertEquals(1000, first.get(999).getTrainNumber());
+    }
+
+    @Test
+    @DisplayName("Destinations follow a Zipf distribution")
+    void destinationsFollowZipfDistribution() {
+      Map<String, Integer> counts = new HashMap<>();
+      generate(new TimetableGenerator(3), 20000)
+          .forEach(trainDeparture -> counts.merge(trainDeparture.getDestination(), 1,
+              Integer::sum));
+      int first = counts.get("Oslo");
+      int second = counts.get("Bergen");
+      int tenth = counts.get("Halden");
+      assertTrue(first > second * 1.5);
+      assertTrue(second > tenth * 3);
+    }
+
+    @Test
+    @DisplayName("Departure times cluster around the rush hours")
+    void departureTimesClusterAroundRushHours() {
+      int[] hours = new int[24];
+      generate(new TimetableGenerator(3), 20000)
+          .forEach(trainDeparture -> hours[trainDeparture.getDepartureTime().getHour()]++);
+      assertTrue(hours[7] > hours[12] * 2);
+      assertTrue(hours[16] > hours[12] * 2);
+      assertTrue(hours[12] > hours[2]);
+    }
+
+    @Test
+    @DisplayName("A written timetable loads into the same registry as generating into it")
+    void writtenTimetableLoadsIntoSameRegistry() throws IOException {
+      var generator = new TimetableGenerator(5);
+      Path file = directory.resolve("timetable.csv");
+      generator.writeTimetable(file, 5000);
+      var loaded = new TrainDepartureRegistry();
+      TimetableImportResult result = new TimetableLoader().load(file, loaded);
+      assertEquals(5000, result.getAdded());
+      assertTrue(result.getErrors().isEmpty());
+      var generated = new TrainDepartureRegistry();
+      generator.generateInto(generated, 5000);
+      assertEquals(generated.toString(), loaded.toString());
+    }
+
+    @Test
+    @DisplayName("The delay stream replays against the timetable")
+    void delayStreamReplaysAgainstTimetable() throws IOException {
+      var generator = new TimetableGenerator(5);
+      Path file = directory.resolve("delays.txt");
+      generator.writeDelayStream(file, 5000, 2000);
+      var registry = new TrainDepartureRegistry();
+      generator.generateInto(registry, 5000);
+      SimulationReport report;
+      try (BufferedReader trace = Files.newBufferedReader(file)) {
+        report = new DaySimulation(registry, 0).replay(trace);
+      }
+      assertEquals(24 * 60, report.getTicks());
+      assertTrue(Math.abs(report.getOperations() - 2000) < 200);
+      assertTrue(report.getFailed() < report.getOperations() / 20);
+    }
+  }
+
+  @Nested
+  @DisplayName("Negative tests for TimetableGenerator")
+  public class NegativeTests {
+
+    @Test
+    @DisplayName("Constructor throws IllegalArgumentException on invalid settings")
+    void constructorThrowsExceptionOnInvalidSettings() {
+      assertThrows(IllegalArgumentException.class, () -> {
+        new TimetableGenerator(1, 0, 10, 1.0, 0.5);
+      });
+      assertThrows(IllegalArgumentException.class, () -> {
+        new TimetableGenerator(1, 10, 10, -1.0, 0.5);
+      });
+      assertThrows(IllegalArgumentException.class, () -> {
+        new TimetableGenerator(1, 10, 10, 1.0, 1.5);
+      });
+    }
+
+    @Test
+    @DisplayName("Generating into a registry with the same train numbers throws")
+    void generatingIntoRegistryWithSameTrainNumbersThrows() {
+      var generator = new TimetableGenerator(1);
+      var registry = new TrainDepartureRegistry();
+      generator.generateInto(registry, 10);
+      assertThrows(IllegalArgumentException.class, () -> generator.generateInto(registry, 10));
+      assertEquals(10, registry.size());
+    }
+  }
+}
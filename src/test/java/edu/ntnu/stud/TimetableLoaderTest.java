@@ -0,0 +1,185 @@
+package edu.ntnu.stud;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.stud.io.TimetableImportResult;
+import edu.ntnu.stud.io.TimetableLoader;
+import edu.ntnu.stud.models.TrainDeparture;
+import edu.ntnu.stud.models.TrainDepartureRegistry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TimetableLoaderTest {
+
+  @TempDir
+  Path directory;
+
+  /**
+   * Writes a timetable file and loads it into a registry.
+   *
+   * @param content   the content of the file
+   * @param chunkSize the chunk size of the loader
+   * @param registry  the registry to load into
+   * @return the result of the import
+   * @throws IOException if the file cannot be written or read
+   */
+  private TimetableImportResult load(String content, int chunkSize,
+                                     TrainDepartureRegistry registry) throws IOException {
+    Path file = directory.resolve("timetable.csv");
+    Files.writeString(file, content, StandardCharsets.UTF_8);
+    return new TimetableLoader(chunkSize).load(file, registry);
+  }
+
+  @Nested
+  @DisplayName("Positive tests for TimetableLoader")
+  public class PositiveTests {
+
+    @Test
+    @DisplayName("Rows are loaded the same whatever the chunk size")
+    void rowsAreLoadedTheSameWhateverTheChunkSize() throws IOException {
+      var content = new StringBuilder("trainNumber,line,destination,departureTime\n");
+      List<String> expectedErrors = new ArrayList<>();
+      for (int i = 1; i <= 500; i++) {
+        if (i % 50 == 0) {
+          content.append(i).append(",L1,Oslo,7:00\n");
+          expectedErrors.add("Line " + (i + 1) + ": Time must be in the format HH:mm");
+        } else {
+          content.append(i).append(",L").append(i % 7).append(",Station").append(i % 13)
+              .append(',').append(String.format("%02d:%02d", i % 24, i % 60))
+              .append(",").append(i % 5).append(",").append(i % 3 == 0 ? -1 : i % 9 + 1)
+              .append('\n');
+        }
+      }
+      var whole = new TrainDepartureRegistry();
+      TimetableImportResult expected = load(content.toString(), 1 << 20, whole);
+      assertEquals(490, expected.getAdded());
+      assertEquals(expectedErrors, expected.getErrors());
+      for (int chunkSize : new int[] {1, 7, 16, 64, 333}) {
+        var chunked = new TrainDepartureRegistry();
+        TimetableImportResult result = load(content.toString(), chunkSize, chunked);
+        assertEquals(490, result.getAdded(), "chunk size " + chunkSize);
+        assertEquals(expectedErrors, result.getErrors(), "chunk size " + chunkSize);
+        assertEquals(whole.toString(), chunked.toString(), "chunk size " + chunkSize);
+      }
+    }
+
+    @Test
+    @DisplayName("A header is skipped only on the first line, and still counts as a line")
+    void headerIsSkippedOnlyOnTheFirstLine() throws IOException {
+      var registry = new TrainDepartureRegistry();
+      TimetableImportResult result = load("trainNumber,line,destination,departureTime\n"
+          + "1,L1,Oslo,08:00\n"
+          + "header,again,here,08:00\n", 1 << 20, registry);
+      assertEquals(1, result.getAdded());
+      assertEquals(List.of("Line 3: Train number must be a number"), result.getErrors());
+      assertTrue(registry.containsTrainNumber(1));
+    }
+
+    @Test
+    @DisplayName("CRLF line endings, blank lines and a missing final newline are accepted")
+    void crlfAndMissingFinalNewlineAreAccepted() throws IOException {
+      var registry = new TrainDepartureRegistry();
+      TimetableImportResult result = load("1,L1,Oslo,08:00,5,3\r\n\r\n"
+          + "2,L2,Bergen,09:30\r\n"
+          + "3,L3,Trondheim,23:59", 4, registry);
+      assertEquals(3, result.getAdded());
+      assertTrue(result.getErrors().isEmpty());
+      assertEquals(new TrainDeparture(1, "L1", "Oslo", LocalTime.of(8, 0), 5, 3).toString(),
+          registry.trainDepartureString(1));
+      assertEquals(new TrainDeparture(3, "L3", "Trondheim", LocalTime.of(23, 59)).toString(),
+          registry.trainDepartureString(3));
+    }
+  }
+
+  @Nested
+  @DisplayName("Negative tests for TimetableLoader, bad rows are reported with line numbers")
+  public class NegativeTests {
+
+    @Test
+    @DisplayName("Rows with too few or too many fields are reported")
+    void rowsWithWrongFieldCountAreReported() throws IOException {
+      TimetableImportResult result = load("1,L1,Oslo\n"
+          + "2,L2,Bergen,09:30,0,4,extra\n"
+          + "3,L3,Trondheim,10:00\n", 1 << 20, new TrainDepartureRegistry());
+      assertEquals(1, result.getAdded());
+      assertEquals(List.of("Line 1: Expected at least 4 fields, found 3",
+          "Line 2: Too many fields"), result.getErrors());
+    }
+
+    @Test
+    @DisplayName("Bad times and numbers are reported with their line numbers")
+    void badTimesAndNumbersAreReported() throws IOException {
+      TimetableImportResult result = load("1x,L1,Oslo,08:00\n"
+          + "2,L2,Bergen,0930\n"
+          + "3,L3,Trondheim,25:00\n"
+          + "4,L4,Bodø,10:0a\n"
+          + "5,L5,Moss,10:00,late\n"
+          + "6,L6,Hamar,10:00,0,one\n"
+          + "1234567890,L7,Gjøvik,10:00\n"
+          + "8,L8,Lillehammer,10:00\n", 2, new TrainDepartureRegistry());
+      assertEquals(1, result.getAdded());
+      List<String> errors = result.getErrors();
+      assertEquals(7, errors.size());
+      assertEquals("Line 1: Train number must be a number", errors.get(0));
+      assertEquals("Line 2: Time must be in the format HH:mm", errors.get(1));
+      assertTrue(errors.get(2).startsWith("Line 3: "), errors.get(2));
+      assertEquals("Line 4: Time must be in the format HH:mm", errors.get(3));
+      assertEquals("Line 5: Delay must be a number", errors.get(4));
+      assertEquals("Line 6: Track must be a number", errors.get(5));
+      assertEquals("Line 7: Train number must be a number", errors.get(6));
+    }
+
+    @Test
+    @DisplayName("Duplicates within the file and already in the registry are reported")
+    void duplicatesAreReported() throws IOException {
+      var registry = new TrainDepartureRegistry();
+      registry.newTrainDeparture(9, "L9", "Oslo", LocalTime.of(6, 0));
+      TimetableImportResult result = load("1,L1,Oslo,08:00\n"
+          + "9,L2,Bergen,09:30\n"
+          + "1,L3,Trondheim,10:00\n"
+          + "2,L4,Moss,11:00\n", 8, registry);
+      assertEquals(2, result.getAdded());
+      assertEquals(List.of("Line 2: Train number already exists",
+          "Line 3: Train number already exists"), result.getErrors());
+      assertEquals("L9", registry.getAllFromTrainNumber(9).get("line"));
+      assertEquals("L1", registry.getAllFromTrainNumber(1).get("line"));
+    }
+
+    @Test
+    @DisplayName("A train number added by another writer during the import is reported")
+    void trainNumberAddedDuringImportIsReported() throws IOException {
+      var registry = new TrainDepartureRegistry() {
+        @Override
+        public void addTrainDepartures(List<TrainDeparture> trainDepartures) {
+          addTrainDeparture(new TrainDeparture(2, "other", "Elsewhere", LocalTime.of(5, 0)));
+          super.addTrainDepartures(trainDepartures);
+        }
+      };
+      TimetableImportResult result = load("1,L1,Oslo,08:00\n"
+          + "2,L2,Bergen,09:30\n"
+          + "3,L3,Trondheim,10:00\n", 1 << 20, registry);
+      assertEquals(2, result.getAdded());
+      assertEquals(List.of("Line 2: Train number already exists"), result.getErrors());
+      assertEquals(3, registry.size());
+      assertEquals("other", registry.getAllFromTrainNumber(2).get("line"));
+    }
+
+    @Test
+    @DisplayName("A missing file throws IOException")
+    void missingFileThrowsException() {
+      assertThrows(IOException.class, () -> new TimetableLoader()
+          .load(directory.resolve("missing.csv"), new TrainDepartureRegistry()));
+    }
+  }
+}
@@ -0,0 +1,352 @@
+package edu.ntnu.stud;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.stud.io.DurableDepartureRegistry;
+import edu.ntnu.stud.models.DepartureClock;
+import edu.ntnu.stud.models.DepartureTimingWheel;
+import edu.ntnu.stud.models.TimingWheelDepartureRegistry;
+import edu.ntnu.stud.models.TrainDeparture;
+import edu.ntnu.stud.models.TrainDepartureRegistry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TimingWheelDepartureRegistryTest {
+
+  @TempDir
+  Path directory;
+
+  /**
+   * Gets the bytes written to the log segments in the data directory.
+   *
+   * @return the total size of the log segments
+   * @throws IOException if the data directory cannot be listed
+   */
+  private long logBytes() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      long bytes = 0;
+      for (Path file : files.filter(file -> file.toString().endsWith(".log")).toList()) {
+        bytes += Files.size(file);
+      }
+      return bytes;
+    }
+  }
+
+  /**
+   * This class represents a clock that only moves when the test sets it.
+   */
+  private static final class SettableClock extends Clock {
+    private LocalDateTime now;
+
+    SettableClock(LocalDateTime now) {
+      this.now = now;
+    }
+
+    void set(LocalDateTime now) {
+      this.now = now;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now.toInstant(ZoneOffset.UTC);
+    }
+  }
+
+  @Nested
+  @DisplayName("Positive tests for TimingWheelDepartureRegistry")
+  public class PositiveTests {
+
+    @Test
+    @DisplayName("Advancing the clock removes exactly the departed trains")
+    void advancingTheClockRemovesExactlyTheDepartedTrains() {
+      var registry = new TimingWheelDepartureRegistry(new TrainDepartureRegistry());
+      registry.newTrainDeparture(1, "line", "destination", LocalTime.of(6, 0));
+      registry.newTrainDeparture(2, "line", "destination", LocalTime.of(6, 30));
+      registry.newTrainDeparture(3, "line", "destination", LocalTime.of(7, 0));
+      List<Integer> evicted = new ArrayList<>();
+      registry.removeTrainDeparturesBeforeTime(LocalTime.of(6, 30),
+          trainDeparture -> evicted.add(trainDeparture.getTrainNumber()));
+      assertEquals(List.of(1), evicted);
+      assertEquals(List.of(2, 3), registry.sortedByDepartureTimeWithDelay());
+      assertEquals(LocalTime.of(6, 30), registry.getTime());
+    }
+
+    @Test
+    @DisplayName("An advance over a durable registry logs one record, whatever it evicts")
+    void advanceOverDurableRegistryLogsOneRecord() throws IOException {
+      try (var durable = new DurableDepartureRegistry(directory, new TrainDepartureRegistry())) {
+        var registry = new TimingWheelDepartureRegistry(durable);
+        for (int trainNumber = 1; trainNumber <= 4; trainNumber++) {
+          registry.newTrainDeparture(trainNumber, "line", "destination",
+              LocalTime.of(6, trainNumber));
+        }
+        registry.newTrainDeparture(5, "line", "destination", LocalTime.of(8, 0));
+        long start = logBytes();
+        registry.removeTrainDeparturesBeforeTime(LocalTime.of(7, 0));
+        long fourTrains = logBytes() - start;
+        registry.removeTrainDeparturesBeforeTime(LocalTime.of(7, 30));
+        assertEquals(fourTrains, logBytes() - start);
+        registry.removeTrainDeparturesBeforeTime(LocalTime.of(9, 0));
+        long oneTrain = logBytes() - start - fourTrains;
+        assertTrue(fourTrains > 0);
+        assertEquals(oneTrain, fourTrains);
+        assertEquals(0, durable.size());
+      }
+    }
+
+    @Test
+    @DisplayName("A delay moves the train to a later slot")
+    void delayMovesTheTrainToLaterSlot() {
+      var registry = new TimingWheelDepartureRegistry(new TrainDepartureRegistry());
+      registry.newTrainDeparture(1, "line", "destination", LocalTime.of(6, 0));
+      registry.newTrainDeparture(2, "line", "destination", LocalTime.of(6, 10));
+      registry.addDelay(1, 30);
+      registry.removeTrainDeparturesBeforeTime(LocalTime.of(6, 20));
+      assertEquals(List.of(1), registry.sortedByDepartureTimeWithDelay());
+      registry.removeTrainDeparturesBeforeTime(LocalTime.of(6, 31));
+      assertEquals(0, registry.size());
+    }
+
+    @Test
+    @DisplayName("Evicted train departures carry their delay and track")
+    void evictedTrainDeparturesCarryDelayAndTrack() {
+      var registry = new TimingWheelDepartureRegistry(new TrainDepartureRegistry());
+      registry.newTrainDeparture(1, "line", "destination", LocalTime.of(6, 0));
+      registry.addDelay(1, 5);
+      registry.setTrack(1, 3);
+      List<TrainDeparture> evicted = new ArrayList<>();
+      registry.removeTrainDeparturesBeforeTime(LocalTime.of(7, 0), evicted::add);
+      assertEquals(1, evicted.size());
+      assertEquals(5, evicted.get(0).getDelay());
+      assertEquals(3, evicted.get(0).getTrack());
+    }
+
+    @Test
+    @DisplayName("Train departures already in the wrapped registry are scheduled")
+    void trainDeparturesInWrappedRegistryAreScheduled() {
+      var trainDepartureRegistry = new TrainDepartureRegistry();
+      trainDepartureRegistry.newTrainDeparture(1, "line", "destination", LocalTime.of(6, 0));
+      var registry = new TimingWheelDepartureRegistry(trainDepartureRegistry);
+      registry.removeTrainDeparturesBeforeTime(LocalTime.of(6, 1));
+      assertFalse(registry.containsTrainNumber(1));
+    }
+
+    @Test
+    @DisplayName("A train departure added before the current time expires on the next advance")
+    void trainDepartureAddedBeforeCurrentTimeExpiresOnNextAdvance() {
+      var registry = new TimingWheelDepartureRegistry(new TrainDepartureRegistry());
+      registry.removeTrainDeparturesBeforeTime(LocalTime.of(12, 0));
+      registry.newTrainDeparture(1, "line", "destination", LocalTime.of(6, 0));
+      registry.newTrainDeparture(2, "line", "destination", LocalTime.of(23, 50));
+      registry.addDelay(2, 20);
+      registry.removeTrainDeparturesBeforeTime(LocalTime.of(12, 0));
+      assertEquals(0, registry.size());
+    }
+
+    @Test
+    @DisplayName("An earlier time rewinds the wheel")
+    void earlierTimeRewindsTheWheel() {
+      var registry = new TimingWheelDepartureRegistry(new TrainDepartureRegistry());
+      registry.removeTrainDeparturesBeforeTime(LocalTime.of(12, 0));
+      registry.newTrainDeparture(1, "line", "destination", LocalTime.of(6, 0));
+      registry.removeTrainDeparturesBeforeTime(LocalTime.of(5, 0));
+      assertEquals(LocalTime.of(5, 0), registry.getTime());
+      assertTrue(registry.containsTrainNumber(1));
+      registry.removeTrainDeparturesBeforeTime(LocalTime.of(5, 59));
+      assertTrue(registry.containsTrainNumber(1));
+      registry.removeTrainDeparturesBeforeTime(LocalTime.of(6, 1));
+      assertFalse(registry.containsTrainNumber(1));
+    }
+
+    @Test
+    @DisplayName("Random operations remove the same trains as the wrapped registry alone")
+    void randomOperationsRemoveTheSameTrainsAsWrappedRegistry() {
+      var random = new Random(21);
+      var expected = new TrainDepartureRegistry();
+      var registry = new TimingWheelDepartureRegistry(new TrainDepartureRegistry());
+      LocalTime time = LocalTime.MIN;
+      int trainNumber = 1;
+      for (int step = 0; step < 5000; step++) {
+        int operation = random.nextInt(10);
+        if (operation < 5) {
+          LocalTime departureTime = LocalTime.ofSecondOfDay(random.nextInt(86400));
+          expected.newTrainDeparture(trainNumber, "line", "destination", departureTime);
+          registry.newTrainDeparture(trainNumber, "line", "destination", departureTime);
+          trainNumber++;
+        } else if (operation < 8 && expected.size() > 0) {
+          List<Integer> trainNumbers = expected.sortedByDepartureTime();
+          int delayed = trainNumbers.get(random.nextInt(trainNumbers.size()));
+          int delay = 1 + random.nextInt(120);
+          expected.addDelay(delayed, delay);
+          registry.addDelay(delayed, delay);
+        } else {
+          int seconds = Math.min(86399, time.toSecondOfDay() + random.nextInt(600));
+          time = LocalTime.ofSecondOfDay(seconds);
+          expected.removeTrainDeparturesBeforeTime(time);
+          registry.removeTrainDeparturesBeforeTime(time);
+        }
+        assertEquals(expected.size(), registry.size());
+      }
+      assertEquals(expected.sortedByDepartureTimeWithDelay(),
+          registry.sortedByDepartureTimeWithDelay());
+    }
+
+    @Test
+    @DisplayName("The clock removes departed trains as it ticks, and starts a new day")
+    void clockRemovesDepartedTrainsAndStartsNewDay() {
+      var registry = new TimingWheelDepartureRegistry(new TrainDepartureRegistry());
+      registry.newTrainDeparture(1, "line", "destination", LocalTime.of(6, 0));
+      registry.newTrainDeparture(2, "line", "destination", LocalTime.of(23, 0));
+      var clock = new SettableClock(LocalDateTime.of(2024, 1, 1, 5, 0));
+      var departureClock = new DepartureClock(registry, clock);
+      assertEquals(LocalTime.of(5, 0), departureClock.tick());
+      assertEquals(2, registry.size());
+      clock.set(LocalDateTime.of(2024, 1, 1, 6, 0, 1));
+      departureClock.tick();
+      assertEquals(List.of(2), registry.sortedByDepartureTimeWithDelay());
+      clock.set(LocalDateTime.of(2024, 1, 2, 0, 5));
+      departureClock.tick();
+      assertEquals(0, registry.size());
+      registry.newTrainDeparture(3, "line", "destination", LocalTime.of(0, 10));
+      assertEquals(LocalTime.of(0, 5), departureClock.getTime());
+      clock.set(LocalDateTime.of(2024, 1, 2, 0, 11));
+      departureClock.tick();
+      assertEquals(0, registry.size());
+    }
+
+    @Test
+    @DisplayName("The started clock keeps ticking after a failed tick, and restarts after close")
+    void startedClockKeepsTickingAfterFailedTick() throws InterruptedException {
+      var ticks = new CountDownLatch(3);
+      var registry = new TrainDepartureRegistry() {
+        @Override
+        public void removeTrainDeparturesBeforeTime(LocalTime time,
+                                                    Consumer<TrainDeparture> onEvicted) {
+          ticks.countDown();
+          if (ticks.getCount() == 2) {
+            throw new IllegalStateException("Failed tick");
+          }
+          super.removeTrainDeparturesBeforeTime(time, onEvicted);
+        }
+      };
+      try (var clock = new DepartureClock(registry, Clock.systemUTC())) {
+        clock.start(1);
+        assertTrue(ticks.await(10, TimeUnit.SECONDS));
+        clock.close();
+        clock.start(60000);
+      }
+    }
+  }
+
+  @Nested
+  @DisplayName("Negative tests for TimingWheelDepartureRegistry")
+  public class NegativeTests {
+
+    @Test
+    @DisplayName("Constructor throws IllegalArgumentException on null registry")
+    void constructorThrowsExceptionOnNullRegistry() {
+      assertThrows(IllegalArgumentException.class, () -> {
+        new TimingWheelDepartureRegistry(null);
+      });
+    }
+
+    @Test
+    @DisplayName("Failed mutations leave the wheel unchanged")
+    void failedMutationsLeaveTheWheelUnchanged() {
+      var registry = new TimingWheelDepartureRegistry(new TrainDepartureRegistry());
+      registry.newTrainDeparture(1, "line", "destination", LocalTime.of(6, 0));
+      assertThrows(IllegalArgumentException.class, () -> registry.addDelay(1, 0));
+      assertThrows(IllegalArgumentException.class, () -> registry.addDelay(2, 5));
+      registry.removeTrainDeparturesBeforeTime(LocalTime.of(6, 1));
+      assertEquals(0, registry.size());
+    }
+
+    @Test
+    @DisplayName("A failed eviction leaves the trains it did not remove in the wheel")
+    void failedEvictionLeavesRemainingTrainsInTheWheel() {
+      var delegate = new TrainDepartureRegistry() {
+        private boolean failed;
+
+        @Override
+        public void removeTrainDeparturesBeforeTime(LocalTime time,
+                                                    Consumer<TrainDeparture> onEvicted) {
+          if (!failed) {
+            failed = true;
+            TrainDeparture first = findTrainDeparture(1);
+            removeTrainDeparture(1);
+            onEvicted.accept(first);
+            throw new IllegalStateException("Failed eviction");
+          }
+          super.removeTrainDeparturesBeforeTime(time, onEvicted);
+        }
+      };
+      var registry = new TimingWheelDepartureRegistry(delegate);
+      registry.newTrainDeparture(1, "line", "destination", LocalTime.of(6, 0));
+      registry.newTrainDeparture(2, "line", "destination", LocalTime.of(6, 10));
+      registry.newTrainDeparture(3, "line", "destination", LocalTime.of(8, 0));
+      List<Integer> evicted = new ArrayList<>();
+      assertThrows(IllegalStateException.class, () -> registry.removeTrainDeparturesBeforeTime(
+          LocalTime.of(7, 0), trainDeparture -> evicted.add(trainDeparture.getTrainNumber())));
+      assertEquals(List.of(2, 3), registry.sortedByDepartureTimeWithDelay());
+      registry.addDelay(2, 5);
+      registry.setTrack(2, 3);
+      registry.removeTrainDeparturesBeforeTime(LocalTime.of(7, 1),
+          trainDeparture -> evicted.add(trainDeparture.getTrainNumber()));
+      assertEquals(List.of(1, 2), evicted);
+      assertEquals(List.of(3), registry.sortedByDepartureTimeWithDelay());
+      registry.removeTrainDeparturesBeforeTime(LocalTime.of(8, 1));
+      assertEquals(0, registry.size());
+    }
+
+    @Test
+    @DisplayName("Advancing the wheel to an earlier time throws IllegalArgumentException")
+    void advancingWheelToEarlierTimeThrowsException() {
+      var wheel = new DepartureTimingWheel();
+      wheel.advance(LocalTime.of(6, 0), trainDeparture -> { });
+      assertThrows(IllegalArgumentException.class, () -> {
+        wheel.advance(LocalTime.of(5, 0), trainDeparture -> { });
+      });
+    }
+
+    @Test
+    @DisplayName("Starting the clock twice throws IllegalStateException")
+    void startingClockTwiceThrowsException() {
+      var registry = new TimingWheelDepartureRegistry(new TrainDepartureRegistry());
+      try (var clock = new DepartureClock(registry, Clock.systemUTC())) {
+        clock.start(60000);
+        assertThrows(IllegalStateException.class, () -> clock.start(60000));
+      }
+    }
+  }
+}
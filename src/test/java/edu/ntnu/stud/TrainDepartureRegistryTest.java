@@ -3,6 +3,7 @@ package edu.ntnu.stud;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -12,6 +13,7 @@ import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Random;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -44,6 +46,26 @@ public class TrainDepartureRegistryTest {
       });
     }
 
+    @Test
+    @DisplayName("addTrainDepartures throws IllegalArgumentException and adds nothing "
+        + "on train number already exists")
+    void addTrainDeparturesThrowsExceptionAndAddsNothingOnTrainNumberAlreadyInRegistry() {
+      assertThrows(IllegalArgumentException.class, () -> {
+        trainDepartureRegistry.addTrainDepartures(List.of(
+            new TrainDeparture(4, "line", "destination", LocalTime.of(0, 0)),
+            new TrainDeparture(1, "line", "destination", LocalTime.of(0, 0))));
+      });
+      assertFalse(trainDepartureRegistry.containsTrainNumber(4));
+    }
+
+    @Test
+    @DisplayName("upcomingTrainDepartures throws IllegalArgumentException on count zero")
+    void upcomingTrainDeparturesThrowsExceptionOnCountZero() {
+      assertThrows(IllegalArgumentException.class, () -> {
+        trainDepartureRegistry.upcomingTrainDepartures(LocalTime.of(0, 0), 0, 0);
+      });
+    }
+
     @Test
     @DisplayName("addDelay throws IllegalArgumentException on train number not in registry")
     void addDelayThrowsExceptionOnTrainNumberNotInRegistry() {
@@ -95,6 +117,15 @@ public class TrainDepartureRegistryTest {
       });
     }
 
+    @Test
+    @DisplayName("removeTrainDeparturesBeforeTime throws IllegalArgumentException "
+        + "on callback is null")
+    void removeTrainDeparturesBeforeTimeThrowsExceptionOnCallbackNull() {
+      assertThrows(IllegalArgumentException.class, () -> {
+        trainDepartureRegistry.removeTrainDeparturesBeforeTime(LocalTime.of(0, 0), null);
+      });
+    }
+
     @Test
     @DisplayName("trainDepartureString throws IllegalArgumentException "
         + "on train number not in registry")
@@ -140,6 +171,19 @@ public class TrainDepartureRegistryTest {
       });
     }
 
+    @Test
+    @DisplayName("addTrainDepartures adds every train departure to every index")
+    void addTrainDeparturesAddsEveryTrainDepartureToEveryIndex() {
+      trainDepartureRegistry.addTrainDepartures(List.of(
+          new TrainDeparture(5, "line", "destination", LocalTime.of(0, 30), 40, 2),
+          new TrainDeparture(4, "line", "destination2", LocalTime.of(0, 20))));
+      assertEquals(List.of(1, 2, 4, 5, 3), trainDepartureRegistry.sortedByDepartureTime());
+      assertEquals(List.of(1, 2, 4, 3, 5),
+          trainDepartureRegistry.sortedByDepartureTimeWithDelay());
+      assertEquals(List.of(1, 5, 3),
+          trainDepartureRegistry.trainDeparturesByDestination("destination").trainNumbers());
+    }
+
     @Test
     @DisplayName("addDelay does not throw IllegalArgumentException on valid input")
     void addDelayDoesNotThrowExceptionOnValidInput() {
@@ -217,6 +261,18 @@ public class TrainDepartureRegistryTest {
       assertEquals(expectedRegistry.toString(), trainDepartureRegistry.toString());
     }
 
+    @Test
+    @DisplayName("removeTrainDeparturesBeforeTime passes removed train departures to callback")
+    void removeTrainDeparturesBeforeTimePassesRemovedTrainDeparturesToCallback() {
+      trainDepartureRegistry.addDelay(1, 90);
+      List<Integer> evicted = new ArrayList<>();
+      trainDepartureRegistry.removeTrainDeparturesBeforeTime(LocalTime.of(1, 1),
+          trainDeparture -> evicted.add(trainDeparture.getTrainNumber()));
+      assertEquals(List.of(2, 3), evicted);
+      assertEquals(List.of(1), trainDepartureRegistry.sortedByDepartureTime());
+      assertTrue(trainDepartureRegistry.trainDeparturesByDestination("destination2").isEmpty());
+    }
+
     @Test
     @DisplayName("getTrainDepartureByDestination returns a new TrainDepartureRegistry "
         + "filtered by destination")
@@ -231,6 +287,54 @@ public class TrainDepartureRegistryTest {
     }
 
 
+    @Test
+    @DisplayName("trainDeparturesByDestination returns departures sorted by departure time")
+    void trainDeparturesByDestinationReturnsDeparturesSortedByDepartureTime() {
+      trainDepartureRegistry.newTrainDeparture(4, "line4", "destination",
+          LocalTime.of(0, 30));
+      assertEquals(List.of(1, 4, 3),
+          trainDepartureRegistry.trainDeparturesByDestination("destination").trainNumbers());
+    }
+
+    @Test
+    @DisplayName("trainDeparturesByDestination does not contain removed train departures")
+    void trainDeparturesByDestinationDoesNotContainRemovedTrainDepartures() {
+      trainDepartureRegistry.removeTrainDeparture(1);
+      var view = trainDepartureRegistry.trainDeparturesByDestination("destination");
+      assertEquals(1, view.size());
+      assertFalse(view.containsTrainNumber(1));
+    }
+
+    @Test
+    @DisplayName("trainDeparturesByDestination returns empty view on unknown destination")
+    void trainDeparturesByDestinationReturnsEmptyViewOnUnknownDestination() {
+      assertTrue(trainDepartureRegistry.trainDeparturesByDestination("unknown").isEmpty());
+    }
+
+    @Test
+    @DisplayName("trainDeparturesTo returns copies sorted by departure time with delay")
+    void trainDeparturesToReturnsCopiesSortedByDepartureTimeWithDelay() {
+      trainDepartureRegistry.addDelay(1, 90);
+      var snapshot = trainDepartureRegistry.trainDeparturesTo("destination");
+      assertEquals(List.of(3, 1), snapshot.getTrainDepartures().stream()
+          .map(TrainDeparture::getTrainNumber).toList());
+      assertEquals(trainDepartureRegistry.version(), snapshot.getVersion());
+      trainDepartureRegistry.addDelay(3, 5);
+      assertEquals(0, snapshot.findTrainDeparture(3).getDelay());
+      assertTrue(trainDepartureRegistry.trainDeparturesTo("unknown").getTrainDepartures()
+          .isEmpty());
+    }
+
+    @Test
+    @DisplayName("findTrainDeparture returns a copy, or null on unknown train number")
+    void findTrainDepartureReturnsCopyOrNull() {
+      TrainDeparture found = trainDepartureRegistry.findTrainDeparture(2);
+      assertEquals(trainDepartureRegistry.trainDepartureString(2), found.toString());
+      trainDepartureRegistry.setTrack(2, 4);
+      assertEquals(-1, found.getTrack());
+      assertNull(trainDepartureRegistry.findTrainDeparture(4));
+    }
+
     @Test
     @DisplayName("sortedByDepartureTime returns correct list of train numbers "
         + "sorted by departure time")
@@ -242,6 +346,89 @@ public class TrainDepartureRegistryTest {
       assertEquals(expectedList, trainDepartureRegistry.sortedByDepartureTime());
     }
 
+    @Test
+    @DisplayName("sortedByDepartureTime keeps scheduled order after delay is added")
+    void sortedByDepartureTimeKeepsScheduledOrderAfterDelay() {
+      trainDepartureRegistry.addDelay(1, 90);
+      assertEquals(List.of(1, 2, 3), trainDepartureRegistry.sortedByDepartureTime());
+    }
+
+    @Test
+    @DisplayName("sortedByDepartureTimeWithDelay returns train numbers "
+        + "sorted by departure time with delay")
+    void sortedByDepartureTimeWithDelayReturnsTrainNumbersSortedByDelayedTime() {
+      trainDepartureRegistry.addDelay(1, 90);
+      assertEquals(List.of(2, 3, 1), trainDepartureRegistry.sortedByDepartureTimeWithDelay());
+    }
+
+    @Test
+    @DisplayName("sortedByDepartureTimeWithDelay does not contain removed train departures")
+    void sortedByDepartureTimeWithDelayDoesNotContainRemovedTrainDepartures() {
+      trainDepartureRegistry.removeTrainDeparture(2);
+      assertEquals(List.of(1, 3), trainDepartureRegistry.sortedByDepartureTimeWithDelay());
+      assertEquals(List.of(1, 3), trainDepartureRegistry.sortedByDepartureTime());
+    }
+
+    @Test
+    @DisplayName("snapshot is not changed by later mutations")
+    void snapshotIsNotChangedByLaterMutations() {
+      var snapshot = trainDepartureRegistry.snapshot();
+      trainDepartureRegistry.addDelay(1, 90);
+      trainDepartureRegistry.removeTrainDeparture(2);
+      assertEquals(3, snapshot.size());
+      assertEquals(0, snapshot.getTrainDepartures().get(0).getDelay());
+      assertEquals(List.of(3, 1), trainDepartureRegistry.snapshot().getTrainDepartures().stream()
+          .map(TrainDeparture::getTrainNumber).toList());
+    }
+
+    @Test
+    @DisplayName("snapshots follow random mutations, whether updated in place or rebuilt")
+    void snapshotsFollowRandomMutations() {
+      var random = new Random(7);
+      for (int round = 0; round < 200; round++) {
+        var before = trainDepartureRegistry.snapshot();
+        String beforeText = before.toString();
+        int changes = round % 20 == 0 ? 500 : random.nextInt(5);
+        for (int i = 0; i < changes; i++) {
+          int trainNumber = 1 + random.nextInt(300);
+          int operation = random.nextInt(4);
+          if (!trainDepartureRegistry.containsTrainNumber(trainNumber)) {
+            trainDepartureRegistry.newTrainDeparture(trainNumber, "line", "destination",
+                LocalTime.of(random.nextInt(24), random.nextInt(60)));
+          } else if (operation == 0) {
+            trainDepartureRegistry.removeTrainDeparture(trainNumber);
+          } else if (operation == 1) {
+            trainDepartureRegistry.setTrack(trainNumber, 1 + random.nextInt(9));
+          } else {
+            trainDepartureRegistry.addDelay(trainNumber, 1 + random.nextInt(90));
+          }
+        }
+        var snapshot = trainDepartureRegistry.snapshot();
+        assertEquals(beforeText, before.toString());
+        assertEquals(trainDepartureRegistry.sortedByDepartureTimeWithDelay(),
+            snapshot.getTrainDepartures().stream().map(TrainDeparture::getTrainNumber).toList());
+        for (TrainDeparture trainDeparture : snapshot.getTrainDepartures()) {
+          assertEquals(trainDepartureRegistry.trainDepartureString(
+              trainDeparture.getTrainNumber()), trainDeparture.toString());
+        }
+      }
+    }
+
+    @Test
+    @DisplayName("upcomingTrainDepartures returns pages of departures at or after time")
+    void upcomingTrainDeparturesReturnsPagesOfDeparturesAtOrAfterTime() {
+      trainDepartureRegistry.addDelay(1, 90);
+      trainDepartureRegistry.newTrainDeparture(4, "line4", "destination4", LocalTime.of(0, 1));
+      assertEquals(List.of(2, 4), trainDepartureRegistry
+          .upcomingTrainDepartures(LocalTime.of(0, 1), 0, 2).getTrainDepartures().stream()
+          .map(TrainDeparture::getTrainNumber).toList());
+      assertEquals(List.of(3, 1), trainDepartureRegistry
+          .upcomingTrainDepartures(LocalTime.of(0, 1), 2, 2).getTrainDepartures().stream()
+          .map(TrainDeparture::getTrainNumber).toList());
+      assertEquals(0, trainDepartureRegistry
+          .upcomingTrainDepartures(LocalTime.of(1, 30, 0, 1), 0, 2).size());
+    }
+
     @Test
     @DisplayName("trainDepartureString returns correct string representation of "
         + "the train departure")
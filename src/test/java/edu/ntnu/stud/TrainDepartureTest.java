@@ -203,6 +203,15 @@ public class TrainDepartureTest {
       assertEquals(LocalTime.of(0, 1), trainDeparture.departureTimeWithDelay());
     }
 
+    @Test
+    @DisplayName("departureSecondOfDayWithDelay wraps around midnight like departureTimeWithDelay")
+    void trainDepartureDepartureSecondOfDayWithDelayWrapsAroundMidnight() {
+      trainDeparture.addDelay(25 * 60 + 1);
+      assertEquals(trainDeparture.departureTimeWithDelay().toSecondOfDay(),
+          trainDeparture.departureSecondOfDayWithDelay());
+      assertEquals(3660, trainDeparture.departureSecondOfDayWithDelay());
+    }
+
     @Nested
     @DisplayName("trainInfo returns correct HashMap")
     public class TrainInfoReturnsCorrectHashMap {
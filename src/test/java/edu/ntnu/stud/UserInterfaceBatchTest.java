@@ -0,0 +1,108 @@
+package edu.ntnu.stud;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.stud.models.TrainDepartureRegistry;
+import edu.ntnu.stud.view.BatchResult;
+import edu.ntnu.stud.view.UserInterface;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+public class UserInterfaceBatchTest {
+  private TrainDepartureRegistry registry;
+  private ByteArrayOutputStream output;
+  private UserInterface userInterface;
+
+  @BeforeEach
+  void setUp() {
+    registry = new TrainDepartureRegistry();
+    output = new ByteArrayOutputStream();
+    userInterface = new UserInterface(registry, new PrintStream(output, true));
+  }
+
+  /**
+   * Runs a script of commands.
+   *
+   * @param lines the lines of the script
+   * @return the result of the script
+   * @throws IOException if the script cannot be read
+   */
+  private BatchResult run(String... lines) throws IOException {
+    var script = new BufferedReader(new StringReader(String.join("\n", lines)));
+    return userInterface.runBatch(script);
+  }
+
+  @Nested
+  @DisplayName("Positive tests for running scripts")
+  public class PositiveTests {
+
+    @Test
+    @DisplayName("Commands are run in order without waiting for the user")
+    void commandsAreRunInOrderWithoutWaitingForUser() throws IOException {
+      BatchResult result = run(
+          "# a short day",
+          "train add 1 A1 Oslo 06:00",
+          "train add 2 A2 Bergen 07:00",
+          "",
+          "train edit addDelay 2 15",
+          "train edit setTrack 1 3",
+          "train list",
+          "train informationBoard",
+          "time 06:30");
+      assertEquals(7, result.getCommands());
+      assertEquals(0, result.getFailed());
+      assertEquals(List.of(2), registry.sortedByDepartureTimeWithDelay());
+      assertEquals("15 min", registry.getAllFromTrainNumber(2).get("delay"));
+      assertFalse(output.toString().contains("Press enter"));
+    }
+
+    @Test
+    @DisplayName("Exit ends the script")
+    void exitEndsTheScript() throws IOException {
+      BatchResult result = run("train add 1 A1 Oslo 06:00", "exit", "train add 2 A2 Oslo 07:00");
+      assertEquals(2, result.getCommands());
+      assertEquals(1, registry.size());
+    }
+  }
+
+  @Nested
+  @DisplayName("Negative tests for running scripts")
+  public class NegativeTests {
+
+    @Test
+    @DisplayName("Failed commands are counted and the script goes on")
+    void failedCommandsAreCountedAndScriptGoesOn() throws IOException {
+      BatchResult result = run(
+          "train add 1 A1 Oslo 06:00",
+          "train add 1 A1 Oslo 06:00",
+          "train edit addDelay x 5",
+          "train",
+          "fly away",
+          "train add prompt",
+          "train liveBoard",
+          "train add 2 A2 Bergen 07:00");
+      assertEquals(8, result.getCommands());
+      assertEquals(6, result.getFailed());
+      assertEquals(6, result.getErrors().size());
+      assertTrue(result.getErrors().get(0).startsWith("Line 2: train add 1 A1 Oslo 06:00"));
+      assertEquals(2, registry.size());
+    }
+
+    @Test
+    @DisplayName("Running throws IllegalArgumentException on null script")
+    void runningThrowsExceptionOnNullScript() {
+      assertThrows(IllegalArgumentException.class, () -> userInterface.runBatch(null));
+    }
+  }
+}